@@ -1,105 +1,73 @@
 package com.tesoramobil.gateway.beans;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cloud.gateway.route.RouteLocator;
-import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
 
 import com.tesoramobil.gateway.filters.AuthServiceFilter;
+import com.tesoramobil.gateway.filters.CoalescingGatewayFilterFactory;
+import com.tesoramobil.gateway.filters.CompressionGatewayFilterFactory;
 import com.tesoramobil.gateway.filters.GruposServiceFilter;
-
+import com.tesoramobil.gateway.filters.IdentityPropagationGatewayFilterFactory;
+import com.tesoramobil.gateway.filters.RateLimitGatewayFilterFactory;
+import com.tesoramobil.gateway.filters.ResilienceGatewayFilterFactory;
+import com.tesoramobil.gateway.filters.ResponseCacheGatewayFilterFactory;
+import com.tesoramobil.gateway.routing.RouteFilters;
+import com.tesoramobil.gateway.security.IdentityPropagationProperties;
+
+/**
+ * Filtros disponibles para las rutas declarativas.
+ * Las rutas (paths, URI y filtros por perfil) viven en {@code gateway.routes.definitions} del application.yml
+ * y las carga {@link com.tesoramobil.gateway.routing.DynamicRouteLocator}.
+ */
 @Configuration // Esta clase contiene beans de configuración para el Gateway
 public class GatewayRoutesConfigBean {
 
     @Autowired
-    AuthServiceFilter authFilter; 
+    AuthServiceFilter authFilter;
 
     @Autowired
     GruposServiceFilter gruposServiceFilter;
-    // 🔌 Rutas locales SIN Eureka
-    @Bean
-    @Profile("eureka-off") // Este bean solo se activa cuando el perfil "eureka-off" está activo
-    public RouteLocator routeLocatorEurekaOff(RouteLocatorBuilder builder) {
-        System.out.println("🚧 Configurando rutas SIN Eureka");
-
-        return builder.routes()
 
-            // Ruta hacia auth-service en localhost:8082
-            .route("auth-service", r -> r
-                .path("/gateway/auth-service/authentication/**") // Si la ruta coincide con esto...
-                .filters(f -> f.stripPrefix(1)) // Le quitamos el prefijo "/gateway"
-                .uri("http://localhost:8082")) // Redirigimos a este servicio directamente
+    @Autowired
+    IdentityPropagationGatewayFilterFactory identityPropagation;
 
-            // Ruta hacia grupos-service en localhost:8081
-            .route("grupos-service", r -> r
-                .path("/gateway/grupos-service/api/grupos/**")
-                .filters(f -> f.stripPrefix(1))
-                .uri("http://localhost:8081"))
+    @Autowired
+    IdentityPropagationProperties identityProperties;
 
-            .build();
-    }
+    @Autowired
+    RateLimitGatewayFilterFactory rateLimit;
 
-    // ☁️ Rutas usando Eureka
-    @Bean
-    @Profile("eureka-on") // Este bean se activa con el perfil "eureka-on"
-    public RouteLocator routeLocatorEurekaOn(RouteLocatorBuilder builder) {
-        System.out.println("☁️ Configurando rutas CON Eureka");
+    @Autowired
+    ResponseCacheGatewayFilterFactory responseCache;
 
-        return builder.routes()
+    @Autowired
+    ResilienceGatewayFilterFactory resilience;
 
-            // Ruta hacia auth-service registrado en Eureka
-            .route("auth-service", r -> r
-                .path("/gateway/auth-service/authentication/**")
-                .filters(f -> f.stripPrefix(1))
-                .uri("lb://auth-service")) // lb:// significa "load-balanced", busca en Eureka
+    @Autowired
+    CompressionGatewayFilterFactory compression;
 
-            // Ruta hacia grupos-service registrado en Eureka
-            .route("grupos-service", r -> r
-                .path("/gateway/grupos-service/api/grupos/**")
-                .filters(f -> f.stripPrefix(1))
-                .uri("lb://grupos-service"))
+    @Autowired
+    CoalescingGatewayFilterFactory coalescing;
 
+    // 🧩 Nombre usado en gateway.routes.definitions[].filters -> filtro (los "forRoute" leen la config de cada ruta)
+    @Bean
+    public RouteFilters routeFilters() {
+        return RouteFilters.builder()
+            .register("auth-service-filter", authFilter) // 🔐 JWT + permisos de auth-service
+            .register("grupos-service-filter", gruposServiceFilter) // 🔐 JWT + permisos de grupos-service
+            .registerWithArgs("rate-limit", rateLimit::forRoute) // rate-limit=<por segundo>, <ráfaga>, <USER|IP|ROUTE>
+            .register("compression", compression::forRoute) // gzip negociado; nivel y umbrales en gateway.compression.routes
+            .register("response-cache", responseCache::forRoute) // GET cacheados por usuario
+            .register("coalescing", coalescing::forRoute) // GETs idénticos en curso comparten una llamada
+            .register("identity", this::identityFilter) // identidad firmada hacia el servicio
+            .register("resilience", resilience::forRoute) // circuit breaker + bulkhead + reintentos (al final)
             .build();
     }
 
-    // 🔐 Rutas seguras con perfil OAUTH2 (autenticación + validación de token)
-    @Bean
-    @Profile("oauth2") // Solo se activa cuando el perfil es "oauth2"
-    RouteLocator routeLocatorOauth2(RouteLocatorBuilder builder) {
-        System.out.println("🔐 Configurando rutas seguras con perfil OAUTH2");
-
-        return builder
-            .routes()
-
-            // 🔐 auth-service protegido con authFilter es mi Service de Usuarios 
-            //Lo usare para creacion de usuarios
-            .route("auth-service", route -> route
-            	.path("/gateway/auth-service/**")
-                .filters(filter -> filter
-                    .stripPrefix(1) 
-                    .filter(this.authFilter)
-                )
-                .uri("lb://auth-service") // se busca en Eureka
-            )
-
-            // 🔐 grupos-service protegido también
-            .route("grupos-service", route -> route
-                .path("/gateway/grupos-service/**")
-                .filters(filter -> {
-                    filter.stripPrefix(1);
-                    filter.filter(this.gruposServiceFilter);
-                    return filter;
-                })
-                .uri("lb://grupos-service")
-            )
-
-            // 📥 auth-server no requiere filtro (acá se hace el login, generación de token, etc.)
-            .route("auth-server", route -> route
-            	    .path("/auth-server/auth/**")
-            	    .uri("lb://auth-server")
-            	)
-            .build();
+    // 🪪 Headers internos firmados con la identidad verificada (KEEP/STRIP del token según gateway.identity.token-mode)
+    private GatewayFilter identityFilter(String routeId) {
+        return identityPropagation.apply(config -> config.setTokenMode(identityProperties.tokenModeFor(routeId)));
     }
 }
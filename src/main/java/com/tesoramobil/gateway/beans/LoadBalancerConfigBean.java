@@ -0,0 +1,13 @@
+package com.tesoramobil.gateway.beans;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+import com.tesoramobil.gateway.loadbalancing.LatencyAwareLoadBalancerConfiguration;
+
+@Configuration // Balanceador por latencia (P2C + peak-EWMA) para todos los servicios lb://
+@ConditionalOnProperty(prefix = "gateway.load-balancing", name = "enabled", matchIfMissing = true)
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfigBean {
+}
@@ -0,0 +1,31 @@
+package com.tesoramobil.gateway.beans;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.tesoramobil.gateway.ratelimit.InProcessSharedStateStore;
+import com.tesoramobil.gateway.ratelimit.LocalRateLimitBackend;
+import com.tesoramobil.gateway.ratelimit.RateLimitBackend;
+import com.tesoramobil.gateway.ratelimit.RateLimitProperties;
+import com.tesoramobil.gateway.ratelimit.SharedStateStore;
+import com.tesoramobil.gateway.ratelimit.SharedStoreRateLimitBackend;
+
+@Configuration // Backend de rate limiting según gateway.rate-limit.backend
+public class RateLimitConfigBean {
+
+    // 🧪 Store compartido de desarrollo; un bean SharedStateStore real (Redis, etc.) lo reemplaza
+    @Bean
+    @ConditionalOnMissingBean
+    SharedStateStore sharedStateStore() {
+        return new InProcessSharedStateStore();
+    }
+
+    @Bean
+    RateLimitBackend rateLimitBackend(RateLimitProperties properties, SharedStateStore sharedStateStore) {
+        return switch (properties.getBackend()) {
+            case LOCAL -> new LocalRateLimitBackend(properties.getMaxKeys(), properties.getIdleTimeout());
+            case SHARED -> new SharedStoreRateLimitBackend(sharedStateStore);
+        };
+    }
+}
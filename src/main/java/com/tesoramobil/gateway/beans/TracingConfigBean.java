@@ -0,0 +1,27 @@
+package com.tesoramobil.gateway.beans;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.tesoramobil.gateway.tracing.FileSpanExporter;
+import com.tesoramobil.gateway.tracing.InMemorySpanExporter;
+import com.tesoramobil.gateway.tracing.SpanExporter;
+import com.tesoramobil.gateway.tracing.TracingProperties;
+
+@Configuration // Exportador de spans según gateway.tracing.exporter
+public class TracingConfigBean {
+
+    // 🔭 Un bean SpanExporter propio (OTLP, Zipkin, ...) reemplaza a los locales
+    @Bean
+    @ConditionalOnMissingBean
+    SpanExporter spanExporter(TracingProperties properties) {
+        return switch (properties.getExporter()) {
+            case MEMORY -> new InMemorySpanExporter(properties.getMemory().getCapacity());
+            case FILE -> new FileSpanExporter(Path.of(properties.getFile().getPath()), properties.getFile().getQueueCapacity());
+            case NONE -> spans -> { };
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.tesoramobil.gateway.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+/**
+ * Acumula el cuerpo de una respuesta en un ByteBuffer directo, copiando cada chunk antes de que Netty lo escriba
+ * (el chunk sigue su camino al cliente). Pasado {@code maxBytes} descarta lo acumulado.
+ * Un solo ByteBuffer directo por respuesta, del tamaño exacto (se liberan solo por GC, así que no se reasignan):
+ * - Con Content-Length se reserva de entrada y se llena sin copias extra.
+ * - Sin Content-Length los chunks se copian al heap y se reserva al terminar, ya con el tamaño final.
+ */
+public final class BodyCapture {
+
+    private final int maxBytes;
+    private ByteBuffer sized;
+    private List<byte[]> chunks;
+    private int size;
+    private boolean overflow;
+
+    /**
+     * @param declaredLength Content-Length de la respuesta, o negativo si no se conoce.
+     */
+    public BodyCapture(long declaredLength, int maxBytes) {
+        this.maxBytes = maxBytes;
+        if (declaredLength > maxBytes) {
+            overflow = true;
+        } else if (declaredLength >= 0) {
+            sized = ByteBuffer.allocateDirect((int) declaredLength);
+        } else {
+            chunks = new ArrayList<>();
+        }
+    }
+
+    public void append(DataBuffer chunk) {
+        if (overflow) {
+            return;
+        }
+        int length = chunk.readableByteCount();
+        if (size + length > (sized != null ? sized.capacity() : maxBytes)) {
+            discard(); // más grande que el máximo o que el Content-Length declarado
+            return;
+        }
+        if (sized != null) {
+            chunk.toByteBuffer(chunk.readPosition(), sized, size, length);
+        } else {
+            byte[] copy = new byte[length];
+            chunk.toByteBuffer(chunk.readPosition(), ByteBuffer.wrap(copy), 0, length);
+            chunks.add(copy);
+        }
+        size += length;
+    }
+
+    /**
+     * Cuerpo final de tamaño exacto y solo lectura (null si excedió el máximo o no llegó el Content-Length declarado).
+     */
+    public ByteBuffer finish() {
+        if (overflow) {
+            return null;
+        }
+        if (sized != null) {
+            return size == sized.capacity() ? sized.asReadOnlyBuffer() : null;
+        }
+        ByteBuffer body = ByteBuffer.allocateDirect(size);
+        chunks.forEach(body::put);
+        return body.flip().asReadOnlyBuffer();
+    }
+
+    private void discard() {
+        overflow = true;
+        sized = null;
+        chunks = null;
+    }
+}
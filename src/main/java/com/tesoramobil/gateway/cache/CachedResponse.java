@@ -0,0 +1,25 @@
+package com.tesoramobil.gateway.cache;
+
+import java.nio.ByteBuffer;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * Respuesta cacheada. El cuerpo vive en un ByteBuffer directo (off-heap) de solo lectura;
+ * cada hit lo sirve con {@code duplicate()} sin copiarlo.
+ *
+ * @param headers Headers de la respuesta original (solo lectura, sin Set-Cookie ni hop-by-hop).
+ * @param expiresAtNanos Instante (System.nanoTime) en que deja de ser fresca.
+ */
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, ByteBuffer body, String etag, long expiresAtNanos) {
+
+    public int size() {
+        return body.capacity();
+    }
+
+    /** Segundos de frescura restantes, para el max-age del Cache-Control. */
+    public long remainingSeconds() {
+        return Math.max(0, (expiresAtNanos - System.nanoTime()) / 1_000_000_000L);
+    }
+}
@@ -0,0 +1,44 @@
+package com.tesoramobil.gateway.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+/**
+ * Configuración del cache de respuestas ({@code gateway.response-cache.*}), con ajustes por id de ruta.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    /** Tamaño total máximo de los cuerpos cacheados (memoria off-heap). */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /** Las respuestas más grandes que esto no se cachean. */
+    private DataSize maxEntrySize = DataSize.ofKilobytes(512);
+
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class Route {
+
+        private Duration ttl = Duration.ofSeconds(30);
+
+        /** Prefijos (por segmento) de los GET que se cachean. */
+        private List<String> paths = new ArrayList<>();
+
+        /** Un POST/PUT/PATCH/DELETE exitoso bajo este prefijo invalida el cache de la ruta. */
+        private String invalidatePrefix;
+    }
+}
@@ -0,0 +1,84 @@
+package com.tesoramobil.gateway.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Almacén de respuestas cacheadas.
+ * - Acotado por el tamaño total de los cuerpos (weigher), con TTL por entrada.
+ * - Invalidación O(1) por generación: cada ruta tiene un contador que forma parte de la llave;
+ *   una mutación lo incrementa y las entradas anteriores quedan inaccesibles hasta que expiran o se expulsan.
+ * - Métricas en actuator como {@code cache.*{cache=gateway-responses}}.
+ */
+@Component
+public class ResponseCacheStore {
+
+    /**
+     * Llave de una respuesta: ruta, generación, usuario autenticado y path + query. No incluye la codificación:
+     * se guarda solo la representación sin codificar (ver ResponseCacheGatewayFilterFactory).
+     */
+    public record Key(String routeId, long generation, long userId, String pathAndQuery) {
+    }
+
+    private final Cache<Key, CachedResponse> cache;
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public ResponseCacheStore(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((Key key, CachedResponse response) -> response.size() + key.pathAndQuery().length())
+                .expireAfter(new Expiry<Key, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(Key key, CachedResponse response, long currentTime) {
+                        return Math.max(0, response.expiresAtNanos() - System.nanoTime());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, CachedResponse response, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, response, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, CachedResponse response, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway-responses");
+    }
+
+    public Key key(String routeId, long userId, String pathAndQuery) {
+        return new Key(routeId, generation(routeId).get(), userId, pathAndQuery);
+    }
+
+    public CachedResponse get(Key key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(Key key, CachedResponse response) {
+        cache.put(key, response);
+    }
+
+    /**
+     * Invalida todas las respuestas cacheadas de la ruta.
+     */
+    public void invalidate(String routeId) {
+        generation(routeId).incrementAndGet();
+    }
+
+    private AtomicLong generation(String routeId) {
+        return generations.computeIfAbsent(routeId, id -> new AtomicLong());
+    }
+}
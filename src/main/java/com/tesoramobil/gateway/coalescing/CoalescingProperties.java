@@ -0,0 +1,50 @@
+package com.tesoramobil.gateway.coalescing;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+/**
+ * Coalescing de GETs idénticos concurrentes ({@code gateway.coalescing.*}), con ajustes por id de ruta.
+ * Solo aplica en las rutas que declaran el filtro "coalescing".
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.coalescing")
+public class CoalescingProperties {
+
+    private boolean enabled = true;
+
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    /**
+     * Con quién se puede compartir una respuesta.
+     */
+    public enum Scope {
+        /** Solo entre peticiones del mismo usuario (claim id). */
+        USER,
+        /** Entre usuarios con el mismo rol: solo para recursos que no dependen del usuario. */
+        ROLE
+    }
+
+    @Data
+    public static class Route {
+
+        private Scope scope = Scope.USER;
+
+        /** Peticiones que pueden esperar a una misma llamada; las siguientes van directo al servicio. */
+        private int maxWaiters = 256;
+
+        /** Espera máxima de una petición agrupada (504 al vencer). */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /** Respuestas más grandes no se comparten: cada petición en espera hace su propia llamada. */
+        private DataSize maxBodySize = DataSize.ofKilobytes(512);
+    }
+}
@@ -0,0 +1,48 @@
+package com.tesoramobil.gateway.compression;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+/**
+ * Compresión de respuestas y descompresión de peticiones ({@code gateway.compression.*}), con ajustes por id de ruta.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.compression")
+public class CompressionProperties {
+
+    private boolean enabled = true;
+
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class Route {
+
+        /** Nivel gzip: 1 (rápido) a 9 (máxima compresión). */
+        private int level = 5;
+
+        /** Respuestas con Content-Length menor no se comprimen (sin Content-Length se comprime). */
+        private DataSize minSize = DataSize.ofKilobytes(1);
+
+        /** Content-Types comprimibles (admite comodines, p. ej. text/*). */
+        private List<String> mimeTypes = new ArrayList<>(List.of("application/json", "application/*+json",
+                "text/*", "application/javascript", "application/xml"));
+
+        /** Content-Types que nunca se comprimen aunque entren en {@code mime-types}: streaming de eventos por defecto. */
+        private List<String> excludedMimeTypes = new ArrayList<>(List.of("text/event-stream", "application/x-ndjson"));
+
+        /** Descomprime cuerpos de petición con {@code Content-Encoding: gzip} antes de enviarlos al servicio. */
+        private boolean decompressRequests;
+
+        /** Tamaño máximo de un cuerpo de petición ya descomprimido (413 si se supera). */
+        private DataSize maxRequestSize = DataSize.ofMegabytes(10);
+    }
+}
@@ -0,0 +1,209 @@
+package com.tesoramobil.gateway.compression;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+/**
+ * Descompresor gzip (RFC 1952) incremental para cuerpos de petición.
+ * - El header puede llegar partido entre chunks; se interpreta byte a byte hasta el inicio del stream deflate.
+ * - Corta con {@link DataBufferLimitException} (413) si el cuerpo descomprimido supera {@code maxSize}.
+ * - Verifica CRC32 y tamaño del trailer; solo admite un miembro gzip.
+ * No es thread-safe: una instancia por petición, y siempre {@link #close()} al terminar.
+ */
+public final class GzipDecoder implements AutoCloseable {
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private enum Stage { HEADER, EXTRA_LENGTH, EXTRA, NAME, COMMENT, HEADER_CRC, DATA, TRAILER, DONE }
+
+    private final long maxSize;
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] scratch = new byte[8192];
+    private final byte[] trailer = new byte[8];
+
+    private Stage stage = Stage.HEADER;
+    private int flags;
+    private int pending = 10;
+    private int extraLength;
+    private int read;
+
+    public GzipDecoder(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Descomprime un chunk (no lo libera).
+     *
+     * @return Bytes descomprimidos disponibles, o null si el chunk solo traía header o datos aún sin salida.
+     * @throws DataBufferLimitException si se supera el tamaño máximo.
+     * @throws IllegalStateException    si el cuerpo no es gzip válido.
+     */
+    public DataBuffer decode(DataBuffer chunk, DataBufferFactory factory) {
+        DataBuffer out = null;
+        try (DataBuffer.ByteBufferIterator buffers = chunk.readableByteBuffers()) {
+            while (buffers.hasNext()) {
+                ByteBuffer input = buffers.next();
+                while (input.hasRemaining()) {
+                    if (stage == Stage.DATA) {
+                        out = inflate(input, out, factory);
+                    } else {
+                        header(input.get());
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Confirma que el stream terminó completo y con trailer correcto.
+     */
+    public void finish() {
+        if (stage != Stage.DONE) {
+            throw new IllegalStateException("Cuerpo gzip incompleto");
+        }
+    }
+
+    private DataBuffer inflate(ByteBuffer input, DataBuffer out, DataBufferFactory factory) {
+        inflater.setInput(input);
+        try {
+            while (!inflater.finished() && !inflater.needsInput()) {
+                int written = inflater.inflate(scratch);
+                if (written == 0 && inflater.needsDictionary()) {
+                    throw new IllegalStateException("Cuerpo gzip con diccionario no soportado");
+                }
+                if (written > 0) {
+                    if (inflater.getBytesWritten() > maxSize) {
+                        if (out != null) {
+                            DataBufferUtils.release(out);
+                        }
+                        throw new DataBufferLimitException("Cuerpo descomprimido mayor a " + maxSize + " bytes");
+                    }
+                    crc.update(scratch, 0, written);
+                    out = (out != null ? out : factory.allocateBuffer(Math.max(written, Math.min(input.remaining() * 4, 64 * 1024))))
+                            .write(scratch, 0, written);
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Cuerpo gzip inválido", e);
+        }
+        if (inflater.finished()) {
+            // Lo que quede en el chunk después del stream deflate es el trailer
+            input.position(input.limit() - inflater.getRemaining());
+            stage = Stage.TRAILER;
+            pending = 8;
+            read = 0;
+        }
+        return out;
+    }
+
+    private void header(byte value) {
+        int b = value & 0xff;
+        switch (stage) {
+            case HEADER -> {
+                if ((read == 0 && b != 0x1f) || (read == 1 && b != 0x8b) || (read == 2 && b != 8)) {
+                    throw new IllegalStateException("El cuerpo no es gzip");
+                }
+                if (read == 3) {
+                    flags = b;
+                }
+                if (++read == pending) {
+                    next();
+                }
+            }
+            case EXTRA_LENGTH -> {
+                extraLength |= b << (8 * read);
+                if (++read == 2) {
+                    pending = extraLength;
+                    read = 0;
+                    if (pending == 0) {
+                        flags &= ~FEXTRA;
+                        next();
+                    } else {
+                        stage = Stage.EXTRA;
+                    }
+                }
+            }
+            case EXTRA -> {
+                if (++read == pending) {
+                    flags &= ~FEXTRA;
+                    next();
+                }
+            }
+            case NAME -> {
+                if (b == 0) {
+                    flags &= ~FNAME;
+                    next();
+                }
+            }
+            case COMMENT -> {
+                if (b == 0) {
+                    flags &= ~FCOMMENT;
+                    next();
+                }
+            }
+            case HEADER_CRC -> {
+                if (++read == 2) {
+                    flags &= ~FHCRC;
+                    next();
+                }
+            }
+            case TRAILER -> {
+                trailer[read++] = value;
+                if (read == 8) {
+                    verifyTrailer();
+                    stage = Stage.DONE;
+                }
+            }
+            case DONE -> throw new IllegalStateException("Datos después del fin del cuerpo gzip");
+            default -> throw new IllegalStateException(stage.name());
+        }
+    }
+
+    /**
+     * Siguiente campo opcional del header, en el orden de RFC 1952.
+     */
+    private void next() {
+        read = 0;
+        if ((flags & FEXTRA) != 0 && stage == Stage.HEADER) {
+            stage = Stage.EXTRA_LENGTH;
+        } else if ((flags & FNAME) != 0) {
+            stage = Stage.NAME;
+        } else if ((flags & FCOMMENT) != 0) {
+            stage = Stage.COMMENT;
+        } else if ((flags & FHCRC) != 0) {
+            stage = Stage.HEADER_CRC;
+        } else {
+            stage = Stage.DATA;
+        }
+    }
+
+    private void verifyTrailer() {
+        long expectedCrc = intLe(0) & 0xffffffffL;
+        long expectedSize = intLe(4) & 0xffffffffL;
+        if (expectedCrc != crc.getValue() || expectedSize != (inflater.getBytesWritten() & 0xffffffffL)) {
+            throw new IllegalStateException("Trailer gzip inválido");
+        }
+    }
+
+    private int intLe(int offset) {
+        return (trailer[offset] & 0xff) | (trailer[offset + 1] & 0xff) << 8
+                | (trailer[offset + 2] & 0xff) << 16 | (trailer[offset + 3] & 0xff) << 24;
+    }
+
+    @Override
+    public void close() {
+        inflater.end();
+    }
+}
@@ -0,0 +1,202 @@
+package com.tesoramobil.gateway.compression;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+/**
+ * Compresor gzip (RFC 1952) incremental: cada chunk de entrada produce, si hay, un chunk comprimido;
+ * nunca retiene el cuerpo completo, solo el estado de zlib (~256 KB nativos por Deflater).
+ * - Los Deflater se reutilizan desde un pool por nivel (crearlos y liberarlos es lo más caro en respuestas chicas).
+ * - No es thread-safe: una instancia por respuesta. Al terminar, {@link #close()} (éxito o error, con el último
+ *   encode ya hecho) lo devuelve al pool; {@link #discard()} (cancelación, que puede llegar desde otro hilo
+ *   mientras se comprime) lo libera sin devolverlo.
+ */
+public final class GzipEncoder implements AutoCloseable {
+
+    private static final int POOL_SIZE = 64;
+
+    @SuppressWarnings("unchecked")
+    private static final Queue<Deflater>[] POOL = new Queue[Deflater.BEST_COMPRESSION + 1];
+
+    private static final AtomicInteger[] POOLED = new AtomicInteger[Deflater.BEST_COMPRESSION + 1];
+
+    static {
+        for (int level = 0; level < POOL.length; level++) {
+            POOL[level] = new ConcurrentLinkedQueue<>();
+            POOLED[level] = new AtomicInteger();
+        }
+    }
+
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff // sin mtime ni nombre, OS desconocido
+    };
+
+    private final int level;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] scratch = new byte[8192];
+    private boolean headerWritten;
+    private boolean closed;
+    private volatile boolean discarded;
+
+    public GzipEncoder(int level) {
+        this.level = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level));
+        Deflater pooled = POOL[this.level].poll();
+        if (pooled != null) {
+            POOLED[this.level].decrementAndGet();
+        }
+        this.deflater = pooled != null ? pooled : new Deflater(this.level, true);
+    }
+
+    /**
+     * Comprime un chunk (no lo libera).
+     *
+     * @return Bytes comprimidos disponibles, o null si zlib aún no emitió salida.
+     */
+    public DataBuffer encode(DataBuffer chunk, DataBufferFactory factory) {
+        if (discarded) {
+            return null;
+        }
+        DataBuffer out = null;
+        try (DataBuffer.ByteBufferIterator buffers = chunk.readableByteBuffers()) {
+            while (buffers.hasNext()) {
+                ByteBuffer input = buffers.next();
+                crc.update(input.duplicate());
+                deflater.setInput(input);
+                while (!deflater.needsInput()) {
+                    out = drain(out, factory, Deflater.NO_FLUSH, input.remaining());
+                }
+            }
+        } catch (NullPointerException e) {
+            return abandoned(out, e);
+        }
+        return out;
+    }
+
+    /**
+     * Entrega todo lo comprimido hasta ahora (SYNC_FLUSH): el cliente puede descomprimirlo sin esperar al final.
+     *
+     * @return Bytes comprimidos pendientes, o null si no hay.
+     */
+    public DataBuffer flush(DataBufferFactory factory) {
+        if (discarded) {
+            return null;
+        }
+        DataBuffer out = null;
+        try {
+            int written;
+            do {
+                written = deflater.deflate(scratch, 0, scratch.length, Deflater.SYNC_FLUSH);
+                out = append(out, factory, written, 64);
+            } while (written == scratch.length);
+        } catch (NullPointerException e) {
+            return abandoned(out, e);
+        }
+        return out;
+    }
+
+    /**
+     * Vacía zlib y agrega el trailer gzip (CRC32 + tamaño original).
+     */
+    public DataBuffer finish(DataBufferFactory factory) {
+        if (discarded) {
+            return null;
+        }
+        DataBuffer out = null;
+        long bytesRead;
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                out = drain(out, factory, Deflater.NO_FLUSH, 64);
+            }
+            bytesRead = deflater.getBytesRead();
+        } catch (NullPointerException e) {
+            return abandoned(out, e);
+        }
+        if (out == null) {
+            out = factory.allocateBuffer(HEADER.length + 8);
+            writeHeader(out);
+        }
+        writeIntLe(out, (int) crc.getValue());
+        writeIntLe(out, (int) bytesRead);
+        return out;
+    }
+
+    private DataBuffer drain(DataBuffer out, DataBufferFactory factory, int flush, int pending) {
+        return append(out, factory, deflater.deflate(scratch, 0, scratch.length, flush), pending);
+    }
+
+    private DataBuffer append(DataBuffer out, DataBufferFactory factory, int written, int pending) {
+        if (written == 0) {
+            return out;
+        }
+        if (out == null) {
+            out = factory.allocateBuffer(Math.max(written + HEADER.length, Math.min(pending / 2, 64 * 1024)));
+            writeHeader(out);
+        }
+        return out.write(scratch, 0, written);
+    }
+
+    private void writeHeader(DataBuffer out) {
+        if (!headerWritten) {
+            out.write(HEADER);
+            headerWritten = true;
+        }
+    }
+
+    private static void writeIntLe(DataBuffer out, int value) {
+        out.write((byte) value).write((byte) (value >>> 8)).write((byte) (value >>> 16)).write((byte) (value >>> 24));
+    }
+
+    /**
+     * Un Deflater liberado por {@link #discard()} en medio de un encode lanza NullPointerException: la respuesta
+     * ya fue cancelada, así que se descarta la salida en silencio.
+     */
+    private DataBuffer abandoned(DataBuffer out, NullPointerException e) {
+        if (!discarded) {
+            throw e;
+        }
+        if (out != null) {
+            DataBufferUtils.release(out);
+        }
+        return null;
+    }
+
+    /**
+     * Devuelve el Deflater al pool (o lo libera si el pool está lleno). Idempotente.
+     * Solo cuando ningún encode puede seguir en curso.
+     */
+    @Override
+    public void close() {
+        if (closed || discarded) {
+            return;
+        }
+        closed = true;
+        deflater.reset();
+        if (POOLED[level].incrementAndGet() <= POOL_SIZE) {
+            POOL[level].offer(deflater);
+        } else {
+            POOLED[level].decrementAndGet();
+            deflater.end();
+        }
+    }
+
+    /**
+     * Libera el Deflater sin devolverlo al pool; seguro aunque otro hilo esté comprimiendo. Idempotente.
+     */
+    public void discard() {
+        if (discarded || closed) {
+            return;
+        }
+        discarded = true;
+        deflater.end();
+    }
+}
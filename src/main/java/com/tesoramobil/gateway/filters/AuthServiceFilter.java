@@ -1,8 +1,17 @@
 package com.tesoramobil.gateway.filters;
 
+import com.tesoramobil.gateway.observability.AuthDecision;
+import com.tesoramobil.gateway.observability.GatewayMetrics;
+import com.tesoramobil.gateway.observability.GatewayMetrics.Phase;
+import com.tesoramobil.gateway.policy.AuthorizationPolicy;
+import com.tesoramobil.gateway.security.JwtClaimsCache;
+import com.tesoramobil.gateway.security.VerifiedIdentity;
+import com.tesoramobil.gateway.tracing.RequestTrace;
+import com.tesoramobil.gateway.tracing.SpanName;
 import com.tesoramobil.gateway.utils.AuthFilterUtils;
-import io.jsonwebtoken.Claims;
-import org.springframework.beans.factory.annotation.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.http.HttpStatus;
@@ -10,8 +19,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 /**
  * Filtro para proteger las rutas del auth-service.
@@ -22,65 +30,79 @@ import java.util.Map;
 @Component
 public class AuthServiceFilter implements GatewayFilter {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
-
-    // 🚀 Permisos para ADMIN (se usan como prefijos con startsWith)
-    private static final Map<String, List<String>> adminPermisos = Map.of(
-        "GET", List.of(
-            "/auth-service/authentication/usuarios",
-            "/auth-service/user/all"                // listar todos los usuarios
-        ),
-        "POST", List.of(
-            "/auth-service/authentication/changerol",
-            "/auth-service/user/create"
-        ),
-        "PUT", List.of(
-            "/auth-service/user/change",
-            "/auth-service/user/update"
-        ),
-        "DELETE", List.of(
-            "/auth-service/user"                   // con path variable /user/{id}
-        )
-    );
+    private static final Logger log = LoggerFactory.getLogger(AuthServiceFilter.class);
+
+    @Autowired
+    private JwtClaimsCache jwtClaimsCache;
+
+    @Autowired
+    private AuthorizationPolicy authorizationPolicy;
+
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
+
+    private static final String FILTER_NAME = "auth-service-filter";
+
+    // 🚀 Permisos para ADMIN: se leen de gateway.policy.rules.auth-service (application.yml)
+    private static final String POLICY = AuthorizationPolicy.AUTH_SERVICE;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         String path = exchange.getRequest().getPath().toString();
         String method = exchange.getRequest().getMethod().name();
 
-        System.out.println("AuthService: Solicitando acceso a: " + path + " [" + method + "]");
-
         // 🚪 Rutas públicas (NO requieren token)
         if (isPublicRoute(path)) {
-        	System.out.println("AuthService: es ruta publica! ");
+            AuthDecision.PUBLIC.mark(exchange, null);
             return chain.filter(exchange); // Deja pasar
         }
 
         // 🔒 Rutas protegidas (requieren token)
+        String routeId = GatewayMetrics.routeId(exchange);
+        long start = System.nanoTime();
+        RequestTrace.start(exchange, SpanName.AUTH, start);
         String token = AuthFilterUtils.extractToken(exchange);
+        long extracted = System.nanoTime();
+        gatewayMetrics.recordPhase(routeId, FILTER_NAME, Phase.TOKEN_EXTRACTION, extracted - start);
         if (token == null) {
             return AuthFilterUtils.onError(exchange, HttpStatus.BAD_REQUEST, "Missing or invalid Authorization header.");
         }
 
-        try {
-            Claims claims = AuthFilterUtils.decodeToken(token, secretKey);
-            String role = claims.get("roles", String.class);
-
-            System.out.println("AuthService: Rol extraído del token -> " + role);
-
-            // Validar permisos especiales de ADMIN
-            if (isAdminRequiredRoute(method, path)) {
-                if (!"ADMIN".equals(role)) {
-                    return AuthFilterUtils.onError(exchange, HttpStatus.FORBIDDEN, "Access Denied: Only ADMIN can access this resource.");
-                }
-            }
-
-            return chain.filter(exchange);
+        // Firma verificada desde cache o con la clave del kid (puede esperar la lectura del JWKS sin bloquear)
+        return jwtClaimsCache.verifyAsync(token)
+                .map(VerifiedIdentity::from)
+                .doFinally(signal -> {
+                    long verified = System.nanoTime();
+                    gatewayMetrics.recordPhase(routeId, FILTER_NAME, Phase.JWT_VERIFICATION, verified - extracted);
+                    RequestTrace.record(exchange, SpanName.JWT_VERIFICATION, extracted, verified);
+                })
+                .onErrorResume(e -> {
+                    log.debug("Error al decodificar token: {}", e.getClass().getSimpleName());
+                    return AuthFilterUtils.onVerificationError(exchange, e)
+                            .then(Mono.<VerifiedIdentity>empty());
+                })
+                .flatMap(identity -> authorize(exchange, chain, routeId, method, path, identity));
+    }
 
-        } catch (Exception e) {
-            return AuthFilterUtils.onError(exchange, HttpStatus.UNAUTHORIZED, "Invalid or expired token.");
+    private Mono<Void> authorize(ServerWebExchange exchange, GatewayFilterChain chain, String routeId,
+                                 String method, String path, VerifiedIdentity identity) {
+        identity.attach(exchange); // Para IdentityPropagation y filtros posteriores
+        String role = identity.role();
+        AuthDecision.recordRole(exchange, role);
+
+        // Validar permisos especiales de ADMIN
+        long checkStart = System.nanoTime();
+        Set<String> requiredRoles = requiredRoles(method, path);
+        boolean allowed = requiredRoles != null && (requiredRoles.isEmpty() || (role != null && requiredRoles.contains(role)));
+        gatewayMetrics.recordPhase(routeId, FILTER_NAME, Phase.PERMISSION_CHECK, System.nanoTime() - checkStart);
+        if (!allowed) {
+            log.debug("Rol {} sin permiso para {} {}", role, method, path);
+            return AuthFilterUtils.onError(exchange, HttpStatus.FORBIDDEN, "Access Denied: Only ADMIN can access this resource.");
         }
+
+        AuthDecision.ALLOWED.mark(exchange, role);
+        RequestTrace.end(exchange, SpanName.AUTH, System.nanoTime());
+        return chain.filter(exchange);
     }
 
     /**
@@ -92,12 +114,11 @@ public class AuthServiceFilter implements GatewayFilter {
     }
 
     /**
-     * Verifica si esta ruta requiere que el usuario sea ADMIN.
-     * Soporta rutas con variables como /user/change/{role} usando startsWith().
+     * Roles requeridos para esta ruta (vacío si no requiere ninguno en especial; null sin política: se deniega).
+     * Soporta rutas con variables como /user/change/{role} por prefijo de segmentos.
      */
-    private boolean isAdminRequiredRoute(String method, String path) {
-        return adminPermisos.getOrDefault(method, List.of())
-            .stream()
-            .anyMatch(path::startsWith);
+    private Set<String> requiredRoles(String method, String path) {
+        AuthorizationPolicy.Snapshot policy = authorizationPolicy.current();
+        return policy.contains(POLICY) ? policy.matcher(POLICY).match(method, path) : null;
     }
 }
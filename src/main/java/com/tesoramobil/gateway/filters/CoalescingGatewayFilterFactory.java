@@ -0,0 +1,348 @@
+package com.tesoramobil.gateway.filters;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.tesoramobil.gateway.cache.BodyCapture;
+import com.tesoramobil.gateway.coalescing.CoalescingProperties;
+import com.tesoramobil.gateway.coalescing.CoalescingProperties.Scope;
+import com.tesoramobil.gateway.observability.GatewayMetrics;
+import com.tesoramobil.gateway.security.VerifiedIdentity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Coalescing ("single-flight") de GETs idénticos concurrentes.
+ * - La primera petición (líder) hace la llamada al servicio; las idénticas que llegan mientras está en curso
+ *   esperan su respuesta (status, headers del servicio y cuerpo) y la reciben sin llamar al servicio.
+ * - Idénticas = misma ruta, path y query, mismo {@code Accept-Encoding} y mismo usuario (scope USER) o rol (scope ROLE).
+ *   Sin identidad no se agrupa. Una respuesta con un {@code Vary} que la llave no cubre no se comparte.
+ * - Se excluyen peticiones condicionales o con Range: su respuesta (304/206) no sirve a las demás.
+ * - Acotado: como mucho {@code max-waiters} en espera (el resto va directo al servicio) y {@code timeout} (504).
+ * - Solo se copia el cuerpo si hay peticiones esperando cuando llegan los headers del servicio; si no, o si la respuesta
+ *   supera {@code max-body-size} o el líder cancela, cada petición en espera hace su propia llamada;
+ *   si el líder falla, todas reciben el mismo error.
+ * - Debe declararse DESPUÉS del filtro de autorización (y de response-cache, para agrupar solo los miss).
+ */
+@Component
+public class CoalescingGatewayFilterFactory extends AbstractGatewayFilterFactory<CoalescingGatewayFilterFactory.Config> {
+
+    public static final String COALESCED_HEADER = "X-Coalesced";
+
+    private static final List<String> EXCLUDED_HEADERS = List.of(HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION,
+            "Keep-Alive", COALESCED_HEADER);
+
+    private final Map<Key, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    private final CoalescingProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    public CoalescingGatewayFilterFactory(CoalescingProperties properties, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        int maxBody = (int) Math.min(Integer.MAX_VALUE, config.getMaxBodySize().toBytes());
+        return (exchange, chain) -> {
+            if (!properties.isEnabled()) {
+                return chain.filter(exchange);
+            }
+            ServerHttpRequest request = exchange.getRequest();
+            String scope = scopeOf(exchange, config.getScope());
+            if (request.getMethod() != HttpMethod.GET || scope == null || isConditional(request.getHeaders())) {
+                return chain.filter(exchange);
+            }
+            String routeId = GatewayMetrics.routeId(exchange);
+            String query = request.getURI().getRawQuery();
+            String path = request.getPath().value();
+            Key key = new Key(routeId, scope, query == null ? path : path + '?' + query,
+                    acceptEncoding(request.getHeaders()));
+            Counters routeCounters = counters.computeIfAbsent(routeId, Counters::new);
+
+            Flight flight = new Flight(key);
+            Flight existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                routeCounters.leader.increment();
+                return lead(exchange, chain, flight, maxBody, config.getScope());
+            }
+            if (existing.waiters.incrementAndGet() > config.getMaxWaiters()) {
+                existing.waiters.decrementAndGet();
+                routeCounters.overflow.increment();
+                return chain.filter(exchange);
+            }
+            routeCounters.follower.increment();
+            return existing.result.asMono()
+                    .timeout(config.getTimeout())
+                    .doFinally(signal -> existing.waiters.decrementAndGet())
+                    .onErrorMap(TimeoutException.class, e -> {
+                        routeCounters.timeout.increment();
+                        return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Coalesced request timed out for " + routeId);
+                    })
+                    .flatMap(shared -> {
+                        if (shared == SharedResponse.NOT_SHAREABLE) {
+                            routeCounters.fallback.increment();
+                            return chain.filter(exchange);
+                        }
+                        return write(exchange.getResponse(), shared);
+                    });
+        };
+    }
+
+    /**
+     * Filtro con la configuración de {@code gateway.coalescing.routes.<routeId>} (o los valores por defecto).
+     */
+    public GatewayFilter forRoute(String routeId) {
+        CoalescingProperties.Route route = properties.getRoutes().getOrDefault(routeId, new CoalescingProperties.Route());
+        return apply(config -> {
+            config.setScope(route.getScope());
+            config.setMaxWaiters(route.getMaxWaiters());
+            config.setTimeout(route.getTimeout());
+            config.setMaxBodySize(route.getMaxBodySize());
+        });
+    }
+
+    private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, Flight flight, int maxBody, Scope scope) {
+        ServerHttpResponse response = exchange.getResponse();
+        Set<String> before = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        before.addAll(response.getHeaders().keySet());
+        LeaderResponse leader = new LeaderResponse(response, flight, before, maxBody, scope);
+        return chain.filter(exchange.mutate().response(leader).build())
+                .doOnError(flight::fail)
+                .doFinally(signal -> flight.publish(SharedResponse.NOT_SHAREABLE)); // sin efecto si ya se publicó
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status());
+        HttpHeaders headers = response.getHeaders();
+        shared.headers().forEach(headers::put);
+        headers.set(COALESCED_HEADER, "true");
+        if (shared.body().remaining() == 0) {
+            return response.setComplete();
+        }
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body().duplicate())));
+    }
+
+    private static String scopeOf(ServerWebExchange exchange, Scope scope) {
+        VerifiedIdentity identity = VerifiedIdentity.of(exchange);
+        if (identity == null) {
+            return null;
+        }
+        return switch (scope) {
+            case USER -> identity.userId() == null ? null : "u:" + identity.userId();
+            case ROLE -> identity.role() == null ? null : "r:" + identity.role();
+        };
+    }
+
+    /**
+     * Accept-Encoding normalizado: el servicio puede responder en gzip y esa representación no sirve a quien no la aceptó.
+     */
+    private static String acceptEncoding(HttpHeaders headers) {
+        List<String> values = headers.get(HttpHeaders.ACCEPT_ENCODING);
+        return values == null ? "" : String.join(",", values).replace(" ", "").toLowerCase();
+    }
+
+    private static boolean isConditional(HttpHeaders headers) {
+        return headers.containsKey(HttpHeaders.IF_NONE_MATCH) || headers.containsKey(HttpHeaders.IF_MODIFIED_SINCE)
+                || headers.containsKey(HttpHeaders.RANGE);
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private record Key(String routeId, String scope, String pathAndQuery, String acceptEncoding) {
+    }
+
+    /**
+     * Respuesta compartida: status, headers agregados por el servicio y cuerpo de solo lectura.
+     */
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, ByteBuffer body) {
+
+        private static final SharedResponse NOT_SHAREABLE = new SharedResponse(null, null, null);
+    }
+
+    /**
+     * Llamada en curso y sus peticiones en espera. Se retira del mapa al publicar, así las peticiones
+     * que lleguen después hacen una llamada nueva en lugar de recibir una respuesta ya entregada.
+     */
+    private final class Flight {
+
+        private final Key key;
+        private final Sinks.One<SharedResponse> result = Sinks.one();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        private Flight(Key key) {
+            this.key = key;
+        }
+
+        private void publish(SharedResponse response) {
+            inFlight.remove(key, this);
+            result.tryEmitValue(response);
+        }
+
+        private void fail(Throwable error) {
+            inFlight.remove(key, this);
+            result.tryEmitError(error);
+        }
+    }
+
+    /**
+     * Respuesta del líder: se envía al cliente sin demoras y, en paralelo, se copia para las peticiones en espera.
+     */
+    private static final class LeaderResponse extends ServerHttpResponseDecorator {
+
+        private final Flight flight;
+        private final Set<String> headersBefore;
+        private final int maxBody;
+        private final Scope scope;
+
+        private LeaderResponse(ServerHttpResponse delegate, Flight flight, Set<String> headersBefore, int maxBody, Scope scope) {
+            super(delegate);
+            this.flight = flight;
+            this.headersBefore = headersBefore;
+            this.maxBody = maxBody;
+            this.scope = scope;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long declaredLength = getHeaders().getContentLength();
+            if (declaredLength > maxBody || flight.waiters.get() == 0 || !keyCoversVary()) {
+                // Sin nadie esperando no se copia el cuerpo: las que lleguen desde ahora hacen su propia llamada
+                flight.publish(SharedResponse.NOT_SHAREABLE);
+                return super.writeWith(body);
+            }
+            // Headers del servicio al empezar el cuerpo: compression y response-cache los modifican al escribir
+            HttpHeaders upstream = upstreamHeaders();
+            BodyCapture capture = new BodyCapture(declaredLength, maxBody);
+            Flux<? extends DataBuffer> tee = Flux.from(body)
+                    .doOnNext(capture::append)
+                    .doOnComplete(() -> {
+                        ByteBuffer captured = capture.finish();
+                        flight.publish(captured == null ? SharedResponse.NOT_SHAREABLE : shared(upstream, captured));
+                    });
+            return super.writeWith(tee);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            flight.publish(SharedResponse.NOT_SHAREABLE); // streaming: cada petición hace su llamada
+            return super.writeAndFlushWith(body);
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            flight.publish(keyCoversVary() ? shared(upstreamHeaders(), ByteBuffer.allocate(0).asReadOnlyBuffer())
+                    : SharedResponse.NOT_SHAREABLE);
+            return super.setComplete();
+        }
+
+        /**
+         * Si la respuesta varía solo por headers que ya están en la llave (Accept-Encoding, y Authorization con scope USER).
+         */
+        private boolean keyCoversVary() {
+            for (String vary : getHeaders().getVary()) {
+                boolean covered = vary.equalsIgnoreCase(HttpHeaders.ACCEPT_ENCODING)
+                        || (scope == Scope.USER && vary.equalsIgnoreCase(HttpHeaders.AUTHORIZATION));
+                if (!covered) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Headers que agregó el servicio (los que no estaban al entrar al filtro), sin hop-by-hop
+         * y, si se comparte entre usuarios, sin Set-Cookie.
+         */
+        private HttpHeaders upstreamHeaders() {
+            HttpHeaders upstream = new HttpHeaders();
+            getHeaders().forEach((name, values) -> {
+                if (!headersBefore.contains(name) && EXCLUDED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)
+                        && !(scope != Scope.USER && name.equalsIgnoreCase(HttpHeaders.SET_COOKIE))) {
+                    upstream.put(name, List.copyOf(values));
+                }
+            });
+            return HttpHeaders.readOnlyHttpHeaders(upstream);
+        }
+
+        private SharedResponse shared(HttpHeaders upstream, ByteBuffer body) {
+            return new SharedResponse(getStatusCode() != null ? getStatusCode() : HttpStatus.OK, upstream, body);
+        }
+    }
+
+    /**
+     * Contadores {@code gateway.coalescing.requests{route,result}} de una ruta.
+     */
+    private final class Counters {
+
+        private final Counter leader;
+        private final Counter follower;
+        private final Counter overflow;
+        private final Counter timeout;
+        private final Counter fallback;
+
+        private Counters(String routeId) {
+            this.leader = counter(routeId, "leader");
+            this.follower = counter(routeId, "coalesced");
+            this.overflow = counter(routeId, "overflow");
+            this.timeout = counter(routeId, "timeout");
+            this.fallback = counter(routeId, "not-shareable");
+        }
+
+        private Counter counter(String routeId, String result) {
+            return Counter.builder("gateway.coalescing.requests")
+                    .description("GETs agrupados: leader llama al servicio, coalesced recibe la respuesta compartida")
+                    .tag("route", routeId)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Data
+    public static class Config {
+
+        private Scope scope = Scope.USER;
+
+        private int maxWaiters = 256;
+
+        private Duration timeout = Duration.ofSeconds(5);
+
+        private DataSize maxBodySize = DataSize.ofKilobytes(512);
+    }
+}
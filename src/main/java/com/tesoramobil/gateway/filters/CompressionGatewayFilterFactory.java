@@ -0,0 +1,318 @@
+package com.tesoramobil.gateway.filters;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.tesoramobil.gateway.compression.CompressionProperties;
+import com.tesoramobil.gateway.compression.GzipDecoder;
+import com.tesoramobil.gateway.compression.GzipEncoder;
+
+import lombok.Data;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Compresión gzip negociada de respuestas (y, opcional, descompresión de peticiones gzip).
+ * - Solo si el cliente envía {@code Accept-Encoding: gzip}, el Content-Type está en {@code mime-types}
+ *   y el Content-Length (si lo hay) alcanza {@code min-size}.
+ * - Comprime chunk a chunk a medida que llegan los DataBuffer del servicio: no acumula el cuerpo. En streaming
+ *   (writeAndFlushWith) cada flush del servicio se reenvía con SYNC_FLUSH; SSE y NDJSON, por defecto, ni se comprimen.
+ * - El ETag del servicio pasa a débil ({@code W/}): el cuerpo gzip es otra representación.
+ * - Debe declararse ANTES de response-cache: el cache guarda el cuerpo sin comprimir y
+ *   los hits se comprimen al salir según el Accept-Encoding de cada cliente.
+ */
+@Component
+public class CompressionGatewayFilterFactory extends AbstractGatewayFilterFactory<CompressionGatewayFilterFactory.Config> {
+
+    private static final String GZIP = "gzip";
+
+    private final CompressionProperties properties;
+
+    public CompressionGatewayFilterFactory(CompressionProperties properties) {
+        super(Config.class);
+        this.properties = properties;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        List<MediaType> mimeTypes = config.getMimeTypes().stream().map(MediaType::parseMediaType).toList();
+        List<MediaType> excludedMimeTypes = config.getExcludedMimeTypes().stream().map(MediaType::parseMediaType).toList();
+        long minSize = config.getMinSize().toBytes();
+        return (exchange, chain) -> {
+            if (!properties.isEnabled()) {
+                return chain.filter(exchange);
+            }
+            ServerHttpRequest request = exchange.getRequest();
+            if (config.isDecompressRequests() && isGzip(request.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+                request = new DecompressingRequest(request, config.getMaxRequestSize().toBytes(),
+                        exchange.getResponse().bufferFactory());
+            }
+            ServerHttpResponse response = exchange.getResponse();
+            if (request.getMethod() != HttpMethod.HEAD && acceptsGzip(request.getHeaders().get(HttpHeaders.ACCEPT_ENCODING))) {
+                response = new CompressingResponse(response, config.getLevel(), minSize, mimeTypes, excludedMimeTypes);
+            }
+            if (request == exchange.getRequest() && response == exchange.getResponse()) {
+                return chain.filter(exchange);
+            }
+            return chain.filter(exchange.mutate().request(request).response(response).build());
+        };
+    }
+
+    /**
+     * Filtro con la configuración de {@code gateway.compression.routes.<routeId>} (o los valores por defecto).
+     */
+    public GatewayFilter forRoute(String routeId) {
+        CompressionProperties.Route route = properties.getRoutes().getOrDefault(routeId, new CompressionProperties.Route());
+        return apply(config -> {
+            config.setLevel(route.getLevel());
+            config.setMinSize(route.getMinSize());
+            config.setMimeTypes(route.getMimeTypes());
+            config.setExcludedMimeTypes(route.getExcludedMimeTypes());
+            config.setDecompressRequests(route.isDecompressRequests());
+            config.setMaxRequestSize(route.getMaxRequestSize());
+        });
+    }
+
+    /**
+     * true si algún valor de Accept-Encoding acepta gzip (o "*") con q distinto de 0.
+     */
+    static boolean acceptsGzip(List<String> acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String header : acceptEncoding) {
+            int start = 0;
+            while (start < header.length()) {
+                int end = header.indexOf(',', start);
+                if (end < 0) {
+                    end = header.length();
+                }
+                String coding = header.substring(start, end).trim();
+                int params = coding.indexOf(';');
+                String name = params < 0 ? coding : coding.substring(0, params).trim();
+                if ((name.equalsIgnoreCase(GZIP) || name.equals("*")) && !zeroQuality(coding, params)) {
+                    return true;
+                }
+                start = end + 1;
+            }
+        }
+        return false;
+    }
+
+    private static boolean zeroQuality(String coding, int params) {
+        if (params < 0) {
+            return false;
+        }
+        String q = coding.substring(params + 1).replace(" ", "");
+        return q.startsWith("q=0") && q.substring(3).chars().allMatch(c -> c == '.' || c == '0');
+    }
+
+    private static boolean isGzip(String contentEncoding) {
+        return contentEncoding != null && contentEncoding.trim().equalsIgnoreCase(GZIP);
+    }
+
+    /**
+     * Respuesta que decide al primer write si comprime (status, encoding, Content-Type y tamaño)
+     * y, en ese caso, reemplaza Content-Length por Content-Encoding: gzip.
+     */
+    private static final class CompressingResponse extends ServerHttpResponseDecorator {
+
+        private final int level;
+        private final long minSize;
+        private final List<MediaType> mimeTypes;
+        private final List<MediaType> excludedMimeTypes;
+
+        private CompressingResponse(ServerHttpResponse delegate, int level, long minSize, List<MediaType> mimeTypes,
+                List<MediaType> excludedMimeTypes) {
+            super(delegate);
+            this.level = level;
+            this.minSize = minSize;
+            this.mimeTypes = mimeTypes;
+            this.excludedMimeTypes = excludedMimeTypes;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!shouldCompress()) {
+                return super.writeWith(body);
+            }
+            DataBufferFactory factory = bufferFactory();
+            return super.writeWith(gzip(encoder -> compress(encoder, body, factory)
+                    .concatWith(Mono.fromCallable(() -> encoder.finish(factory)))));
+        }
+
+        /**
+         * Respuestas en streaming (SSE, NDJSON): cada grupo que el servicio flushea sale como un segmento
+         * SYNC_FLUSH propio, así el evento llega al cliente en cuanto se emite y no cuando se llena zlib.
+         */
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            if (!shouldCompress()) {
+                return super.writeAndFlushWith(body);
+            }
+            DataBufferFactory factory = bufferFactory();
+            return super.writeAndFlushWith(gzip(encoder -> Flux.from(body)
+                    .concatMap(group -> compress(encoder, group, factory)
+                            .concatWith(Mono.fromCallable(() -> encoder.flush(factory))))
+                    .concatWith(Mono.fromCallable(() -> encoder.finish(factory))))
+                    .map(Mono::just));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            if (HttpStatus.NOT_MODIFIED.equals(getStatusCode()) && compressibleType()) {
+                weakenETag(); // el 304 lleva el mismo validador que llevaría el 200 comprimido
+            }
+            return super.setComplete();
+        }
+
+        /**
+         * Cambia los headers a la representación gzip y comprime {@code body} con un GzipEncoder propio de la respuesta.
+         * El Deflater vuelve al pool solo al completar o fallar (ya sin encode en curso); si el cliente cancela,
+         * la cancelación puede llegar desde otro hilo mientras se comprime, así que se libera y no se reutiliza.
+         */
+        private Flux<DataBuffer> gzip(Function<GzipEncoder, Flux<DataBuffer>> body) {
+            HttpHeaders headers = getHeaders();
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            weakenETag();
+            return Flux.usingWhen(Mono.fromCallable(() -> new GzipEncoder(level)), body,
+                    encoder -> Mono.fromRunnable(encoder::close),
+                    (encoder, error) -> Mono.fromRunnable(encoder::close),
+                    encoder -> Mono.fromRunnable(encoder::discard));
+        }
+
+        private static Flux<DataBuffer> compress(GzipEncoder encoder, Publisher<? extends DataBuffer> body,
+                DataBufferFactory factory) {
+            return Flux.from(body).handle((chunk, sink) -> {
+                try {
+                    DataBuffer compressed = encoder.encode(chunk, factory);
+                    if (compressed != null) {
+                        sink.next(compressed);
+                    }
+                } finally {
+                    DataBufferUtils.release(chunk);
+                }
+            });
+        }
+
+        /**
+         * El cuerpo gzip es otra representación: un ETag fuerte del servicio pasa a débil (RFC 9110, 8.8.3).
+         * response-cache compara If-None-Match de forma débil, así que los 304 siguen funcionando.
+         */
+        private void weakenETag() {
+            String etag = getHeaders().getETag();
+            if (etag != null && !etag.startsWith("W/")) {
+                getHeaders().setETag("W/" + etag);
+            }
+        }
+
+        private boolean shouldCompress() {
+            HttpStatusCode status = getStatusCode();
+            if (status != null && (status.is1xxInformational() || status == HttpStatus.NO_CONTENT
+                    || status == HttpStatus.NOT_MODIFIED)) {
+                return false;
+            }
+            HttpHeaders headers = getHeaders();
+            if (headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                return false; // el servicio ya comprimió
+            }
+            long length = headers.getContentLength();
+            if (length >= 0 && length < minSize) {
+                return false;
+            }
+            return compressibleType();
+        }
+
+        private boolean compressibleType() {
+            MediaType contentType = getHeaders().getContentType();
+            return contentType != null && mimeTypes.stream().anyMatch(type -> type.includes(contentType))
+                    && excludedMimeTypes.stream().noneMatch(type -> type.includes(contentType));
+        }
+    }
+
+    /**
+     * Petición cuyo cuerpo gzip se descomprime al leerlo, con tope de tamaño descomprimido.
+     */
+    private static final class DecompressingRequest extends ServerHttpRequestDecorator {
+
+        private final long maxSize;
+        private final DataBufferFactory factory;
+        private final HttpHeaders headers;
+
+        private DecompressingRequest(ServerHttpRequest delegate, long maxSize, DataBufferFactory factory) {
+            super(delegate);
+            this.maxSize = maxSize;
+            this.factory = factory;
+            HttpHeaders copy = new HttpHeaders();
+            copy.putAll(delegate.getHeaders());
+            copy.remove(HttpHeaders.CONTENT_ENCODING);
+            copy.remove(HttpHeaders.CONTENT_LENGTH); // el servicio recibe el cuerpo chunked
+            this.headers = HttpHeaders.readOnlyHttpHeaders(copy);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.using(() -> new GzipDecoder(maxSize),
+                    decoder -> super.getBody()
+                            .<DataBuffer>handle((chunk, sink) -> {
+                                try {
+                                    DataBuffer inflated = decoder.decode(chunk, factory);
+                                    if (inflated != null) {
+                                        sink.next(inflated);
+                                    }
+                                } catch (DataBufferLimitException e) {
+                                    sink.error(e);
+                                } finally {
+                                    DataBufferUtils.release(chunk);
+                                }
+                            })
+                            .concatWith(Mono.fromRunnable(decoder::finish))
+                            .onErrorMap(IllegalStateException.class,
+                                    e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid gzip request body.", e)),
+                    GzipDecoder::close);
+        }
+    }
+
+    @Data
+    public static class Config {
+
+        private int level = 5;
+
+        private DataSize minSize = DataSize.ofKilobytes(1);
+
+        private List<String> mimeTypes = new CompressionProperties.Route().getMimeTypes();
+
+        private List<String> excludedMimeTypes = new CompressionProperties.Route().getExcludedMimeTypes();
+
+        private boolean decompressRequests;
+
+        private DataSize maxRequestSize = DataSize.ofMegabytes(10);
+    }
+}
@@ -1,8 +1,17 @@
 package com.tesoramobil.gateway.filters;
 
+import com.tesoramobil.gateway.observability.AuthDecision;
+import com.tesoramobil.gateway.observability.GatewayMetrics;
+import com.tesoramobil.gateway.observability.GatewayMetrics.Phase;
+import com.tesoramobil.gateway.policy.AuthorizationPolicy;
+import com.tesoramobil.gateway.security.JwtClaimsCache;
+import com.tesoramobil.gateway.security.VerifiedIdentity;
+import com.tesoramobil.gateway.tracing.RequestTrace;
+import com.tesoramobil.gateway.tracing.SpanName;
 import com.tesoramobil.gateway.utils.AuthFilterUtils;
-import io.jsonwebtoken.Claims;
-import org.springframework.beans.factory.annotation.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.http.HttpStatus;
@@ -10,74 +19,74 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
-import java.util.Map;
 
 @Component
 public class GruposServiceFilter implements GatewayFilter {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
-
-    private static final Map<String, Map<String, List<String>>> permisos = Map.of(
-    	    "ADMIN", Map.of(
-    	        "GET", List.of(
-    	            "/grupos-service/grupos/listar",
-    	            "/grupos-service/grupos/grupos-por-rol", // nueva ruta dinámica
-    	            "/grupos-service/grupos"                 // para posibles otras rutas GET
-    	        ),
-    	        "POST", List.of(
-    	            "/grupos-service/grupos/crear"
-    	        ),
-    	        "PUT", List.of(
-    	            "/grupos-service/grupos/modificar"
-    	        ),
-    	        "DELETE", List.of(
-    	            "/grupos-service/grupos/borrar"
-    	        )
-    	    ),
-    	    "USER", Map.of(
-    	        "GET", List.of(
-    	            "/grupos-service/grupos/grupo",
-    	            "/grupos-service/grupos/grupos-por-rol" // permitir acceso parcial a usuarios también
-    	        )
-    	    )
-    	);
+    private static final Logger log = LoggerFactory.getLogger(GruposServiceFilter.class);
+
+    @Autowired
+    private JwtClaimsCache jwtClaimsCache;
+
+    @Autowired
+    private AuthorizationPolicy authorizationPolicy;
+
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
+
+    private static final String FILTER_NAME = "grupos-service-filter";
+
+    // Permisos por rol: se leen de gateway.policy.rules.grupos-service (application.yml)
+    private static final String POLICY = AuthorizationPolicy.GRUPOS_SERVICE;
 
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        System.out.println("🚨 [GruposServiceFilter] Iniciando validación de token...");
-
+        String routeId = GatewayMetrics.routeId(exchange);
+        long start = System.nanoTime();
+        RequestTrace.start(exchange, SpanName.AUTH, start);
         String token = AuthFilterUtils.extractToken(exchange);
+        long extracted = System.nanoTime();
+        gatewayMetrics.recordPhase(routeId, FILTER_NAME, Phase.TOKEN_EXTRACTION, extracted - start);
         if (token == null) {
-            System.out.println("❌ No se encontró token válido en el header Authorization.");
+            log.debug("No se encontró token válido en el header Authorization");
             return AuthFilterUtils.onError(exchange, HttpStatus.BAD_REQUEST, "Missing or invalid Authorization header.");
         }
 
-        System.out.println("✅ Token recibido: " + token);
-        System.out.println("🔐 Clave secreta (JWT): " + secretKey);
-
-        try {
-            Claims claims = AuthFilterUtils.decodeToken(token, secretKey);
-            String role = claims.get("roles", String.class);
-            Long userIdFromToken = claims.get("id", Long.class); // ⬅️ Extrae el ID desde el token
+        // Firma verificada desde cache o con la clave del kid (puede esperar la lectura del JWKS sin bloquear)
+        return jwtClaimsCache.verifyAsync(token)
+                .map(VerifiedIdentity::from)
+                .doFinally(signal -> {
+                    long verified = System.nanoTime();
+                    gatewayMetrics.recordPhase(routeId, FILTER_NAME, Phase.JWT_VERIFICATION, verified - extracted);
+                    RequestTrace.record(exchange, SpanName.JWT_VERIFICATION, extracted, verified);
+                })
+                .onErrorResume(e -> {
+                    log.debug("Error al decodificar token: {}", e.getClass().getSimpleName());
+                    return AuthFilterUtils.onVerificationError(exchange, e)
+                            .then(Mono.<VerifiedIdentity>empty());
+                })
+                .flatMap(identity -> authorize(exchange, chain, routeId, identity));
+    }
 
-            String path = exchange.getRequest().getPath().toString();
-            String method = exchange.getRequest().getMethod().name();
+    private Mono<Void> authorize(ServerWebExchange exchange, GatewayFilterChain chain, String routeId, VerifiedIdentity identity) {
+        identity.attach(exchange); // Para IdentityPropagation y filtros posteriores
+        String role = identity.role();
+        Long userIdFromToken = identity.userId(); // ⬅️ ID desde el token
+        AuthDecision.recordRole(exchange, role);
 
-            System.out.println("✅ Token decodificado correctamente.");
-            System.out.println("👤 Rol extraído: " + role);
-            System.out.println("🆔 ID desde token: " + userIdFromToken);
-            System.out.println("📥 Petición entrante: " + method + " -> " + path);
+        String path = exchange.getRequest().getPath().toString();
+        String method = exchange.getRequest().getMethod().name();
 
+        long checkStart = System.nanoTime();
+        try {
             // 🔐 Validación específica para /grupos-por-rol/{id}
             if (path.startsWith("/grupos-service/grupos/grupos-por-rol/")) {
                 String idInPath = path.substring(path.lastIndexOf("/") + 1);
                 try {
                     Long requestedId = Long.parseLong(idInPath);
-                    if (!userIdFromToken.equals(requestedId)) {
-                        System.out.println("⛔ Acceso denegado: el ID en la URL no coincide con el del token.");
+                    if (!requestedId.equals(userIdFromToken)) {
+                        log.debug("Acceso denegado: el ID en la URL no coincide con el del token");
                         return AuthFilterUtils.onError(exchange, HttpStatus.FORBIDDEN, "Access Denied: Cannot access data from another user.");
                     }
                 } catch (NumberFormatException ex) {
@@ -86,25 +95,21 @@ public class GruposServiceFilter implements GatewayFilter {
             }
 
             if (!isAuthorized(role, method, path)) {
-                System.out.println("⛔ Rol " + role + " no tiene permiso para acceder a " + method + " " + path);
+                log.debug("Rol {} sin permiso para {} {}", role, method, path);
                 return AuthFilterUtils.onError(exchange, HttpStatus.FORBIDDEN, "Access Denied: You don't have permission for grupos-service.");
             }
-
-            System.out.println("✅ Acceso autorizado, continuando con la petición.");
-            return chain.filter(exchange);
-
-        } catch (Exception e) {
-            System.out.println("❌ Error al decodificar token: " + e.getMessage());
-            return AuthFilterUtils.onError(exchange, HttpStatus.UNAUTHORIZED, "Invalid or expired token.");
+        } finally {
+            gatewayMetrics.recordPhase(routeId, FILTER_NAME, Phase.PERMISSION_CHECK, System.nanoTime() - checkStart);
         }
+
+        AuthDecision.ALLOWED.mark(exchange, role);
+        RequestTrace.end(exchange, SpanName.AUTH, System.nanoTime());
+        return chain.filter(exchange);
     }
 
 
     private boolean isAuthorized(String role, String method, String path) {
-        return permisos.getOrDefault(role, Map.of())
-            .getOrDefault(method, List.of())
-            .stream()
-            .anyMatch(path::startsWith); // usar startsWith en vez de equals
+        return authorizationPolicy.matcher(POLICY).allows(role, method, path); // prefijo por segmentos, sin recorrer listas
     }
 
 }
@@ -0,0 +1,91 @@
+package com.tesoramobil.gateway.filters;
+
+import java.util.List;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import com.tesoramobil.gateway.security.IdentityHeaderSigner;
+import com.tesoramobil.gateway.security.VerifiedIdentity;
+
+import lombok.Data;
+
+/**
+ * Propaga hacia el servicio destino la identidad ya verificada por los filtros de autorización
+ * como headers internos firmados, para que el servicio no tenga que volver a verificar el JWT.
+ * - Siempre elimina los headers X-Gateway-* que vengan del cliente (anti-suplantación).
+ * - Con {@code tokenMode=STRIP} además elimina el header Authorization.
+ * - Debe declararse DESPUÉS del filtro de autorización de la ruta.
+ *
+ * Uso en yml: {@code - IdentityPropagation=STRIP}
+ */
+@Component
+public class IdentityPropagationGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<IdentityPropagationGatewayFilterFactory.Config> {
+
+    public static final String USER_ID_HEADER = "X-Gateway-User-Id";
+    public static final String ROLE_HEADER = "X-Gateway-User-Role";
+    public static final String TOKEN_EXP_HEADER = "X-Gateway-Token-Exp";
+    public static final String ISSUED_AT_HEADER = "X-Gateway-Identity-Issued-At";
+    public static final String SIGNATURE_HEADER = "X-Gateway-Identity-Signature";
+
+    private static final List<String> IDENTITY_HEADERS =
+            List.of(USER_ID_HEADER, ROLE_HEADER, TOKEN_EXP_HEADER, ISSUED_AT_HEADER, SIGNATURE_HEADER);
+
+    /**
+     * Qué hacer con el bearer token original.
+     */
+    public enum TokenMode {
+        /** Se reenvía el header Authorization tal cual. */
+        KEEP,
+        /** Se elimina el header Authorization; el servicio solo recibe los headers firmados. */
+        STRIP
+    }
+
+    private final IdentityHeaderSigner signer;
+
+    public IdentityPropagationGatewayFilterFactory(IdentityHeaderSigner signer) {
+        super(Config.class);
+        this.signer = signer;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("tokenMode");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        TokenMode tokenMode = config.getTokenMode();
+        return (exchange, chain) -> {
+            VerifiedIdentity identity = VerifiedIdentity.of(exchange);
+            var request = exchange.getRequest().mutate().headers(headers -> {
+                IDENTITY_HEADERS.forEach(headers::remove);
+                if (identity == null) {
+                    return; // Ruta pública: no hay identidad que propagar
+                }
+                String userId = identity.userId() == null ? "" : identity.userId().toString();
+                String role = identity.role() == null ? "" : identity.role();
+                String tokenExp = identity.expiresAt() == null ? "" : Long.toString(identity.expiresAt().getTime() / 1000);
+                String issuedAt = Long.toString(System.currentTimeMillis() / 1000);
+                headers.set(USER_ID_HEADER, userId);
+                headers.set(ROLE_HEADER, role);
+                headers.set(TOKEN_EXP_HEADER, tokenExp);
+                headers.set(ISSUED_AT_HEADER, issuedAt);
+                headers.set(SIGNATURE_HEADER, signer.sign(userId, role, tokenExp, issuedAt));
+                if (tokenMode == TokenMode.STRIP) {
+                    headers.remove(HttpHeaders.AUTHORIZATION);
+                }
+            }).build();
+            return chain.filter(exchange.mutate().request(request).build());
+        };
+    }
+
+    @Data
+    public static class Config {
+
+        private TokenMode tokenMode = TokenMode.KEEP;
+    }
+}
@@ -0,0 +1,121 @@
+package com.tesoramobil.gateway.filters;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.tesoramobil.gateway.observability.AuthDecision;
+import com.tesoramobil.gateway.observability.GatewayMetrics;
+import com.tesoramobil.gateway.observability.RequestTraceId;
+import com.tesoramobil.gateway.ratelimit.RateLimitBackend;
+import com.tesoramobil.gateway.ratelimit.RateLimitKey;
+import com.tesoramobil.gateway.ratelimit.RateLimitProperties;
+import com.tesoramobil.gateway.ratelimit.RateLimitSpec;
+import com.tesoramobil.gateway.utils.PreEncodedError;
+
+import lombok.Data;
+
+/**
+ * Rate limiting por token bucket.
+ * - Llave configurable: usuario del JWT, IP del cliente o la ruta completa ({@link RateLimitKey}).
+ *   Detrás de un ingress la IP sale de X-Forwarded-For ({@code gateway.rate-limit.trusted-proxies}).
+ * - Si se agotan los tokens responde 429 con {@code Retry-After} (segundos) y {@code X-RateLimit-Remaining: 0},
+ *   y marca la decisión {@link AuthDecision#RATE_LIMITED} para que el access log lo registre siempre.
+ * - Para {@code key=USER} debe declararse DESPUÉS del filtro de autorización de la ruta.
+ *
+ * Uso en gateway.routes.definitions: {@code filters: [ rate-limit=50, 100, IP ]}
+ */
+@Component
+public class RateLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<RateLimitGatewayFilterFactory.Config> {
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private static final PreEncodedError TOO_MANY_REQUESTS =
+            PreEncodedError.of(HttpStatus.TOO_MANY_REQUESTS, "Too many requests.");
+
+    private final RateLimitBackend backend;
+
+    private final RateLimitProperties properties;
+
+    public RateLimitGatewayFilterFactory(RateLimitBackend backend, RateLimitProperties properties) {
+        super(Config.class);
+        this.backend = backend;
+        this.properties = properties;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("replenishRate", "burstCapacity", "key");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        RateLimitSpec spec = new RateLimitSpec(config.getReplenishRate(), config.getBurstCapacity());
+        RateLimitKey keyStrategy = config.getKey();
+        RemoteAddressResolver clientAddress = properties.getTrustedProxies() > 0
+                ? XForwardedRemoteAddressResolver.maxTrustedIndex(properties.getTrustedProxies())
+                : new RemoteAddressResolver() {
+                };
+        return (exchange, chain) -> {
+            if (!properties.isEnabled()) {
+                return chain.filter(exchange);
+            }
+            String key = keyStrategy.resolve(GatewayMetrics.routeId(exchange), exchange, clientAddress);
+            return backend.tryConsume(key, spec, 1).flatMap(decision -> {
+                HttpHeaders headers = exchange.getResponse().getHeaders();
+                headers.set(REMAINING_HEADER, Long.toString(decision.remaining()));
+                if (decision.allowed()) {
+                    return chain.filter(exchange);
+                }
+                long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(decision.retryAfterNanos() + 999_999_999L));
+                headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+                headers.set(RequestTraceId.HEADER, RequestTraceId.of(exchange));
+                AuthDecision.RATE_LIMITED.mark(exchange, null);
+                return TOO_MANY_REQUESTS.writeTo(exchange.getResponse());
+            });
+        };
+    }
+
+    /**
+     * Filtro de una ruta declarativa: {@code rate-limit=<replenishRate>, <burstCapacity>[, <key>]} o, sin argumentos,
+     * los límites de {@code gateway.rate-limit.routes.<routeId>} (o los valores por defecto).
+     */
+    public GatewayFilter forRoute(String routeId, List<String> args) {
+        if (!args.isEmpty()) {
+            if (args.size() < 2 || args.size() > 3) {
+                throw new IllegalArgumentException("rate-limit en " + routeId
+                        + " espera replenishRate, burstCapacity[, key]: " + args);
+            }
+            return apply(config -> {
+                config.setReplenishRate(Integer.parseInt(args.get(0)));
+                config.setBurstCapacity(Integer.parseInt(args.get(1)));
+                if (args.size() == 3) {
+                    config.setKey(RateLimitKey.valueOf(args.get(2).toUpperCase()));
+                }
+            });
+        }
+        RateLimitProperties.Route route = properties.getRoutes().getOrDefault(routeId, new RateLimitProperties.Route());
+        return apply(config -> {
+            config.setReplenishRate(route.getReplenishRate());
+            config.setBurstCapacity(route.getBurstCapacity());
+            config.setKey(route.getKey());
+        });
+    }
+
+    @Data
+    public static class Config {
+
+        private int replenishRate = 50;
+
+        private int burstCapacity = 100;
+
+        private RateLimitKey key = RateLimitKey.USER;
+    }
+}
@@ -0,0 +1,147 @@
+package com.tesoramobil.gateway.filters;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.tesoramobil.gateway.resilience.ResilienceProperties;
+import com.tesoramobil.gateway.resilience.ResilienceRegistry;
+import com.tesoramobil.gateway.resilience.ResilienceRegistry.Rejection;
+import com.tesoramobil.gateway.resilience.RouteResilience;
+import com.tesoramobil.gateway.resilience.UpstreamCall;
+
+import lombok.Data;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Aislamiento de fallos hacia el servicio de la ruta:
+ * - Bulkhead: limita las peticiones concurrentes; si está lleno responde 503 sin esperar.
+ * - Circuit breaker: cuenta errores, 5xx y llamadas lentas; abierto responde 503 inmediato.
+ * - Reintentos: solo GET/HEAD, solo fallos de conexión o timeout antes de enviar la respuesta,
+ *   con backoff exponencial con jitter y limitados por un {@link com.tesoramobil.gateway.resilience.RetryBudget}.
+ *
+ * El resultado del circuito y el permiso del bulkhead se cierran al llegar los headers del servicio
+ * ({@link UpstreamCall}): la descarga del cuerpo por el cliente no cuenta.
+ *
+ * Los rechazos se propagan como ResponseStatusException, así GlobalErrorHandler responde el JSON.
+ * Conviene declararlo al final de la cadena de la ruta, para que los hits de cache y los rechazos
+ * de autorización no cuenten para el circuito.
+ */
+@Component
+public class ResilienceGatewayFilterFactory extends AbstractGatewayFilterFactory<ResilienceGatewayFilterFactory.Config> {
+
+    private final ResilienceRegistry registry;
+
+    private final ResilienceProperties properties;
+
+    public ResilienceGatewayFilterFactory(ResilienceRegistry registry, ResilienceProperties properties) {
+        super(Config.class);
+        this.registry = registry;
+        this.properties = properties;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("name");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            if (!properties.isEnabled()) {
+                return chain.filter(exchange);
+            }
+            RouteResilience route = registry.forRoute(config.getName());
+            if (!route.bulkhead().tryAcquirePermission()) {
+                registry.reject(route.routeId(), Rejection.BULKHEAD_FULL);
+                return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Bulkhead full for " + route.routeId()));
+            }
+            route.retryBudget().deposit();
+            UpstreamCall upstream = new UpstreamCall(route);
+            exchange.getAttributes().put(UpstreamCall.ATTRIBUTE, upstream);
+            Mono<Void> call = Mono.defer(() -> protectedCall(route, upstream, exchange, chain));
+            if (isIdempotent(exchange.getRequest().getMethod()) && route.retry().getMaxRetries() > 0) {
+                call = call.retryWhen(retrySpec(route, exchange));
+            }
+            return call.doFinally(signal -> upstream.releaseBulkhead());
+        };
+    }
+
+    /**
+     * Filtro para una ruta, con la configuración de {@code gateway.resilience.routes.<routeId>}.
+     */
+    public GatewayFilter forRoute(String routeId) {
+        return apply(config -> config.setName(routeId));
+    }
+
+    /**
+     * Un intento. Normalmente UpstreamCallFilter lo cierra al llegar los headers; los callbacks de acá solo
+     * cubren lo que no pasó por ese filtro (UpstreamCall registra cada intento una sola vez).
+     */
+    private Mono<Void> protectedCall(RouteResilience route, UpstreamCall upstream, ServerWebExchange exchange,
+            GatewayFilterChain chain) {
+        if (!route.circuitBreaker().tryAcquirePermission()) {
+            registry.reject(route.routeId(), Rejection.CIRCUIT_OPEN);
+            return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Circuit breaker open for " + route.routeId()));
+        }
+        upstream.startAttempt();
+        return chain.filter(exchange)
+                .doOnSuccess(done -> upstream.onResponse(exchange.getResponse().getStatusCode()))
+                .doOnError(upstream::onError)
+                .doOnCancel(upstream::onCancel);
+    }
+
+    private Retry retrySpec(RouteResilience route, ServerWebExchange exchange) {
+        ResilienceProperties.Retry retry = route.retry();
+        return Retry.backoff(retry.getMaxRetries(), retry.getFirstBackoff())
+                .maxBackoff(retry.getMaxBackoff())
+                .jitter(retry.getJitter())
+                .filter(error -> {
+                    if (!isRetryable(error) || exchange.getResponse().isCommitted()) {
+                        return false;
+                    }
+                    if (!route.retryBudget().tryWithdraw()) {
+                        registry.reject(route.routeId(), Rejection.RETRY_BUDGET_EXHAUSTED);
+                        return false;
+                    }
+                    return true;
+                })
+                .doBeforeRetry(signal -> ServerWebExchangeUtils.reset(exchange))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private static boolean isIdempotent(HttpMethod method) {
+        return method == HttpMethod.GET || method == HttpMethod.HEAD;
+    }
+
+    /**
+     * Fallos de conexión o timeout (incluido el 504 que genera el Gateway por response-timeout).
+     */
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof ResponseStatusException rse) {
+            return rse.getStatusCode().value() == HttpStatus.GATEWAY_TIMEOUT.value();
+        }
+        return error instanceof IOException || error instanceof TimeoutException
+                || error.getCause() instanceof IOException;
+    }
+
+    @Data
+    public static class Config {
+
+        /** Nombre del circuito/bulkhead (normalmente el id de la ruta). */
+        private String name;
+    }
+}
@@ -0,0 +1,289 @@
+package com.tesoramobil.gateway.filters;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.tesoramobil.gateway.cache.BodyCapture;
+import com.tesoramobil.gateway.cache.CachedResponse;
+import com.tesoramobil.gateway.cache.ResponseCacheProperties;
+import com.tesoramobil.gateway.cache.ResponseCacheStore;
+import com.tesoramobil.gateway.observability.GatewayMetrics;
+import com.tesoramobil.gateway.policy.RoutePermissionMatcher;
+import com.tesoramobil.gateway.security.VerifiedIdentity;
+
+import lombok.Data;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cache de respuestas GET en el Gateway.
+ * - La llave incluye el id del usuario verificado: nunca se comparte una respuesta entre usuarios.
+ *   Sin identidad (ruta pública) no se cachea.
+ * - Solo se cachean respuestas 200 sin {@code Cache-Control: no-store}, hasta {@code max-entry-size}.
+ * - Guarda una sola representación, sin codificar: en un miss no se reenvía {@code Accept-Encoding} al servicio
+ *   (compression codifica al salir según cada cliente) y no se guardan respuestas con {@code Content-Encoding}
+ *   ni con un {@code Vary} que la llave no cubre.
+ * - Un hit responde con ETag y {@code Cache-Control: private, max-age}; con {@code If-None-Match} coincidente responde 304.
+ * - Una mutación exitosa bajo {@code invalidatePrefix} invalida todo el cache de la ruta.
+ * - Debe declararse DESPUÉS del filtro de autorización de la ruta.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    public static final String CACHE_HEADER = "X-Cache";
+
+    private static final String CACHE_POLICY = "cache";
+
+    private static final List<String> EXCLUDED_HEADERS = List.of(HttpHeaders.SET_COOKIE, HttpHeaders.TRANSFER_ENCODING,
+            HttpHeaders.CONNECTION, HttpHeaders.CONTENT_LENGTH, HttpHeaders.ETAG, HttpHeaders.CACHE_CONTROL, CACHE_HEADER);
+
+    private final ResponseCacheStore store;
+
+    private final ResponseCacheProperties properties;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCacheStore store, ResponseCacheProperties properties) {
+        super(Config.class);
+        this.store = store;
+        this.properties = properties;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        RoutePermissionMatcher.Builder builder = RoutePermissionMatcher.builder();
+        config.getPaths().forEach(path -> builder.allow(CACHE_POLICY, HttpMethod.GET.name(), path));
+        RoutePermissionMatcher cacheablePaths = builder.build();
+        String invalidatePrefix = config.getInvalidatePrefix();
+
+        return (exchange, chain) -> {
+            if (!properties.isEnabled()) {
+                return chain.filter(exchange);
+            }
+            ServerHttpRequest request = exchange.getRequest();
+            String routeId = GatewayMetrics.routeId(exchange);
+            String path = request.getPath().value();
+
+            if (isMutation(request.getMethod()) && covers(invalidatePrefix, path)) {
+                return chain.filter(exchange).doOnSuccess(done -> {
+                    if (exchange.getResponse().getStatusCode() != null && exchange.getResponse().getStatusCode().is2xxSuccessful()) {
+                        store.invalidate(routeId);
+                    }
+                });
+            }
+
+            VerifiedIdentity identity = VerifiedIdentity.of(exchange);
+            if (identity == null || identity.userId() == null
+                    || !cacheablePaths.allows(CACHE_POLICY, request.getMethod().name(), path)) {
+                return chain.filter(exchange);
+            }
+
+            String query = request.getURI().getRawQuery();
+            ResponseCacheStore.Key key = store.key(routeId, identity.userId(), query == null ? path : path + '?' + query);
+            boolean revalidate = request.getHeaders().getCacheControl() != null
+                    && request.getHeaders().getCacheControl().contains("no-cache");
+            CachedResponse cached = revalidate ? null : store.get(key);
+            if (cached != null) {
+                return writeCached(exchange, cached);
+            }
+            CachingResponse response = new CachingResponse(exchange.getResponse(), key, config.getTtl());
+            ServerHttpRequest identityEncoded = request.mutate()
+                    .headers(headers -> headers.remove(HttpHeaders.ACCEPT_ENCODING))
+                    .build();
+            return chain.filter(exchange.mutate().request(identityEncoded).response(response).build());
+        };
+    }
+
+    /**
+     * Filtro con la configuración de {@code gateway.response-cache.routes.<routeId>}.
+     */
+    public GatewayFilter forRoute(String routeId) {
+        ResponseCacheProperties.Route route = properties.getRoutes().getOrDefault(routeId, new ResponseCacheProperties.Route());
+        return apply(config -> {
+            config.setTtl(route.getTtl());
+            config.setPaths(route.getPaths());
+            config.setInvalidatePrefix(route.getInvalidatePrefix());
+        });
+    }
+
+    private static boolean isMutation(HttpMethod method) {
+        return method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH || method == HttpMethod.DELETE;
+    }
+
+    private static boolean covers(String prefix, String path) {
+        return prefix != null && path.startsWith(prefix)
+                && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.addAll(cached.headers());
+        headers.setETag(cached.etag());
+        headers.setCacheControl(CacheControl.maxAge(Duration.ofSeconds(cached.remainingSeconds())).cachePrivate());
+        headers.set(CACHE_HEADER, "HIT");
+
+        if (weakMatch(exchange.getRequest().getHeaders().getIfNoneMatch(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        headers.setContentLength(cached.size());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body().duplicate())));
+    }
+
+    /**
+     * Respuesta que copia el cuerpo a un buffer off-heap mientras lo reenvía al cliente (sin retrasarlo)
+     * y, al completarse, lo guarda en el cache.
+     */
+    private final class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final ResponseCacheStore.Key key;
+        private final Duration ttl;
+
+        private CachingResponse(ServerHttpResponse delegate, ResponseCacheStore.Key key, Duration ttl) {
+            super(delegate);
+            this.key = key;
+            this.ttl = ttl;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            CacheControlView upstream = new CacheControlView(headers.getCacheControl());
+            if (!HttpStatus.OK.equals(getStatusCode()) || upstream.noStore || !singleRepresentation(headers)) {
+                return super.writeWith(body);
+            }
+            long declaredLength = headers.getContentLength();
+            int maxEntry = (int) properties.getMaxEntrySize().toBytes();
+            if (declaredLength > maxEntry) {
+                return super.writeWith(body);
+            }
+            headers.set(CACHE_HEADER, "MISS");
+
+            // Headers del servicio tal como llegan: los decoradores de más afuera (compression) los modifican al escribir
+            HttpHeaders stored = new HttpHeaders();
+            headers.forEach((name, values) -> {
+                if (EXCLUDED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                    stored.put(name, List.copyOf(values));
+                }
+            });
+            String upstreamEtag = headers.getETag();
+            BodyCapture capture = new BodyCapture(declaredLength, maxEntry);
+            Flux<? extends DataBuffer> tee = Flux.from(body)
+                    .doOnNext(capture::append)
+                    .doOnComplete(() -> store(capture, stored, upstreamEtag, upstream));
+            return super.writeWith(tee);
+        }
+
+        private void store(BodyCapture capture, HttpHeaders stored, String upstreamEtag, CacheControlView upstream) {
+            ByteBuffer body = capture.finish();
+            if (body == null) {
+                return;
+            }
+            Duration freshFor = upstream.maxAge != null && upstream.maxAge.compareTo(ttl) < 0 ? upstream.maxAge : ttl;
+            String etag = upstreamEtag != null ? upstreamEtag : etagOf(body);
+            store.put(key, new CachedResponse(getStatusCode(), HttpHeaders.readOnlyHttpHeaders(stored), body, etag,
+                    System.nanoTime() + freshFor.toNanos()));
+        }
+    }
+
+    /**
+     * Sin {@code Content-Encoding} y con un {@code Vary} que la llave ya cubre (usuario) o que se neutraliza
+     * al quitar {@code Accept-Encoding} de la petición.
+     */
+    private static boolean singleRepresentation(HttpHeaders headers) {
+        String encoding = headers.getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (encoding != null && !encoding.equalsIgnoreCase("identity")) {
+            return false;
+        }
+        for (String vary : headers.getVary()) {
+            if (!vary.equalsIgnoreCase(HttpHeaders.ACCEPT_ENCODING) && !vary.equalsIgnoreCase(HttpHeaders.AUTHORIZATION)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lectura mínima del Cache-Control de la respuesta del servicio.
+     */
+    private static final class CacheControlView {
+
+        private boolean noStore;
+        private Duration maxAge;
+
+        private CacheControlView(String cacheControl) {
+            if (cacheControl == null) {
+                return;
+            }
+            for (String directive : cacheControl.split(",")) {
+                String value = directive.trim().toLowerCase();
+                if (value.equals("no-store")) {
+                    noStore = true;
+                } else if (value.startsWith("max-age=")) {
+                    try {
+                        maxAge = Duration.ofSeconds(Long.parseLong(value.substring(8)));
+                    } catch (NumberFormatException ignored) {
+                        // max-age inválido: se usa el TTL de la ruta
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Comparación débil de If-None-Match (RFC 9110, 13.1.2): ignora {@code W/}, que compression agrega
+     * al ETag cuando el cliente recibió el cuerpo en gzip.
+     */
+    static boolean weakMatch(List<String> ifNoneMatch, String etag) {
+        String opaque = weakless(etag);
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || weakless(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String weakless(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static String etagOf(ByteBuffer body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(body.duplicate());
+            return '"' + HexFormat.of().formatHex(digest.digest(), 0, 16) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    @Data
+    public static class Config {
+
+        private Duration ttl = Duration.ofSeconds(30);
+
+        private List<String> paths = new ArrayList<>();
+
+        private String invalidatePrefix;
+    }
+}
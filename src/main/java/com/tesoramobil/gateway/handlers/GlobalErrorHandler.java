@@ -1,69 +1,236 @@
 package com.tesoramobil.gateway.handlers;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
-import reactor.core.publisher.Mono;
 
+import com.tesoramobil.gateway.observability.RequestTraceId;
+import com.tesoramobil.gateway.utils.CachedClock;
+
+import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Maneja globalmente los errores en el Gateway.
+ * - El status sale del tipo de excepción (ver {@link #STATUS_BY_TYPE}), resuelto una vez por clase.
+ * - El JSON se escribe directo en un DataBuffer del pool a partir de fragmentos pre-codificados por status,
+ *   sin Map intermedio ni ObjectMapper.
+ * - Incluye "traceId" (también en el header X-Trace-Id), el mismo que registra el access log.
  */
 @Component
 @Order(-2) // Se ejecuta antes que otros handlers
 public class GlobalErrorHandler implements ErrorWebExceptionHandler {
 
-    private final ObjectMapper objectMapper = new ObjectMapper(); // Para construir JSON fácilmente
+    private static final Logger log = LoggerFactory.getLogger(GlobalErrorHandler.class);
+
+    /**
+     * Status por tipo de excepción; se busca la clase y luego sus superclases/interfaces en este orden.
+     * Los tipos opcionales se declaran por nombre para no depender de su presencia en el classpath.
+     */
+    private static final Map<String, HttpStatus> STATUS_BY_TYPE_NAME = new LinkedHashMap<>();
+
+    static {
+        STATUS_BY_TYPE_NAME.put("io.jsonwebtoken.JwtException", HttpStatus.UNAUTHORIZED);
+        STATUS_BY_TYPE_NAME.put("io.github.resilience4j.circuitbreaker.CallNotPermittedException", HttpStatus.SERVICE_UNAVAILABLE);
+        STATUS_BY_TYPE_NAME.put("io.github.resilience4j.bulkhead.BulkheadFullException", HttpStatus.SERVICE_UNAVAILABLE);
+        STATUS_BY_TYPE_NAME.put("io.netty.channel.ConnectTimeoutException", HttpStatus.GATEWAY_TIMEOUT);
+        STATUS_BY_TYPE_NAME.put("io.netty.handler.timeout.TimeoutException", HttpStatus.GATEWAY_TIMEOUT);
+        STATUS_BY_TYPE_NAME.put("java.util.concurrent.TimeoutException", HttpStatus.GATEWAY_TIMEOUT);
+        STATUS_BY_TYPE_NAME.put("java.net.ConnectException", HttpStatus.SERVICE_UNAVAILABLE);
+        STATUS_BY_TYPE_NAME.put("java.net.UnknownHostException", HttpStatus.BAD_GATEWAY);
+        STATUS_BY_TYPE_NAME.put("org.springframework.core.io.buffer.DataBufferLimitException", HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    private static final ClassValue<HttpStatus> STATUS_BY_TYPE = new ClassValue<>() {
+        @Override
+        protected HttpStatus computeValue(Class<?> type) {
+            for (Map.Entry<String, HttpStatus> mapping : STATUS_BY_TYPE_NAME.entrySet()) {
+                if (isAssignable(mapping.getKey(), type)) {
+                    return mapping.getValue();
+                }
+            }
+            return HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+    };
+
+    private static final Map<HttpStatus, Template> TEMPLATES = new EnumMap<>(HttpStatus.class);
+
+    static {
+        for (HttpStatus status : HttpStatus.values()) {
+            TEMPLATES.put(status, new Template(status));
+        }
+    }
+
+    private static final byte[] TIMESTAMP_OPEN = ascii("{\"timestamp\":\"");
+    private static final byte[] PATH_FIELD = ascii(",\"path\":");
+    private static final byte[] TRACE_FIELD = ascii(",\"traceId\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private static final String UNEXPECTED_MESSAGE = "Unexpected error";
+
+    private final CachedClock clock;
+
+    public GlobalErrorHandler() {
+        this(CachedClock.systemUTC());
+    }
+
+    GlobalErrorHandler(CachedClock clock) {
+        this.clock = clock;
+    }
 
     @Override
     public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
         final var response = exchange.getResponse();
-        
-        // Siempre responder en JSON
-        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
-        
+
         // Si ya se enviaron headers, no podemos hacer nada
         if (response.isCommitted()) {
             return Mono.error(ex);
         }
 
-        // Decidir el status por defecto
-        HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
-
-     // Detectar tipos específicos de error para responder mejor
-        if (ex instanceof org.springframework.web.server.ResponseStatusException rse) {
-            status = HttpStatus.valueOf(rse.getStatusCode().value());
-        } else if (ex.getMessage() != null && ex.getMessage().contains("Unauthorized")) {
-            status = HttpStatus.UNAUTHORIZED;
-        } else if (ex.getMessage() != null && ex.getMessage().contains("Access Denied")) {
-            status = HttpStatus.FORBIDDEN;
+        HttpStatus status = statusOf(ex);
+        String message = messageOf(ex, status);
+        String traceId = RequestTraceId.of(exchange);
+        if (status == HttpStatus.INTERNAL_SERVER_ERROR && !(ex instanceof ErrorResponse)) {
+            log.error("[{}] Error no controlado en {}", traceId, exchange.getRequest().getPath(), ex);
+        } else {
+            log.debug("[{}] {} -> {}", traceId, ex.getClass().getSimpleName(), status.value());
         }
 
         response.setStatusCode(status);
+        // Siempre responder en JSON
+        response.getHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        response.getHeaders().set(RequestTraceId.HEADER, traceId);
+
+        String path = exchange.getRequest().getPath().value();
+        return response.writeWith(Mono.just(write(response, TEMPLATES.get(status), message, path, traceId)));
+    }
+
+    /**
+     * Status de la excepción: el de ResponseStatusException/ErrorResponse, o el del tipo mapeado.
+     */
+    static HttpStatus statusOf(Throwable ex) {
+        if (ex instanceof ErrorResponse errorResponse) {
+            HttpStatus status = HttpStatus.resolve(errorResponse.getStatusCode().value());
+            return status != null ? status : HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        return STATUS_BY_TYPE.get(ex.getClass());
+    }
+
+    /**
+     * Mensaje para el cliente: el "reason" de ResponseStatusException, el de la excepción si su tipo está mapeado,
+     * o uno genérico para errores no controlados (el detalle queda en el log con el mismo traceId).
+     */
+    private static String messageOf(Throwable ex, HttpStatus status) {
+        if (ex instanceof ResponseStatusException rse && rse.getReason() != null) {
+            return rse.getReason();
+        }
+        if (status == HttpStatus.INTERNAL_SERVER_ERROR && !(ex instanceof ErrorResponse)) {
+            return UNEXPECTED_MESSAGE;
+        }
+        return ex.getMessage();
+    }
+
+    private DataBuffer write(ServerHttpResponse response, Template template, String message, String path, String traceId) {
+        int estimate = template.suffix.length + 96 + (message == null ? 4 : message.length() + 2)
+                + path.length() + traceId.length();
+        DataBuffer buffer = response.bufferFactory().allocateBuffer(estimate);
+        buffer.write(TIMESTAMP_OPEN);
+        buffer.write(clock.isoBytes());
+        buffer.write(template.suffix);
+        writeString(buffer, message);
+        buffer.write(PATH_FIELD);
+        writeString(buffer, path);
+        buffer.write(TRACE_FIELD);
+        writeString(buffer, traceId);
+        buffer.write((byte) '}');
+        return buffer;
+    }
+
+    /**
+     * Escribe el String como literal JSON en UTF-8, escapando comillas, barra invertida y controles.
+     */
+    private static void writeString(DataBuffer buffer, String value) {
+        if (value == null) {
+            buffer.write(NULL);
+            return;
+        }
+        buffer.write((byte) '"');
+        int length = value.length();
+        int asciiRun = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x7f && c != '"' && c != '\\') {
+                asciiRun++;
+                continue;
+            }
+            if (asciiRun > 0) {
+                buffer.write(value.substring(i - asciiRun, i), StandardCharsets.US_ASCII);
+                asciiRun = 0;
+            }
+            if (c == '"' || c == '\\') {
+                buffer.write((byte) '\\').write((byte) c);
+            } else if (c < 0x20) {
+                buffer.write((byte) '\\').write((byte) 'u').write((byte) '0').write((byte) '0')
+                        .write(HEX[c >> 4]).write(HEX[c & 0xf]);
+            } else {
+                int end = i + 1;
+                while (end < length && value.charAt(end) >= 0x7f) {
+                    end++;
+                }
+                buffer.write(value.substring(i, end), StandardCharsets.UTF_8);
+                i = end - 1;
+            }
+        }
+        if (asciiRun == length) {
+            buffer.write(value, StandardCharsets.US_ASCII);
+        } else if (asciiRun > 0) {
+            buffer.write(value.substring(length - asciiRun), StandardCharsets.US_ASCII);
+        }
+        buffer.write((byte) '"');
+    }
+
+    private static boolean isAssignable(String typeName, Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            if (current.getName().equals(typeName)) {
+                return true;
+            }
+            for (Class<?> contract : current.getInterfaces()) {
+                if (isAssignable(typeName, contract)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Fragmento fijo de cada status: {@code ","status":503,"error":"Service Unavailable","message":}
+     */
+    private static final class Template {
+
+        private final byte[] suffix;
 
-        // Construir el JSON de respuesta
-        Map<String, Object> errorAttributes = new HashMap<>();
-        errorAttributes.put("timestamp", LocalDateTime.now().toString());
-        errorAttributes.put("status", status.value());
-        errorAttributes.put("error", status.getReasonPhrase());
-        errorAttributes.put("message", ex.getMessage());
-        errorAttributes.put("path", exchange.getRequest().getPath().toString());
-
-        try {
-            byte[] bytes = objectMapper.writeValueAsBytes(errorAttributes);
-            DataBuffer buffer = response.bufferFactory().wrap(bytes);
-            return response.writeWith(Mono.just(buffer));
-        } catch (Exception e) {
-            return Mono.error(e);
+        private Template(HttpStatus status) {
+            this.suffix = ascii("\",\"status\":" + status.value() + ",\"error\":\"" + status.getReasonPhrase() + "\",\"message\":");
         }
     }
 }
@@ -0,0 +1,154 @@
+package com.tesoramobil.gateway.loadbalancing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Estado de una instancia para el balanceo: peticiones en curso, latencia peak-EWMA, expulsión y slow start.
+ * Los tiempos son {@link System#nanoTime()} y se reciben como parámetro.
+ * Como en el peak-EWMA de Finagle, una instancia sin muestras no vale 0: arranca con una latencia de penalización
+ * (la mediana del servicio al aparecer) y, sin muestras nuevas, su latencia vuelve hacia esa penalización, no hacia 0.
+ */
+public final class InstanceStats {
+
+    private static final double MIN_WEIGHT = 0.1;
+
+    private final String serviceId;
+    private final String instance;
+    private final double decayNanos;
+    private final double penaltyNanos;
+    private final long slowStartNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger consecutiveErrors = new AtomicInteger();
+    private final AtomicReference<Ewma> ewma;
+
+    private volatile long firstSeen;
+    private volatile long lastSeen;
+    private volatile long ejectedUntil;
+    private int ejections; // guarded by this
+
+    InstanceStats(String serviceId, String instance, long now, double decayNanos, long slowStartNanos,
+                  double penaltyNanos) {
+        this.serviceId = serviceId;
+        this.instance = instance;
+        this.decayNanos = decayNanos;
+        this.penaltyNanos = penaltyNanos;
+        this.slowStartNanos = slowStartNanos;
+        this.firstSeen = now;
+        this.lastSeen = now;
+        this.ejectedUntil = now;
+        this.ewma = new AtomicReference<>(new Ewma(penaltyNanos, now, false));
+    }
+
+    public String serviceId() {
+        return serviceId;
+    }
+
+    public String instance() {
+        return instance;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Latencia EWMA en nanos, llevada hasta {@code now} hacia la penalización.
+     */
+    public double latency(long now) {
+        Ewma current = ewma.get();
+        return penaltyNanos + (current.value - penaltyNanos) * Math.exp(-Math.max(0, now - current.stamp) / decayNanos);
+    }
+
+    /**
+     * Costo estimado de enviar una petición más: latencia por peticiones en curso (+1).
+     * Sin muestras la latencia tiende a la penalización: una instancia evitada por lenta vuelve a probarse,
+     * y una nueva u ociosa nunca cuesta 0 (si no, P2C la elegiría siempre sin importar las peticiones en curso).
+     */
+    double cost(long now) {
+        return latency(now) * (inFlight.get() + 1);
+    }
+
+    /**
+     * Fracción del tráfico admitida durante el slow start (0.1 .. 1).
+     */
+    double weight(long now) {
+        if (slowStartNanos <= 0) {
+            return 1;
+        }
+        double ramp = (double) (now - firstSeen) / slowStartNanos;
+        return ramp >= 1 ? 1 : Math.max(MIN_WEIGHT, ramp);
+    }
+
+    public boolean isEjected(long now) {
+        return now - ejectedUntil < 0;
+    }
+
+    /**
+     * La instancia figura en la lista de discovery; si llevaba más de {@code forgetNanos} sin figurar,
+     * vuelve a empezar el slow start.
+     */
+    void seen(long now, long forgetNanos) {
+        if (now - lastSeen > forgetNanos) {
+            firstSeen = now;
+        }
+        lastSeen = now;
+    }
+
+    long lastSeen() {
+        return lastSeen;
+    }
+
+    void start() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Fin de una petición. Las fallidas cuentan al menos como la latencia actual (un rechazo rápido
+     * no debe hacer parecer rápida a la instancia).
+     *
+     * @return true si esta petición completó los fallos seguidos que justifican expulsar la instancia.
+     */
+    boolean end(long now, long latencyNanos, boolean failed, int consecutiveErrorsThreshold) {
+        inFlight.decrementAndGet();
+        sample(now, failed ? Math.max(latencyNanos, latency(now)) : latencyNanos);
+        if (!failed) {
+            consecutiveErrors.set(0);
+            return false;
+        }
+        return consecutiveErrors.incrementAndGet() >= consecutiveErrorsThreshold;
+    }
+
+    /**
+     * Fin de una petición cancelada por el cliente: no aporta muestra.
+     */
+    void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Saca la instancia de rotación; cada expulsión seguida dura una base más (hasta {@code maxNanos}).
+     */
+    synchronized void eject(long now, long baseNanos, long maxNanos) {
+        if (now - ejectedUntil > maxNanos) {
+            ejections = 0; // estuvo sana un buen rato: la cuenta vuelve a empezar
+        }
+        ejections++;
+        ejectedUntil = now + Math.min(baseNanos * ejections, maxNanos);
+        consecutiveErrors.set(0);
+    }
+
+    private void sample(long now, double latencyNanos) {
+        ewma.updateAndGet(current -> {
+            double w = Math.exp(-Math.max(0, now - current.stamp) / decayNanos);
+            if (!current.sampled || latencyNanos > penaltyNanos + (current.value - penaltyNanos) * w) {
+                // primera muestra (reemplaza la penalización) o peak: un pico se refleja de inmediato
+                return new Ewma(latencyNanos, now, true);
+            }
+            return new Ewma(current.value * w + latencyNanos * (1 - w), now, true);
+        });
+    }
+
+    private record Ewma(double value, long stamp, boolean sampled) {
+    }
+}
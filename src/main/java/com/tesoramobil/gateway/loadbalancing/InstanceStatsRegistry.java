@@ -0,0 +1,141 @@
+package com.tesoramobil.gateway.loadbalancing;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Estadísticas por servicio e instancia (host:port), compartidas por los balanceadores de cada servicio
+ * y por {@link LoadBalancingStatsFilter}, que registra el resultado de cada petición.
+ * - Expulsa una instancia tras {@code consecutive-errors} fallos seguidos, sin superar
+ *   {@code max-ejection-percent} de las instancias del servicio.
+ * - Olvida las instancias que dejan de figurar en discovery; si vuelven, hacen slow start de nuevo.
+ * - Métricas: {@code gateway.loadbalancer.ejections{service}} y, por instancia,
+ *   {@code gateway.loadbalancer.in-flight} y {@code gateway.loadbalancer.latency} (EWMA, segundos).
+ */
+@Component
+public class InstanceStatsRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(InstanceStatsRegistry.class);
+
+    private static final long FORGET_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, Map<String, InstanceStats>> services = new ConcurrentHashMap<>();
+
+    private final Map<InstanceStats, List<Meter>> meters = new ConcurrentHashMap<>();
+
+    private final LoadBalancingProperties properties;
+
+    private final MeterRegistry registry;
+
+    public InstanceStatsRegistry(LoadBalancingProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    /**
+     * Estadísticas de las instancias que ofrece discovery, en el mismo orden; crea las que no existían
+     * (slow start desde ahora, con la latencia mediana del servicio como penalización) y olvida las que
+     * ya no figuran hace más de un minuto.
+     */
+    public InstanceStats[] seen(String serviceId, List<ServiceInstance> instances, long now) {
+        Map<String, InstanceStats> byInstance = services.computeIfAbsent(serviceId, id -> new ConcurrentHashMap<>());
+        InstanceStats[] stats = new InstanceStats[instances.size()];
+        for (int i = 0; i < stats.length; i++) {
+            String key = key(instances.get(i));
+            stats[i] = byInstance.get(key);
+            if (stats[i] == null) {
+                double penalty = medianLatency(byInstance, now);
+                stats[i] = byInstance.computeIfAbsent(key, instance -> create(serviceId, instance, now, penalty));
+            }
+            stats[i].seen(now, FORGET_NANOS);
+        }
+        if (byInstance.size() > stats.length) {
+            byInstance.values().removeIf(candidate -> {
+                boolean stale = now - candidate.lastSeen() > FORGET_NANOS;
+                if (stale) {
+                    meters.getOrDefault(candidate, List.of()).forEach(registry::remove);
+                    meters.remove(candidate);
+                }
+                return stale;
+            });
+        }
+        return stats;
+    }
+
+    /**
+     * Estadísticas de la instancia elegida para una petición, o null si su servicio no usa este balanceador.
+     */
+    public InstanceStats find(ServiceInstance instance) {
+        Map<String, InstanceStats> byInstance = services.get(instance.getServiceId());
+        return byInstance == null ? null : byInstance.get(key(instance));
+    }
+
+    /**
+     * Registra el fin de una petición y, si corresponde, expulsa la instancia.
+     */
+    public void end(InstanceStats stats, long now, long latencyNanos, boolean failed) {
+        LoadBalancingProperties.Outlier outlier = properties.getOutlier();
+        if (stats.end(now, latencyNanos, failed, outlier.getConsecutiveErrors()) && canEject(stats.serviceId(), now)) {
+            stats.eject(now, outlier.getBaseEjectionTime().toNanos(), outlier.getMaxEjectionTime().toNanos());
+            Counter.builder("gateway.loadbalancer.ejections")
+                    .description("Instancias sacadas de rotación por fallos seguidos")
+                    .tag("service", stats.serviceId())
+                    .register(registry)
+                    .increment();
+            log.warn("Instancia {} de {} fuera de rotación tras {} fallos seguidos", stats.instance(),
+                    stats.serviceId(), outlier.getConsecutiveErrors());
+        }
+    }
+
+    private boolean canEject(String serviceId, long now) {
+        Map<String, InstanceStats> byInstance = services.getOrDefault(serviceId, Map.of());
+        long ejected = byInstance.values().stream().filter(stats -> stats.isEjected(now)).count();
+        return (ejected + 1) * 100 <= (long) byInstance.size() * properties.getOutlier().getMaxEjectionPercent();
+    }
+
+    /**
+     * Latencia mediana de las instancias conocidas del servicio, o {@code initial-latency} si no hay ninguna.
+     */
+    private double medianLatency(Map<String, InstanceStats> byInstance, long now) {
+        double[] latencies = byInstance.values().stream().mapToDouble(stats -> stats.latency(now)).sorted().toArray();
+        if (latencies.length == 0) {
+            return properties.getInitialLatency().toNanos();
+        }
+        int middle = latencies.length / 2;
+        return latencies.length % 2 == 1 ? latencies[middle] : (latencies[middle - 1] + latencies[middle]) / 2;
+    }
+
+    private InstanceStats create(String serviceId, String instance, long now, double penaltyNanos) {
+        InstanceStats stats = new InstanceStats(serviceId, instance, now, properties.getDecayTime().toNanos(),
+                properties.getSlowStart().toNanos(), penaltyNanos);
+        meters.put(stats, List.of(
+                Gauge.builder("gateway.loadbalancer.in-flight", stats, InstanceStats::inFlight)
+                        .description("Peticiones en curso hacia la instancia")
+                        .tag("service", serviceId)
+                        .tag("instance", instance)
+                        .register(registry),
+                Gauge.builder("gateway.loadbalancer.latency", stats, s -> s.latency(System.nanoTime()) / 1e9)
+                        .description("Latencia peak-EWMA de la instancia")
+                        .tag("service", serviceId)
+                        .tag("instance", instance)
+                        .baseUnit("seconds")
+                        .register(registry)));
+        return stats;
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+}
@@ -0,0 +1,88 @@
+package com.tesoramobil.gateway.loadbalancing;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Balanceador "power of two choices" sobre peak-EWMA:
+ * - Toma dos instancias al azar entre las que no están expulsadas y elige la de menor costo
+ *   (latencia EWMA por peticiones en curso + 1), así una instancia lenta o en pausa de GC recibe menos tráfico.
+ * - Si la ganadora está en slow start solo se la admite con probabilidad igual a su peso (10% .. 100%).
+ * - Si todas están expulsadas se usa la lista completa (mejor una instancia dudosa que ninguna).
+ * Funciona con cualquier ServiceInstanceListSupplier: Eureka o la lista estática de
+ * {@code spring.cloud.discovery.client.simple.instances}.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final String serviceId;
+    private final InstanceStatsRegistry statsRegistry;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> suppliers, String serviceId,
+                                    InstanceStatsRegistry statsRegistry) {
+        this.suppliers = suppliers;
+        this.serviceId = serviceId;
+        this.statsRegistry = statsRegistry;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> choose(instances, System.nanoTime()));
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances, long now) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        InstanceStats[] stats = statsRegistry.seen(serviceId, instances, now);
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+
+        int[] candidates = new int[stats.length];
+        int available = 0;
+        for (int i = 0; i < stats.length; i++) {
+            if (!stats[i].isEjected(now)) {
+                candidates[available++] = i;
+            }
+        }
+        if (available == 0) {
+            for (int i = 0; i < stats.length; i++) {
+                candidates[i] = i;
+            }
+            available = stats.length;
+        }
+        if (available == 1) {
+            return new DefaultResponse(instances.get(candidates[0]));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(available);
+        int second = random.nextInt(available - 1);
+        if (second >= first) {
+            second++;
+        }
+        int a = candidates[first];
+        int b = candidates[second];
+        int winner = stats[a].cost(now) <= stats[b].cost(now) ? a : b;
+        int loser = winner == a ? b : a;
+        double weight = stats[winner].weight(now);
+        if (weight < 1 && random.nextDouble() >= weight) {
+            winner = loser; // slow start: la instancia nueva recibe solo una parte
+        }
+        return new DefaultResponse(instances.get(winner));
+    }
+}
@@ -0,0 +1,49 @@
+package com.tesoramobil.gateway.loadbalancing;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Balanceo de carga de las rutas lb:// ({@code gateway.load-balancing.*}).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.load-balancing")
+public class LoadBalancingProperties {
+
+    /** false: round robin de Spring Cloud LoadBalancer. */
+    private boolean enabled = true;
+
+    /** Constante de tiempo de la latencia EWMA: cuánto pesan las muestras viejas. */
+    private Duration decayTime = Duration.ofSeconds(10);
+
+    /**
+     * Latencia supuesta de las primeras instancias de un servicio, antes de tener muestras; las que aparecen
+     * después arrancan con la mediana del servicio. Sin muestras, la latencia vuelve hacia este valor.
+     */
+    private Duration initialLatency = Duration.ofMillis(100);
+
+    /** Rampa de una instancia nueva (o que vuelve a aparecer) desde el 10% hasta su parte completa. */
+    private Duration slowStart = Duration.ofSeconds(30);
+
+    private Outlier outlier = new Outlier();
+
+    @Data
+    public static class Outlier {
+
+        /** Fallos seguidos (sin conexión, timeout, 502/503/504) que sacan a una instancia de rotación. */
+        private int consecutiveErrors = 5;
+
+        /** Primera expulsión; cada expulsión siguiente dura un múltiplo de este valor. */
+        private Duration baseEjectionTime = Duration.ofSeconds(30);
+
+        private Duration maxEjectionTime = Duration.ofMinutes(5);
+
+        /** Porcentaje máximo de instancias de un servicio fuera de rotación al mismo tiempo. */
+        private int maxEjectionPercent = 50;
+    }
+}
@@ -0,0 +1,60 @@
+package com.tesoramobil.gateway.loadbalancing;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Registra en {@link InstanceStatsRegistry} cada petición hacia la instancia que eligió el balanceador:
+ * en curso mientras dura y, al terminar, su latencia y si falló (sin conexión, timeout o 502/503/504).
+ * Va justo después del ReactiveLoadBalancerClientFilter; los reintentos de la ruta vuelven a pasar por ambos.
+ */
+@Component
+public class LoadBalancingStatsFilter implements GlobalFilter, Ordered {
+
+    private final InstanceStatsRegistry statsRegistry;
+
+    public LoadBalancingStatsFilter(InstanceStatsRegistry statsRegistry) {
+        this.statsRegistry = statsRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        InstanceStats stats = chosen != null && chosen.hasServer() ? statsRegistry.find(chosen.getServer()) : null;
+        if (stats == null) {
+            return chain.filter(exchange);
+        }
+        stats.start();
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                stats.cancel();
+                return;
+            }
+            long now = System.nanoTime();
+            statsRegistry.end(stats, now, now - start, signal == SignalType.ON_ERROR || isGatewayFailure(exchange));
+        });
+    }
+
+    private static boolean isGatewayFailure(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        int code = status == null ? 0 : status.value();
+        return code == 502 || code == 503 || code == 504;
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
@@ -0,0 +1,56 @@
+package com.tesoramobil.gateway.observability;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.tesoramobil.gateway.warmup.GatewayWarmup;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Filtro global que mide la latencia de cada exchange y, al terminar, delega en {@link AccessLogger}
+ * para escribir un único registro con la decisión de autorización tomada por los filtros,
+ * y en {@link GatewayMetrics} para el timer y el contador de decisiones.
+ * Las peticiones del calentamiento de arranque ({@link GatewayWarmup}) no se registran.
+ */
+@Component
+public class AccessLogFilter implements GlobalFilter, Ordered {
+
+    private final AccessLogger accessLogger;
+
+    private final GatewayMetrics gatewayMetrics;
+
+    public AccessLogFilter(AccessLogger accessLogger, GatewayMetrics gatewayMetrics) {
+        this.accessLogger = accessLogger;
+        this.gatewayMetrics = gatewayMetrics;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (GatewayWarmup.isWarmup(exchange)) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            long latency = System.nanoTime() - start;
+            String routeId = GatewayMetrics.routeId(exchange);
+            String pathTemplate = AccessLogger.pathTemplate(exchange.getRequest().getPath().value());
+            HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+            int status = statusCode == null ? 0 : statusCode.value();
+            AuthDecision decision = AuthDecision.of(exchange);
+
+            gatewayMetrics.recordExchange(routeId, pathTemplate, decision, status, latency);
+            accessLogger.log(routeId, exchange.getRequest().getMethod().name(), pathTemplate,
+                    AuthDecision.roleOf(exchange), decision, status, latency, RequestTraceId.of(exchange));
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
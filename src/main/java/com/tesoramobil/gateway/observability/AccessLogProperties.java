@@ -0,0 +1,37 @@
+package com.tesoramobil.gateway.observability;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Configuración del access log ({@code gateway.access-log.*}).
+ * El muestreo y el límite por segundo se pueden ajustar por id de ruta.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.access-log")
+public class AccessLogProperties {
+
+    private boolean enabled = true;
+
+    /** Fracción de peticiones exitosas que se registran (0.0 - 1.0). Los rechazos se registran siempre. */
+    private double sampleRate = 1.0;
+
+    /** Máximo de registros por segundo por ruta (0 = sin límite). */
+    private int maxPerSecond = 1000;
+
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class Route {
+
+        private Double sampleRate;
+
+        private Integer maxPerSecond;
+    }
+}
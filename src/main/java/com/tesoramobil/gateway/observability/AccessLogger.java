@@ -0,0 +1,168 @@
+package com.tesoramobil.gateway.observability;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Emite un único registro compacto (logfmt) por exchange en el logger {@code gateway.access}.
+ * - Nunca incluye el token ni secretos: solo ruta, método, plantilla de path, rol, decisión, status, latencia
+ *   y el traceId (el mismo que devuelven las respuestas de error, ver {@link RequestTraceId}).
+ * - Muestreo por ruta para peticiones exitosas; los rechazos y errores 5xx se registran siempre.
+ * - Límite de registros por segundo por ruta (sin locks) para que una ráfaga no sature el appender.
+ * - El appender es asíncrono y no bloqueante (ver logback-spring.xml), así el event loop de Netty no espera al stdout.
+ */
+@Component
+public class AccessLogger {
+
+    public static final String LOGGER_NAME = "gateway.access";
+
+    private static final Logger log = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final AccessLogProperties properties;
+
+    private final Map<String, RouteLog> routes = new ConcurrentHashMap<>();
+
+    public AccessLogger(AccessLogProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Registra el exchange si pasa el muestreo y el límite por segundo de su ruta.
+     *
+     * @param pathTemplate El path con los identificadores ya sustituidos (ver {@link #pathTemplate(String)}).
+     * @param traceId Identificador de correlación de la petición (ver {@link RequestTraceId}).
+     */
+    public void log(String routeId, String method, String pathTemplate, String role, AuthDecision decision,
+                    int status, long latencyNanos, String traceId) {
+        if (!properties.isEnabled() || !log.isInfoEnabled()) {
+            return;
+        }
+        RouteLog route = routes.computeIfAbsent(routeId == null ? "-" : routeId, this::settingsFor);
+        boolean alwaysLog = status >= 500 || (decision != null && decision != AuthDecision.ALLOWED && decision != AuthDecision.PUBLIC);
+        if (!alwaysLog && !route.sampled()) {
+            return;
+        }
+        if (!route.tryAcquire()) {
+            return;
+        }
+        log.info("route={} method={} path={} role={} decision={} status={} latency_ms={} trace={}",
+                route.id, method, pathTemplate, role == null ? "-" : role,
+                decision == null ? "-" : decision, status, latencyNanos / 1_000_000.0, traceId == null ? "-" : traceId);
+    }
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(key -> key.startsWith("gateway.access-log"))) {
+            routes.clear();
+        }
+    }
+
+    /**
+     * Sustituye los segmentos que son identificadores (ver {@link #isIdentifier}) por {id} para que el path
+     * tenga cardinalidad acotada (y no filtre identificadores de usuario en los logs).
+     */
+    public static String pathTemplate(String path) {
+        StringBuilder template = null;
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start && isIdentifier(path, start, end)) {
+                if (template == null) {
+                    template = new StringBuilder(length).append(path, 0, start);
+                }
+                template.append("{id}");
+            } else if (template != null) {
+                template.append(path, start, end);
+            }
+            if (end < length && template != null) {
+                template.append('/');
+            }
+            start = end + 1;
+        }
+        return template == null ? path : template.toString();
+    }
+
+    /**
+     * Identificador (no un segmento fijo de la API): numérico, UUID/hex, alfanumérico con varios dígitos
+     * (o largo con alguno), email o nombre de usuario con '.', '_', '+' o escapes '%'.
+     * Los segmentos de las rutas (listar, grupos-por-rol, v1, oauth2...) son palabras sin esos rasgos.
+     */
+    private static boolean isIdentifier(String path, int start, int end) {
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c == '@' || c == '.' || c == '_' || c == '+' || c == '%') {
+                return true;
+            }
+            if (c >= '0' && c <= '9') {
+                digits++;
+            }
+        }
+        // UUID, hex y alfanuméricos largos tienen algún dígito en 8+ caracteres
+        return digits > 0 && (digits == end - start || digits >= 3 || end - start >= 8);
+    }
+
+    private RouteLog settingsFor(String routeId) {
+        AccessLogProperties.Route route = properties.getRoutes().get(routeId);
+        double sampleRate = route != null && route.getSampleRate() != null ? route.getSampleRate() : properties.getSampleRate();
+        int maxPerSecond = route != null && route.getMaxPerSecond() != null ? route.getMaxPerSecond() : properties.getMaxPerSecond();
+        return new RouteLog(routeId, sampleRate, maxPerSecond);
+    }
+
+    /**
+     * Estado por ruta: tasa de muestreo y una ventana de 1 segundo empaquetada en un AtomicLong
+     * (segundo << 32 | contador), actualizada con CAS.
+     */
+    private static final class RouteLog {
+
+        private final String id;
+        private final double sampleRate;
+        private final int maxPerSecond;
+        private final AtomicLong window = new AtomicLong();
+
+        private RouteLog(String id, double sampleRate, int maxPerSecond) {
+            this.id = id;
+            this.sampleRate = sampleRate;
+            this.maxPerSecond = maxPerSecond;
+        }
+
+        private boolean sampled() {
+            return sampleRate >= 1.0 || (sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+        }
+
+        private boolean tryAcquire() {
+            if (maxPerSecond <= 0) {
+                return true;
+            }
+            long second = System.currentTimeMillis() / 1000;
+            while (true) {
+                long current = window.get();
+                long currentSecond = current >>> 32;
+                int count = (int) current;
+                long next;
+                if (currentSecond != second) {
+                    next = (second << 32) | 1;
+                } else if (count < maxPerSecond) {
+                    next = current + 1;
+                } else {
+                    return false;
+                }
+                if (window.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.tesoramobil.gateway.observability;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Resultado de la autorización de una petición en los filtros del Gateway.
+ * Los filtros lo dejan como atributo del exchange para el access log y las métricas.
+ */
+public enum AuthDecision {
+
+    /** Ruta pública, no requiere token. */
+    PUBLIC,
+
+    /** Falta el header Authorization o tiene un formato inválido (400). */
+    BAD_REQUEST,
+
+    /** Token inválido o expirado (401). */
+    UNAUTHORIZED,
+
+    /** Token válido pero sin permiso para el recurso (403). */
+    FORBIDDEN,
+
+    /** Token válido y con permiso. */
+    ALLOWED,
+
+    /** Rechazada por el rate limiting de la ruta (429). */
+    RATE_LIMITED;
+
+    public static final String DECISION_ATTR = AuthDecision.class.getName() + ".decision";
+
+    public static final String ROLE_ATTR = AuthDecision.class.getName() + ".role";
+
+    /**
+     * Registra la decisión (y el rol, si se conoce) en el exchange.
+     */
+    public void mark(ServerWebExchange exchange, String role) {
+        exchange.getAttributes().put(DECISION_ATTR, this);
+        recordRole(exchange, role);
+    }
+
+    /**
+     * Registra solo el rol extraído del token (la decisión se marca después).
+     */
+    public static void recordRole(ServerWebExchange exchange, String role) {
+        if (role != null) {
+            exchange.getAttributes().put(ROLE_ATTR, role);
+        }
+    }
+
+    /**
+     * Decisión equivalente a un status de rechazo (400, 401, 403); null si no corresponde a ninguno.
+     */
+    public static AuthDecision fromRejection(HttpStatusCode status) {
+        return switch (status.value()) {
+            case 400 -> BAD_REQUEST;
+            case 401 -> UNAUTHORIZED;
+            case 403 -> FORBIDDEN;
+            default -> null;
+        };
+    }
+
+    public static AuthDecision of(ServerWebExchange exchange) {
+        return exchange.getAttribute(DECISION_ATTR);
+    }
+
+    public static String roleOf(ServerWebExchange exchange) {
+        return exchange.getAttribute(ROLE_ATTR);
+    }
+}
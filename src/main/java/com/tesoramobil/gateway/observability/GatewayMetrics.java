@@ -0,0 +1,135 @@
+package com.tesoramobil.gateway.observability;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Métricas del Gateway (Micrometer, publicadas en /actuator/prometheus).
+ * - {@code gateway.filter.phase}: timer por ruta, filtro y fase (extracción de token, verificación JWT, permisos).
+ * - {@code gateway.exchange}: timer por ruta, plantilla de path, decisión y status (buckets SLO en application.yml).
+ * - {@code gateway.auth.decisions}: contador por ruta y decisión (public, bad_request, unauthorized, forbidden, allowed,
+ *   rate_limited).
+ *
+ * Las etiquetas usan ids de ruta y plantillas de path, nunca el path crudo. Una plantilla nueva solo se registra
+ * con una petición autorizada (o pública) y sin error 4xx, así paths basura rechazados o inexistentes no ocupan
+ * lugar; cada ruta admite hasta {@code gateway.metrics.max-path-templates} y el resto (y las peticiones sin ruta)
+ * se agrupan como "other". Los meters se cachean para no pasar por el registry en cada petición.
+ */
+@Component
+public class GatewayMetrics {
+
+    public static final String PHASE_TIMER = "gateway.filter.phase";
+    public static final String EXCHANGE_TIMER = "gateway.exchange";
+    public static final String DECISION_COUNTER = "gateway.auth.decisions";
+
+    private static final String UNKNOWN = "none";
+    private static final String OTHER = "other";
+
+    /**
+     * Fases medidas dentro de los filtros de autorización.
+     */
+    public enum Phase {
+        TOKEN_EXTRACTION("token_extraction"),
+        JWT_VERIFICATION("jwt_verification"),
+        PERMISSION_CHECK("permission_check");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+
+    private final int maxPathTemplates;
+
+    private final Map<String, Set<String>> pathTemplates = new ConcurrentHashMap<>();
+
+    private final Map<PhaseKey, Timer> phaseTimers = new ConcurrentHashMap<>();
+    private final Map<ExchangeKey, Timer> exchangeTimers = new ConcurrentHashMap<>();
+    private final Map<DecisionKey, Counter> decisionCounters = new ConcurrentHashMap<>();
+
+    public GatewayMetrics(MeterRegistry registry,
+                          @Value("${gateway.metrics.max-path-templates:200}") int maxPathTemplates) {
+        this.registry = registry;
+        this.maxPathTemplates = maxPathTemplates;
+    }
+
+    /**
+     * Id de la ruta que atiende el exchange ("none" si no hay ruta).
+     */
+    public static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route == null ? UNKNOWN : route.getId();
+    }
+
+    public void recordPhase(String routeId, String filter, Phase phase, long nanos) {
+        phaseTimers.computeIfAbsent(new PhaseKey(routeId, filter, phase), key -> Timer.builder(PHASE_TIMER)
+                        .description("Tiempo de cada fase de los filtros de autorización")
+                        .tag("route", key.routeId())
+                        .tag("filter", key.filter())
+                        .tag("phase", key.phase().tag)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordExchange(String routeId, String pathTemplate, AuthDecision decision, int status, long nanos) {
+        String decisionTag = decision == null ? UNKNOWN : decision.name().toLowerCase();
+        String pathTag = boundedPath(routeId, pathTemplate, decision, status);
+        exchangeTimers.computeIfAbsent(new ExchangeKey(routeId, pathTag, decisionTag, status), key -> Timer.builder(EXCHANGE_TIMER)
+                        .description("Latencia total del exchange en el Gateway")
+                        .tag("route", key.routeId())
+                        .tag("path", key.pathTemplate())
+                        .tag("decision", key.decision())
+                        .tag("status", Integer.toString(key.status()))
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (decision != null) {
+            decisionCounters.computeIfAbsent(new DecisionKey(routeId, decisionTag), key -> Counter.builder(DECISION_COUNTER)
+                            .description("Decisiones de autorización de los filtros")
+                            .tag("route", key.routeId())
+                            .tag("decision", key.decision())
+                            .register(registry))
+                    .increment();
+        }
+    }
+
+    private String boundedPath(String routeId, String pathTemplate, AuthDecision decision, int status) {
+        if (UNKNOWN.equals(routeId)) {
+            return OTHER;
+        }
+        Set<String> templates = pathTemplates.computeIfAbsent(routeId, id -> ConcurrentHashMap.newKeySet());
+        if (templates.contains(pathTemplate)) {
+            return pathTemplate;
+        }
+        boolean trusted = (decision == null || decision == AuthDecision.ALLOWED || decision == AuthDecision.PUBLIC)
+                && status < 400;
+        if (trusted && templates.size() < maxPathTemplates) {
+            templates.add(pathTemplate);
+            return pathTemplate;
+        }
+        return OTHER;
+    }
+
+    private record PhaseKey(String routeId, String filter, Phase phase) {
+    }
+
+    private record ExchangeKey(String routeId, String pathTemplate, String decision, int status) {
+    }
+
+    private record DecisionKey(String routeId, String decision) {
+    }
+}
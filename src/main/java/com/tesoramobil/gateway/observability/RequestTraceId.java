@@ -0,0 +1,32 @@
+package com.tesoramobil.gateway.observability;
+
+import org.springframework.web.server.ServerWebExchange;
+
+import com.tesoramobil.gateway.tracing.Traceparent;
+
+/**
+ * Identificador de correlación de una petición, el mismo en la respuesta de error
+ * (header {@value #HEADER} y campo "traceId") y en el access log ("trace=").
+ * - Si el cliente envía un {@code traceparent} (W3C) válido se usa su trace-id (ver {@link Traceparent#parse}).
+ * - Si no, el id que Reactor Netty asigna a la petición (el mismo prefijo "[id]" de los logs de Spring).
+ * Se resuelve una sola vez y queda en el exchange.
+ */
+public final class RequestTraceId {
+
+    public static final String ATTR = RequestTraceId.class.getName();
+
+    public static final String HEADER = "X-Trace-Id";
+
+    private RequestTraceId() {
+    }
+
+    public static String of(ServerWebExchange exchange) {
+        String traceId = exchange.getAttribute(ATTR);
+        if (traceId == null) {
+            Traceparent parent = Traceparent.parse(exchange.getRequest().getHeaders().getFirst(Traceparent.HEADER));
+            traceId = parent != null ? parent.traceId() : exchange.getRequest().getId();
+            exchange.getAttributes().put(ATTR, traceId);
+        }
+        return traceId;
+    }
+}
@@ -0,0 +1,153 @@
+package com.tesoramobil.gateway.policy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+/**
+ * Política de autorización activa, compilada desde {@code gateway.policy.rules}.
+ * - Cada política (p. ej. "auth-service", "grupos-service") se compila a un {@link RoutePermissionMatcher}.
+ * - Las recargas construyen un snapshot nuevo y lo publican con una escritura volatile:
+ *   las peticiones en curso siguen usando el snapshot que ya leyeron, sin locks en el hot path.
+ * - Se recarga al refrescar la configuración (POST /actuator/refresh) o desde /actuator/policy.
+ * - Falla cerrado: una configuración sin alguna de las políticas que usan los filtros ({@link #REQUIRED})
+ *   no arranca y, en una recarga, se descarta (un typo no puede dejar abiertas las rutas de ADMIN).
+ */
+@Component
+public class AuthorizationPolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthorizationPolicy.class);
+
+    public static final String AUTH_SERVICE = "auth-service";
+
+    public static final String GRUPOS_SERVICE = "grupos-service";
+
+    /** Políticas que leen AuthServiceFilter y GruposServiceFilter: deben existir y tener reglas. */
+    static final Set<String> REQUIRED = Set.of(AUTH_SERVICE, GRUPOS_SERVICE);
+
+    private final Environment environment;
+
+    private volatile Snapshot current;
+
+    public AuthorizationPolicy(Environment environment) {
+        this.environment = environment;
+        this.current = compile(load(), 1);
+        log.info("Política de autorización v{} compilada: {} reglas en {} µs",
+                current.version(), current.ruleCount(), current.compileTime().toNanos() / 1_000);
+    }
+
+    /**
+     * Snapshot activo. Leerlo una vez por petición y usar siempre ese mismo objeto.
+     */
+    public Snapshot current() {
+        return current;
+    }
+
+    /**
+     * Atajo para obtener el matcher de una política del snapshot activo.
+     */
+    public RoutePermissionMatcher matcher(String policy) {
+        return current.matcher(policy);
+    }
+
+    /**
+     * Vuelve a leer la configuración, compila e intercambia el snapshot.
+     * Si la nueva configuración es inválida se conserva el snapshot anterior.
+     *
+     * @return El snapshot activo tras la recarga.
+     */
+    public synchronized Snapshot reload() {
+        Snapshot previous = current;
+        try {
+            Snapshot next = compile(load(), previous.version() + 1);
+            current = next;
+            log.info("Política de autorización v{} -> v{}: {} reglas en {} µs",
+                    previous.version(), next.version(), next.ruleCount(), next.compileTime().toNanos() / 1_000);
+            return next;
+        } catch (RuntimeException e) {
+            log.error("Política de autorización inválida, se mantiene v{}: {}", previous.version(), e.getMessage());
+            return previous;
+        }
+    }
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(key -> key.startsWith(AuthorizationPolicyProperties.PREFIX))) {
+            reload();
+        }
+    }
+
+    private AuthorizationPolicyProperties load() {
+        return Binder.get(environment)
+                .bind(AuthorizationPolicyProperties.PREFIX, AuthorizationPolicyProperties.class)
+                .orElseGet(AuthorizationPolicyProperties::new);
+    }
+
+    static Snapshot compile(AuthorizationPolicyProperties properties, long version) {
+        long start = System.nanoTime();
+        Map<String, RoutePermissionMatcher> matchers = new HashMap<>();
+        int ruleCount = 0;
+        for (var policy : properties.getRules().entrySet()) {
+            RoutePermissionMatcher.Builder builder = RoutePermissionMatcher.builder();
+            for (var byRole : policy.getValue().entrySet()) {
+                for (var byMethod : byRole.getValue().entrySet()) {
+                    String method = HttpMethod.valueOf(byMethod.getKey().toUpperCase()).name();
+                    for (String prefix : byMethod.getValue()) {
+                        if (prefix == null || !prefix.startsWith("/")) {
+                            throw new IllegalArgumentException("Prefijo inválido en " + policy.getKey() + ": " + prefix);
+                        }
+                        builder.allow(byRole.getKey(), method, prefix);
+                    }
+                }
+            }
+            RoutePermissionMatcher matcher = builder.build();
+            ruleCount += matcher.size();
+            matchers.put(policy.getKey(), matcher);
+        }
+        for (String required : REQUIRED) {
+            if (!matchers.containsKey(required) || matchers.get(required).size() == 0) {
+                throw new IllegalArgumentException("Falta la política " + required + " (o no tiene reglas)");
+            }
+        }
+        return new Snapshot(version, Integer.toHexString(properties.getRules().hashCode()), Map.copyOf(matchers),
+                ruleCount, Instant.now(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Índice inmutable de una versión concreta de la política.
+     */
+    public record Snapshot(long version, String checksum, Map<String, RoutePermissionMatcher> matchers,
+                           int ruleCount, Instant compiledAt, Duration compileTime) {
+
+        /**
+         * Matcher de la política; si no existe, uno vacío ({@code allows} siempre false). Quien trate
+         * "ninguna regla aplica" como acceso libre debe comprobar antes {@link #contains(String)}.
+         */
+        public RoutePermissionMatcher matcher(String policy) {
+            return matchers.getOrDefault(policy, RoutePermissionMatcher.empty());
+        }
+
+        public boolean contains(String policy) {
+            return matchers.containsKey(policy);
+        }
+
+        public List<String> describe() {
+            return matchers.entrySet().stream()
+                    .map(e -> e.getKey() + "=" + e.getValue().size())
+                    .sorted()
+                    .toList();
+        }
+    }
+}
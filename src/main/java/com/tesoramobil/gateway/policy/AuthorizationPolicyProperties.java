@@ -0,0 +1,29 @@
+package com.tesoramobil.gateway.policy;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * Reglas de autorización declaradas en configuración ({@code gateway.policy.*}).
+ *
+ * Formato: política -> rol -> método HTTP -> prefijos de path.
+ * <pre>
+ * gateway:
+ *   policy:
+ *     rules:
+ *       grupos-service:
+ *         USER:
+ *           GET:
+ *             - /grupos-service/grupos/grupo
+ * </pre>
+ */
+@Data
+public class AuthorizationPolicyProperties {
+
+    public static final String PREFIX = "gateway.policy";
+
+    private Map<String, Map<String, Map<String, List<String>>>> rules = new LinkedHashMap<>();
+}
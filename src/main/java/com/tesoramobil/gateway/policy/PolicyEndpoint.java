@@ -0,0 +1,46 @@
+package com.tesoramobil.gateway.policy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Endpoint de actuator (/actuator/policy) con la versión activa de la política
+ * y el tiempo que tomó su última compilación. Un POST fuerza la recarga.
+ * Sin autenticación: solo se expone en el puerto de management ({@code management.server.port}), igual que /refresh.
+ */
+@Component
+@Endpoint(id = "policy")
+public class PolicyEndpoint {
+
+    private final AuthorizationPolicy authorizationPolicy;
+
+    public PolicyEndpoint(AuthorizationPolicy authorizationPolicy) {
+        this.authorizationPolicy = authorizationPolicy;
+    }
+
+    @ReadOperation
+    public Map<String, Object> policy() {
+        return describe(authorizationPolicy.current());
+    }
+
+    @WriteOperation
+    public Map<String, Object> reload() {
+        return describe(authorizationPolicy.reload());
+    }
+
+    private Map<String, Object> describe(AuthorizationPolicy.Snapshot snapshot) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("version", snapshot.version());
+        body.put("checksum", snapshot.checksum());
+        body.put("compiledAt", snapshot.compiledAt().toString());
+        body.put("compileTimeMicros", snapshot.compileTime().toNanos() / 1_000);
+        body.put("ruleCount", snapshot.ruleCount());
+        body.put("policies", snapshot.describe());
+        return body;
+    }
+}
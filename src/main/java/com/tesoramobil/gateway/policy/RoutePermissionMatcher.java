@@ -0,0 +1,195 @@
+package com.tesoramobil.gateway.policy;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tabla de permisos compilada: un trie de prefijos por método HTTP.
+ * - Cada regla es (método, prefijo, rol). El prefijo se compara por segmentos,
+ *   así "/grupos-service/grupos" cubre "/grupos-service/grupos/x" pero NO "/grupos-service/grupos-x".
+ * - {@link #match(String, String)} recorre el path una sola vez y no asigna memoria:
+ *   devuelve el conjunto (precalculado) de roles de todos los prefijos que cubren el path.
+ * - Es inmutable, se puede compartir entre hilos sin sincronización.
+ */
+public final class RoutePermissionMatcher {
+
+    private static final RoutePermissionMatcher EMPTY = new RoutePermissionMatcher(Map.of(), 0);
+
+    private final Map<String, Node> roots;
+
+    private final int ruleCount;
+
+    private RoutePermissionMatcher(Map<String, Node> roots, int ruleCount) {
+        this.roots = roots;
+        this.ruleCount = ruleCount;
+    }
+
+    public static RoutePermissionMatcher empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Construye el matcher a partir de una tabla rol -> método -> prefijos
+     * (el mismo formato que usaban los filtros con startsWith).
+     */
+    public static RoutePermissionMatcher fromTable(Map<String, ? extends Map<String, ? extends Iterable<String>>> table) {
+        Builder builder = builder();
+        table.forEach((role, byMethod) -> byMethod.forEach((method, prefixes) -> {
+            for (String prefix : prefixes) {
+                builder.allow(role, method, prefix);
+            }
+        }));
+        return builder.build();
+    }
+
+    /**
+     * Roles asociados a los prefijos que cubren el path para el método dado.
+     *
+     * @return Conjunto inmutable; vacío si ninguna regla aplica.
+     */
+    public Set<String> match(String method, String path) {
+        Node node = roots.get(method);
+        if (node == null) {
+            return Set.of();
+        }
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            // Saltar separadores (también "//" y "/" final)
+            while (start < length && path.charAt(start) == '/') {
+                start++;
+            }
+            if (start == length) {
+                break;
+            }
+            int end = start;
+            int hash = 0;
+            char c;
+            while (end < length && (c = path.charAt(end)) != '/') {
+                hash = 31 * hash + c;
+                end++;
+            }
+            Node child = node.child(path, start, end - start, hash);
+            if (child == null) {
+                break;
+            }
+            node = child;
+            start = end;
+        }
+        return node.effectiveRoles;
+    }
+
+    /**
+     * Indica si el rol está entre los roles que cubren el path (un rol nulo nunca está permitido).
+     */
+    public boolean allows(String role, String method, String path) {
+        return role != null && match(method, path).contains(role);
+    }
+
+    /**
+     * Número de reglas compiladas (útil para métricas/diagnóstico).
+     */
+    public int size() {
+        return ruleCount;
+    }
+
+    /**
+     * Nodo inmutable del trie. Los hijos se guardan en una tabla hash de direccionamiento
+     * abierto indexada por el hashCode del segmento, para buscar sin crear substrings.
+     */
+    private static final class Node {
+
+        private final Set<String> effectiveRoles;
+        private final int[] hashes;
+        private final String[] segments;
+        private final Node[] children;
+        private final int mask;
+
+        private Node(Set<String> effectiveRoles, Map<String, Node> childMap) {
+            this.effectiveRoles = effectiveRoles;
+            int capacity = Integer.highestOneBit(Math.max(1, childMap.size()) * 2 - 1) << 1;
+            this.hashes = new int[capacity];
+            this.segments = new String[capacity];
+            this.children = new Node[capacity];
+            this.mask = capacity - 1;
+            childMap.forEach((segment, child) -> {
+                int hash = segment.hashCode();
+                int i = hash & mask;
+                while (segments[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                hashes[i] = hash;
+                segments[i] = segment;
+                children[i] = child;
+            });
+        }
+
+        private Node child(String path, int offset, int length, int hash) {
+            int i = hash & mask;
+            String segment;
+            while ((segment = segments[i]) != null) {
+                if (hashes[i] == hash && segment.length() == length && path.regionMatches(offset, segment, 0, length)) {
+                    return children[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Acumula reglas y compila el trie inmutable.
+     */
+    public static final class Builder {
+
+        private final Map<String, MutableNode> roots = new HashMap<>();
+        private int ruleCount;
+
+        private Builder() {
+        }
+
+        public Builder allow(String role, String method, String prefix) {
+            MutableNode node = roots.computeIfAbsent(method, m -> new MutableNode());
+            for (String segment : prefix.split("/")) {
+                if (!segment.isEmpty()) {
+                    node = node.children.computeIfAbsent(segment, s -> new MutableNode());
+                }
+            }
+            node.roles.add(role);
+            ruleCount++;
+            return this;
+        }
+
+        public RoutePermissionMatcher build() {
+            Map<String, Node> compiled = new HashMap<>();
+            roots.forEach((method, root) -> compiled.put(method, root.freeze(Set.of())));
+            return new RoutePermissionMatcher(Map.copyOf(compiled), ruleCount);
+        }
+    }
+
+    private static final class MutableNode {
+
+        private final Set<String> roles = new LinkedHashSet<>();
+        private final Map<String, MutableNode> children = new HashMap<>();
+
+        private Node freeze(Set<String> inherited) {
+            Set<String> effective = inherited;
+            if (!roles.isEmpty()) {
+                Set<String> union = new LinkedHashSet<>(inherited);
+                union.addAll(roles);
+                effective = Set.copyOf(union);
+            }
+            Map<String, Node> frozen = new HashMap<>();
+            for (Map.Entry<String, MutableNode> entry : children.entrySet()) {
+                frozen.put(entry.getKey(), entry.getValue().freeze(effective));
+            }
+            return new Node(effective, frozen);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.tesoramobil.gateway.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementación local de {@link SharedStateStore} sobre un ConcurrentHashMap.
+ * Sirve para desarrollo y pruebas del backend compartido sin levantar Redis.
+ */
+public class InProcessSharedStateStore implements SharedStateStore {
+
+    private record Entry(long value, long expiresAtNanos) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Long> get(String key) {
+        return Mono.fromSupplier(() -> {
+            Entry entry = live(key);
+            return entry == null ? 0L : entry.value();
+        });
+    }
+
+    @Override
+    public Mono<Boolean> compareAndSet(String key, long expected, long update, Duration ttl) {
+        return Mono.fromSupplier(() -> {
+            long expiresAt = System.nanoTime() + ttl.toNanos();
+            boolean[] written = new boolean[1];
+            entries.compute(key, (k, current) -> {
+                long value = current == null || current.expiresAtNanos() <= System.nanoTime() ? 0 : current.value();
+                if (value != expected) {
+                    return current;
+                }
+                written[0] = true;
+                return new Entry(update, expiresAt);
+            });
+            return written[0];
+        });
+    }
+
+    private Entry live(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAtNanos() <= System.nanoTime()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,44 @@
+package com.tesoramobil.gateway.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Buckets en memoria: un AtomicLong (TAT) por llave, actualizado con CAS, sin locks.
+ * Las llaves inactivas se expulsan solas (un bucket lleno no necesita estado).
+ */
+public class LocalRateLimitBackend implements RateLimitBackend {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public LocalRateLimitBackend(long maxKeys, Duration idleTimeout) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    @Override
+    public Mono<RateLimitSpec.Decision> tryConsume(String key, RateLimitSpec spec, int permits) {
+        return Mono.just(consume(key, spec, permits));
+    }
+
+    /**
+     * Versión síncrona (sin Mono) para el camino en memoria.
+     */
+    public RateLimitSpec.Decision consume(String key, RateLimitSpec spec, int permits) {
+        AtomicLong tat = buckets.get(key, k -> new AtomicLong());
+        while (true) {
+            long stored = tat.get();
+            RateLimitSpec.Decision decision = spec.evaluate(stored, System.nanoTime(), permits);
+            if (!decision.allowed() || tat.compareAndSet(stored, decision.newTat())) {
+                return decision;
+            }
+        }
+    }
+}
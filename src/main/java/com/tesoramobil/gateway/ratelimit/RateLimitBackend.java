@@ -0,0 +1,13 @@
+package com.tesoramobil.gateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Almacenamiento de los buckets de rate limiting.
+ * - {@link LocalRateLimitBackend}: buckets en memoria, sin locks (un solo nodo).
+ * - {@link SharedStoreRateLimitBackend}: buckets en un {@link SharedStateStore} común a todo el clúster.
+ */
+public interface RateLimitBackend {
+
+    Mono<RateLimitSpec.Decision> tryConsume(String key, RateLimitSpec spec, int permits);
+}
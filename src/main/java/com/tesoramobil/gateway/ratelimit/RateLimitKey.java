@@ -0,0 +1,48 @@
+package com.tesoramobil.gateway.ratelimit;
+
+import java.net.InetSocketAddress;
+
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.tesoramobil.gateway.security.VerifiedIdentity;
+
+/**
+ * Con qué se agrupan las peticiones en un mismo bucket.
+ */
+public enum RateLimitKey {
+
+    /** Claim "id" del JWT verificado (si no hay identidad, cae a la IP del cliente). */
+    USER,
+
+    /** IP del cliente: la del X-Forwarded-For que agregó el último proxy confiable, o la de la conexión sin proxies. */
+    IP,
+
+    /** Un único bucket para toda la ruta. */
+    ROUTE;
+
+    /**
+     * Llave del bucket para la ruta dada.
+     *
+     * @param clientAddress Cómo obtener la IP del cliente (ver {@code gateway.rate-limit.trusted-proxies}).
+     */
+    public String resolve(String routeId, ServerWebExchange exchange, RemoteAddressResolver clientAddress) {
+        switch (this) {
+            case USER -> {
+                VerifiedIdentity identity = VerifiedIdentity.of(exchange);
+                if (identity != null && identity.userId() != null) {
+                    return routeId + ":u:" + identity.userId();
+                }
+                return IP.resolve(routeId, exchange, clientAddress);
+            }
+            case IP -> {
+                InetSocketAddress remote = clientAddress.resolve(exchange);
+                String ip = remote == null || remote.getAddress() == null ? "unknown" : remote.getAddress().getHostAddress();
+                return routeId + ":ip:" + ip;
+            }
+            default -> {
+                return routeId;
+            }
+        }
+    }
+}
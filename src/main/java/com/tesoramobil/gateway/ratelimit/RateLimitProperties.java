@@ -0,0 +1,59 @@
+package com.tesoramobil.gateway.ratelimit;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Configuración del rate limiting ({@code gateway.rate-limit.*}).
+ * Los límites van como argumentos del filtro en cada ruta de {@code gateway.routes.definitions}
+ * ({@code rate-limit=20, 40, USER}); {@code routes} queda para los filtros declarados sin argumentos.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    public enum Backend {
+        /** Buckets en memoria de cada nodo. */
+        LOCAL,
+        /** Buckets en el SharedStateStore común al clúster. */
+        SHARED
+    }
+
+    private boolean enabled = true;
+
+    private Backend backend = Backend.LOCAL;
+
+    /** Máximo de llaves (usuarios/IPs) en memoria con backend LOCAL. */
+    private long maxKeys = 100_000;
+
+    /** Tiempo sin uso tras el cual se descarta el bucket de una llave (backend LOCAL). */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Proxies confiables delante del Gateway (ingress, load balancer) para {@code key=IP}: la IP del cliente es la
+     * n-ésima desde el final de X-Forwarded-For. 0 usa la dirección de la conexión (sin proxies).
+     * Solo se sube en despliegues detrás de un ingress propio: si los clientes llegan directo controlan X-Forwarded-For
+     * y con cada valor nuevo obtendrían un bucket nuevo.
+     */
+    private int trustedProxies;
+
+    /** Límites por id de ruta para {@code rate-limit} sin argumentos. */
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class Route {
+
+        private int replenishRate = 50;
+
+        private int burstCapacity = 100;
+
+        private RateLimitKey key = RateLimitKey.USER;
+    }
+}
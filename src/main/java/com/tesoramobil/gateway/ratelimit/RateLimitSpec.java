@@ -0,0 +1,58 @@
+package com.tesoramobil.gateway.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parámetros de un token bucket expresados con GCRA (Generic Cell Rate Algorithm):
+ * un solo valor por llave (el "theoretical arrival time", TAT) basta para representar el bucket,
+ * lo que permite actualizarlo con un único compare-and-set, tanto en memoria como en un store compartido.
+ *
+ * @param replenishRate Tokens por segundo.
+ * @param burstCapacity Tokens máximos acumulables (tamaño del bucket).
+ */
+public record RateLimitSpec(int replenishRate, int burstCapacity) {
+
+    public RateLimitSpec {
+        if (replenishRate <= 0 || burstCapacity <= 0) {
+            throw new IllegalArgumentException("replenishRate y burstCapacity deben ser > 0");
+        }
+    }
+
+    /** Nanosegundos que tarda en reponerse un token. */
+    public long intervalNanos() {
+        return TimeUnit.SECONDS.toNanos(1) / replenishRate;
+    }
+
+    /** Tiempo que tarda el bucket vacío en llenarse (también sirve como TTL de la llave). */
+    public long fullRefillNanos() {
+        return intervalNanos() * burstCapacity;
+    }
+
+    /**
+     * Evalúa una petición de {@code permits} tokens dado el TAT guardado.
+     *
+     * @param storedTat TAT actual de la llave (0 si no existe).
+     * @param now Reloj en nanosegundos.
+     */
+    public Decision evaluate(long storedTat, long now, int permits) {
+        long interval = intervalNanos();
+        long tat = storedTat == 0 ? now : Math.max(storedTat, now);
+        long newTat = tat + interval * permits;
+        long backlog = newTat - now;
+        long limit = fullRefillNanos();
+        if (backlog > limit) {
+            return new Decision(false, storedTat, 0, backlog - limit);
+        }
+        return new Decision(true, newTat, (limit - backlog) / interval, 0);
+    }
+
+    /**
+     * Resultado de consumir tokens.
+     *
+     * @param newTat TAT a guardar si se permitió (o el mismo si se rechazó).
+     * @param remaining Tokens que quedan en el bucket.
+     * @param retryAfterNanos Espera mínima antes de reintentar (0 si se permitió).
+     */
+    public record Decision(boolean allowed, long newTat, long remaining, long retryAfterNanos) {
+    }
+}
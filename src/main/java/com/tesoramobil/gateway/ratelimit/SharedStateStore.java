@@ -0,0 +1,24 @@
+package com.tesoramobil.gateway.ratelimit;
+
+import java.time.Duration;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Store clave/valor compartido por los nodos del Gateway (p. ej. Redis).
+ * Solo necesita lectura y compare-and-set atómico de un long con TTL.
+ */
+public interface SharedStateStore {
+
+    /**
+     * Valor actual de la llave, o 0 si no existe.
+     */
+    Mono<Long> get(String key);
+
+    /**
+     * Escribe {@code update} solo si el valor actual es {@code expected} (0 = no existe).
+     *
+     * @return true si se escribió.
+     */
+    Mono<Boolean> compareAndSet(String key, long expected, long update, Duration ttl);
+}
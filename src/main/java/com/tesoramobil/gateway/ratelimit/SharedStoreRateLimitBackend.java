@@ -0,0 +1,49 @@
+package com.tesoramobil.gateway.ratelimit;
+
+import java.time.Duration;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Buckets compartidos por todo el clúster sobre un {@link SharedStateStore}.
+ * Usa reloj de pared (los nodos deben tener el reloj sincronizado) y reintenta el CAS
+ * un número acotado de veces; si no lo logra, rechaza la petición.
+ */
+public class SharedStoreRateLimitBackend implements RateLimitBackend {
+
+    private static final int MAX_CAS_ATTEMPTS = 5;
+
+    private final SharedStateStore store;
+
+    public SharedStoreRateLimitBackend(SharedStateStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Mono<RateLimitSpec.Decision> tryConsume(String key, RateLimitSpec spec, int permits) {
+        return attempt(key, spec, permits, MAX_CAS_ATTEMPTS);
+    }
+
+    private Mono<RateLimitSpec.Decision> attempt(String key, RateLimitSpec spec, int permits, int attemptsLeft) {
+        return store.get(key).flatMap(stored -> {
+            RateLimitSpec.Decision decision = spec.evaluate(stored, wallClockNanos(), permits);
+            if (!decision.allowed()) {
+                return Mono.just(decision);
+            }
+            Duration ttl = Duration.ofNanos(decision.newTat() - wallClockNanos() + spec.intervalNanos());
+            return store.compareAndSet(key, stored, decision.newTat(), ttl).flatMap(written -> {
+                if (written) {
+                    return Mono.just(decision);
+                }
+                if (attemptsLeft > 1) {
+                    return attempt(key, spec, permits, attemptsLeft - 1);
+                }
+                return Mono.just(new RateLimitSpec.Decision(false, stored, 0, spec.intervalNanos()));
+            });
+        });
+    }
+
+    private static long wallClockNanos() {
+        return System.currentTimeMillis() * 1_000_000L;
+    }
+}
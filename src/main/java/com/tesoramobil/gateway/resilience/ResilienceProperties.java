@@ -0,0 +1,87 @@
+package com.tesoramobil.gateway.resilience;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Aislamiento de fallos por ruta ({@code gateway.resilience.*}): circuit breaker, bulkhead y reintentos.
+ * Las rutas sin entrada usan los valores por defecto de {@link Route}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.resilience")
+public class ResilienceProperties {
+
+    private boolean enabled = true;
+
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    public Route forRoute(String routeId) {
+        return routes.getOrDefault(routeId, new Route());
+    }
+
+    @Data
+    public static class Route {
+
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        private Bulkhead bulkhead = new Bulkhead();
+
+        private Retry retry = new Retry();
+    }
+
+    @Data
+    public static class CircuitBreaker {
+
+        /** Porcentaje de fallos (errores y 5xx) que abre el circuito. */
+        private float failureRateThreshold = 50;
+
+        /** Llamadas más lentas que esto cuentan como lentas. */
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(2);
+
+        /** Porcentaje de llamadas lentas que abre el circuito. */
+        private float slowCallRateThreshold = 80;
+
+        /** Llamadas consideradas para calcular las tasas. */
+        private int slidingWindowSize = 50;
+
+        private int minimumNumberOfCalls = 20;
+
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+        private int permittedCallsInHalfOpenState = 5;
+    }
+
+    @Data
+    public static class Bulkhead {
+
+        /** Peticiones concurrentes máximas hacia el servicio; el resto recibe 503 inmediato. */
+        private int maxConcurrentCalls = 200;
+    }
+
+    @Data
+    public static class Retry {
+
+        /** Reintentos máximos por petición (solo GET/HEAD y solo fallos de conexión o timeout). */
+        private int maxRetries = 2;
+
+        private Duration firstBackoff = Duration.ofMillis(50);
+
+        private Duration maxBackoff = Duration.ofMillis(500);
+
+        /** Fracción aleatoria aplicada a cada backoff (0.0 - 1.0). */
+        private double jitter = 0.5;
+
+        /** Reintentos permitidos como fracción de las peticiones recientes (presupuesto). */
+        private double budgetRatio = 0.2;
+
+        /** Reintentos por segundo siempre disponibles aunque haya poco tráfico. */
+        private int minRetriesPerSecond = 5;
+    }
+}
@@ -0,0 +1,104 @@
+package com.tesoramobil.gateway.resilience;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Crea (una sola vez por ruta) el circuit breaker, el bulkhead y el presupuesto de reintentos,
+ * y publica sus métricas:
+ * - {@code resilience4j.circuitbreaker.*} y {@code resilience4j.bulkhead.*} (estado, llamadas, capacidad).
+ * - {@code gateway.circuitbreaker.transitions{route,from,to}}: cambios de estado del circuito.
+ * - {@code gateway.resilience.rejections{route,reason}}: peticiones rechazadas sin llegar al servicio.
+ */
+@Component
+public class ResilienceRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilienceRegistry.class);
+
+    public static final String TRANSITIONS_COUNTER = "gateway.circuitbreaker.transitions";
+    public static final String REJECTIONS_COUNTER = "gateway.resilience.rejections";
+
+    /**
+     * Motivo por el que el Gateway rechaza o deja de reintentar una petición.
+     */
+    public enum Rejection {
+        CIRCUIT_OPEN, BULKHEAD_FULL, RETRY_BUDGET_EXHAUSTED
+    }
+
+    private final ResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+    private final BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+    private final Map<String, RouteResilience> routes = new ConcurrentHashMap<>();
+
+    public ResilienceRegistry(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+    }
+
+    public RouteResilience forRoute(String routeId) {
+        return routes.computeIfAbsent(routeId, this::create);
+    }
+
+    public void reject(String routeId, Rejection reason) {
+        Counter.builder(REJECTIONS_COUNTER)
+                .description("Peticiones rechazadas por circuit breaker, bulkhead o presupuesto de reintentos")
+                .tag("route", routeId)
+                .tag("reason", reason.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private RouteResilience create(String routeId) {
+        ResilienceProperties.Route route = properties.forRoute(routeId);
+        ResilienceProperties.CircuitBreaker cb = route.getCircuitBreaker();
+
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(routeId, CircuitBreakerConfig.custom()
+                .failureRateThreshold(cb.getFailureRateThreshold())
+                .slowCallDurationThreshold(cb.getSlowCallDurationThreshold())
+                .slowCallRateThreshold(cb.getSlowCallRateThreshold())
+                .slidingWindowSize(cb.getSlidingWindowSize())
+                .minimumNumberOfCalls(cb.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(cb.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(cb.getPermittedCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build());
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.StateTransition transition = event.getStateTransition();
+            log.warn("Circuit breaker de {}: {} -> {}", routeId, transition.getFromState(), transition.getToState());
+            Counter.builder(TRANSITIONS_COUNTER)
+                    .description("Cambios de estado del circuit breaker por ruta")
+                    .tag("route", routeId)
+                    .tag("from", transition.getFromState().name().toLowerCase())
+                    .tag("to", transition.getToState().name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+        });
+
+        Bulkhead bulkhead = bulkheads.bulkhead(routeId, BulkheadConfig.custom()
+                .maxConcurrentCalls(route.getBulkhead().getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+
+        RetryBudget retryBudget = new RetryBudget(route.getRetry().getBudgetRatio(), route.getRetry().getMinRetriesPerSecond());
+        return new RouteResilience(routeId, circuitBreaker, bulkhead, retryBudget, route.getRetry());
+    }
+}
@@ -0,0 +1,66 @@
+package com.tesoramobil.gateway.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Presupuesto de reintentos (estilo Finagle): cada petición deposita {@code ratio} tokens y cada reintento
+ * retira uno, de modo que los reintentos nunca superan esa fracción del tráfico y no multiplican la carga
+ * durante una caída. Además se reponen {@code minPerSecond} tokens por segundo para rutas con poco tráfico.
+ *
+ * El saldo se guarda en milésimas de token en un AtomicLong, sin locks.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1_000;
+
+    private final long depositPerRequest;
+    private final long minPerSecond;
+    private final long maxBalance;
+    private final AtomicLong balance = new AtomicLong();
+    private final AtomicLong lastRefillSecond = new AtomicLong(System.nanoTime() / 1_000_000_000L);
+
+    public RetryBudget(double ratio, int minPerSecond) {
+        this.depositPerRequest = Math.round(ratio * SCALE);
+        this.minPerSecond = minPerSecond * SCALE;
+        // El saldo no acumula más de ~10 s de reintentos
+        this.maxBalance = Math.max(this.minPerSecond * 10, SCALE * 10);
+        this.balance.set(this.minPerSecond);
+    }
+
+    /**
+     * Registra una petición original (no reintento).
+     */
+    public void deposit() {
+        add(depositPerRequest);
+    }
+
+    /**
+     * Intenta consumir un reintento.
+     *
+     * @return true si hay presupuesto.
+     */
+    public boolean tryWithdraw() {
+        refill();
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    private void refill() {
+        long second = System.nanoTime() / 1_000_000_000L;
+        long last = lastRefillSecond.get();
+        if (second > last && lastRefillSecond.compareAndSet(last, second)) {
+            add(minPerSecond * (second - last));
+        }
+    }
+
+    private void add(long amount) {
+        balance.accumulateAndGet(amount, (current, delta) -> Math.min(maxBalance, current + delta));
+    }
+}
@@ -0,0 +1,11 @@
+package com.tesoramobil.gateway.resilience;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+/**
+ * Componentes de aislamiento de una ruta (uno por id de ruta, compartidos por todas sus peticiones).
+ */
+public record RouteResilience(String routeId, CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+                              RetryBudget retryBudget, ResilienceProperties.Retry retry) {
+}
@@ -0,0 +1,82 @@
+package com.tesoramobil.gateway.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+/**
+ * Llamada al servicio de una petición protegida por ResilienceGatewayFilterFactory.
+ * Se cierra al llegar los headers de la respuesta ({@link UpstreamCallFilter}), no al terminar de escribir el cuerpo:
+ * un cliente lento descargando no cuenta como llamada lenta del servicio ni retiene el permiso del bulkhead.
+ * - Cada intento (reintento incluido) registra su resultado en el circuit breaker una sola vez.
+ * - El permiso del bulkhead se libera con la primera respuesta o, si ningún intento llegó a responder,
+ *   al terminar la petición.
+ */
+public final class UpstreamCall {
+
+    public static final String ATTRIBUTE = UpstreamCall.class.getName();
+
+    private final RouteResilience route;
+    private final AtomicBoolean bulkheadHeld = new AtomicBoolean(true);
+    private final AtomicBoolean attemptOpen = new AtomicBoolean();
+    private volatile long attemptStart;
+
+    public UpstreamCall(RouteResilience route) {
+        this.route = route;
+    }
+
+    public static UpstreamCall of(ServerWebExchange exchange) {
+        return exchange.getAttribute(ATTRIBUTE);
+    }
+
+    /**
+     * Nuevo intento con el permiso del circuit breaker ya adquirido.
+     */
+    public void startAttempt() {
+        attemptStart = System.nanoTime();
+        attemptOpen.set(true);
+    }
+
+    /**
+     * Headers del servicio: un 5xx cuenta como error del circuito; en cualquier caso se libera el bulkhead.
+     */
+    public void onResponse(HttpStatusCode status) {
+        if (attemptOpen.compareAndSet(true, false)) {
+            CircuitBreaker circuitBreaker = route.circuitBreaker();
+            long elapsed = System.nanoTime() - attemptStart;
+            if (status != null && status.is5xxServerError()) {
+                circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS,
+                        new ResponseStatusException(status, "Upstream " + status.value()));
+            } else {
+                circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
+        releaseBulkhead();
+    }
+
+    /**
+     * Fallo antes de tener respuesta (conexión, timeout): el bulkhead sigue tomado por si hay reintento.
+     */
+    public void onError(Throwable error) {
+        if (attemptOpen.compareAndSet(true, false)) {
+            route.circuitBreaker().onError(System.nanoTime() - attemptStart, TimeUnit.NANOSECONDS, error);
+        }
+    }
+
+    public void onCancel() {
+        if (attemptOpen.compareAndSet(true, false)) {
+            route.circuitBreaker().releasePermission();
+        }
+    }
+
+    public void releaseBulkhead() {
+        if (bulkheadHeld.compareAndSet(true, false)) {
+            route.bulkhead().onComplete();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.tesoramobil.gateway.resilience;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Cierra el {@link UpstreamCall} de la petición cuando el servicio respondió los headers.
+ * Va justo después de NettyWriteResponseFilter: lo que queda de la cadena (balanceador y NettyRoutingFilter)
+ * termina al recibir la respuesta, mientras que el cuerpo se escribe al cliente después, ya fuera de este filtro.
+ */
+@Component
+public class UpstreamCallFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        UpstreamCall call = UpstreamCall.of(exchange);
+        if (call == null) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .doOnSuccess(done -> call.onResponse(exchange.getResponse().getStatusCode()))
+                .doOnError(call::onError)
+                .doOnCancel(call::onCancel);
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER + 1;
+    }
+}
@@ -0,0 +1,54 @@
+package com.tesoramobil.gateway.revocation;
+
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Endpoint de actuator (/actuator/revocations) con el tamaño del índice de revocaciones.
+ * Un POST revoca en caliente:
+ * {@code {"type":"token","value":"<sha256 hex>","until":<exp>}} o {@code {"type":"user","value":"<id>"}}
+ * (sin "until", el token queda revocado por {@code max-token-lifetime} y el usuario pierde los tokens emitidos hasta ahora).
+ * No sustituye al feed: lo revocado aquí no sobrevive un reinicio.
+ * Sin autenticación: solo se expone en el puerto de management ({@code management.server.port}), nunca en el público.
+ */
+@Component
+@Endpoint(id = "revocations")
+public class RevocationEndpoint {
+
+    private final RevocationIndex index;
+
+    private final RevocationProperties properties;
+
+    public RevocationEndpoint(RevocationIndex index, RevocationProperties properties) {
+        this.index = index;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public Map<String, Object> revocations() {
+        return index.stats();
+    }
+
+    @WriteOperation
+    public Map<String, Object> revoke(String type, String value, @Nullable Long until) {
+        long now = Instant.now().getEpochSecond();
+        if ("token".equals(type) && value.length() == 64) {
+            byte[] digest = HexFormat.of().parseHex(value);
+            long expiresAt = until != null ? until : now + properties.getMaxTokenLifetime().toSeconds();
+            boolean stored = index.revokeToken(RevocationFeed.toLong(digest, 0), RevocationFeed.toLong(digest, 8), expiresAt);
+            return Map.of("revoked", stored);
+        }
+        if ("user".equals(type)) {
+            index.revokeUser(Long.parseLong(value), until != null ? until : now);
+            return Map.of("revoked", true);
+        }
+        throw new IllegalArgumentException("type debe ser 'token' (sha256 hex) o 'user'");
+    }
+}
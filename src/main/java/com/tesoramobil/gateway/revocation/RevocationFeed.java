@@ -0,0 +1,155 @@
+package com.tesoramobil.gateway.revocation;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Alimenta {@link RevocationIndex} desde un archivo append-only ({@code jwt.revocation.feed-file}),
+ * leyendo solo lo agregado desde la última lectura. Una línea por revocación:
+ * <pre>
+ * token &lt;sha256 hex del token&gt; &lt;exp epoch segundos&gt;
+ * user  &lt;id&gt; &lt;revocar tokens emitidos antes de, epoch segundos&gt;
+ * # comentario
+ * </pre>
+ * Si el archivo se trunca (rotación) se vuelve a leer desde el inicio; las entradas repetidas son idempotentes.
+ * La lectura y la poda corren en un único hilo, fuera del event loop.
+ */
+@Component
+public class RevocationFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationFeed.class);
+
+    private final RevocationProperties properties;
+    private final RevocationIndex index;
+
+    private long offset;
+    private Scheduler scheduler;
+    private Disposable polling;
+    private Disposable pruning;
+
+    public RevocationFeed(RevocationProperties properties, RevocationIndex index) {
+        this.properties = properties;
+        this.index = index;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        scheduler = Schedulers.newSingle("revocation-feed", true);
+        if (properties.getFeedFile() != null && !properties.getFeedFile().isBlank()) {
+            Path file = Path.of(properties.getFeedFile());
+            int loaded = poll(file);
+            log.info("Revocaciones cargadas desde {}: {}", file, loaded);
+            polling = Flux.interval(properties.getPollInterval(), properties.getPollInterval(), scheduler)
+                    .onBackpressureDrop()
+                    .subscribe(tick -> poll(file));
+        }
+        pruning = Flux.interval(properties.getPruneInterval(), properties.getPruneInterval(), scheduler)
+                .onBackpressureDrop()
+                .subscribe(tick -> index.prune(System.currentTimeMillis() / 1000));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (polling != null) {
+            polling.dispose();
+        }
+        if (pruning != null) {
+            pruning.dispose();
+        }
+        if (scheduler != null) {
+            scheduler.dispose();
+        }
+    }
+
+    /**
+     * Lee las líneas completas agregadas al archivo y las aplica al índice.
+     *
+     * @return Cantidad de revocaciones aplicadas.
+     */
+    int poll(Path file) {
+        if (!Files.isReadable(file)) {
+            return 0;
+        }
+        int applied = 0;
+        try (RandomAccessFile in = new RandomAccessFile(file.toFile(), "r")) {
+            long length = in.length();
+            if (length < offset) {
+                log.info("Archivo de revocaciones truncado, se relee desde el inicio: {}", file);
+                offset = 0;
+            }
+            in.seek(offset);
+            String line;
+            while ((line = in.readLine()) != null) {
+                // Una última línea sin '\n' puede estar a medio escribir: se relee en la próxima pasada
+                if (in.getFilePointer() == length && !endsWithNewline(in, length)) {
+                    break;
+                }
+                offset = in.getFilePointer();
+                if (apply(new String(line.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8))) {
+                    applied++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo leer el archivo de revocaciones {}: {}", file, e.getMessage());
+        }
+        return applied;
+    }
+
+    /**
+     * Aplica una línea del feed; las líneas inválidas se registran y se ignoran.
+     */
+    boolean apply(String line) {
+        String trimmed = line.strip();
+        if (trimmed.isEmpty() || trimmed.charAt(0) == '#') {
+            return false;
+        }
+        String[] parts = trimmed.split("\\s+");
+        try {
+            if (parts.length == 3 && parts[0].equals("token") && parts[1].length() == 64) {
+                byte[] digest = HexFormat.of().parseHex(parts[1]);
+                return index.revokeToken(toLong(digest, 0), toLong(digest, 8), Long.parseLong(parts[2]));
+            }
+            if (parts.length == 3 && parts[0].equals("user")) {
+                index.revokeUser(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                return true;
+            }
+        } catch (IllegalArgumentException e) {
+            // Número o hex inválido: se registra abajo
+        }
+        log.warn("Línea de revocación inválida: {}", trimmed);
+        return false;
+    }
+
+    private static boolean endsWithNewline(RandomAccessFile in, long length) throws IOException {
+        in.seek(length - 1);
+        boolean newline = in.read() == '\n';
+        in.seek(length);
+        return newline;
+    }
+
+    static long toLong(byte[] bytes, int from) {
+        long value = 0;
+        for (int i = from; i < from + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xff);
+        }
+        return value;
+    }
+}
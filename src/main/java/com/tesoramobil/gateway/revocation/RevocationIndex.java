@@ -0,0 +1,331 @@
+package com.tesoramobil.gateway.revocation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Índice en memoria de tokens revocados.
+ * - Por token: los primeros 128 bits del SHA-256 del token (el mismo digest que usa JwtClaimsCache) y su exp.
+ * - Por usuario: se revocan todos sus tokens emitidos antes de un instante (logout global, cambio de rol).
+ *
+ * Un filtro de Bloom responde el caso común (no revocado) con 1-2 lecturas de memoria y sin asignar;
+ * solo ante un positivo se consulta el conjunto exacto (tabla de direccionamiento abierto con arreglos primitivos).
+ * Las lecturas no usan locks: las escrituras están serializadas y publican cada entrada con una escritura volatile.
+ * Las revocaciones vencidas se descartan en {@link #prune(long)}, que reconstruye tabla y filtro.
+ */
+@Component
+public class RevocationIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationIndex.class);
+
+    /**
+     * Token revocado (401 en los filtros).
+     */
+    public static class RevokedTokenException extends JwtException {
+        public RevokedTokenException() {
+            super("Token revocado");
+        }
+    }
+
+    private static final long USER_SALT = 0x5DEECE66DL;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevocationProperties properties;
+
+    /** userId -> epoch segundos: se revocan los tokens con iat anterior. */
+    private final Map<Long, Long> users = new ConcurrentHashMap<>();
+
+    private final LongAdder revokedHits = new LongAdder();
+
+    private final LongAdder falsePositives = new LongAdder();
+
+    private volatile State state;
+
+    public RevocationIndex(RevocationProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.state = new State(new Bloom(properties.getExpectedEntries()), new TokenTable(1024), 0);
+        Gauge.builder("gateway.revocations.entries", this, index -> index.state.tokens.size)
+                .tag("type", "token").register(registry);
+        Gauge.builder("gateway.revocations.entries", users, Map::size)
+                .tag("type", "user").register(registry);
+        FunctionCounter.builder("gateway.revocations.hits", revokedHits, LongAdder::sum)
+                .description("Tokens rechazados por estar revocados").register(registry);
+        FunctionCounter.builder("gateway.revocations.bloom.false-positives", falsePositives, LongAdder::sum)
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Indica si el token (por digest) está revocado, o si lo están todos los tokens de su usuario
+     * emitidos antes de su "iat" (un token sin "iat" se considera anterior a cualquier revocación).
+     * Los claims solo se leen cuando el filtro de Bloom marca al usuario.
+     *
+     * @param digestHi Primeros 64 bits del SHA-256 del token.
+     * @param digestLo Siguientes 64 bits.
+     * @param claims   Claims ya verificados ("id" e "iat").
+     */
+    public boolean isRevoked(long digestHi, long digestLo, Claims claims) {
+        State current = state;
+        if (current.bloom.mightContain(digestHi)) {
+            if (current.tokens.contains(nonZero(digestHi), digestLo)) {
+                revokedHits.increment();
+                return true;
+            }
+            falsePositives.increment();
+        }
+        if (current.userEntries == 0 || !(claims.get("id") instanceof Number id)
+                || !current.bloom.mightContain(userKey(id.longValue()))) {
+            return false;
+        }
+        Long revokedBefore = users.get(id.longValue());
+        long issuedAt = claims.get(Claims.ISSUED_AT) instanceof Number iat ? iat.longValue() : Long.MIN_VALUE;
+        if (revokedBefore != null && issuedAt < revokedBefore) {
+            revokedHits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Revoca un token hasta su expiración.
+     *
+     * @return false si se alcanzó {@code max-entries} (ver log/métricas).
+     */
+    public synchronized boolean revokeToken(long digestHi, long digestLo, long expiresAtSeconds) {
+        State current = state;
+        if (current.tokens.size >= properties.getMaxEntries()) {
+            prune(System.currentTimeMillis() / 1000);
+            current = state;
+            if (current.tokens.size >= properties.getMaxEntries()) {
+                log.error("Lista de revocación llena ({} entradas): no se registró la revocación", current.tokens.size);
+                return false;
+            }
+        }
+        if (current.tokens.needsResize()) {
+            current = rebuild(System.currentTimeMillis() / 1000, current.tokens.capacity() * 2);
+        }
+        // Primero la tabla y después el filtro: quien vea el bit en el filtro ya ve la entrada
+        current.tokens.put(nonZero(digestHi), digestLo, (int) Math.min(Integer.MAX_VALUE, expiresAtSeconds));
+        current.bloom.add(digestHi);
+        return true;
+    }
+
+    /**
+     * Revoca todos los tokens del usuario emitidos antes de {@code revokedBeforeSeconds}.
+     */
+    public synchronized void revokeUser(long userId, long revokedBeforeSeconds) {
+        users.merge(userId, revokedBeforeSeconds, Math::max);
+        State current = state;
+        current.bloom.add(userKey(userId));
+        if (current.userEntries != users.size()) {
+            state = new State(current.bloom, current.tokens, users.size());
+        }
+    }
+
+    /**
+     * Descarta revocaciones vencidas y reconstruye tabla y filtro (el filtro de Bloom no admite borrados).
+     */
+    public synchronized void prune(long nowSeconds) {
+        long userTtl = properties.getMaxTokenLifetime().toSeconds();
+        users.values().removeIf(before -> before + userTtl < nowSeconds);
+        int live = state.tokens.countLive(nowSeconds);
+        rebuild(nowSeconds, TokenTable.capacityFor(live));
+    }
+
+    private State rebuild(long nowSeconds, int capacity) {
+        State current = state;
+        TokenTable tokens = new TokenTable(capacity);
+        current.tokens.copyLiveTo(tokens, nowSeconds);
+        Bloom bloom = new Bloom(Math.max(properties.getExpectedEntries(), tokens.size + users.size()));
+        tokens.addKeysTo(bloom);
+        users.keySet().forEach(userId -> bloom.add(userKey(userId)));
+        State next = new State(bloom, tokens, users.size());
+        state = next;
+        return next;
+    }
+
+    public Map<String, Object> stats() {
+        State current = state;
+        return Map.of(
+                "tokens", current.tokens.size,
+                "users", users.size(),
+                "tableCapacity", current.tokens.capacity(),
+                "bloomBytes", current.bloom.sizeInBytes(),
+                "hits", revokedHits.sum(),
+                "bloomFalsePositives", falsePositives.sum());
+    }
+
+    private static long userKey(long userId) {
+        return userId * 0x9E3779B97F4A7C15L + USER_SALT;
+    }
+
+    /** 0 marca una celda vacía en la tabla. */
+    private static long nonZero(long hi) {
+        return hi == 0 ? 1 : hi;
+    }
+
+    /** Finalizador de MurmurHash3 (64 bits). */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private record State(Bloom bloom, TokenTable tokens, int userEntries) {
+    }
+
+    /**
+     * Filtro de Bloom sobre llaves de 64 bits (doble hashing, tamaño potencia de 2).
+     */
+    static final class Bloom {
+
+        private final AtomicLongArray words;
+        private final long bitMask;
+        private final int hashes;
+
+        Bloom(int expectedEntries) {
+            long bits = (long) Math.ceil(-Math.max(1, expectedEntries) * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+            bits = Math.max(64, Long.highestOneBit(bits - 1) << 1);
+            this.words = new AtomicLongArray((int) (bits >>> 6));
+            this.bitMask = bits - 1;
+            this.hashes = (int) Math.max(1, Math.min(16, Math.round((double) bits / Math.max(1, expectedEntries) * Math.log(2))));
+        }
+
+        void add(long key) {
+            long h1 = mix(key);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = (h1 + i * h2) & bitMask;
+                long mask = 1L << bit;
+                int word = (int) (bit >>> 6);
+                long current = words.get(word);
+                if ((current & mask) == 0) {
+                    words.accumulateAndGet(word, mask, (a, b) -> a | b);
+                }
+            }
+        }
+
+        boolean mightContain(long key) {
+            long h1 = mix(key);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = (h1 + i * h2) & bitMask;
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long sizeInBytes() {
+            return words.length() * 8L;
+        }
+    }
+
+    /**
+     * Conjunto exacto de digests de 128 bits con su exp, en arreglos primitivos (20 bytes por celda, carga máx. 50%).
+     * Un solo escritor a la vez; la celda se publica al escribir "hi" (volatile), después de "lo" y "exp".
+     */
+    static final class TokenTable {
+
+        private final AtomicLongArray his;
+        private final long[] los;
+        private final int[] exps;
+        private final int mask;
+        private int size;
+
+        TokenTable(int capacity) {
+            this.his = new AtomicLongArray(capacity);
+            this.los = new long[capacity];
+            this.exps = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        static int capacityFor(int entries) {
+            return Math.max(1024, Integer.highestOneBit(Math.max(1, entries) * 2 - 1) << 1);
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        boolean needsResize() {
+            return size + 1 > capacity() / 2;
+        }
+
+        boolean contains(long hi, long lo) {
+            int i = (int) mix(hi) & mask;
+            long current;
+            while ((current = his.get(i)) != 0) {
+                if (current == hi && los[i] == lo) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        void put(long hi, long lo, int exp) {
+            int i = (int) mix(hi) & mask;
+            long current;
+            while ((current = his.get(i)) != 0) {
+                if (current == hi && los[i] == lo) {
+                    exps[i] = Math.max(exps[i], exp);
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            los[i] = lo;
+            exps[i] = exp;
+            his.set(i, hi);
+            size++;
+        }
+
+        int countLive(long nowSeconds) {
+            int live = 0;
+            for (int i = 0; i <= mask; i++) {
+                if (his.get(i) != 0 && Integer.toUnsignedLong(exps[i]) >= nowSeconds) {
+                    live++;
+                }
+            }
+            return live;
+        }
+
+        void copyLiveTo(TokenTable target, long nowSeconds) {
+            for (int i = 0; i <= mask; i++) {
+                long hi = his.get(i);
+                if (hi != 0 && Integer.toUnsignedLong(exps[i]) >= nowSeconds) {
+                    target.put(hi, los[i], exps[i]);
+                }
+            }
+        }
+
+        void addKeysTo(Bloom bloom) {
+            for (int i = 0; i <= mask; i++) {
+                long hi = his.get(i);
+                if (hi != 0) {
+                    bloom.add(hi);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.tesoramobil.gateway.revocation;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Configuración de la lista de tokens revocados ({@code jwt.revocation.*}).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt.revocation")
+public class RevocationProperties {
+
+    private boolean enabled = true;
+
+    /** Archivo append-only con las revocaciones (ver {@link RevocationFeed}); vacío = solo el endpoint. */
+    private String feedFile;
+
+    private Duration pollInterval = Duration.ofSeconds(2);
+
+    /** Cada cuánto se descartan las revocaciones vencidas y se reconstruye el índice. */
+    private Duration pruneInterval = Duration.ofMinutes(1);
+
+    /** Entradas para las que se dimensiona el filtro de Bloom (1% de falsos positivos). */
+    private int expectedEntries = 1_000_000;
+
+    /** Tope de revocaciones en memoria (~40 bytes por token + el filtro de Bloom). */
+    private int maxEntries = 5_000_000;
+
+    /** Vida máxima de un token: una revocación por usuario se descarta pasado este tiempo. */
+    private Duration maxTokenLifetime = Duration.ofHours(24);
+}
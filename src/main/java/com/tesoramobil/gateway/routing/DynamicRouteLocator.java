@@ -0,0 +1,281 @@
+package com.tesoramobil.gateway.routing;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.StripPrefixGatewayFilterFactory;
+import org.springframework.cloud.gateway.handler.predicate.MethodRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.tesoramobil.gateway.routing.RouteDefinitionsProperties.RouteSpec;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Tabla de rutas construida desde {@code gateway.routes.definitions} y, opcionalmente, desde la metadata
+ * que cada servicio publica en Eureka.
+ * - Cada recarga compila en segundo plano una tabla nueva e inmutable (predicados Path/Method y filtros
+ *   ya instanciados, ordenados justo antes de NettyWriteResponseFilter) y la publica con una escritura volatile;
+ *   después avisa a Spring Cloud Gateway (RefreshRoutesEvent) para que reemplace su cache de rutas.
+ * - Si la nueva definición es inválida se conserva la tabla anterior.
+ * - Se recarga al refrescar la configuración (POST /actuator/refresh) y, con discovery activo, en cada
+ *   heartbeat de Eureka cuya metadata haya cambiado.
+ * - Métricas: {@code gateway.routes.compile{result}} (tiempo de cada compilación), {@code gateway.routes.count}
+ *   y {@code gateway.routes.version}.
+ */
+@Component
+public class DynamicRouteLocator implements RouteLocator {
+
+    private static final Logger log = LoggerFactory.getLogger(DynamicRouteLocator.class);
+
+    private final Environment environment;
+    private final RouteFilters routeFilters;
+    private final ObjectProvider<DiscoveryClient> discoveryClient;
+    private final ApplicationEventPublisher publisher;
+    private final MeterRegistry registry;
+
+    private final PathRoutePredicateFactory pathPredicates = new PathRoutePredicateFactory();
+    private final MethodRoutePredicateFactory methodPredicates = new MethodRoutePredicateFactory();
+    private final StripPrefixGatewayFilterFactory stripPrefix = new StripPrefixGatewayFilterFactory();
+
+    private volatile RouteTable current;
+
+    public DynamicRouteLocator(Environment environment, RouteFilters routeFilters,
+                               ObjectProvider<DiscoveryClient> discoveryClient,
+                               ApplicationEventPublisher publisher, MeterRegistry registry) {
+        this.environment = environment;
+        this.routeFilters = routeFilters;
+        this.discoveryClient = discoveryClient;
+        this.publisher = publisher;
+        this.registry = registry;
+        RouteDefinitionsProperties properties = load();
+        this.current = compile(specs(properties, List.of()), properties.getDiscovery().isEnabled(), 1);
+        compileTimer("success").record(current.compileTime());
+        Gauge.builder("gateway.routes.count", this, locator -> locator.current.routes().size())
+                .description("Rutas activas en la tabla dinámica")
+                .register(registry);
+        Gauge.builder("gateway.routes.version", this, locator -> locator.current.version())
+                .register(registry);
+        log.info("Rutas v{} compiladas: {} en {} µs", current.version(), current.describe(),
+                current.compileTime().toNanos() / 1_000);
+    }
+
+    @Override
+    public Flux<Route> getRoutes() {
+        return Flux.fromIterable(current.routes());
+    }
+
+    /**
+     * Tabla activa. Inmutable: se puede leer sin sincronizar.
+     */
+    public RouteTable current() {
+        return current;
+    }
+
+    /**
+     * Vuelve a leer configuración y metadata de discovery; compila e intercambia la tabla si cambió.
+     *
+     * @param trigger Origen de la recarga (etiqueta de la métrica y del log).
+     * @return La tabla activa tras la recarga.
+     */
+    public synchronized RouteTable reload(String trigger) {
+        RouteTable previous = current;
+        long start = System.nanoTime();
+        try {
+            RouteDefinitionsProperties properties = load();
+            boolean discovery = properties.getDiscovery().isEnabled();
+            List<RouteSpec> specs = specs(properties, discovered(properties.getDiscovery()));
+            if (discovery == previous.discovery() && specs.equals(previous.specs())) {
+                return previous; // sin cambios (p. ej. heartbeat con la misma metadata)
+            }
+            RouteTable next = compile(specs, discovery, previous.version() + 1);
+            current = next;
+            compileTimer("success").record(next.compileTime());
+            log.info("Rutas v{} -> v{} ({}): {} en {} µs", previous.version(), next.version(), trigger,
+                    next.describe(), next.compileTime().toNanos() / 1_000);
+            publisher.publishEvent(new RefreshRoutesEvent(this));
+            return next;
+        } catch (RuntimeException e) {
+            compileTimer("failure").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.error("Definición de rutas inválida ({}), se mantiene v{}: {}", trigger, previous.version(), e.getMessage());
+            return previous;
+        }
+    }
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(key -> key.startsWith(RouteDefinitionsProperties.PREFIX))) {
+            reloadInBackground("config");
+        }
+    }
+
+    @EventListener
+    public void onHeartbeat(HeartbeatEvent event) {
+        if (current.discovery()) {
+            reloadInBackground("discovery");
+        }
+    }
+
+    private void reloadInBackground(String trigger) {
+        Mono.fromRunnable(() -> reload(trigger))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe();
+    }
+
+    private Timer compileTimer(String result) {
+        return Timer.builder("gateway.routes.compile")
+                .description("Tiempo de compilación de la tabla de rutas")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private RouteDefinitionsProperties load() {
+        return Binder.get(environment)
+                .bind(RouteDefinitionsProperties.PREFIX, RouteDefinitionsProperties.class)
+                .orElseGet(RouteDefinitionsProperties::new);
+    }
+
+    /**
+     * Rutas de configuración más las descubiertas cuyo id no esté ya declarado.
+     */
+    private static List<RouteSpec> specs(RouteDefinitionsProperties properties, List<RouteSpec> discovered) {
+        Map<String, RouteSpec> byId = new LinkedHashMap<>();
+        for (RouteSpec spec : properties.getDefinitions()) {
+            if (byId.putIfAbsent(spec.getId(), spec) != null) {
+                throw new IllegalArgumentException("Ruta duplicada: " + spec.getId());
+            }
+        }
+        discovered.forEach(spec -> byId.putIfAbsent(spec.getId(), spec));
+        return List.copyOf(byId.values());
+    }
+
+    /**
+     * Rutas publicadas en la metadata de las instancias registradas (se toma la primera instancia que declare paths).
+     */
+    private List<RouteSpec> discovered(RouteDefinitionsProperties.Discovery discovery) {
+        DiscoveryClient client = discovery.isEnabled() ? discoveryClient.getIfAvailable() : null;
+        if (client == null) {
+            return List.of();
+        }
+        String prefix = discovery.getMetadataPrefix();
+        List<RouteSpec> specs = new ArrayList<>();
+        for (String service : client.getServices()) {
+            for (ServiceInstance instance : client.getInstances(service)) {
+                Map<String, String> metadata = instance.getMetadata();
+                String paths = metadata.get(prefix + "paths");
+                if (!StringUtils.hasText(paths)) {
+                    continue;
+                }
+                RouteSpec spec = new RouteSpec();
+                spec.setId(service.toLowerCase());
+                spec.setUri("lb://" + service.toLowerCase());
+                spec.setPaths(List.of(StringUtils.tokenizeToStringArray(paths, ",")));
+                spec.setFilters(List.of(StringUtils.tokenizeToStringArray(metadata.getOrDefault(prefix + "filters", ""), ",")));
+                spec.setStripPrefix(Integer.parseInt(metadata.getOrDefault(prefix + "strip-prefix", "0")));
+                specs.add(spec);
+                break;
+            }
+        }
+        return specs;
+    }
+
+    RouteTable compile(List<RouteSpec> specs, boolean discovery, long version) {
+        long start = System.nanoTime();
+        List<Route> routes = new ArrayList<>(specs.size());
+        for (RouteSpec spec : specs) {
+            routes.add(compile(spec));
+        }
+        return new RouteTable(version, specs, List.copyOf(routes), discovery, Instant.now(),
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private Route compile(RouteSpec spec) {
+        if (!StringUtils.hasText(spec.getId()) || !StringUtils.hasText(spec.getUri())) {
+            throw new IllegalArgumentException("Ruta sin id o uri: " + spec);
+        }
+        if (spec.getPaths().isEmpty() || spec.getPaths().stream().anyMatch(path -> !path.startsWith("/"))) {
+            throw new IllegalArgumentException("Paths inválidos en " + spec.getId() + ": " + spec.getPaths());
+        }
+        Predicate<ServerWebExchange> predicate = pathPredicates.apply(new PathRoutePredicateFactory.Config()
+                .setPatterns(spec.getPaths()));
+        if (!spec.getMethods().isEmpty()) {
+            HttpMethod[] methods = spec.getMethods().stream()
+                    .map(method -> HttpMethod.valueOf(method.toUpperCase()))
+                    .toArray(HttpMethod[]::new);
+            MethodRoutePredicateFactory.Config config = new MethodRoutePredicateFactory.Config();
+            config.setMethods(methods);
+            predicate = predicate.and(methodPredicates.apply(config));
+        }
+
+        // En el orden declarado y todos antes de NettyWriteResponseFilter (-1), que escribe el cuerpo del servicio en la
+        // respuesta del exchange que recibió. Los filtros que decoran la respuesta (p. ej. response-cache) no se ordenan
+        // solos: dependen de esta regla para que su decorador sea el que se escribe
+        List<GatewayFilter> filters = new ArrayList<>();
+        if (spec.getStripPrefix() > 0) {
+            StripPrefixGatewayFilterFactory.Config config = new StripPrefixGatewayFilterFactory.Config();
+            config.setParts(spec.getStripPrefix());
+            filters.add(stripPrefix.apply(config));
+        }
+        for (String name : spec.getFilters()) {
+            filters.add(routeFilters.create(name, spec.getId()));
+        }
+        List<GatewayFilter> ordered = new ArrayList<>(filters.size());
+        for (int i = 0; i < filters.size(); i++) {
+            ordered.add(new OrderedGatewayFilter(filters.get(i),
+                    NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - filters.size() + i));
+        }
+
+        return Route.async()
+                .id(spec.getId())
+                .uri(spec.getUri())
+                .order(spec.getOrder())
+                .predicate(predicate)
+                .filters(ordered)
+                .build();
+    }
+
+    /**
+     * Versión compilada e inmutable de la tabla de rutas.
+     */
+    public record RouteTable(long version, List<RouteSpec> specs, List<Route> routes, boolean discovery,
+                             Instant compiledAt, Duration compileTime) {
+
+        public List<String> describe() {
+            return routes.stream()
+                    .map(route -> route.getId() + "=" + route.getUri())
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.tesoramobil.gateway.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Rutas declaradas en configuración ({@code gateway.routes.*}).
+ * Los filtros se nombran según {@link RouteFilters} (con argumentos opcionales tras "=") y se aplican en el orden declarado.
+ * <pre>
+ * gateway:
+ *   routes:
+ *     definitions:
+ *       - id: grupos-service
+ *         uri: lb://grupos-service
+ *         paths: [ /gateway/grupos-service/** ]
+ *         strip-prefix: 1
+ *         filters: [ grupos-service-filter, "rate-limit=50, 100, USER", resilience ]
+ * </pre>
+ */
+@Data
+public class RouteDefinitionsProperties {
+
+    public static final String PREFIX = "gateway.routes";
+
+    private List<RouteSpec> definitions = new ArrayList<>();
+
+    private Discovery discovery = new Discovery();
+
+    @Data
+    public static class RouteSpec {
+
+        private String id;
+
+        /** http://host:puerto o lb://servicio */
+        private String uri;
+
+        private List<String> paths = new ArrayList<>();
+
+        /** Vacío = cualquier método. */
+        private List<String> methods = new ArrayList<>();
+
+        private int stripPrefix;
+
+        private List<String> filters = new ArrayList<>();
+
+        private int order;
+    }
+
+    /**
+     * Rutas publicadas por los propios servicios en su metadata de Eureka:
+     * {@code gateway.paths} (separados por coma), {@code gateway.filters} (separados por coma, sin argumentos)
+     * y {@code gateway.strip-prefix}.
+     * Una ruta declarada en configuración con el mismo id tiene prioridad.
+     */
+    @Data
+    public static class Discovery {
+
+        private boolean enabled;
+
+        private String metadataPrefix = "gateway.";
+    }
+}
@@ -0,0 +1,89 @@
+package com.tesoramobil.gateway.routing;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.util.StringUtils;
+
+/**
+ * Filtros que una ruta declarativa puede referenciar por nombre.
+ * Cada entrada recibe el id de la ruta (los filtros por ruta leen su propia configuración) y, si el filtro
+ * los admite, argumentos al estilo shortcut de Spring Cloud Gateway: {@code rate-limit=20, 40, USER}.
+ */
+public final class RouteFilters {
+
+    private final Map<String, BiFunction<String, List<String>, GatewayFilter>> factories;
+
+    private RouteFilters(Map<String, BiFunction<String, List<String>, GatewayFilter>> factories) {
+        this.factories = Map.copyOf(factories);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Crea el filtro declarado como {@code nombre} o {@code nombre=arg1, arg2, ...} para la ruta.
+     *
+     * @throws IllegalArgumentException si el nombre no está registrado o no admite esos argumentos.
+     */
+    public GatewayFilter create(String declaration, String routeId) {
+        int equals = declaration.indexOf('=');
+        String name = (equals < 0 ? declaration : declaration.substring(0, equals)).trim();
+        List<String> args = equals < 0 ? List.of()
+                : List.of(StringUtils.trimArrayElements(StringUtils.tokenizeToStringArray(declaration.substring(equals + 1), ",")));
+        BiFunction<String, List<String>, GatewayFilter> factory = factories.get(name);
+        if (factory == null) {
+            throw new IllegalArgumentException("Filtro desconocido en la ruta " + routeId + ": " + name);
+        }
+        return factory.apply(routeId, args);
+    }
+
+    public Set<String> names() {
+        return factories.keySet();
+    }
+
+    public static final class Builder {
+
+        private final Map<String, BiFunction<String, List<String>, GatewayFilter>> factories = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Filtro que no depende de la ruta (una misma instancia para todas).
+         */
+        public Builder register(String name, GatewayFilter filter) {
+            return register(name, routeId -> filter);
+        }
+
+        /**
+         * Filtro sin argumentos.
+         */
+        public Builder register(String name, Function<String, GatewayFilter> factory) {
+            return registerWithArgs(name, (routeId, args) -> {
+                if (!args.isEmpty()) {
+                    throw new IllegalArgumentException("El filtro " + name + " no admite argumentos (ruta " + routeId + ")");
+                }
+                return factory.apply(routeId);
+            });
+        }
+
+        /**
+         * Filtro que recibe los argumentos de la declaración (lista vacía si no tiene).
+         */
+        public Builder registerWithArgs(String name, BiFunction<String, List<String>, GatewayFilter> factory) {
+            factories.put(name, factory);
+            return this;
+        }
+
+        public RouteFilters build() {
+            return new RouteFilters(factories);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.tesoramobil.gateway.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Firma HMAC-SHA256 de los headers internos de identidad que el Gateway envía a los servicios.
+ * El servicio destino recalcula la firma con la misma clave compartida y, si coincide,
+ * confía en los headers sin volver a verificar el JWT.
+ *
+ * Contenido firmado: {@code userId|role|tokenExp|issuedAt} (valores vacíos si no existen).
+ *
+ * La clave ({@code gateway.identity.secret}) es obligatoria y no puede ser la de los JWT: quien la conoce
+ * fabrica identidades, así que filtrar una no debe comprometer la otra. Sin ella el Gateway no arranca.
+ */
+@Component
+public class IdentityHeaderSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    private final ThreadLocal<Mac> mac;
+
+    public IdentityHeaderSigner(@Value("${gateway.identity.secret:}") String secret,
+                                @Value("${jwt.secret:}") String jwtSecret) {
+        if (secret.isBlank()) {
+            throw new IllegalStateException("Falta gateway.identity.secret (GATEWAY_IDENTITY_SECRET)");
+        }
+        if (secret.equals(jwtSecret)) {
+            throw new IllegalStateException("gateway.identity.secret no puede ser igual a jwt.secret");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public String sign(String userId, String role, String tokenExp, String issuedAt) {
+        String payload = userId + '|' + role + '|' + tokenExp + '|' + issuedAt;
+        byte[] signature = mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo inicializar " + ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.tesoramobil.gateway.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.tesoramobil.gateway.filters.IdentityPropagationGatewayFilterFactory.TokenMode;
+
+import lombok.Data;
+
+/**
+ * Configuración de la propagación de identidad ({@code gateway.identity.*}).
+ * La clave de firma se lee aparte en {@link IdentityHeaderSigner} ({@code gateway.identity.secret}).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.identity")
+public class IdentityPropagationProperties {
+
+    /** Modo del bearer token por id de ruta (KEEP si no se indica). */
+    private Map<String, TokenMode> tokenMode = new LinkedHashMap<>();
+
+    public TokenMode tokenModeFor(String routeId) {
+        return tokenMode.getOrDefault(routeId, TokenMode.KEEP);
+    }
+}
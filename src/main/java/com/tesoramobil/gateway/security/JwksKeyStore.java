@@ -0,0 +1,294 @@
+package com.tesoramobil.gateway.security;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Claves públicas de auth-server indexadas por {@code kid}, leídas de un documento JWKS.
+ * - Cada clave trae su JwtParser ya construido: verificar no vuelve a decodificar la clave.
+ * - El conjunto se publica con una escritura volatile; las lecturas del hot path no usan locks.
+ * - Se refresca en segundo plano cada {@code jwt.jwks.refresh-interval}; si falla se conservan las claves actuales.
+ * - Un kid desconocido (rotación) fuerza una lectura "single-flight": todas las peticiones concurrentes
+ *   esperan el mismo fetch, y entre fetches forzados hay al menos {@code unknown-kid-cooldown}.
+ */
+@Component
+public class JwksKeyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyStore.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String METRIC_REFRESH = "gateway.jwks.refresh";
+
+    /**
+     * Fuente del documento JWKS (HTTP o recurso local).
+     */
+    interface Fetcher {
+        Mono<String> fetch();
+    }
+
+    /**
+     * Clave pública de un kid con su parser inmutable.
+     */
+    public record SigningKey(String kid, PublicKey publicKey, JwtParser parser) {
+    }
+
+    record KeySet(Map<String, SigningKey> keys, Instant fetchedAt) {
+    }
+
+    /**
+     * Token firmado con un kid que no está en el JWKS (401 en los filtros).
+     */
+    public static class UnknownKeyException extends JwtException {
+        public UnknownKeyException(String kid) {
+            super("Clave de firma desconocida: kid=" + kid);
+        }
+    }
+
+    private final JwksProperties properties;
+    private final Fetcher fetcher;
+    private final MeterRegistry registry;
+    private final AtomicReference<Mono<KeySet>> inFlight = new AtomicReference<>();
+    private final AtomicLong lastForcedFetch;
+    private final long cooldownNanos;
+
+    private volatile KeySet current = new KeySet(Map.of(), Instant.EPOCH);
+    private Disposable scheduledRefresh;
+
+    @Autowired
+    public JwksKeyStore(JwksProperties properties, MeterRegistry registry) {
+        this(properties, fetcherFor(properties), registry);
+    }
+
+    JwksKeyStore(JwksProperties properties, Fetcher fetcher, MeterRegistry registry) {
+        this.properties = properties;
+        this.fetcher = fetcher;
+        this.registry = registry;
+        this.cooldownNanos = properties.getUnknownKidCooldown().toNanos();
+        this.lastForcedFetch = new AtomicLong(System.nanoTime() - cooldownNanos);
+        Gauge.builder("gateway.jwks.keys", this, store -> store.current.keys().size())
+                .description("Claves públicas cargadas desde el JWKS")
+                .register(registry);
+    }
+
+    /**
+     * Primera carga (bloqueante, fuera del event loop) y refresco periódico.
+     * Si la primera carga falla el Gateway arranca igual: el refresco o un kid desconocido reintentan.
+     */
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            refresh("startup").block(properties.getFetchTimeout().plusSeconds(1));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo cargar el JWKS al arrancar ({}): {}", properties.getUri(), e.getMessage());
+        }
+        Duration interval = properties.getRefreshInterval();
+        scheduledRefresh = Flux.interval(interval, interval, Schedulers.parallel())
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh("scheduled").onErrorResume(e -> Mono.empty()))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.dispose();
+        }
+    }
+
+    /**
+     * Clave ya cargada para el kid (null si no existe o si el token no trae kid). No asigna memoria.
+     */
+    public SigningKey key(String kid) {
+        // Map.copyOf no admite get(null): un RS/ES sin kid es un 401, no un NPE
+        return kid == null ? null : current.keys().get(kid);
+    }
+
+    /**
+     * Clave para el kid; si no está cargada fuerza (o se une a) una lectura del JWKS.
+     */
+    public Mono<SigningKey> resolve(String kid) {
+        SigningKey key = key(kid);
+        if (key != null) {
+            return Mono.just(key);
+        }
+        if (!properties.isEnabled() || kid == null) {
+            return Mono.error(new UnknownKeyException(kid));
+        }
+        Mono<KeySet> fetch = inFlight.get();
+        if (fetch == null) {
+            long now = System.nanoTime();
+            long last = lastForcedFetch.get();
+            if (now - last >= cooldownNanos && lastForcedFetch.compareAndSet(last, now)) {
+                fetch = refresh("unknown-kid");
+            } else {
+                // En cooldown, u otro hilo acaba de iniciar el fetch: unirse si sigue en curso
+                fetch = inFlight.get();
+                if (fetch == null) {
+                    // El fetch pudo terminar entre la primera lectura y esta: publica antes de liberar inFlight
+                    SigningKey published = key(kid);
+                    return published != null ? Mono.just(published) : Mono.error(new UnknownKeyException(kid));
+                }
+            }
+        }
+        return fetch.flatMap(keySet -> {
+            SigningKey loaded = keySet.keys().get(kid);
+            return loaded != null ? Mono.just(loaded) : Mono.error(new UnknownKeyException(kid));
+        });
+    }
+
+    /**
+     * Lee el JWKS y publica el nuevo conjunto. Las llamadas concurrentes comparten el mismo fetch.
+     */
+    Mono<KeySet> refresh(String trigger) {
+        while (true) {
+            Mono<KeySet> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            Mono<KeySet> fetch = fetcher.fetch()
+                    .timeout(properties.getFetchTimeout())
+                    .map(json -> new KeySet(parse(json), Instant.now()))
+                    .doOnNext(keySet -> publish(keySet, trigger))
+                    .doOnError(e -> {
+                        counter(trigger, "failure").increment();
+                        log.warn("Fallo al leer el JWKS ({}, {}): {}", trigger, properties.getUri(), e.toString());
+                    })
+                    .doFinally(signal -> inFlight.set(null))
+                    .cache();
+            if (inFlight.compareAndSet(null, fetch)) {
+                // Se inicia ya: aunque quien lo pidió cancele, el fetch termina y libera inFlight
+                fetch.subscribe(keySet -> { }, error -> { });
+                return fetch;
+            }
+        }
+    }
+
+    private void publish(KeySet next, String trigger) {
+        KeySet previous = current;
+        current = next;
+        counter(trigger, "success").increment();
+        if (!previous.keys().keySet().equals(next.keys().keySet())) {
+            log.info("JWKS actualizado ({}): kids {} -> {}", trigger, previous.keys().keySet(), next.keys().keySet());
+        }
+    }
+
+    private Counter counter(String trigger, String result) {
+        return Counter.builder(METRIC_REFRESH)
+                .description("Lecturas del JWKS")
+                .tag("trigger", trigger)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Claves de firma (RSA y EC P-256/384/521) de un documento JWKS; las inválidas o de cifrado se omiten.
+     */
+    static Map<String, SigningKey> parse(String json) {
+        JsonNode keys;
+        try {
+            keys = MAPPER.readTree(json).path("keys");
+        } catch (Exception e) {
+            throw new IllegalArgumentException("JWKS inválido", e);
+        }
+        Map<String, SigningKey> parsed = new HashMap<>();
+        for (JsonNode jwk : keys) {
+            String kid = jwk.path("kid").asText(null);
+            if (kid == null || !"sig".equals(jwk.path("use").asText("sig"))) {
+                continue;
+            }
+            try {
+                PublicKey publicKey = switch (jwk.path("kty").asText()) {
+                    case "RSA" -> KeyFactory.getInstance("RSA").generatePublic(
+                            new RSAPublicKeySpec(unsigned(jwk, "n"), unsigned(jwk, "e")));
+                    case "EC" -> KeyFactory.getInstance("EC").generatePublic(
+                            new ECPublicKeySpec(new ECPoint(unsigned(jwk, "x"), unsigned(jwk, "y")), curve(jwk.path("crv").asText())));
+                    default -> null;
+                };
+                if (publicKey != null) {
+                    parsed.put(kid, new SigningKey(kid, publicKey, Jwts.parserBuilder().setSigningKey(publicKey).build()));
+                }
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                log.warn("Clave JWKS omitida (kid={}): {}", kid, e.getMessage());
+            }
+        }
+        return Map.copyOf(parsed);
+    }
+
+    private static BigInteger unsigned(JsonNode jwk, String field) {
+        String value = jwk.path(field).asText(null);
+        if (value == null) {
+            throw new IllegalArgumentException("Falta el campo " + field);
+        }
+        return new BigInteger(1, Base64.getUrlDecoder().decode(value));
+    }
+
+    private static ECParameterSpec curve(String crv) throws GeneralSecurityException {
+        String name = switch (crv) {
+            case "P-256" -> "secp256r1";
+            case "P-384" -> "secp384r1";
+            case "P-521" -> "secp521r1";
+            default -> throw new IllegalArgumentException("Curva no soportada: " + crv);
+        };
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec(name));
+        return parameters.getParameterSpec(ECParameterSpec.class);
+    }
+
+    private static Fetcher fetcherFor(JwksProperties properties) {
+        String uri = properties.getUri();
+        if (!properties.isEnabled() || uri == null) {
+            return () -> Mono.error(new IllegalStateException("jwt.jwks.uri no configurado"));
+        }
+        if (uri.startsWith("http://") || uri.startsWith("https://")) {
+            WebClient client = WebClient.create();
+            return () -> client.get().uri(uri).retrieve().bodyToMono(String.class);
+        }
+        Resource resource = new DefaultResourceLoader().getResource(uri);
+        return () -> Mono.fromCallable(() -> resource.getContentAsString(StandardCharsets.UTF_8))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,30 @@
+package com.tesoramobil.gateway.security;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Origen de las claves públicas de auth-server ({@code jwt.jwks.*}) para tokens RS256/ES256.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt.jwks")
+public class JwksProperties {
+
+    private boolean enabled = false;
+
+    /** Documento JWKS: http(s)://..., file:... o classpath:... */
+    private String uri;
+
+    /** Cada cuánto se vuelve a leer el JWKS en segundo plano (antes de que caduquen las claves). */
+    private Duration refreshInterval = Duration.ofMinutes(5);
+
+    /** Espera mínima entre lecturas forzadas por un kid desconocido (evita que tokens basura disparen fetches). */
+    private Duration unknownKidCooldown = Duration.ofSeconds(10);
+
+    private Duration fetchTimeout = Duration.ofSeconds(2);
+}
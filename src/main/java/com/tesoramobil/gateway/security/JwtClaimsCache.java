@@ -0,0 +1,309 @@
+package com.tesoramobil.gateway.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.tesoramobil.gateway.revocation.RevocationIndex;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cache acotado de Claims JWT ya verificados.
+ * - La llave es el digest SHA-256 del token (no se retiene el token en claro).
+ * - El TTL de cada entrada nunca supera el "exp" del token ni {@code jwt.cache.max-ttl}.
+ * - Se expulsan entradas por tamaño ({@code jwt.cache.max-size}).
+ * - Se mantiene un único JwtParser (inmutable y thread-safe) por clave de firma.
+ * - HS256 se verifica con {@code jwt.secret} (desactivable con {@code jwt.accept-hmac=false});
+ *   RS256/ES256 con la clave pública del {@code kid} en {@link JwksKeyStore}.
+ * - Cada token (en cache o recién verificado) se contrasta con {@link RevocationIndex}; con el digest ya
+ *   calculado, el caso común (no revocado) es un par de lecturas del filtro de Bloom.
+ * - En {@link #verifyAsync(String)} la firma de RSA/EC (o de tokens grandes) se verifica en
+ *   {@link JwtVerificationScheduler} según {@code jwt.verification.mode}; HMAC y cache hits siguen en el event loop.
+ *
+ * Las métricas hit/miss/eviction se publican en actuator como {@code cache.*{cache=jwt-claims}}.
+ */
+@Component
+public class JwtClaimsCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    });
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, JwtParser> parsers = new ConcurrentHashMap<>();
+
+    private final Cache<TokenDigest, Claims> cache;
+
+    private final String secretKey;
+
+    private final boolean acceptHmac;
+
+    private final JwksKeyStore jwks;
+
+    private final RevocationIndex revocations;
+
+    private final JwtVerificationScheduler verificationScheduler;
+
+    /**
+     * Solo HS256 con la clave compartida (sin JWKS ni revocaciones).
+     */
+    public JwtClaimsCache(String secretKey, long maxSize, Duration maxTtl, MeterRegistry meterRegistry) {
+        this(secretKey, maxSize, maxTtl, true, null, null, meterRegistry);
+    }
+
+    /**
+     * Verificación siempre en el hilo que llama (sin scheduler de verificación).
+     */
+    public JwtClaimsCache(String secretKey, long maxSize, Duration maxTtl, boolean acceptHmac,
+                          JwksKeyStore jwks, RevocationIndex revocations, MeterRegistry meterRegistry) {
+        this(secretKey, maxSize, maxTtl, acceptHmac, jwks, revocations, null, meterRegistry);
+    }
+
+    @Autowired
+    public JwtClaimsCache(@Value("${jwt.secret}") String secretKey,
+                          @Value("${jwt.cache.max-size:10000}") long maxSize,
+                          @Value("${jwt.cache.max-ttl:5m}") Duration maxTtl,
+                          @Value("${jwt.accept-hmac:true}") boolean acceptHmac,
+                          JwksKeyStore jwks,
+                          RevocationIndex revocations,
+                          JwtVerificationScheduler verificationScheduler,
+                          MeterRegistry meterRegistry) {
+        this(secretKey, maxSize, maxTtl, acceptHmac, jwks, revocations, verificationScheduler,
+                Ticker.systemTicker(), ForkJoinPool.commonPool(), meterRegistry);
+    }
+
+    /**
+     * Solo HS256, con el reloj y el executor de mantenimiento de Caffeine dados (pruebas de expiración y tamaño).
+     */
+    JwtClaimsCache(String secretKey, long maxSize, Duration maxTtl, Ticker ticker, Executor executor,
+                   MeterRegistry meterRegistry) {
+        this(secretKey, maxSize, maxTtl, true, null, null, null, ticker, executor, meterRegistry);
+    }
+
+    private JwtClaimsCache(String secretKey, long maxSize, Duration maxTtl, boolean acceptHmac, JwksKeyStore jwks,
+                           RevocationIndex revocations, JwtVerificationScheduler verificationScheduler,
+                           Ticker ticker, Executor executor, MeterRegistry meterRegistry) {
+        this.secretKey = secretKey;
+        this.acceptHmac = acceptHmac;
+        this.jwks = jwks;
+        this.revocations = revocations != null && revocations.isEnabled() ? revocations : null;
+        this.verificationScheduler = verificationScheduler;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ClaimsExpiry(maxTtl.toNanos()))
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt-claims");
+    }
+
+    /**
+     * Devuelve los Claims del token, verificando la firma solo si no están en cache.
+     * Un token con kid que aún no está cargado falla con {@link JwksKeyStore.UnknownKeyException};
+     * los filtros usan {@link #verifyAsync(String)}, que sí espera la lectura del JWKS.
+     *
+     * @param token El token JWT (sin el prefijo "Bearer").
+     * @return Los Claims verificados.
+     * @throws io.jsonwebtoken.JwtException si la firma es inválida, el token expiró o fue revocado.
+     */
+    public Claims verify(String token) {
+        TokenDigest key = TokenDigest.of(token);
+        Claims claims = cache.getIfPresent(key);
+        if (claims != null) {
+            return checkRevocation(key, claims);
+        }
+        TokenHeader header = TokenHeader.of(token);
+        JwtParser parser = header.isHmac() ? hmacParser() : asymmetricKey(header.kid()).parser();
+        return parseAndCache(parser, token, key);
+    }
+
+    /**
+     * Igual que {@link #verify(String)}, pero si el kid no está cargado espera (sin bloquear) la lectura
+     * single-flight del JWKS. Con cache hit responde de inmediato; en cache miss la firma se verifica en el
+     * event loop o en {@link JwtVerificationScheduler} según el algoritmo y {@code jwt.verification.mode}
+     * (con el scheduler saturado falla con {@link JwtVerificationScheduler.SaturatedException}).
+     */
+    public Mono<Claims> verifyAsync(String token) {
+        TokenDigest key;
+        TokenHeader header;
+        try {
+            key = TokenDigest.of(token);
+            Claims claims = cache.getIfPresent(key);
+            if (claims != null) {
+                return Mono.just(checkRevocation(key, claims));
+            }
+            header = TokenHeader.of(token);
+            if (header.isHmac()) {
+                return verifyWith(hmacParser(), header, token, key);
+            }
+            JwksKeyStore.SigningKey signingKey = jwks == null ? null : jwks.key(header.kid());
+            if (signingKey != null) {
+                return verifyWith(signingKey.parser(), header, token, key);
+            }
+        } catch (RuntimeException e) {
+            return Mono.error(e);
+        }
+        if (jwks == null) {
+            return Mono.error(new JwksKeyStore.UnknownKeyException(header.kid()));
+        }
+        return jwks.resolve(header.kid()).flatMap(signingKey -> verifyWith(signingKey.parser(), header, token, key));
+    }
+
+    private Mono<Claims> verifyWith(JwtParser parser, TokenHeader header, String token, TokenDigest key) {
+        if (verificationScheduler != null && verificationScheduler.offloads(header.isHmac(), token.length())) {
+            return verificationScheduler.execute(() -> parseAndCache(parser, token, key));
+        }
+        try {
+            return Mono.just(parseAndCache(parser, token, key));
+        } catch (RuntimeException e) {
+            return Mono.error(e);
+        }
+    }
+
+    private Claims parseAndCache(JwtParser parser, String token, TokenDigest key) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        cache.put(key, claims);
+        return checkRevocation(key, claims);
+    }
+
+    /**
+     * Se revisa en cada petición (no al cachear): una revocación aplica también a tokens ya en cache.
+     */
+    private Claims checkRevocation(TokenDigest key, Claims claims) {
+        if (revocations != null && revocations.isRevoked(key.a(), key.b(), claims)) {
+            throw new RevocationIndex.RevokedTokenException();
+        }
+        return claims;
+    }
+
+    private JwtParser hmacParser() {
+        if (!acceptHmac) {
+            throw new UnsupportedJwtException("Tokens HMAC deshabilitados (jwt.accept-hmac=false)");
+        }
+        return parserFor(secretKey);
+    }
+
+    private JwksKeyStore.SigningKey asymmetricKey(String kid) {
+        JwksKeyStore.SigningKey signingKey = jwks == null ? null : jwks.key(kid);
+        if (signingKey == null) {
+            throw new JwksKeyStore.UnknownKeyException(kid);
+        }
+        return signingKey;
+    }
+
+    /**
+     * Obtiene (o construye una sola vez) el parser asociado a una clave de firma.
+     */
+    public JwtParser parserFor(String signingKey) {
+        return parsers.computeIfAbsent(signingKey, k -> Jwts.parserBuilder()
+                .setSigningKey(k.getBytes(StandardCharsets.UTF_8))
+                .build());
+    }
+
+    /**
+     * Descarta todas las entradas (por ejemplo, tras rotar la clave de firma).
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Digest SHA-256 del token, guardado como 4 longs para tener equals/hashCode baratos.
+     */
+    record TokenDigest(long a, long b, long c, long d) {
+
+        static TokenDigest of(String token) {
+            MessageDigest md = SHA256.get();
+            ByteBuffer digest = ByteBuffer.wrap(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenDigest(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+        }
+    }
+
+    /**
+     * "alg" y "kid" del header JOSE, leídos antes de verificar para elegir la clave (solo en cache miss).
+     */
+    record TokenHeader(String alg, String kid) {
+
+        static TokenHeader of(String token) {
+            int dot = token.indexOf('.');
+            if (dot <= 0) {
+                throw new MalformedJwtException("JWT sin header");
+            }
+            try {
+                JsonNode header = MAPPER.readTree(Base64.getUrlDecoder().decode(token.substring(0, dot)));
+                return new TokenHeader(header.path("alg").asText(""), header.path("kid").asText(null));
+            } catch (Exception e) {
+                throw new MalformedJwtException("Header JWT inválido", e);
+            }
+        }
+
+        boolean isHmac() {
+            return alg.startsWith("HS");
+        }
+    }
+
+    /**
+     * Expira cada entrada en min(exp del token, maxTtl).
+     */
+    private static final class ClaimsExpiry implements Expiry<TokenDigest, Claims> {
+
+        private final long maxTtlNanos;
+
+        ClaimsExpiry(long maxTtlNanos) {
+            this.maxTtlNanos = maxTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, Claims claims, long currentTime) {
+            Date exp = claims.getExpiration();
+            if (exp == null) {
+                return maxTtlNanos;
+            }
+            long remaining = TimeUnit.MILLISECONDS.toNanos(exp.getTime() - System.currentTimeMillis());
+            return Math.max(0, Math.min(remaining, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
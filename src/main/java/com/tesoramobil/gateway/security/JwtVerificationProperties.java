@@ -0,0 +1,44 @@
+package com.tesoramobil.gateway.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Dónde se verifica la firma de un token en cache miss ({@code jwt.verification.*}).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt.verification")
+public class JwtVerificationProperties {
+
+    public enum Mode {
+        /** Todo en el event loop de Netty (comportamiento original). */
+        INLINE,
+        /** HMAC chico en el event loop; RSA/EC y tokens grandes en el scheduler de verificación. */
+        AUTO,
+        /** Toda verificación en el scheduler de verificación. */
+        OFFLOAD
+    }
+
+    public enum Executor {
+        /** Pool bounded-elastic de {@code threads} hilos. */
+        BOUNDED_ELASTIC,
+        /** Un virtual thread por verificación (JDK 21+; en JDK anteriores se usa BOUNDED_ELASTIC). */
+        VIRTUAL
+    }
+
+    private Mode mode = Mode.AUTO;
+
+    private Executor executor = Executor.BOUNDED_ELASTIC;
+
+    /** Hilos del pool bounded-elastic (RSA/EC son CPU pura: más hilos que cores solo agregan cambios de contexto). */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /** Verificaciones en curso + en cola; por encima se responde 503 en lugar de acumular latencia. */
+    private int maxPending = 256;
+
+    /** En AUTO, un token HMAC más largo que esto (bytes) también se descarga del event loop. */
+    private int inlineMaxTokenSize = 4096;
+}
@@ -0,0 +1,157 @@
+package com.tesoramobil.gateway.security;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import com.tesoramobil.gateway.security.JwtVerificationProperties.Executor;
+import com.tesoramobil.gateway.security.JwtVerificationProperties.Mode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Scheduler dedicado para verificar firmas JWT fuera del event loop de Netty.
+ * - {@link #offloads(boolean, int)} decide según {@code jwt.verification.mode}: HMAC es barato (~1 µs) y se queda
+ *   en el event loop; RSA/EC (decenas a cientos de µs) frenarían a todas las conexiones que comparten el loop.
+ * - Backpressure: como mucho {@code max-pending} verificaciones en curso + en cola; la siguiente falla con
+ *   {@link SaturatedException} (503 con Retry-After) en vez de esperar en una cola sin límite.
+ * - Una verificación deja de contar como pendiente en cuanto termina la firma; el resto de la cadena de filtros
+ *   sigue en {@link Schedulers#parallel()} (no bloqueante), así los hilos {@code jwt-verify} solo verifican.
+ *
+ * Métricas: {@code gateway.jwt.verification.pending}, {@code .rejected} y {@code .queue} (espera antes de ejecutar).
+ */
+@Component
+public class JwtVerificationScheduler implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtVerificationScheduler.class);
+
+    private static final String NAME = "jwt-verify";
+
+    private final Mode mode;
+    private final int inlineMaxTokenSize;
+    private final int maxPending;
+    private final Scheduler scheduler;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Counter rejected;
+    private final Timer queueWait;
+
+    public JwtVerificationScheduler(JwtVerificationProperties properties, MeterRegistry meterRegistry) {
+        this.mode = properties.getMode();
+        this.inlineMaxTokenSize = properties.getInlineMaxTokenSize();
+        this.maxPending = properties.getMaxPending();
+        this.scheduler = mode == Mode.INLINE ? null : createScheduler(properties);
+        Gauge.builder("gateway.jwt.verification.pending", pending, AtomicInteger::get)
+                .description("Verificaciones JWT en curso o en cola fuera del event loop")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("gateway.jwt.verification.rejected")
+                .description("Verificaciones rechazadas con el scheduler saturado")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("gateway.jwt.verification.queue")
+                .description("Espera entre encolar una verificación y empezar a ejecutarla")
+                .register(meterRegistry);
+    }
+
+    private static Scheduler createScheduler(JwtVerificationProperties properties) {
+        if (properties.getExecutor() == Executor.VIRTUAL) {
+            ExecutorService virtualThreads = virtualThreadExecutor();
+            if (virtualThreads != null) {
+                return Schedulers.fromExecutorService(virtualThreads, NAME);
+            }
+            log.warn("jwt.verification.executor=VIRTUAL requiere JDK 21+ (actual: {}); se usa BOUNDED_ELASTIC",
+                    Runtime.version());
+        }
+        // La cola del pool no limita: el límite es maxPending, que cuenta también las que se están ejecutando
+        return Schedulers.newBoundedElastic(properties.getThreads(), properties.getMaxPending(), NAME);
+    }
+
+    /**
+     * {@code Executors.newVirtualThreadPerTaskExecutor()} por reflexión: el proyecto compila para Java 17.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Si un token con este algoritmo y tamaño debe verificarse fuera del event loop.
+     */
+    public boolean offloads(boolean hmac, int tokenLength) {
+        return switch (mode) {
+            case INLINE -> false;
+            case OFFLOAD -> true;
+            case AUTO -> !hmac || tokenLength > inlineMaxTokenSize;
+        };
+    }
+
+    /**
+     * Ejecuta la verificación en el scheduler, o falla de inmediato con {@link SaturatedException}
+     * si ya hay {@code max-pending} verificaciones pendientes.
+     */
+    public <T> Mono<T> execute(Callable<T> verification) {
+        return Mono.defer(() -> {
+            if (pending.incrementAndGet() > maxPending) {
+                pending.decrementAndGet();
+                rejected.increment();
+                return Mono.error(new SaturatedException());
+            }
+            long queued = System.nanoTime();
+            // Se libera al volver la verificación, o en doFinally si nunca llegó a ejecutarse (rechazada o cancelada)
+            AtomicBoolean done = new AtomicBoolean();
+            Runnable release = () -> {
+                if (done.compareAndSet(false, true)) {
+                    pending.decrementAndGet();
+                }
+            };
+            return Mono.fromCallable(() -> {
+                        queueWait.record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+                        try {
+                            return verification.call();
+                        } finally {
+                            release.run();
+                        }
+                    })
+                    .subscribeOn(scheduler)
+                    .publishOn(Schedulers.parallel())
+                    .onErrorMap(RejectedExecutionException.class, e -> new SaturatedException())
+                    .doFinally(signal -> release.run());
+        });
+    }
+
+    int pending() {
+        return pending.get();
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.dispose();
+        }
+    }
+
+    /**
+     * El scheduler de verificación está saturado: el cliente debe reintentar (no es un token inválido).
+     */
+    public static class SaturatedException extends RuntimeException {
+        public SaturatedException() {
+            super("Verificación JWT saturada", null, false, false);
+        }
+    }
+}
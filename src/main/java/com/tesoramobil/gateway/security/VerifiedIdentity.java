@@ -0,0 +1,34 @@
+package com.tesoramobil.gateway.security;
+
+import java.util.Date;
+
+import org.springframework.web.server.ServerWebExchange;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Identidad extraída de un JWT ya verificado por los filtros de autorización.
+ * Se guarda como atributo del exchange para que los filtros posteriores no vuelvan a leer el token.
+ */
+public record VerifiedIdentity(Long userId, String role, Date expiresAt) {
+
+    public static final String ATTR = VerifiedIdentity.class.getName();
+
+    /**
+     * Construye la identidad desde los Claims ("id", "roles" y "exp").
+     */
+    public static VerifiedIdentity from(Claims claims) {
+        Object id = claims.get("id");
+        return new VerifiedIdentity(id instanceof Number n ? n.longValue() : null,
+                claims.get("roles", String.class),
+                claims.getExpiration());
+    }
+
+    public void attach(ServerWebExchange exchange) {
+        exchange.getAttributes().put(ATTR, this);
+    }
+
+    public static VerifiedIdentity of(ServerWebExchange exchange) {
+        return exchange.getAttribute(ATTR);
+    }
+}
@@ -0,0 +1,99 @@
+package com.tesoramobil.gateway.tracing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Escribe cada span como una línea JSON (append) en un archivo local.
+ * - {@link #export(List)} solo encola: la serialización y el I/O los hace un hilo daemon propio.
+ * - Con la cola llena los spans se descartan y se cuentan en {@link #dropped()}; el event loop nunca espera al disco.
+ * - El archivo se vacía al disco cada vez que la cola queda vacía.
+ */
+public class FileSpanExporter implements SpanExporter, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path path;
+    private final BlockingQueue<SpanData> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public FileSpanExporter(Path path, int queueCapacity) {
+        this.path = path;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::writeLoop, "span-exporter");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void export(List<SpanData> spans) {
+        for (SpanData span : spans) {
+            if (!queue.offer(span)) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    private void writeLoop() {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                List<SpanData> batch = new ArrayList<>();
+                while (running || !queue.isEmpty()) {
+                    SpanData first = queue.poll(200, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    for (SpanData span : batch) {
+                        out.write(MAPPER.writeValueAsString(span));
+                        out.newLine();
+                    }
+                    batch.clear();
+                    if (queue.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No se pudieron escribir spans en {}: {}", path, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(2));
+    }
+}
@@ -0,0 +1,38 @@
+package com.tesoramobil.gateway.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Guarda los últimos {@code capacity} spans (los más viejos se descartan). Para desarrollo y pruebas.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+
+    private final ArrayDeque<SpanData> spans;
+
+    public InMemorySpanExporter(int capacity) {
+        this.capacity = capacity;
+        this.spans = new ArrayDeque<>(Math.min(capacity, 1024));
+    }
+
+    @Override
+    public synchronized void export(List<SpanData> batch) {
+        for (SpanData span : batch) {
+            if (spans.size() == capacity) {
+                spans.pollFirst();
+            }
+            spans.addLast(span);
+        }
+    }
+
+    public synchronized List<SpanData> spans() {
+        return new ArrayList<>(spans);
+    }
+
+    public synchronized void clear() {
+        spans.clear();
+    }
+}
@@ -0,0 +1,176 @@
+package com.tesoramobil.gateway.tracing;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Traza de una petición mientras atraviesa el Gateway (atributo {@link #ATTR} del exchange y, hacia el cliente
+ * HTTP del upstream, clave {@code RequestTrace.class} del contexto de Reactor).
+ * - Los spans se registran como pares de nanoTime en arreglos fijos: sin objetos por span ni strings, así
+ *   una petición no muestreada cuesta unas pocas escrituras de long.
+ * - Los {@link SpanData} (ids, timestamps de reloj, atributos) solo se construyen si la traza se exporta.
+ * - El span id de {@link SpanName#UPSTREAM_RESPONSE} se fija al empezar: es el parent-id del traceparent
+ *   que recibe el servicio.
+ * Los spans de una petición se escriben en secuencia (aunque sea desde hilos distintos): no se sincroniza.
+ */
+public final class RequestTrace {
+
+    public static final String ATTR = RequestTrace.class.getName();
+
+    private static final SpanName[] SPANS = SpanName.values();
+
+    private final String traceId;
+    private final long parentSpanId;
+    private final long rootSpanId;
+    private final long upstreamSpanId;
+    private final boolean sampled;
+    private final long startNanos;
+    private final long startEpochMicros;
+    private final long[] starts = new long[SPANS.length];
+    private final long[] ends = new long[SPANS.length];
+    private int failed;
+    private SocketAddress peer;
+    private String traceparent;
+
+    RequestTrace(String traceId, long parentSpanId, boolean sampled, long startNanos, long startEpochMillis) {
+        this.traceId = traceId;
+        this.parentSpanId = parentSpanId;
+        this.rootSpanId = Traceparent.newSpanId();
+        this.upstreamSpanId = Traceparent.newSpanId();
+        this.sampled = sampled;
+        this.startNanos = startNanos;
+        this.startEpochMicros = startEpochMillis * 1000;
+        start(SpanName.GATEWAY, startNanos);
+    }
+
+    public static RequestTrace of(ServerWebExchange exchange) {
+        return exchange.getAttribute(ATTR);
+    }
+
+    public static RequestTrace of(ContextView context) {
+        return context.getOrDefault(RequestTrace.class, null);
+    }
+
+    public static void start(ServerWebExchange exchange, SpanName span, long now) {
+        RequestTrace trace = of(exchange);
+        if (trace != null) {
+            trace.start(span, now);
+        }
+    }
+
+    public static void end(ServerWebExchange exchange, SpanName span, long now) {
+        RequestTrace trace = of(exchange);
+        if (trace != null) {
+            trace.end(span, now);
+        }
+    }
+
+    public static void record(ServerWebExchange exchange, SpanName span, long start, long end) {
+        RequestTrace trace = of(exchange);
+        if (trace != null) {
+            trace.start(span, start);
+            trace.end(span, end);
+        }
+    }
+
+    /**
+     * Empieza (o vuelve a empezar, en un reintento) el span.
+     */
+    public void start(SpanName span, long now) {
+        starts[span.ordinal()] = now;
+        ends[span.ordinal()] = 0;
+        failed &= ~(1 << span.ordinal());
+    }
+
+    /**
+     * Termina el span si está en curso (un segundo end no lo alarga).
+     */
+    public void end(SpanName span, long now) {
+        int i = span.ordinal();
+        if (starts[i] != 0 && ends[i] == 0) {
+            ends[i] = now;
+        }
+    }
+
+    /**
+     * Termina el span marcándolo con error (por ejemplo, el upstream cortó la conexión).
+     */
+    public void fail(SpanName span, long now) {
+        int i = span.ordinal();
+        if (starts[i] != 0 && ends[i] == 0) {
+            ends[i] = now;
+            failed |= 1 << i;
+        }
+    }
+
+    public void peer(SocketAddress peer) {
+        this.peer = peer;
+    }
+
+    public Context into(Context context) {
+        return context.put(RequestTrace.class, this);
+    }
+
+    public String traceId() {
+        return traceId;
+    }
+
+    public boolean sampled() {
+        return sampled;
+    }
+
+    long startNanos() {
+        return startNanos;
+    }
+
+    /**
+     * traceparent para el servicio: el span padre es {@link SpanName#UPSTREAM_RESPONSE}.
+     */
+    public String traceparent() {
+        String value = traceparent;
+        if (value == null) {
+            value = Traceparent.format(traceId, upstreamSpanId, sampled);
+            traceparent = value;
+        }
+        return value;
+    }
+
+    /**
+     * Spans terminados (o cortados en {@code now}), el raíz primero.
+     */
+    List<SpanData> toSpans(long now, boolean error, Map<String, String> rootAttributes) {
+        long[] ids = new long[SPANS.length];
+        List<SpanData> spans = new ArrayList<>(SPANS.length);
+        for (SpanName span : SPANS) {
+            int i = span.ordinal();
+            if (starts[i] == 0) {
+                continue;
+            }
+            ids[i] = switch (span) {
+                case GATEWAY -> rootSpanId;
+                case UPSTREAM_RESPONSE -> upstreamSpanId;
+                default -> Traceparent.newSpanId();
+            };
+            long parent = span.parent() == null ? parentSpanId
+                    : ids[span.parent().ordinal()] != 0 ? ids[span.parent().ordinal()] : rootSpanId;
+            long end = ends[i] == 0 ? now : ends[i];
+            Map<String, String> attributes = switch (span) {
+                case GATEWAY -> rootAttributes;
+                case UPSTREAM_RESPONSE -> peer == null ? Map.of() : Map.of("net.peer", peer.toString());
+                default -> Map.of();
+            };
+            spans.add(new SpanData(traceId, Traceparent.hex(ids[i]), parent == 0 ? null : Traceparent.hex(parent),
+                    span.value(), startEpochMicros + (starts[i] - startNanos) / 1000, (end - starts[i]) / 1000,
+                    span == SpanName.GATEWAY ? error : (failed & (1 << i)) != 0,
+                    attributes));
+        }
+        return spans;
+    }
+}
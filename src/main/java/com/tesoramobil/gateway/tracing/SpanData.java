@@ -0,0 +1,12 @@
+package com.tesoramobil.gateway.tracing;
+
+import java.util.Map;
+
+/**
+ * Span terminado, en la forma en que se entrega al {@link SpanExporter}.
+ *
+ * @param parentSpanId null en el span raíz de una traza que empezó en el Gateway.
+ */
+public record SpanData(String traceId, String spanId, String parentSpanId, String name,
+                       long startEpochMicros, long durationMicros, boolean error, Map<String, String> attributes) {
+}
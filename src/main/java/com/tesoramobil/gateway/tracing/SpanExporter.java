@@ -0,0 +1,16 @@
+package com.tesoramobil.gateway.tracing;
+
+import java.util.List;
+
+/**
+ * Destino de los spans de las trazas muestreadas. Un bean propio (OTLP, Zipkin, ...) reemplaza al configurado
+ * en {@code gateway.tracing.exporter}.
+ * Se llama desde el event loop al terminar cada petición muestreada: no debe bloquear ni lanzar excepciones.
+ */
+public interface SpanExporter {
+
+    /**
+     * @param spans Los spans de una misma traza, empezando por el raíz.
+     */
+    void export(List<SpanData> spans);
+}
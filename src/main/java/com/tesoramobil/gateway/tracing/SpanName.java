@@ -0,0 +1,29 @@
+package com.tesoramobil.gateway.tracing;
+
+/**
+ * Spans que el Gateway registra por petición; cada uno a lo sumo una vez (en reintentos queda el último intento).
+ */
+public enum SpanName {
+
+    GATEWAY("gateway", null),
+    AUTH("auth.filter", GATEWAY),
+    JWT_VERIFICATION("auth.jwt-verification", AUTH),
+    UPSTREAM_ACQUIRE("upstream.acquire", GATEWAY),
+    UPSTREAM_RESPONSE("upstream.response", GATEWAY);
+
+    private final String value;
+    private final SpanName parent;
+
+    SpanName(String value, SpanName parent) {
+        this.value = value;
+        this.parent = parent;
+    }
+
+    public String value() {
+        return value;
+    }
+
+    public SpanName parent() {
+        return parent;
+    }
+}
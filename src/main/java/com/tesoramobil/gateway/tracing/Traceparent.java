@@ -0,0 +1,86 @@
+package com.tesoramobil.gateway.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Header W3C {@code traceparent}: "&lt;version&gt;-&lt;trace-id 32 hex&gt;-&lt;parent-id 16 hex&gt;-&lt;flags 2 hex&gt;".
+ *
+ * @param traceId  32 caracteres hex en minúsculas, distinto de cero.
+ * @param spanId   span del que llama (parent-id), distinto de cero.
+ * @param sampled  bit 0 de trace-flags.
+ */
+public record Traceparent(String traceId, long spanId, boolean sampled) {
+
+    public static final String HEADER = "traceparent";
+
+    private static final int LENGTH = 55;
+
+    /**
+     * Header recibido, o null si falta o es inválido (en ese caso se empieza una traza nueva).
+     * Versiones futuras se aceptan leyendo solo los campos de la versión 00.
+     */
+    public static Traceparent parse(String header) {
+        if (header == null || header.length() < LENGTH || header.charAt(2) != '-' || header.charAt(35) != '-'
+                || header.charAt(52) != '-') {
+            return null;
+        }
+        if (header.startsWith("ff") || !isHex(header, 0, 2)
+                || (header.startsWith("00") ? header.length() != LENGTH : header.length() > LENGTH && header.charAt(LENGTH) != '-')) {
+            return null;
+        }
+        if (!isHex(header, 3, 35) || !isHex(header, 36, 52) || !isHex(header, 53, 55)) {
+            return null;
+        }
+        String traceId = header.substring(3, 35);
+        long spanId = Long.parseUnsignedLong(header, 36, 52, 16);
+        if (spanId == 0 || isZero(traceId)) {
+            return null;
+        }
+        boolean sampled = (Character.digit(header.charAt(54), 16) & 1) != 0;
+        return new Traceparent(traceId, spanId, sampled);
+    }
+
+    public static String format(String traceId, long spanId, boolean sampled) {
+        return "00-" + traceId + '-' + hex(spanId) + (sampled ? "-01" : "-00");
+    }
+
+    public static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return hex(random.nextLong()) + hex(newSpanId());
+    }
+
+    public static long newSpanId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    /**
+     * 16 caracteres hex con ceros a la izquierda.
+     */
+    public static String hex(long value) {
+        String hex = Long.toHexString(value);
+        return hex.length() == 16 ? hex : "0".repeat(16 - hex.length()) + hex;
+    }
+
+    private static boolean isHex(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
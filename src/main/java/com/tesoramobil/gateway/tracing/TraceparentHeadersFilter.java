@@ -0,0 +1,32 @@
+package com.tesoramobil.gateway.tracing;
+
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Reemplaza el {@code traceparent} que se envía al servicio por el de la traza del Gateway
+ * (mismo trace-id, parent-id = span "upstream.response"). {@code tracestate} se reenvía sin cambios.
+ */
+@Component
+public class TraceparentHeadersFilter implements HttpHeadersFilter, Ordered {
+
+    @Override
+    public HttpHeaders filter(HttpHeaders input, ServerWebExchange exchange) {
+        RequestTrace trace = RequestTrace.of(exchange);
+        if (trace == null) {
+            return input;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(input);
+        headers.set(Traceparent.HEADER, trace.traceparent());
+        return headers;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
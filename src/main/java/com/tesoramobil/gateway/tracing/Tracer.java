@@ -0,0 +1,113 @@
+package com.tesoramobil.gateway.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.tesoramobil.gateway.observability.AccessLogger;
+import com.tesoramobil.gateway.observability.AuthDecision;
+import com.tesoramobil.gateway.observability.GatewayMetrics;
+import com.tesoramobil.gateway.observability.RequestTraceId;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Abre y cierra la traza de cada petición y decide si se exporta.
+ * - Head-based: al empezar, sorteando {@code sample-rate} (o según el flag "sampled" del traceparent recibido,
+ *   con {@code respect-parent-sampling}).
+ *   La decisión viaja en el traceparent hacia el servicio.
+ * - Tail-based: al terminar se exportan además las peticiones con error o más lentas que {@code slow-threshold}
+ *   (del lado del Gateway; el servicio ya recibió "no sampled").
+ * El trace-id también pasa a ser el {@link RequestTraceId} de la petición (respuestas de error y access log).
+ *
+ * Métrica: {@code gateway.tracing.traces{decision=head|error|slow|dropped}}.
+ */
+@Component
+public class Tracer {
+
+    private static final Logger log = LoggerFactory.getLogger(Tracer.class);
+
+    private enum Decision { HEAD, ERROR, SLOW, DROPPED }
+
+    private final TracingProperties properties;
+    private final SpanExporter exporter;
+    private final long slowNanos;
+    private final Counter[] decisions = new Counter[Decision.values().length];
+
+    public Tracer(TracingProperties properties, SpanExporter exporter, MeterRegistry registry) {
+        this.properties = properties;
+        this.exporter = exporter;
+        this.slowNanos = properties.getSlowThreshold().toNanos();
+        for (Decision decision : Decision.values()) {
+            decisions[decision.ordinal()] = Counter.builder("gateway.tracing.traces")
+                    .description("Trazas terminadas por decisión de muestreo")
+                    .tag("decision", decision.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Continúa la traza del traceparent recibido o empieza una nueva, y la deja en el exchange.
+     */
+    public RequestTrace begin(ServerWebExchange exchange, long now) {
+        Traceparent parent = Traceparent.parse(exchange.getRequest().getHeaders().getFirst(Traceparent.HEADER));
+        boolean sampled = parent != null && properties.isRespectParentSampling()
+                ? parent.sampled()
+                : ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+        RequestTrace trace = new RequestTrace(parent == null ? Traceparent.newTraceId() : parent.traceId(),
+                parent == null ? 0 : parent.spanId(), sampled, now, System.currentTimeMillis());
+        exchange.getAttributes().put(RequestTrace.ATTR, trace);
+        exchange.getAttributes().put(RequestTraceId.ATTR, trace.traceId());
+        return trace;
+    }
+
+    /**
+     * Cierra el span raíz y exporta la traza si la eligió el muestreo head o tail.
+     *
+     * @param failed Si la cadena de filtros terminó con una excepción.
+     */
+    public void finish(RequestTrace trace, ServerWebExchange exchange, boolean failed, long now) {
+        trace.end(SpanName.GATEWAY, now);
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        int status = statusCode == null ? 0 : statusCode.value();
+        boolean error = failed || status >= 500;
+        Decision decision = trace.sampled() ? Decision.HEAD
+                : error && properties.isKeepErrors() ? Decision.ERROR
+                : now - trace.startNanos() >= slowNanos ? Decision.SLOW
+                : Decision.DROPPED;
+        decisions[decision.ordinal()].increment();
+        if (decision == Decision.DROPPED) {
+            return;
+        }
+        try {
+            exporter.export(spans(trace, exchange, status, error, now));
+        } catch (RuntimeException e) {
+            log.debug("El exportador de spans falló: {}", e.toString());
+        }
+    }
+
+    private static List<SpanData> spans(RequestTrace trace, ServerWebExchange exchange, int status, boolean error, long now) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put("http.method", exchange.getRequest().getMethod().name());
+        attributes.put("http.route", GatewayMetrics.routeId(exchange));
+        attributes.put("url.template", AccessLogger.pathTemplate(exchange.getRequest().getPath().value()));
+        attributes.put("http.status_code", Integer.toString(status));
+        AuthDecision decision = AuthDecision.of(exchange);
+        if (decision != null) {
+            attributes.put("auth.decision", decision.name().toLowerCase());
+        }
+        return trace.toSpans(now, error, attributes);
+    }
+}
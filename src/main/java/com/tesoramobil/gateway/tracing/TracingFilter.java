@@ -0,0 +1,39 @@
+package com.tesoramobil.gateway.tracing;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Filtro global que abre la traza de la petición (span raíz "gateway") y la cierra al terminar el exchange.
+ * Va justo después del AccessLogFilter, para que el access log ya vea el trace-id definitivo.
+ */
+@Component
+public class TracingFilter implements GlobalFilter, Ordered {
+
+    private final Tracer tracer;
+
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!tracer.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        RequestTrace trace = tracer.begin(exchange, System.nanoTime());
+        return chain.filter(exchange)
+                .doFinally(signal -> tracer.finish(trace, exchange, signal == SignalType.ON_ERROR, System.nanoTime()));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
@@ -0,0 +1,49 @@
+package com.tesoramobil.gateway.tracing;
+
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.stereotype.Component;
+
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Spans del cliente HTTP hacia los servicios, leyendo la {@link RequestTrace} del contexto de Reactor
+ * (la pone {@code UpstreamRoutingFilter}):
+ * - "upstream.acquire" termina cuando hay conexión (o stream HTTP/2) y la petición sale.
+ * - "upstream.response" va desde ahí hasta recibir la respuesta completa, o hasta el error.
+ * Se aplica al cliente global del Gateway y a los de cada pool de {@code UpstreamHttpClients}.
+ */
+@Component
+public class TracingHttpClientCustomizer implements HttpClientCustomizer {
+
+    @Override
+    public HttpClient customize(HttpClient client) {
+        return client
+                .doOnRequest((request, connection) -> {
+                    RequestTrace trace = RequestTrace.of(request.currentContextView());
+                    if (trace != null) {
+                        long now = System.nanoTime();
+                        trace.end(SpanName.UPSTREAM_ACQUIRE, now);
+                        trace.start(SpanName.UPSTREAM_RESPONSE, now);
+                        trace.peer(connection.channel().remoteAddress());
+                    }
+                })
+                .doOnRequestError((request, error) -> {
+                    RequestTrace trace = RequestTrace.of(request.currentContextView());
+                    if (trace != null) {
+                        trace.fail(SpanName.UPSTREAM_ACQUIRE, System.nanoTime());
+                    }
+                })
+                .doAfterResponseSuccess((response, connection) -> {
+                    RequestTrace trace = RequestTrace.of(response.currentContextView());
+                    if (trace != null) {
+                        trace.end(SpanName.UPSTREAM_RESPONSE, System.nanoTime());
+                    }
+                })
+                .doOnResponseError((response, error) -> {
+                    RequestTrace trace = RequestTrace.of(response.currentContextView());
+                    if (trace != null) {
+                        trace.fail(SpanName.UPSTREAM_RESPONSE, System.nanoTime());
+                    }
+                });
+    }
+}
@@ -0,0 +1,65 @@
+package com.tesoramobil.gateway.tracing;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Trazas por petición con propagación W3C {@code traceparent} ({@code gateway.tracing.*}).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.tracing")
+public class TracingProperties {
+
+    public enum Exporter {
+        /** Últimos {@code memory.capacity} spans en memoria (desarrollo y pruebas). */
+        MEMORY,
+        /** Una línea JSON por span en {@code file.path}, escrita por un hilo propio. */
+        FILE,
+        /** Se descartan (solo quedan las métricas de muestreo). */
+        NONE
+    }
+
+    private boolean enabled = true;
+
+    /** Muestreo head-based: fracción de trazas nuevas que se exportan y se marcan "sampled" hacia los servicios. */
+    private double sampleRate = 0.01;
+
+    /**
+     * Si llega un traceparent, se respeta su flag "sampled" en lugar de sortear. Apagado por defecto: el header lo
+     * controla el cliente, que podría forzar la exportación de todas sus peticiones; se enciende solo si delante del
+     * Gateway hay un proxy propio que ya decide el muestreo.
+     */
+    private boolean respectParentSampling = false;
+
+    /** Muestreo tail-based: las peticiones con error (5xx o excepción) se exportan siempre. */
+    private boolean keepErrors = true;
+
+    /** Muestreo tail-based: las peticiones que tardan al menos esto se exportan siempre. */
+    private Duration slowThreshold = Duration.ofSeconds(1);
+
+    private Exporter exporter = Exporter.NONE;
+
+    private Memory memory = new Memory();
+
+    private File file = new File();
+
+    @Data
+    public static class Memory {
+
+        private int capacity = 1000;
+    }
+
+    @Data
+    public static class File {
+
+        private String path = "logs/spans.jsonl";
+
+        /** Spans pendientes de escribir; con la cola llena se descartan (nunca se bloquea el event loop). */
+        private int queueCapacity = 10_000;
+    }
+}
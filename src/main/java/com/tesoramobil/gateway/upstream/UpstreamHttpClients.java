@@ -0,0 +1,202 @@
+package com.tesoramobil.gateway.upstream;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.stereotype.Component;
+
+import com.tesoramobil.gateway.upstream.UpstreamPoolProperties.Pool;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.context.Context;
+
+/**
+ * Un HttpClient (y su pool de conexiones) por ruta declarada en {@code gateway.upstream.routes}.
+ * - Cada cliente parte de la misma configuración que el cliente global del Gateway (timeouts, TLS, proxy,
+ *   customizers) y solo cambia el pool y el protocolo (HTTP/1.1, HTTP/2 con TLS o h2c).
+ * - Métricas por ruta e instancia ({@code route}, {@code remote}):
+ *   {@code gateway.upstream.pool.active} (conexiones prestadas; con HTTP/2, streams en curso),
+ *   {@code .idle}, {@code .pending} (peticiones esperando conexión) y {@code .allocated};
+ *   {@code gateway.upstream.acquire{route}}: desde que se despacha la petición hasta tener conexión.
+ * - Los pools se crean al iniciar: cambiar {@code gateway.upstream} requiere reiniciar.
+ */
+@Component
+public class UpstreamHttpClients implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamHttpClients.class);
+
+    private static final String ACQUIRE_START = UpstreamHttpClients.class.getName() + ".acquireStart";
+
+    private final Map<String, HttpClient> clients = new LinkedHashMap<>();
+
+    private final Map<String, ConnectionProvider> providers = new LinkedHashMap<>();
+
+    private final MeterRegistry registry;
+
+    public UpstreamHttpClients(UpstreamPoolProperties properties, HttpClientProperties httpClientProperties,
+                               ServerProperties serverProperties, HttpClientSslConfigurer sslConfigurer,
+                               ObjectProvider<HttpClientCustomizer> customizers, MeterRegistry registry) {
+        this.registry = registry;
+        List<HttpClientCustomizer> customizerList = customizers.orderedStream().toList();
+        properties.getRoutes().forEach((routeId, pool) -> {
+            ConnectionProvider provider = connectionProvider(routeId, pool);
+            HttpClient client = new RouteClientFactory(httpClientProperties, serverProperties, sslConfigurer,
+                    new ArrayList<>(customizerList), provider).build(); // HttpClientFactory ordena la lista
+            providers.put(routeId, provider);
+            clients.put(routeId, configure(client, routeId, pool));
+            log.info("Pool upstream {}: {} max-connections={} leasing={}", routeId, pool.getProtocol(),
+                    pool.getMaxConnections(), pool.getLeasing());
+        });
+    }
+
+    /**
+     * Cliente de la ruta, o null si la ruta usa el cliente global.
+     */
+    public HttpClient forRoute(String routeId) {
+        return clients.get(routeId);
+    }
+
+    /**
+     * Marca en el contexto de Reactor el inicio del despacho hacia el servicio (lo lee el timer de adquisición).
+     */
+    static Context markAcquireStart(Context context) {
+        return context.put(ACQUIRE_START, System.nanoTime());
+    }
+
+    @Override
+    public void destroy() {
+        providers.values().forEach(ConnectionProvider::dispose);
+    }
+
+    private HttpClient configure(HttpClient client, String routeId, Pool pool) {
+        client = switch (pool.getProtocol()) {
+            case HTTP11 -> client.protocol(HttpProtocol.HTTP11);
+            case H2 -> {
+                HttpClient h2 = client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+                yield h2.configuration().sslProvider() == null ? h2.secure() : h2;
+            }
+            case H2C -> client.protocol(HttpProtocol.H2C);
+        };
+        Timer acquire = Timer.builder("gateway.upstream.acquire")
+                .description("Espera hasta obtener una conexión (o stream HTTP/2) hacia el servicio")
+                .tag("route", routeId)
+                .register(registry);
+        return client.doOnRequest((request, connection) -> request.currentContextView()
+                .<Long>getOrEmpty(ACQUIRE_START)
+                .ifPresent(start -> acquire.record(System.nanoTime() - start, TimeUnit.NANOSECONDS)));
+    }
+
+    private ConnectionProvider connectionProvider(String routeId, Pool pool) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("upstream-" + routeId)
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .evictInBackground(pool.getEvictionInterval())
+                .metrics(true, () -> new PoolMeters(routeId));
+        if (pool.getProtocol() != UpstreamPoolProperties.Protocol.HTTP11) {
+            builder.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConnections(pool.getMaxConnections())
+                    .maxConcurrentStreams(pool.getMaxConcurrentStreams())
+                    .minConnections(1)
+                    .build());
+        }
+        return (pool.getLeasing() == UpstreamPoolProperties.Leasing.LIFO ? builder.lifo() : builder.fifo()).build();
+    }
+
+    /**
+     * Gauges {@code gateway.upstream.pool.*} de cada pool (uno por instancia remota) mientras exista.
+     */
+    private final class PoolMeters implements ConnectionProvider.MeterRegistrar {
+
+        private final String routeId;
+        private final Map<SocketAddress, List<Meter>> meters = new ConcurrentHashMap<>();
+
+        private PoolMeters(String routeId) {
+            this.routeId = routeId;
+        }
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+            String remote = remoteAddress instanceof InetSocketAddress inet
+                    ? inet.getHostString() + ":" + inet.getPort()
+                    : String.valueOf(remoteAddress);
+            meters.put(remoteAddress, List.of(
+                    gauge("gateway.upstream.pool.active", "Conexiones (o streams HTTP/2) en uso", remote, metrics,
+                            ConnectionPoolMetrics::acquiredSize),
+                    gauge("gateway.upstream.pool.idle", "Conexiones abiertas sin uso", remote, metrics,
+                            ConnectionPoolMetrics::idleSize),
+                    gauge("gateway.upstream.pool.pending", "Peticiones esperando una conexión", remote, metrics,
+                            ConnectionPoolMetrics::pendingAcquireSize),
+                    gauge("gateway.upstream.pool.allocated", "Conexiones abiertas", remote, metrics,
+                            ConnectionPoolMetrics::allocatedSize)));
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            List<Meter> removed = meters.remove(remoteAddress);
+            if (removed != null) {
+                removed.forEach(registry::remove);
+            }
+        }
+
+        private Meter gauge(String name, String description, String remote, ConnectionPoolMetrics metrics,
+                            ToDoubleFunction<ConnectionPoolMetrics> value) {
+            return Gauge.builder(name, metrics, value)
+                    .description(description)
+                    .tag("route", routeId)
+                    .tag("remote", remote)
+                    .strongReference(true) // el ConnectionPoolMetrics no tiene otra referencia
+                    .register(registry);
+        }
+    }
+
+    /**
+     * HttpClientFactory del Gateway con el pool de la ruta en lugar del pool global.
+     */
+    private static final class RouteClientFactory extends HttpClientFactory {
+
+        private final ConnectionProvider provider;
+
+        private RouteClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                   HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                                   ConnectionProvider provider) {
+            super(properties, serverProperties, sslConfigurer, customizers);
+            this.provider = provider;
+        }
+
+        @Override
+        protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+            return provider;
+        }
+
+        private HttpClient build() {
+            return createInstance();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.tesoramobil.gateway.upstream;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Pools de conexiones hacia los servicios ({@code gateway.upstream.*}), uno por id de ruta.
+ * Las rutas sin entrada usan el pool global de {@code spring.cloud.gateway.httpclient.pool}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.upstream")
+public class UpstreamPoolProperties {
+
+    private Map<String, Pool> routes = new LinkedHashMap<>();
+
+    /**
+     * Protocolo hacia el servicio.
+     */
+    public enum Protocol {
+        /** HTTP/1.1: una petición en curso por conexión. */
+        HTTP11,
+        /** HTTP/2 sobre TLS (ALPN, con vuelta a HTTP/1.1 si el servicio no lo ofrece). */
+        H2,
+        /** HTTP/2 sin TLS (prior knowledge): el servicio debe aceptar h2c. */
+        H2C
+    }
+
+    /**
+     * Orden en que se entregan las conexiones libres.
+     */
+    public enum Leasing {
+        /** La más antigua primero: reparte el uso entre todas las conexiones. */
+        FIFO,
+        /** La usada más recientemente primero: las sobrantes quedan ociosas y se cierran por max-idle-time. */
+        LIFO
+    }
+
+    @Data
+    public static class Pool {
+
+        private Protocol protocol = Protocol.HTTP11;
+
+        /** Conexiones por instancia del servicio (con HTTP/2, cada una multiplexa hasta max-concurrent-streams). */
+        private int maxConnections = 500;
+
+        /** Streams simultáneos por conexión HTTP/2. */
+        private long maxConcurrentStreams = 100;
+
+        /** Peticiones que pueden esperar una conexión libre; las siguientes fallan de inmediato (-1 sin límite). */
+        private int pendingAcquireMaxCount = 1000;
+
+        /** Espera máxima por una conexión libre. */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        /** Conexiones ociosas más tiempo se cierran (menor que el idle timeout del servicio o del balanceador). */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        /** Vida máxima de una conexión: fuerza a repartir conexiones nuevas entre instancias. */
+        private Duration maxLifeTime = Duration.ofMinutes(10);
+
+        /** Cada cuánto se cierran en segundo plano las conexiones vencidas (0 = solo al pedir una conexión). */
+        private Duration evictionInterval = Duration.ofSeconds(30);
+
+        private Leasing leasing = Leasing.LIFO;
+    }
+}
@@ -0,0 +1,64 @@
+package com.tesoramobil.gateway.upstream;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.tesoramobil.gateway.tracing.RequestTrace;
+import com.tesoramobil.gateway.tracing.SpanName;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * NettyRoutingFilter que envía cada ruta por su propio pool de {@link UpstreamHttpClients};
+ * las rutas sin pool propio usan el cliente global.
+ * Se ejecuta justo antes del NettyRoutingFilter del Gateway, que al encontrar el exchange ya enrutado
+ * no hace nada. Ese filtro no se desactiva: NettyWriteResponseFilter (el que escribe el cuerpo de la
+ * respuesta) depende de la misma propiedad.
+ * Si la petición tiene {@link RequestTrace}, abre el span "upstream.acquire" y deja la traza en el contexto
+ * de Reactor para los spans del cliente HTTP.
+ */
+@Component
+public class UpstreamRoutingFilter extends NettyRoutingFilter {
+
+    private final UpstreamHttpClients clients;
+
+    public UpstreamRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                 HttpClientProperties properties, UpstreamHttpClients clients) {
+        super(httpClient, headersFilters, properties);
+        this.clients = clients;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        RequestTrace trace = RequestTrace.of(exchange);
+        if (trace == null) {
+            return super.filter(exchange, chain).contextWrite(UpstreamHttpClients::markAcquireStart);
+        }
+        return Mono.defer(() -> {
+                    trace.start(SpanName.UPSTREAM_ACQUIRE, System.nanoTime());
+                    return super.filter(exchange, chain);
+                })
+                .contextWrite(UpstreamHttpClients::markAcquireStart)
+                .contextWrite(trace::into);
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyRoutingFilter.ORDER - 1;
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        HttpClient client = clients.forRoute(route.getId());
+        return client != null ? client : super.getHttpClient(route, exchange);
+    }
+}
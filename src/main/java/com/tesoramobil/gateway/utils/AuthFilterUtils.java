@@ -2,11 +2,16 @@ package com.tesoramobil.gateway.utils;
 
 import java.nio.charset.StandardCharsets;
 
-import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ServerWebExchange;
 
+import com.tesoramobil.gateway.observability.AuthDecision;
+import com.tesoramobil.gateway.observability.RequestTraceId;
+import com.tesoramobil.gateway.security.JwtVerificationScheduler;
+import com.tesoramobil.gateway.tracing.RequestTrace;
+import com.tesoramobil.gateway.tracing.SpanName;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import reactor.core.publisher.Mono;
@@ -18,29 +23,62 @@ import reactor.core.publisher.Mono;
 
 public class AuthFilterUtils {
 
+    private static final String BEARER = "Bearer";
+
     /**
      * Extrae el token JWT del encabezado Authorization de la solicitud HTTP.
+     * - Lee el header una sola vez y lo recorre sin split/regex: la única asignación es el substring del token.
+     * - El esquema "Bearer" no distingue mayúsculas y se toleran espacios/tabs extra alrededor.
      *
      * @param exchange El intercambio actual del servidor (representa la solicitud y la respuesta).
      * @return El token JWT como String si el formato es correcto, o null si falta o es inválido.
      */
     public static String extractToken(ServerWebExchange exchange) {
-        // Verifica que exista el encabezado Authorization
-        if (!exchange.getRequest().getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+        return bearerToken(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+    }
+
+    /**
+     * Token de un valor "Bearer &lt;token&gt;" (null si falta, el esquema no es Bearer o el token tiene espacios).
+     */
+    static String bearerToken(String authHeader) {
+        if (authHeader == null) {
             return null; // No hay header Authorization
         }
+        int length = authHeader.length();
+        int start = skipWhitespace(authHeader, 0, length);
+        if (!authHeader.regionMatches(true, start, BEARER, 0, BEARER.length())) {
+            return null; // Otro esquema (Basic, etc.)
+        }
+        int separator = start + BEARER.length();
+        if (separator >= length || !isWhitespace(authHeader.charAt(separator))) {
+            return null; // "Bearer" sin token o pegado al token
+        }
+        int tokenStart = skipWhitespace(authHeader, separator, length);
+        int tokenEnd = length;
+        while (tokenEnd > tokenStart && isWhitespace(authHeader.charAt(tokenEnd - 1))) {
+            tokenEnd--;
+        }
+        if (tokenStart == tokenEnd) {
+            return null;
+        }
+        for (int i = tokenStart; i < tokenEnd; i++) {
+            if (isWhitespace(authHeader.charAt(i))) {
+                return null; // Más de un valor después del esquema
+            }
+        }
+        return authHeader.substring(tokenStart, tokenEnd);
+    }
 
-        // Obtiene el valor del header Authorization
-        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
-
-        // El formato esperado es: "Bearer <token>", así que hacemos split
-        String[] chunks = authHeader.split(" ");
-        if (chunks.length != 2 || !"Bearer".equals(chunks[0])) {
-            return null; // Formato incorrecto
+    private static int skipWhitespace(String value, int from, int length) {
+        int i = from;
+        while (i < length && isWhitespace(value.charAt(i))) {
+            i++;
         }
+        return i;
+    }
 
-        // Retorna el token extraído
-        return chunks[1];
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
     }
 
     /**
@@ -59,21 +97,42 @@ public class AuthFilterUtils {
     }
 
     /**
-     * Crea una respuesta HTTP de error con un mensaje personalizado.
-     * 
+     * Crea una respuesta HTTP de error JSON con un mensaje personalizado.
+     * El cuerpo se codifica una sola vez por (status, mensaje) y se comparte entre peticiones (ver {@link PreEncodedError});
+     * el traceId va en el header {@value RequestTraceId#HEADER}, como en las respuestas del GlobalErrorHandler.
+     *
      * @param exchange El intercambio actual (request/response).
      * @param status El código de estado HTTP que queremos devolver (por ejemplo, 400, 401, 403).
      * @param message El mensaje de error que queremos enviar al cliente.
      * @return Un Mono<Void> que representa la escritura de la respuesta de error.
      */
     public static Mono<Void> onError(ServerWebExchange exchange, HttpStatus status, String message) {
-        var response = exchange.getResponse(); // Obtiene la respuesta HTTP
-        response.setStatusCode(status); // Establece el código de estado (ej. 401 Unauthorized)
-        
-        // Crea un DataBuffer con el mensaje de error codificado en UTF-8
-        DataBuffer buffer = response.bufferFactory().wrap(message.getBytes(StandardCharsets.UTF_8));
-        
-        // Escribe el buffer de error en la respuesta HTTP y termina la solicitud
-        return response.writeWith(Mono.just(buffer));
+        return onError(exchange, PreEncodedError.of(status, message));
+    }
+
+    /**
+     * Igual que {@link #onError(ServerWebExchange, HttpStatus, String)} con un error ya resuelto.
+     */
+    public static Mono<Void> onError(ServerWebExchange exchange, PreEncodedError error) {
+        // Deja la decisión (400/401/403) en el exchange para el access log
+        AuthDecision decision = AuthDecision.fromRejection(error.status());
+        if (decision != null) {
+            exchange.getAttributes().put(AuthDecision.DECISION_ATTR, decision);
+        }
+        RequestTrace.end(exchange, SpanName.AUTH, System.nanoTime()); // el rechazo cierra el span del filtro
+        exchange.getResponse().getHeaders().set(RequestTraceId.HEADER, RequestTraceId.of(exchange));
+        return error.writeTo(exchange.getResponse());
+    }
+
+    /**
+     * Respuesta a un fallo de verificación del token: 401, salvo que el scheduler de verificación esté
+     * saturado, en cuyo caso es 503 con {@code Retry-After: 1} (el token puede ser válido).
+     */
+    public static Mono<Void> onVerificationError(ServerWebExchange exchange, Throwable error) {
+        if (error instanceof JwtVerificationScheduler.SaturatedException) {
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            return onError(exchange, HttpStatus.SERVICE_UNAVAILABLE, "Token verification overloaded, retry later.");
+        }
+        return onError(exchange, HttpStatus.UNAUTHORIZED, "Invalid or expired token.");
     }
 }
@@ -0,0 +1,45 @@
+package com.tesoramobil.gateway.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Timestamp ISO-8601 (UTC, milisegundos) ya codificado en ASCII, recalculado como mucho una vez por milisegundo.
+ * Las lecturas dentro del mismo milisegundo comparten el mismo arreglo: no se debe modificar.
+ */
+public final class CachedClock {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private final Clock clock;
+
+    private volatile Tick last = new Tick(Long.MIN_VALUE, new byte[0]);
+
+    public CachedClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public static CachedClock systemUTC() {
+        return new CachedClock(Clock.systemUTC());
+    }
+
+    /**
+     * Bytes ASCII de "yyyy-MM-ddTHH:mm:ss.SSSZ" para el instante actual.
+     */
+    public byte[] isoBytes() {
+        long now = clock.millis();
+        Tick tick = last;
+        if (tick.millis != now) {
+            tick = new Tick(now, FORMAT.format(Instant.ofEpochMilli(now)).getBytes(StandardCharsets.US_ASCII));
+            last = tick; // Carrera benigna: dos hilos pueden formatear el mismo milisegundo
+        }
+        return tick.iso;
+    }
+
+    private record Tick(long millis, byte[] iso) {
+    }
+}
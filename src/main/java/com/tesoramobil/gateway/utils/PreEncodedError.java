@@ -0,0 +1,102 @@
+package com.tesoramobil.gateway.utils;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Respuesta de error JSON codificada una sola vez por (status, mensaje).
+ * - El cuerpo vive en un ByteBuffer directo de solo lectura compartido por todas las peticiones;
+ *   cada respuesta envuelve un duplicate() (sin copiar bytes).
+ * - Los mensajes de los filtros son constantes, así que el registro se mantiene pequeño;
+ *   pasado {@link #MAX_CACHED} mensajes distintos se codifica sin guardar.
+ */
+public final class PreEncodedError {
+
+    static final int MAX_CACHED = 256;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String CONTENT_TYPE = MediaType.APPLICATION_JSON_VALUE;
+
+    private static final Map<HttpStatus, Map<String, PreEncodedError>> REGISTRY = new EnumMap<>(HttpStatus.class);
+
+    static {
+        for (HttpStatus status : HttpStatus.values()) {
+            REGISTRY.put(status, new ConcurrentHashMap<>());
+        }
+    }
+
+    private final HttpStatus status;
+
+    private final ByteBuffer body;
+
+    private PreEncodedError(HttpStatus status, ByteBuffer body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    /**
+     * Error pre-codificado para el status y mensaje dados (la búsqueda no asigna memoria).
+     */
+    public static PreEncodedError of(HttpStatus status, String message) {
+        Map<String, PreEncodedError> byMessage = REGISTRY.get(status);
+        PreEncodedError error = byMessage.get(message);
+        if (error != null) {
+            return error;
+        }
+        error = encode(status, message);
+        if (byMessage.size() < MAX_CACHED) {
+            PreEncodedError existing = byMessage.putIfAbsent(message, error);
+            return existing != null ? existing : error;
+        }
+        return error;
+    }
+
+    private static PreEncodedError encode(HttpStatus status, String message) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("status", status.value());
+        json.put("error", status.getReasonPhrase());
+        json.put("message", message);
+        try {
+            byte[] bytes = MAPPER.writeValueAsBytes(json);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+            return new PreEncodedError(status, buffer.asReadOnlyBuffer());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo codificar el error " + status, e);
+        }
+    }
+
+    public HttpStatus status() {
+        return status;
+    }
+
+    /**
+     * Vista de solo lectura del cuerpo (posición independiente por llamada).
+     */
+    public ByteBuffer body() {
+        return body.duplicate();
+    }
+
+    /**
+     * Escribe status, Content-Type y el cuerpo compartido en la respuesta
+     * (Reactor Netty agrega el Content-Length al enviar un único buffer).
+     */
+    public Mono<Void> writeTo(ServerHttpResponse response) {
+        response.setStatusCode(status);
+        response.getHeaders().set(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.duplicate())));
+    }
+}
@@ -0,0 +1,119 @@
+package com.tesoramobil.gateway.warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Calienta el Gateway (JIT, caches, pools de Netty) con peticiones reales por loopback antes de reportar readiness:
+ * los ApplicationRunner terminan antes de que Spring Boot publique {@code ReadinessState.ACCEPTING_TRAFFIC},
+ * así /actuator/health/readiness sigue en OUT_OF_SERVICE mientras dura.
+ * - Recorre {@code gateway.warmup.paths} alternando: token nuevo (verificación de firma), token repetido
+ *   (cache de claims), firma inválida (401) y sin token (400). El rol "WARMUP" no tiene permisos: todo termina
+ *   en el Gateway y ningún servicio recibe tráfico (ni se abren circuit breakers o se expulsan instancias).
+ * - Las peticiones llevan {@value #HEADER} con un valor aleatorio del proceso; el access log las ignora
+ *   ({@link #isWarmup(ServerWebExchange)}).
+ * - Un error o el timeout solo se registran: el calentamiento nunca impide arrancar.
+ */
+@Component
+public class GatewayWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(GatewayWarmup.class);
+
+    public static final String HEADER = "X-Gateway-Warmup";
+
+    private static final String NONCE = UUID.randomUUID().toString();
+
+    private static final String ROLE = "WARMUP";
+
+    private final WarmupProperties properties;
+    private final Environment environment;
+    private final String secret;
+
+    public GatewayWarmup(WarmupProperties properties, Environment environment, @Value("${jwt.secret}") String secret) {
+        this.properties = properties;
+        this.environment = environment;
+        this.secret = secret;
+    }
+
+    /**
+     * Si la petición la generó el calentamiento de este proceso.
+     */
+    public static boolean isWarmup(ServerWebExchange exchange) {
+        return NONCE.equals(exchange.getRequest().getHeaders().getFirst(HEADER));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String port = environment.getProperty("local.server.port");
+        if (!properties.isEnabled() || port == null || properties.getPaths().isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        ConnectionProvider provider = ConnectionProvider.create("warmup", properties.getConcurrency());
+        try {
+            HttpClient client = HttpClient.create(provider).baseUrl("http://127.0.0.1:" + port);
+            String valid = token(0);
+            String repeated = "Bearer " + valid;
+            String forged = "Bearer " + valid.substring(0, valid.length() - 4) + (valid.endsWith("AAAA") ? "BBBB" : "AAAA");
+            List<String> paths = properties.getPaths();
+            Long completed = Flux.range(0, properties.getRequests())
+                    .flatMap(i -> {
+                        String authorization = switch (i % 4) {
+                            case 0 -> "Bearer " + token(i);
+                            case 1 -> repeated;
+                            case 2 -> forged;
+                            default -> null;
+                        };
+                        return client.headers(headers -> {
+                                    headers.set(HEADER, NONCE);
+                                    if (authorization != null) {
+                                        headers.set(HttpHeaders.AUTHORIZATION, authorization);
+                                    }
+                                })
+                                .get()
+                                .uri(paths.get(i % paths.size()))
+                                .responseSingle((response, body) -> body.then())
+                                .onErrorResume(e -> Mono.empty())
+                                .thenReturn(1);
+                    }, properties.getConcurrency())
+                    .count()
+                    .block(properties.getTimeout());
+            log.info("Calentamiento: {} peticiones en {} ms", completed,
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (RuntimeException e) {
+            log.warn("Calentamiento incompleto tras {} ms: {}", Duration.ofNanos(System.nanoTime() - start).toMillis(),
+                    e.getMessage());
+        } finally {
+            provider.dispose();
+        }
+    }
+
+    private String token(long id) {
+        return Jwts.builder()
+                .claim("roles", ROLE)
+                .claim("id", id)
+                .setExpiration(new Date(System.currentTimeMillis() + Duration.ofMinutes(5).toMillis()))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
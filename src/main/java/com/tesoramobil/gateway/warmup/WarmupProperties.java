@@ -0,0 +1,37 @@
+package com.tesoramobil.gateway.warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Calentamiento antes de reportar readiness ({@code gateway.warmup.*}).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.warmup")
+public class WarmupProperties {
+
+    private boolean enabled = false;
+
+    /** Peticiones en total (repartidas entre paths y variantes de token). */
+    private int requests = 400;
+
+    private int concurrency = 4;
+
+    /** Tope del calentamiento: pasado este tiempo se reporta readiness igual. */
+    private Duration timeout = Duration.ofSeconds(30);
+
+    /**
+     * Paths protegidos que se recorren con un rol sin permisos: pasan por extracción y verificación del token
+     * y por la política, y terminan en 403 sin llegar al servicio.
+     */
+    private List<String> paths = new ArrayList<>(List.of(
+            "/gateway/grupos-service/grupos/listar",
+            "/gateway/auth-service/user/all"));
+}
@@ -3,7 +3,12 @@ package com.tesoramobil.gateway;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+		"JWT_SECRET=" + TestSecrets.JWT_SECRET,
+		"GATEWAY_IDENTITY_SECRET=" + TestSecrets.IDENTITY_SECRET,
+		"eureka.client.enabled=false",
+		"eureka.client.service-url.defaultZone=http://localhost:8761/eureka/"
+})
 class DemoApplicationTests {
 
 	@Test
@@ -0,0 +1,183 @@
+package com.tesoramobil.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.tesoramobil.gateway.benchmarks.GatewayFixtures;
+import com.tesoramobil.gateway.filters.CoalescingGatewayFilterFactory;
+import com.tesoramobil.gateway.filters.ResponseCacheGatewayFilterFactory;
+
+import io.netty.buffer.Unpooled;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Rutas reales del perfil oauth2 contra un servicio falso: los filtros que decoran la respuesta
+ * tienen que ver el cuerpo que escribe NettyWriteResponseFilter.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GatewayRoutesIntegrationTest {
+
+	private static final Duration DELAY = Duration.ofMillis(300);
+
+	private static final Map<String, AtomicInteger> HITS = new ConcurrentHashMap<>();
+
+	private static final DisposableServer BACKEND = backend();
+
+	@Autowired
+	private WebTestClient client;
+
+	@LocalServerPort
+	private int port;
+
+	@LocalManagementPort
+	private int managementPort;
+
+	private static DisposableServer backend() {
+		StringBuilder json = new StringBuilder("{\"grupos\":[");
+		for (int i = 0; i < 50; i++) {
+			json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"nombre\":\"Grupo ").append(i).append("\"}");
+		}
+		byte[] body = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+		return HttpServer.create()
+				.host("127.0.0.1")
+				.port(0)
+				.handle((request, response) -> {
+					HITS.computeIfAbsent(request.uri(), uri -> new AtomicInteger()).incrementAndGet();
+					return request.receive().then(Mono.delay(DELAY)).then(response
+							.header(HttpHeaders.CONTENT_TYPE, "application/json")
+							.header(HttpHeaders.CONTENT_LENGTH, String.valueOf(body.length))
+							.send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(body)))
+							.then());
+				})
+				.bindNow();
+	}
+
+	@DynamicPropertySource
+	static void gateway(DynamicPropertyRegistry registry) {
+		String uri = "http://127.0.0.1:" + BACKEND.port();
+		registry.add("JWT_SECRET", () -> TestSecrets.JWT_SECRET);
+		registry.add("GATEWAY_IDENTITY_SECRET", () -> TestSecrets.IDENTITY_SECRET);
+		registry.add("eureka.client.enabled", () -> false);
+		registry.add("eureka.client.service-url.defaultZone", () -> "http://localhost:8761/eureka/");
+		registry.add("spring.cloud.discovery.client.simple.instances.auth-service[0].uri", () -> uri);
+		registry.add("spring.cloud.discovery.client.simple.instances.grupos-service[0].uri", () -> uri);
+		registry.add("spring.cloud.discovery.client.simple.instances.auth-server[0].uri", () -> uri);
+		registry.add("gateway.rate-limit.enabled", () -> false);
+		registry.add("logging.level.gateway.access", () -> "OFF");
+	}
+
+	@AfterAll
+	static void cerrar() {
+		BACKEND.disposeNow();
+	}
+
+	private static int hits(String path) {
+		AtomicInteger count = HITS.get(path);
+		return count == null ? 0 : count.get();
+	}
+
+	private EntityExchangeResult<byte[]> get(String path, String authorization) {
+		return client.get()
+				.uri(path)
+				.header(HttpHeaders.AUTHORIZATION, authorization)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.returnResult();
+	}
+
+	@Test
+	void responseCacheGuardaLaRespuestaDelServicio() {
+		String admin = "Bearer " + GatewayFixtures.token(1, "ADMIN");
+
+		EntityExchangeResult<byte[]> miss = get("/gateway/grupos-service/grupos/listar", admin);
+		EntityExchangeResult<byte[]> hit = get("/gateway/grupos-service/grupos/listar", admin);
+		get("/gateway/grupos-service/grupos/listar", admin);
+
+		assertEquals("MISS", miss.getResponseHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+		assertEquals("HIT", hit.getResponseHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+		assertNotNull(hit.getResponseHeaders().getETag());
+		assertEquals(new String(miss.getResponseBody(), StandardCharsets.UTF_8),
+				new String(hit.getResponseBody(), StandardCharsets.UTF_8));
+		assertEquals(1, hits("/grupos-service/grupos/listar"));
+	}
+
+	@Test
+	void coalescingHaceUnaSolaLlamadaParaGetsConcurrentes() {
+		String user = "Bearer " + GatewayFixtures.token(7, "USER");
+		get("/gateway/grupos-service/grupos/grupo/1", user); // conexión y JIT listos: las 10 llegan juntas
+
+		List<String> coalesced = Flux.range(0, 10)
+				.flatMap(i -> HttpClient.create()
+						.headers(headers -> headers.set(HttpHeaders.AUTHORIZATION, user))
+						.get()
+						.uri("http://127.0.0.1:" + port + "/gateway/grupos-service/grupos/grupo/3")
+						.responseSingle((response, body) -> body.asString().map(text -> String.valueOf(
+								response.responseHeaders().get(CoalescingGatewayFilterFactory.COALESCED_HEADER)))))
+				.collectList()
+				.block(Duration.ofSeconds(10));
+
+		assertEquals(1, hits("/grupos-service/grupos/grupo/3"));
+		assertEquals(9, coalesced.stream().filter("true"::equals).count());
+	}
+
+	@Test
+	void compressionComprimeLaRespuestaDelServicio() throws IOException {
+		String user = "Bearer " + GatewayFixtures.token(8, "USER");
+
+		EntityExchangeResult<byte[]> plain = get("/gateway/grupos-service/grupos/grupo/4", user);
+		Map.Entry<String, byte[]> gzipped = HttpClient.create()
+				.headers(headers -> headers.set(HttpHeaders.AUTHORIZATION, user).set(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+				.get()
+				.uri("http://127.0.0.1:" + port + "/gateway/grupos-service/grupos/grupo/4")
+				.responseSingle((response, body) -> body.asByteArray().map(bytes -> Map.entry(
+						String.valueOf(response.responseHeaders().get(HttpHeaders.CONTENT_ENCODING)), bytes)))
+				.block(Duration.ofSeconds(10));
+
+		assertEquals("gzip", gzipped.getKey());
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getValue()))) {
+			assertEquals(new String(plain.getResponseBody(), StandardCharsets.UTF_8),
+					new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	void actuatorSoloEnElPuertoDeManagement() {
+		String revoke = "{\"type\":\"user\",\"value\":\"7\"}";
+
+		client.post().uri("/actuator/revocations").contentType(MediaType.APPLICATION_JSON).bodyValue(revoke)
+				.exchange()
+				.expectStatus().isNotFound();
+		WebTestClient.bindToServer().baseUrl("http://127.0.0.1:" + managementPort).build()
+				.get().uri("/actuator/revocations")
+				.exchange()
+				.expectStatus().isOk();
+	}
+}
@@ -0,0 +1,15 @@
+package com.tesoramobil.gateway;
+
+/**
+ * Secretos de prueba compartidos por los tests de contexto, los benchmarks y el harness de carga
+ * (JWT_SECRET y GATEWAY_IDENTITY_SECRET). Nunca se usan fuera de src/test.
+ */
+public final class TestSecrets {
+
+    public static final String JWT_SECRET = "abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnop";
+
+    public static final String IDENTITY_SECRET = "clave-de-identidad-solo-para-pruebas";
+
+    private TestSecrets() {
+    }
+}
@@ -0,0 +1,143 @@
+package com.tesoramobil.gateway.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.tesoramobil.gateway.TestSecrets;
+import com.tesoramobil.gateway.observability.AuthDecision;
+import com.tesoramobil.gateway.security.JwtClaimsCache;
+import com.tesoramobil.gateway.utils.AuthFilterUtils;
+import com.tesoramobil.gateway.utils.PreEncodedError;
+
+import io.jsonwebtoken.Claims;
+import reactor.core.publisher.Mono;
+
+/**
+ * Costo por petición de las utilidades de token:
+ * - extractToken con header válido, con esquema incorrecto y sin header; "legacy" es la versión
+ *   anterior (containsKey + getFirst + split).
+ * - onError con el cuerpo pre-codificado vs "legacy" (getBytes del mensaje en cada rechazo);
+ *   errorBody aísla el armado del cuerpo, sin los headers de MockServerHttpResponse.
+ * - decodeToken (construye un parser en cada llamada) vs parser reutilizado vs JwtClaimsCache (hit).
+ * Con -prof gc, gc.alloc.rate.norm muestra los bytes asignados por operación.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="AuthFilterUtilsBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthFilterUtilsBenchmark {
+
+    private ServerWebExchange bearer;
+    private ServerWebExchange basic;
+    private ServerWebExchange anonymous;
+    private ServerWebExchange rejected;
+    private String token;
+    private JwtClaimsCache cache;
+
+    @Setup
+    public void setup() {
+        token = GatewayFixtures.token(7, "ADMIN");
+        bearer = GatewayFixtures.exchange("GET", "/grupos-service/grupos/listar", "Bearer " + token);
+        basic = GatewayFixtures.exchange("GET", "/grupos-service/grupos/listar", "Basic dXN1YXJpbzpjbGF2ZQ==");
+        anonymous = GatewayFixtures.exchange("GET", "/grupos-service/grupos/listar", null);
+        rejected = GatewayFixtures.exchange("GET", "/grupos-service/grupos/listar", "Bearer vencido");
+        cache = GatewayFixtures.claimsCache();
+        cache.verify(token);
+    }
+
+    @Benchmark
+    public String extractTokenBearer() {
+        return AuthFilterUtils.extractToken(bearer);
+    }
+
+    @Benchmark
+    public String extractTokenBearerLegacy() {
+        return legacyExtractToken(bearer);
+    }
+
+    @Benchmark
+    public String extractTokenWrongScheme() {
+        return AuthFilterUtils.extractToken(basic);
+    }
+
+    @Benchmark
+    public String extractTokenWrongSchemeLegacy() {
+        return legacyExtractToken(basic);
+    }
+
+    @Benchmark
+    public String extractTokenMissing() {
+        return AuthFilterUtils.extractToken(anonymous);
+    }
+
+    @Benchmark
+    public Mono<Void> onError() {
+        return AuthFilterUtils.onError(rejected, HttpStatus.UNAUTHORIZED, "Invalid or expired token.");
+    }
+
+    @Benchmark
+    public Mono<Void> onErrorLegacy() {
+        ServerHttpResponse response = rejected.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        rejected.getAttributes().put(AuthDecision.DECISION_ATTR, AuthDecision.UNAUTHORIZED);
+        DataBuffer buffer = response.bufferFactory().wrap("Invalid or expired token.".getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    @Benchmark
+    public DataBuffer errorBody() {
+        return rejected.getResponse().bufferFactory().wrap(PreEncodedError.of(HttpStatus.UNAUTHORIZED, "Invalid or expired token.").body());
+    }
+
+    @Benchmark
+    public DataBuffer errorBodyLegacy() {
+        return rejected.getResponse().bufferFactory().wrap("Invalid or expired token.".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public Claims decodeToken() {
+        return AuthFilterUtils.decodeToken(token, TestSecrets.JWT_SECRET);
+    }
+
+    @Benchmark
+    public Claims decodeTokenReusedParser() {
+        return cache.parserFor(TestSecrets.JWT_SECRET).parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims verifyCached() {
+        return cache.verify(token);
+    }
+
+    private static String legacyExtractToken(ServerWebExchange exchange) {
+        if (!exchange.getRequest().getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+            return null;
+        }
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        String[] chunks = authHeader.split(" ");
+        if (chunks.length != 2 || !"Bearer".equals(chunks[0])) {
+            return null;
+        }
+        return chunks[1];
+    }
+}
@@ -0,0 +1,104 @@
+package com.tesoramobil.gateway.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import com.tesoramobil.gateway.compression.GzipEncoder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Bytes en el cable vs CPU por nivel de gzip, sobre un listado JSON de grupos (~{@code items} elementos)
+ * que llega del servicio en chunks de 8 KB, como lo ve CompressionGatewayFilterFactory.
+ * - Buffers directos del pool de Netty, igual que en Reactor Netty (zlib los lee sin copiarlos).
+ * - level=0 es la línea base sin compresión (solo recorre los chunks).
+ * - El tamaño comprimido de cada nivel se imprime al inicio del fork ("wire bytes").
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="CompressionBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final int CHUNK = 8192;
+
+    @Param({ "0", "1", "3", "5", "6", "9" })
+    public int level;
+
+    @Param({ "2000" })
+    public int items;
+
+    private final NettyDataBufferFactory factory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private ByteBuf[] chunks;
+
+    @Setup
+    public void setup() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < items; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"id\":").append(i)
+                    .append(",\"nombre\":\"Grupo ").append(i)
+                    .append("\",\"descripcion\":\"Grupo de estudio de la materia ").append(i % 37)
+                    .append("\",\"creadoPor\":").append(1000 + i % 211)
+                    .append(",\"activo\":").append(i % 5 != 0)
+                    .append(",\"fechaCreacion\":\"2025-0").append(1 + i % 9).append("-1").append(i % 10).append("T10:15:30\"}");
+        }
+        byte[] body = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        chunks = new ByteBuf[(body.length + CHUNK - 1) / CHUNK];
+        for (int i = 0; i < chunks.length; i++) {
+            byte[] chunk = Arrays.copyOfRange(body, i * CHUNK, Math.min(body.length, (i + 1) * CHUNK));
+            chunks[i] = PooledByteBufAllocator.DEFAULT.directBuffer(chunk.length).writeBytes(chunk);
+        }
+        long wire = compress();
+        System.out.printf("%nlevel=%d: %d bytes -> %d wire bytes (%.1f%%)%n", level, body.length, wire, 100.0 * wire / body.length);
+    }
+
+    @Benchmark
+    public long compress() {
+        if (level == 0) {
+            long size = 0;
+            for (ByteBuf chunk : chunks) {
+                size += factory.wrap(chunk.duplicate()).readableByteCount();
+            }
+            return size;
+        }
+        long wire = 0;
+        try (GzipEncoder encoder = new GzipEncoder(level)) {
+            for (ByteBuf chunk : chunks) {
+                wire += drain(encoder.encode(factory.wrap(chunk.duplicate()), factory));
+            }
+            wire += drain(encoder.finish(factory));
+        }
+        return wire;
+    }
+
+    private static long drain(DataBuffer buffer) {
+        if (buffer == null) {
+            return 0;
+        }
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+}
@@ -0,0 +1,63 @@
+package com.tesoramobil.gateway.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.tesoramobil.gateway.handlers.GlobalErrorHandler;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Armado y serialización del JSON de error de GlobalErrorHandler.
+ * handle() serializa de inmediato y devuelve el Mono de escritura; no se suscribe,
+ * así la respuesta no queda comprometida y el mismo exchange sirve para todas las invocaciones.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ErrorHandlerBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorHandlerBenchmark {
+
+    @Param({ "response-status", "connect-refused", "jwt-expired", "unexpected" })
+    public String error;
+
+    private GlobalErrorHandler handler;
+    private Throwable exception;
+    private MockServerWebExchange exchange;
+
+    @Setup
+    public void setup() {
+        handler = new GlobalErrorHandler();
+        exception = switch (error) {
+            case "response-status" -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Circuit breaker open for grupos-service");
+            case "connect-refused" -> new java.net.ConnectException("Connection refused: grupos-service/10.0.0.7:8081");
+            case "jwt-expired" -> new io.jsonwebtoken.ExpiredJwtException(null, null, "JWT expired");
+            case "unexpected" -> new IllegalStateException("Connection reset by peer"); // se registra con stack trace
+            default -> throw new IllegalArgumentException(error);
+        };
+        exchange = GatewayFixtures.exchange("GET", "/gateway/grupos-service/grupos/listar", null);
+    }
+
+    @Benchmark
+    public Mono<Void> handle() {
+        return handler.handle(exchange, exception);
+    }
+}
@@ -0,0 +1,115 @@
+package com.tesoramobil.gateway.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.tesoramobil.gateway.policy.AuthorizationPolicy;
+import com.tesoramobil.gateway.security.JwtClaimsCache;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Parte síncrona de AuthServiceFilter y GruposServiceFilter (extracción del token, verificación
+ * con cache caliente y chequeo de permisos) con la política de application.yml.
+ * La cadena siguiente no hace nada, así que se mide solo el filtro. Cada invocación usa un exchange nuevo
+ * (una respuesta de error queda comprometida); "exchangeOnly" mide ese costo para restarlo.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="FilterPermissionBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterPermissionBenchmark {
+
+    private static final GatewayFilterChain NOOP_CHAIN = exchange -> Mono.empty();
+
+    @Param({ "auth-public", "auth-admin-allowed", "auth-user-forbidden",
+             "grupos-user-allowed", "grupos-user-forbidden", "grupos-por-rol-own" })
+    public String scenario;
+
+    private GatewayFilter filter;
+    private String method;
+    private String path;
+    private String authorization;
+
+    @Setup
+    public void setup() {
+        JwtClaimsCache cache = GatewayFixtures.claimsCache();
+        AuthorizationPolicy policy = new AuthorizationPolicy(GatewayFixtures.applicationEnvironment());
+        String admin = "Bearer " + GatewayFixtures.token(1, "ADMIN");
+        String user = "Bearer " + GatewayFixtures.token(7, "USER");
+
+        switch (scenario) {
+            case "auth-public" -> {
+                filter = GatewayFixtures.authServiceFilter(cache, policy);
+                method = "POST";
+                path = "/auth-service/authentication/sign-in";
+                authorization = null;
+            }
+            case "auth-admin-allowed" -> {
+                filter = GatewayFixtures.authServiceFilter(cache, policy);
+                method = "GET";
+                path = "/auth-service/user/all";
+                authorization = admin;
+            }
+            case "auth-user-forbidden" -> {
+                filter = GatewayFixtures.authServiceFilter(cache, policy);
+                method = "DELETE";
+                path = "/auth-service/user/12";
+                authorization = user;
+            }
+            case "grupos-user-allowed" -> {
+                filter = GatewayFixtures.gruposServiceFilter(cache, policy);
+                method = "GET";
+                path = "/grupos-service/grupos/grupo/3";
+                authorization = user;
+            }
+            case "grupos-user-forbidden" -> {
+                filter = GatewayFixtures.gruposServiceFilter(cache, policy);
+                method = "POST";
+                path = "/grupos-service/grupos/crear";
+                authorization = user;
+            }
+            case "grupos-por-rol-own" -> {
+                filter = GatewayFixtures.gruposServiceFilter(cache, policy);
+                method = "GET";
+                path = "/grupos-service/grupos/grupos-por-rol/7";
+                authorization = user;
+            }
+            default -> throw new IllegalArgumentException(scenario);
+        }
+    }
+
+    private ServerWebExchange exchange() {
+        return GatewayFixtures.exchange(method, path, authorization);
+    }
+
+    @Benchmark
+    public ServerWebExchange exchangeOnly() {
+        return exchange();
+    }
+
+    @Benchmark
+    public ServerWebExchange filter() {
+        ServerWebExchange exchange = exchange();
+        filter.filter(exchange, NOOP_CHAIN).block();
+        return exchange;
+    }
+}
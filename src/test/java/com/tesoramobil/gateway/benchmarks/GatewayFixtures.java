@@ -0,0 +1,93 @@
+package com.tesoramobil.gateway.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.tesoramobil.gateway.TestSecrets;
+import com.tesoramobil.gateway.filters.AuthServiceFilter;
+import com.tesoramobil.gateway.filters.GruposServiceFilter;
+import com.tesoramobil.gateway.observability.GatewayMetrics;
+import com.tesoramobil.gateway.policy.AuthorizationPolicy;
+import com.tesoramobil.gateway.security.JwtClaimsCache;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Piezas compartidas por los benchmarks: filtros cableados a mano (sin contexto Spring)
+ * con la política real de application.yml, tokens firmados y exchanges de prueba.
+ */
+public final class GatewayFixtures {
+
+    private GatewayFixtures() {
+    }
+
+    /**
+     * Environment con application.yml (las reglas de gateway.policy reales).
+     */
+    public static StandardEnvironment applicationEnvironment() {
+        StandardEnvironment environment = new StandardEnvironment();
+        try {
+            new YamlPropertySourceLoader().load("application.yml", new ClassPathResource("application.yml"))
+                    .forEach(source -> environment.getPropertySources().addLast(source));
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer application.yml", e);
+        }
+        return environment;
+    }
+
+    public static JwtClaimsCache claimsCache() {
+        return new JwtClaimsCache(TestSecrets.JWT_SECRET, 10_000, Duration.ofMinutes(5), new SimpleMeterRegistry());
+    }
+
+    public static AuthServiceFilter authServiceFilter(JwtClaimsCache cache, AuthorizationPolicy policy) {
+        AuthServiceFilter filter = new AuthServiceFilter();
+        wire(filter, cache, policy);
+        return filter;
+    }
+
+    public static GruposServiceFilter gruposServiceFilter(JwtClaimsCache cache, AuthorizationPolicy policy) {
+        GruposServiceFilter filter = new GruposServiceFilter();
+        wire(filter, cache, policy);
+        return filter;
+    }
+
+    private static void wire(Object filter, JwtClaimsCache cache, AuthorizationPolicy policy) {
+        ReflectionTestUtils.setField(filter, "jwtClaimsCache", cache);
+        ReflectionTestUtils.setField(filter, "authorizationPolicy", policy);
+        ReflectionTestUtils.setField(filter, "gatewayMetrics", new GatewayMetrics(new SimpleMeterRegistry(), 200));
+    }
+
+    /**
+     * Token HS256 con los claims que emite auth-server ("id" y "roles").
+     */
+    public static String token(long userId, String role) {
+        return Jwts.builder()
+                .claim("roles", role)
+                .claim("id", userId)
+                .setSubject("usuario" + userId)
+                .setExpiration(new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis()))
+                .signWith(Keys.hmacShaKeyFor(TestSecrets.JWT_SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    public static MockServerWebExchange exchange(String method, String path, String authorization) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.method(
+                org.springframework.http.HttpMethod.valueOf(method), path);
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return MockServerWebExchange.from(request);
+    }
+}
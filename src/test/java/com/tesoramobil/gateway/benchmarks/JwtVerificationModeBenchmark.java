@@ -0,0 +1,158 @@
+package com.tesoramobil.gateway.benchmarks;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tesoramobil.gateway.TestSecrets;
+import com.tesoramobil.gateway.security.JwksKeyStore;
+import com.tesoramobil.gateway.security.JwksProperties;
+import com.tesoramobil.gateway.security.JwtClaimsCache;
+import com.tesoramobil.gateway.security.JwtVerificationProperties;
+import com.tesoramobil.gateway.security.JwtVerificationScheduler;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Latencia de cola de la verificación JWT con tokens mezclados, por {@code jwt.verification.mode}.
+ * - Un scheduler de un solo hilo hace de event loop de Netty; cada petición entra por él, como en el Gateway.
+ * - El grupo "mixed" corre 3 hilos con HS256 y 1 con RS256/ES256 a la vez sobre ese loop.
+ * - La cache de claims no retiene nada (max-size 0): toda petición verifica la firma.
+ * Con INLINE los HS256 esperan detrás de cada RSA/EC en el loop; con AUTO solo compiten por CPU con el pool.
+ * Comparar los percentiles p0.99/p0.999 de {@code mixed:hmac} entre modos.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="JwtVerificationModeBenchmark"
+ * (en JDK 21+ agregar {@code -p executor=VIRTUAL} para virtual threads)
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationModeBenchmark {
+
+    private static final int TOKENS = 256;
+
+    @Param({ "INLINE", "AUTO", "OFFLOAD" })
+    public JwtVerificationProperties.Mode mode;
+
+    @Param({ "BOUNDED_ELASTIC" })
+    public JwtVerificationProperties.Executor executor;
+
+    private final String[] hmacTokens = new String[TOKENS];
+    private final String[] asymmetricTokens = new String[TOKENS];
+    private Scheduler eventLoop;
+    private JwksKeyStore jwks;
+    private JwtVerificationScheduler verificationScheduler;
+    private JwtClaimsCache cache;
+    private Path jwksFile;
+
+    @Setup
+    public void setup() throws IOException {
+        KeyPair rsa = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        KeyPair ec = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        jwksFile = Files.createTempFile("jwks", ".json");
+        Files.writeString(jwksFile, jwks((RSAPublicKey) rsa.getPublic(), (ECPublicKey) ec.getPublic()));
+        JwksProperties jwksProperties = new JwksProperties();
+        jwksProperties.setEnabled(true);
+        jwksProperties.setUri(jwksFile.toUri().toString());
+        jwksProperties.setRefreshInterval(Duration.ofHours(1));
+        jwks = new JwksKeyStore(jwksProperties, new SimpleMeterRegistry());
+        jwks.start();
+
+        JwtVerificationProperties properties = new JwtVerificationProperties();
+        properties.setMode(mode);
+        properties.setExecutor(executor);
+        properties.setMaxPending(Integer.MAX_VALUE); // aquí se mide la cola, no el rechazo
+        verificationScheduler = new JwtVerificationScheduler(properties, new SimpleMeterRegistry());
+        cache = new JwtClaimsCache(TestSecrets.JWT_SECRET, 0, Duration.ofMinutes(5), true, jwks, null,
+                verificationScheduler, new SimpleMeterRegistry());
+        eventLoop = Schedulers.newSingle("event-loop");
+
+        Date exp = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        for (int i = 0; i < TOKENS; i++) {
+            hmacTokens[i] = Jwts.builder().claim("id", (long) i).claim("roles", "USER").setExpiration(exp)
+                    .signWith(Keys.hmacShaKeyFor(TestSecrets.JWT_SECRET.getBytes(StandardCharsets.UTF_8)))
+                    .compact();
+            KeyPair pair = i % 2 == 0 ? rsa : ec;
+            asymmetricTokens[i] = Jwts.builder().setHeaderParam("kid", i % 2 == 0 ? "rsa-1" : "ec-1")
+                    .claim("id", (long) i).claim("roles", "USER").setExpiration(exp)
+                    .signWith(pair.getPrivate())
+                    .compact();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        eventLoop.dispose();
+        verificationScheduler.destroy();
+        jwks.stop();
+        Files.deleteIfExists(jwksFile);
+    }
+
+    private static String b64(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        int offset = bytes[0] == 0 && bytes.length > 1 ? 1 : 0;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOfRange(bytes, offset, bytes.length));
+    }
+
+    private static String jwks(RSAPublicKey rsaKey, ECPublicKey ecKey) {
+        return "{\"keys\":["
+                + "{\"kty\":\"RSA\",\"kid\":\"rsa-1\",\"n\":\"" + b64(rsaKey.getModulus()) + "\",\"e\":\"" + b64(rsaKey.getPublicExponent()) + "\"},"
+                + "{\"kty\":\"EC\",\"crv\":\"P-256\",\"kid\":\"ec-1\",\"x\":\"" + b64(ecKey.getW().getAffineX()) + "\",\"y\":\"" + b64(ecKey.getW().getAffineY()) + "\"}"
+                + "]}";
+    }
+
+    private Claims verifyOnEventLoop(String[] tokens) {
+        String token = tokens[ThreadLocalRandom.current().nextInt(TOKENS)];
+        return Mono.defer(() -> cache.verifyAsync(token)).subscribeOn(eventLoop).block();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Claims hmac() {
+        return verifyOnEventLoop(hmacTokens);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Claims asymmetric() {
+        return verifyOnEventLoop(asymmetricTokens);
+    }
+}
@@ -0,0 +1,80 @@
+package com.tesoramobil.gateway.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tesoramobil.gateway.policy.RoutePermissionMatcher;
+
+/**
+ * Compara el escaneo lineal con startsWith (implementación anterior de los filtros)
+ * contra el trie compilado de {@link RoutePermissionMatcher}.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="PermissionMatcherBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionMatcherBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int rules;
+
+    private Map<String, List<String>> linear;
+    private RoutePermissionMatcher trie;
+    private String[] paths;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        List<String> prefixes = new ArrayList<>(rules);
+        RoutePermissionMatcher.Builder builder = RoutePermissionMatcher.builder();
+        for (int i = 0; i < rules; i++) {
+            String prefix = "/svc-" + (i % 10) + "-service/recurso-" + i + "/accion";
+            prefixes.add(prefix);
+            builder.allow("ADMIN", "GET", prefix);
+        }
+        linear = Map.of("GET", prefixes);
+        trie = builder.build();
+
+        // Mitad aciertos (al final de la lista, el peor caso lineal) y mitad fallos
+        paths = new String[] {
+            "/svc-9-service/recurso-" + (rules - 1) + "/accion/42",
+            "/svc-0-service/recurso-0/accion",
+            "/svc-5-service/recurso-inexistente/accion/1",
+            "/otro-service/listar"
+        };
+    }
+
+    private String nextPath() {
+        return paths[cursor++ & 3];
+    }
+
+    @Benchmark
+    public boolean linearStartsWith() {
+        String path = nextPath();
+        return linear.getOrDefault("GET", List.of()).stream().anyMatch(path::startsWith);
+    }
+
+    @Benchmark
+    public Set<String> compiledTrie() {
+        return trie.match("GET", nextPath());
+    }
+}
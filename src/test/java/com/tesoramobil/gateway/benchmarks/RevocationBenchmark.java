@@ -0,0 +1,93 @@
+package com.tesoramobil.gateway.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tesoramobil.gateway.revocation.RevocationIndex;
+import com.tesoramobil.gateway.revocation.RevocationProperties;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Costo de la revisión de revocación por petición con el índice poblado ({@code entries} tokens + 10k usuarios).
+ * - notRevoked: el caso común, resuelto por el filtro de Bloom.
+ * - revoked: positivo del filtro y confirmación en la tabla exacta.
+ * Los digests consultados rotan sobre un arreglo para no medir siempre la misma línea de cache.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="RevocationBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RevocationBenchmark {
+
+    private static final int PROBES = 4096;
+
+    @Param({ "1000000" })
+    public int entries;
+
+    private RevocationIndex index;
+    private final long[] revokedHi = new long[PROBES];
+    private final long[] revokedLo = new long[PROBES];
+    private final long[] liveHi = new long[PROBES];
+    private final long[] liveLo = new long[PROBES];
+    private Claims claims;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        RevocationProperties properties = new RevocationProperties();
+        properties.setExpectedEntries(entries);
+        index = new RevocationIndex(properties, new SimpleMeterRegistry());
+        long exp = System.currentTimeMillis() / 1000 + 3600;
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < entries; i++) {
+            long hi = random.nextLong();
+            long lo = random.nextLong();
+            index.revokeToken(hi, lo, exp);
+            if (i < PROBES) {
+                revokedHi[i] = hi;
+                revokedLo[i] = lo;
+            }
+        }
+        for (int i = 0; i < PROBES; i++) {
+            liveHi[i] = random.nextLong();
+            liveLo[i] = random.nextLong();
+        }
+        for (long user = 1; user <= 10_000; user++) {
+            index.revokeUser(user * 1_000, exp - 7200);
+        }
+        claims = Jwts.claims();
+        claims.put("id", 7L);
+        claims.put(Claims.ISSUED_AT, exp - 3600);
+    }
+
+    @Benchmark
+    public boolean notRevoked() {
+        int i = cursor++ & (PROBES - 1);
+        return index.isRevoked(liveHi[i], liveLo[i], claims);
+    }
+
+    @Benchmark
+    public boolean revoked() {
+        int i = cursor++ & (PROBES - 1);
+        return index.isRevoked(revokedHi[i], revokedLo[i], claims);
+    }
+}
@@ -0,0 +1,76 @@
+package com.tesoramobil.gateway.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.tesoramobil.gateway.tracing.RequestTrace;
+import com.tesoramobil.gateway.tracing.SpanName;
+import com.tesoramobil.gateway.tracing.Tracer;
+import com.tesoramobil.gateway.tracing.TracingProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Costo por petición de la traza: abrir, registrar los spans de auth y upstream, armar el traceparent y cerrar.
+ * - sampleRate=0: petición no muestreada (el caso común); la traza se descarta al terminar.
+ * - sampleRate=1: se construyen los SpanData (exportador NONE, no se mide el I/O).
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="TracingBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracingBenchmark {
+
+    @Param({ "0", "1" })
+    public double sampleRate;
+
+    private Tracer tracer;
+    private MockServerWebExchange exchange;
+
+    @Setup
+    public void setup() {
+        TracingProperties properties = new TracingProperties();
+        properties.setSampleRate(sampleRate);
+        properties.setRespectParentSampling(false); // el traceparent de prueba viene sin "sampled"
+        properties.setExporter(TracingProperties.Exporter.NONE);
+        tracer = new Tracer(properties, spans -> { }, new SimpleMeterRegistry());
+        exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/grupos-service/api/grupos/7")
+                .header("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00"));
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+    }
+
+    @Benchmark
+    public String request() {
+        long now = System.nanoTime();
+        RequestTrace trace = tracer.begin(exchange, now);
+        trace.start(SpanName.AUTH, now + 10);
+        trace.start(SpanName.JWT_VERIFICATION, now + 20);
+        trace.end(SpanName.JWT_VERIFICATION, now + 30);
+        trace.end(SpanName.AUTH, now + 40);
+        trace.start(SpanName.UPSTREAM_ACQUIRE, now + 50);
+        String traceparent = trace.traceparent();
+        trace.end(SpanName.UPSTREAM_ACQUIRE, now + 60);
+        trace.start(SpanName.UPSTREAM_RESPONSE, now + 60);
+        trace.end(SpanName.UPSTREAM_RESPONSE, now + 70);
+        tracer.finish(trace, exchange, false, now + 80);
+        return traceparent;
+    }
+}
@@ -0,0 +1,74 @@
+package com.tesoramobil.gateway.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+class BodyCaptureTest {
+
+	private final DefaultDataBufferFactory factory = DefaultDataBufferFactory.sharedInstance;
+
+	private DataBuffer chunk(String text) {
+		return factory.wrap(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static byte[] bytes(ByteBuffer body) {
+		byte[] bytes = new byte[body.remaining()];
+		body.duplicate().get(bytes);
+		return bytes;
+	}
+
+	@Test
+	void conContentLengthDevuelveElMismoBufferDeTamañoExacto() {
+		BodyCapture capture = new BodyCapture(10, 1024);
+		capture.append(chunk("hola "));
+		capture.append(chunk("mundo"));
+
+		ByteBuffer body = capture.finish();
+		assertTrue(body.isDirect());
+		assertTrue(body.isReadOnly());
+		assertEquals(10, body.capacity());
+		assertArrayEquals("hola mundo".getBytes(StandardCharsets.UTF_8), bytes(body));
+	}
+
+	@Test
+	void sinContentLengthReservaUnBufferDelTamañoFinal() {
+		BodyCapture capture = new BodyCapture(-1, 1024);
+		capture.append(chunk("hola "));
+		capture.append(chunk("mundo"));
+
+		ByteBuffer body = capture.finish();
+		assertTrue(body.isDirect());
+		assertEquals(10, body.capacity());
+		assertArrayEquals("hola mundo".getBytes(StandardCharsets.UTF_8), bytes(body));
+	}
+
+	@Test
+	void descartaCuandoElCuerpoNoCoincideConElContentLength() {
+		BodyCapture corto = new BodyCapture(10, 1024);
+		corto.append(chunk("hola"));
+		assertNull(corto.finish());
+
+		BodyCapture largo = new BodyCapture(4, 1024);
+		largo.append(chunk("hola mundo"));
+		assertNull(largo.finish());
+	}
+
+	@Test
+	void descartaPasadoElMaximo() {
+		BodyCapture capture = new BodyCapture(-1, 8);
+		capture.append(chunk("hola "));
+		capture.append(chunk("mundo"));
+		assertNull(capture.finish());
+
+		assertNull(new BodyCapture(16, 8).finish());
+	}
+}
@@ -0,0 +1,128 @@
+package com.tesoramobil.gateway.compression;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+class GzipCodecTest {
+
+	private final DefaultDataBufferFactory factory = DefaultDataBufferFactory.sharedInstance;
+
+	private static byte[] json(int items) {
+		StringBuilder body = new StringBuilder("[");
+		for (int i = 0; i < items; i++) {
+			body.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"nombre\":\"Grupo ").append(i)
+					.append("\",\"descripcion\":\"Grupo de estudio número ").append(i % 17).append("\"}");
+		}
+		return body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void append(ByteArrayOutputStream out, DataBuffer buffer) {
+		if (buffer != null) {
+			byte[] bytes = new byte[buffer.readableByteCount()];
+			buffer.read(bytes);
+			out.writeBytes(bytes);
+			DataBufferUtils.release(buffer);
+		}
+	}
+
+	private byte[] encode(byte[] body, int chunkSize) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GzipEncoder encoder = new GzipEncoder(5)) {
+			for (int i = 0; i < body.length; i += chunkSize) {
+				DataBuffer chunk = factory.wrap(Arrays.copyOfRange(body, i, Math.min(body.length, i + chunkSize)));
+				append(out, encoder.encode(chunk, factory));
+			}
+			append(out, encoder.finish(factory));
+		}
+		return out.toByteArray();
+	}
+
+	private byte[] decode(byte[] gzip, int chunkSize, long maxSize) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GzipDecoder decoder = new GzipDecoder(maxSize)) {
+			for (int i = 0; i < gzip.length; i += chunkSize) {
+				append(out, decoder.decode(factory.wrap(Arrays.copyOfRange(gzip, i, Math.min(gzip.length, i + chunkSize))), factory));
+			}
+			decoder.finish();
+		}
+		return out.toByteArray();
+	}
+
+	@Test
+	void comprimeEnStreamingYEsGzipValido() throws IOException {
+		byte[] body = json(2_000);
+
+		byte[] gzip = encode(body, 8192);
+
+		assertTrue(gzip.length < body.length / 4);
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+			assertArrayEquals(body, in.readAllBytes());
+		}
+	}
+
+	@Test
+	void cuerpoVacioProduceGzipValido() throws IOException {
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(encode(new byte[0], 1)))) {
+			assertArrayEquals(new byte[0], in.readAllBytes());
+		}
+	}
+
+	@Test
+	void descomprimeAunqueElHeaderLlegueByteAByte() throws IOException {
+		byte[] body = json(300);
+		ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+			out.write(body);
+		}
+
+		assertArrayEquals(body, decode(gzip.toByteArray(), 1, Long.MAX_VALUE));
+		assertArrayEquals(body, decode(encode(body, 500), 4096, Long.MAX_VALUE));
+	}
+
+	@Test
+	void unEncoderDescartadoNoSigueComprimiendoNiVuelveAlPool() throws IOException {
+		GzipEncoder cancelled = new GzipEncoder(5);
+		DataBuffer first = cancelled.encode(factory.wrap(json(50)), factory);
+		if (first != null) {
+			DataBufferUtils.release(first);
+		}
+
+		cancelled.discard();
+		cancelled.close();
+
+		assertNull(cancelled.encode(factory.wrap(json(50)), factory));
+		assertNull(cancelled.finish(factory));
+		byte[] body = json(300);
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(encode(body, 512)))) {
+			assertArrayEquals(body, in.readAllBytes());
+		}
+	}
+
+	@Test
+	void cortaCuerposDescomprimidosDemasiadoGrandes() {
+		byte[] gzip = encode(new byte[1_000_000], 65536);
+
+		assertThrows(DataBufferLimitException.class, () -> decode(gzip, 4096, 100_000));
+	}
+
+	@Test
+	void rechazaCuerposQueNoSonGzip() {
+		assertThrows(IllegalStateException.class, () -> decode(json(10), 64, Long.MAX_VALUE));
+	}
+}
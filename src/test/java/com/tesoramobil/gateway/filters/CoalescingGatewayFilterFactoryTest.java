@@ -0,0 +1,176 @@
+package com.tesoramobil.gateway.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.tesoramobil.gateway.coalescing.CoalescingProperties;
+import com.tesoramobil.gateway.security.VerifiedIdentity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class CoalescingGatewayFilterFactoryTest {
+
+	private final CoalescingGatewayFilterFactory factory = new CoalescingGatewayFilterFactory(
+			new CoalescingProperties(), new SimpleMeterRegistry());
+
+	private final GatewayFilter filter = factory.apply(config -> {
+		config.setMaxWaiters(2);
+		config.setTimeout(Duration.ofMillis(200));
+	});
+
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+	private final Sinks.Empty<Void> release = Sinks.empty();
+
+	private final HttpHeaders upstreamHeaders = new HttpHeaders();
+
+	// El servicio responde recién cuando se libera "release": así las peticiones quedan en curso a la vez
+	private final GatewayFilterChain upstream = exchange -> {
+		upstreamCalls.incrementAndGet();
+		var response = exchange.getResponse();
+		return release.asMono().then(Mono.defer(() -> {
+			response.setStatusCode(HttpStatus.OK);
+			response.getHeaders().add("X-Upstream", "grupos");
+			response.getHeaders().addAll(upstreamHeaders);
+			byte[] body = "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+			return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+		}));
+	};
+
+	private MockServerWebExchange exchange(long userId) {
+		return exchange(userId, MockServerHttpRequest.get("/grupos-service/grupos/listar?page=1"));
+	}
+
+	private MockServerWebExchange exchange(long userId, MockServerHttpRequest.BaseBuilder<?> request) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		new VerifiedIdentity(userId, "USER", null).attach(exchange);
+		return exchange;
+	}
+
+	@Test
+	void getsIdenticosConcurrentesHacenUnaSolaLlamada() {
+		MockServerWebExchange leader = exchange(7);
+		MockServerWebExchange follower = exchange(7);
+		Mono<Void> leaderDone = filter.filter(leader, upstream).cache();
+		Mono<Void> followerDone = filter.filter(follower, upstream).cache();
+		leaderDone.subscribe();
+		followerDone.subscribe();
+
+		release.tryEmitEmpty();
+		leaderDone.block();
+		followerDone.block();
+
+		assertEquals(1, upstreamCalls.get());
+		assertEquals(HttpStatus.OK, follower.getResponse().getStatusCode());
+		assertEquals("grupos", follower.getResponse().getHeaders().getFirst("X-Upstream"));
+		assertEquals("true", follower.getResponse().getHeaders().getFirst(CoalescingGatewayFilterFactory.COALESCED_HEADER));
+		assertEquals("[{\"id\":1}]", follower.getResponse().getBodyAsString().block());
+		assertEquals(0, factory.inFlight());
+	}
+
+	@Test
+	void sinPeticionesEsperandoNoSeCopiaElCuerpoDelLider() {
+		Sinks.Many<String> body = Sinks.many().unicast().onBackpressureBuffer();
+		GatewayFilterChain streaming = exchange -> {
+			upstreamCalls.incrementAndGet();
+			var response = exchange.getResponse();
+			response.setStatusCode(HttpStatus.OK);
+			return response.writeWith(body.asFlux()
+					.map(chunk -> response.bufferFactory().wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+		};
+		filter.filter(exchange(7), streaming).subscribe();
+
+		// Headers ya escritos y nadie esperando: la llamada deja de ser compartible mientras el cuerpo sigue llegando
+		assertEquals(0, factory.inFlight());
+		filter.filter(exchange(7), streaming).subscribe();
+		assertEquals(2, upstreamCalls.get());
+		body.tryEmitComplete();
+	}
+
+	@Test
+	void usuariosDistintosNoCompartenRespuesta() {
+		filter.filter(exchange(7), upstream).subscribe();
+		MockServerWebExchange other = exchange(8);
+		filter.filter(other, upstream).subscribe();
+
+		release.tryEmitEmpty();
+
+		assertEquals(2, upstreamCalls.get());
+		assertNull(other.getResponse().getHeaders().getFirst(CoalescingGatewayFilterFactory.COALESCED_HEADER));
+	}
+
+	@Test
+	void excesoDeEsperaVaDirectoAlServicio() {
+		for (int i = 0; i < 4; i++) {
+			filter.filter(exchange(7), upstream).subscribe(); // líder + 2 en espera + 1 que excede max-waiters
+		}
+
+		assertEquals(2, upstreamCalls.get());
+		release.tryEmitEmpty();
+	}
+
+	@Test
+	void esperaVencidaDevuelve504() {
+		filter.filter(exchange(7), upstream).subscribe();
+
+		ResponseStatusException error = assertThrows(ResponseStatusException.class,
+				() -> filter.filter(exchange(7), upstream).block());
+
+		assertEquals(HttpStatus.GATEWAY_TIMEOUT, error.getStatusCode());
+		assertEquals(1, upstreamCalls.get());
+	}
+
+	@Test
+	void noCompartePorDistintoAcceptEncoding() {
+		MockServerWebExchange gzip = exchange(7, MockServerHttpRequest.get("/grupos-service/grupos/listar?page=1")
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+		MockServerWebExchange plain = exchange(7);
+		Mono<Void> gzipDone = filter.filter(gzip, upstream).cache();
+		Mono<Void> plainDone = filter.filter(plain, upstream).cache();
+		gzipDone.subscribe();
+		plainDone.subscribe();
+
+		release.tryEmitEmpty();
+		gzipDone.block();
+		plainDone.block();
+
+		assertEquals(2, upstreamCalls.get());
+		assertNull(plain.getResponse().getHeaders().getFirst(CoalescingGatewayFilterFactory.COALESCED_HEADER));
+	}
+
+	@Test
+	void noComparteConVaryNoCubiertoPorLaLlave() {
+		upstreamHeaders.setVary(List.of(HttpHeaders.ACCEPT_LANGUAGE));
+		MockServerWebExchange leader = exchange(7);
+		MockServerWebExchange follower = exchange(7);
+		Mono<Void> leaderDone = filter.filter(leader, upstream).cache();
+		Mono<Void> followerDone = filter.filter(follower, upstream).cache();
+		leaderDone.subscribe();
+		followerDone.subscribe();
+
+		release.tryEmitEmpty();
+		leaderDone.block();
+		followerDone.block();
+
+		assertEquals(2, upstreamCalls.get());
+		assertNull(follower.getResponse().getHeaders().getFirst(CoalescingGatewayFilterFactory.COALESCED_HEADER));
+		assertEquals("[{\"id\":1}]", follower.getResponse().getBodyAsString().block());
+	}
+}
@@ -0,0 +1,190 @@
+package com.tesoramobil.gateway.filters;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.tesoramobil.gateway.compression.CompressionProperties;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class CompressionGatewayFilterFactoryTest {
+
+	private static final byte[] BODY = "{\"grupos\":[\"aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa\"]}".repeat(100)
+			.getBytes(StandardCharsets.UTF_8);
+
+	private final GatewayFilter filter = new CompressionGatewayFilterFactory(new CompressionProperties()).forRoute("grupos-service");
+
+	/**
+	 * Simula el servicio: responde {@code body} en dos chunks con el Content-Type dado.
+	 */
+	private static GatewayFilterChain upstream(byte[] body, MediaType contentType) {
+		return exchange -> {
+			ServerHttpResponse response = exchange.getResponse();
+			response.getHeaders().setContentType(contentType);
+			response.getHeaders().setContentLength(body.length);
+			int half = body.length / 2;
+			return response.writeWith(Flux.just(
+					DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(body, 0, half)),
+					DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(body, half, body.length))));
+		};
+	}
+
+	private static MockServerWebExchange exchange(String acceptEncoding) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/grupos-service/grupos/listar");
+		if (acceptEncoding != null) {
+			request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+		}
+		return MockServerWebExchange.from(request);
+	}
+
+	@Test
+	void comprimeCuandoElClienteAceptaGzip() throws IOException {
+		MockServerWebExchange exchange = exchange("br;q=1.0, gzip;q=0.8");
+
+		filter.filter(exchange, upstream(BODY, MediaType.APPLICATION_JSON)).block();
+
+		HttpHeaders headers = exchange.getResponse().getHeaders();
+		assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(-1, headers.getContentLength());
+		assertTrue(headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING));
+		DataBuffer joined = DataBufferUtils.join(exchange.getResponse().getBody()).block();
+		byte[] wire = new byte[joined.readableByteCount()];
+		joined.read(wire);
+		assertTrue(wire.length < BODY.length / 10);
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(wire))) {
+			assertArrayEquals(BODY, in.readAllBytes());
+		}
+	}
+
+	@Test
+	void noComprimeSinAcceptEncodingNiBajoElUmbralNiTiposNoListados() {
+		MockServerWebExchange sinAccept = exchange(null);
+		filter.filter(sinAccept, upstream(BODY, MediaType.APPLICATION_JSON)).block();
+		assertNull(sinAccept.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+		MockServerWebExchange chica = exchange("gzip");
+		filter.filter(chica, upstream("{}".getBytes(StandardCharsets.UTF_8), MediaType.APPLICATION_JSON)).block();
+		assertNull(chica.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+		MockServerWebExchange imagen = exchange("gzip");
+		filter.filter(imagen, upstream(BODY, MediaType.IMAGE_PNG)).block();
+		assertNull(imagen.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	@Test
+	void streamingEntregaCadaEventoAlFlushearseSinEsperarElFinal() throws IOException {
+		GatewayFilter sse = new CompressionGatewayFilterFactory(new CompressionProperties()).apply(config -> {
+			config.setMimeTypes(List.of("text/event-stream"));
+			config.setExcludedMimeTypes(List.of());
+		});
+		MockServerWebExchange exchange = exchange("gzip");
+		ByteArrayOutputStream wire = new ByteArrayOutputStream();
+		exchange.getResponse().setWriteHandler(body -> body.doOnNext(buffer -> {
+			byte[] bytes = new byte[buffer.readableByteCount()];
+			buffer.read(bytes);
+			wire.writeBytes(bytes);
+			DataBufferUtils.release(buffer);
+		}).then());
+		Sinks.Many<String> events = Sinks.many().unicast().onBackpressureBuffer();
+
+		CompletableFuture<Void> done = sse.filter(exchange, ex -> {
+			ex.getResponse().getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+			return ex.getResponse().writeAndFlushWith(events.asFlux()
+					.map(event -> Mono.just(DefaultDataBufferFactory.sharedInstance.wrap(event.getBytes(StandardCharsets.UTF_8)))));
+		}).toFuture();
+
+		events.tryEmitNext("data: uno\n\n");
+		assertEquals("data: uno\n\n", inflatePrefix(wire.toByteArray()));
+		events.tryEmitNext("data: dos\n\n");
+		assertEquals("data: uno\n\ndata: dos\n\n", inflatePrefix(wire.toByteArray()));
+		assertFalse(done.isDone());
+
+		events.tryEmitComplete();
+		assertTrue(done.isDone());
+		assertEquals("gzip", exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(wire.toByteArray()))) {
+			assertEquals("data: uno\n\ndata: dos\n\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Lo que el cliente ya puede descomprimir de un gzip todavía incompleto.
+	 */
+	private static String inflatePrefix(byte[] gzip) {
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(gzip, 10, gzip.length - 10); // header gzip fijo de GzipEncoder
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] chunk = new byte[1024];
+			int read;
+			while ((read = inflater.inflate(chunk)) > 0) {
+				out.write(chunk, 0, read);
+			}
+			return out.toString(StandardCharsets.UTF_8);
+		} catch (DataFormatException e) {
+			throw new AssertionError(e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	@Test
+	void porDefectoNoComprimeSseNiNdjson() {
+		MockServerWebExchange sse = exchange("gzip");
+		filter.filter(sse, upstream(BODY, MediaType.TEXT_EVENT_STREAM)).block();
+		assertNull(sse.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+		MockServerWebExchange ndjson = exchange("gzip");
+		filter.filter(ndjson, upstream(BODY, MediaType.APPLICATION_NDJSON)).block();
+		assertNull(ndjson.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	@Test
+	void elEtagDelServicioPasaADebilAlComprimir() {
+		MockServerWebExchange exchange = exchange("gzip");
+		GatewayFilterChain upstream = upstream(BODY, MediaType.APPLICATION_JSON);
+
+		filter.filter(exchange, ex -> {
+			ex.getResponse().getHeaders().setETag("\"v1\"");
+			return upstream.filter(ex);
+		}).block();
+
+		assertEquals("W/\"v1\"", exchange.getResponse().getHeaders().getETag());
+	}
+
+	@Test
+	void negociaAcceptEncoding() {
+		assertTrue(CompressionGatewayFilterFactory.acceptsGzip(List.of("gzip, deflate, br")));
+		assertTrue(CompressionGatewayFilterFactory.acceptsGzip(List.of("*")));
+		assertFalse(CompressionGatewayFilterFactory.acceptsGzip(List.of("gzip;q=0, br")));
+		assertFalse(CompressionGatewayFilterFactory.acceptsGzip(List.of("identity")));
+	}
+}
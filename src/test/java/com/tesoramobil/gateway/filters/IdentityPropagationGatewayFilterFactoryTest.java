@@ -0,0 +1,72 @@
+package com.tesoramobil.gateway.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.tesoramobil.gateway.TestSecrets;
+import com.tesoramobil.gateway.filters.IdentityPropagationGatewayFilterFactory.TokenMode;
+import com.tesoramobil.gateway.security.IdentityHeaderSigner;
+import com.tesoramobil.gateway.security.VerifiedIdentity;
+
+import reactor.core.publisher.Mono;
+
+class IdentityPropagationGatewayFilterFactoryTest {
+
+	private final IdentityHeaderSigner signer = new IdentityHeaderSigner("clave-interna", TestSecrets.JWT_SECRET);
+
+	private final IdentityPropagationGatewayFilterFactory factory = new IdentityPropagationGatewayFilterFactory(signer);
+
+	private ServerHttpRequest forward(TokenMode mode, VerifiedIdentity identity) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/grupos-service/grupos/listar")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer abc")
+				.header(IdentityPropagationGatewayFilterFactory.USER_ID_HEADER, "999"));
+		if (identity != null) {
+			identity.attach(exchange);
+		}
+		AtomicReference<ServerHttpRequest> forwarded = new AtomicReference<>();
+		factory.apply(config -> config.setTokenMode(mode))
+				.filter(exchange, ex -> {
+					forwarded.set(ex.getRequest());
+					return Mono.empty();
+				})
+				.block();
+		return forwarded.get();
+	}
+
+	@Test
+	void propagaIdentidadFirmadaYEliminaToken() {
+		ServerHttpRequest request = forward(TokenMode.STRIP, new VerifiedIdentity(7L, "USER", new Date(1_700_000_000_000L)));
+		HttpHeaders headers = request.getHeaders();
+
+		assertEquals("7", headers.getFirst(IdentityPropagationGatewayFilterFactory.USER_ID_HEADER));
+		assertEquals("USER", headers.getFirst(IdentityPropagationGatewayFilterFactory.ROLE_HEADER));
+		assertEquals("1700000000", headers.getFirst(IdentityPropagationGatewayFilterFactory.TOKEN_EXP_HEADER));
+		assertEquals(signer.sign("7", "USER", "1700000000", headers.getFirst(IdentityPropagationGatewayFilterFactory.ISSUED_AT_HEADER)),
+				headers.getFirst(IdentityPropagationGatewayFilterFactory.SIGNATURE_HEADER));
+		assertNull(headers.getFirst(HttpHeaders.AUTHORIZATION));
+	}
+
+	@Test
+	void sinIdentidadSoloEliminaHeadersSuplantados() {
+		HttpHeaders headers = forward(TokenMode.STRIP, null).getHeaders();
+
+		assertNull(headers.getFirst(IdentityPropagationGatewayFilterFactory.USER_ID_HEADER));
+		assertEquals("Bearer abc", headers.getFirst(HttpHeaders.AUTHORIZATION));
+	}
+
+	@Test
+	void laClaveDeIdentidadEsObligatoriaYDistintaDeLaDeJwt() {
+		assertThrows(IllegalStateException.class, () -> new IdentityHeaderSigner("", TestSecrets.JWT_SECRET));
+		assertThrows(IllegalStateException.class, () -> new IdentityHeaderSigner(TestSecrets.JWT_SECRET, TestSecrets.JWT_SECRET));
+	}
+}
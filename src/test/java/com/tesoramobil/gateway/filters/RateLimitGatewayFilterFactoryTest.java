@@ -0,0 +1,65 @@
+package com.tesoramobil.gateway.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.tesoramobil.gateway.observability.AuthDecision;
+import com.tesoramobil.gateway.observability.RequestTraceId;
+import com.tesoramobil.gateway.ratelimit.LocalRateLimitBackend;
+import com.tesoramobil.gateway.ratelimit.RateLimitKey;
+import com.tesoramobil.gateway.ratelimit.RateLimitProperties;
+
+import reactor.core.publisher.Mono;
+
+class RateLimitGatewayFilterFactoryTest {
+
+	private final RateLimitGatewayFilterFactory factory = new RateLimitGatewayFilterFactory(
+			new LocalRateLimitBackend(1000, Duration.ofMinutes(1)), new RateLimitProperties());
+
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+	private MockServerWebExchange call(GatewayFilter filter) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/grupos-service/grupos/listar"));
+		AuthDecision.ALLOWED.mark(exchange, "USER");
+		filter.filter(exchange, ex -> {
+			upstreamCalls.incrementAndGet();
+			return Mono.empty();
+		}).block();
+		return exchange;
+	}
+
+	@Test
+	void rechazoMarcaRateLimitedYConservaElRol() {
+		GatewayFilter filter = factory.apply(config -> {
+			config.setReplenishRate(1);
+			config.setBurstCapacity(1);
+			config.setKey(RateLimitKey.ROUTE);
+		});
+
+		MockServerWebExchange allowed = call(filter);
+		assertNull(allowed.getResponse().getStatusCode());
+		assertEquals(AuthDecision.ALLOWED, AuthDecision.of(allowed));
+
+		MockServerWebExchange rejected = call(filter);
+		assertEquals(1, upstreamCalls.get());
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+		assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+		assertEquals("0", rejected.getResponse().getHeaders().getFirst(RateLimitGatewayFilterFactory.REMAINING_HEADER));
+		assertNotNull(rejected.getResponse().getHeaders().getFirst(RequestTraceId.HEADER));
+		assertFalse(rejected.getResponse().getBodyAsString().block().isEmpty());
+		assertEquals(AuthDecision.RATE_LIMITED, AuthDecision.of(rejected));
+		assertEquals("USER", AuthDecision.roleOf(rejected));
+	}
+}
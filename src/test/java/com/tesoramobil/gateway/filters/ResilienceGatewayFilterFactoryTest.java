@@ -0,0 +1,74 @@
+package com.tesoramobil.gateway.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.tesoramobil.gateway.resilience.ResilienceProperties;
+import com.tesoramobil.gateway.resilience.ResilienceRegistry;
+import com.tesoramobil.gateway.resilience.RouteResilience;
+import com.tesoramobil.gateway.resilience.UpstreamCallFilter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class ResilienceGatewayFilterFactoryTest {
+
+	private final ResilienceRegistry registry = new ResilienceRegistry(new ResilienceProperties(), new SimpleMeterRegistry());
+
+	private final GatewayFilter filter = new ResilienceGatewayFilterFactory(registry, new ResilienceProperties())
+			.forRoute("grupos-service");
+
+	/**
+	 * Lo que sigue al filtro en la ruta real: UpstreamCallFilter + servicio (headers con {@code status})
+	 * y después NettyWriteResponseFilter escribiendo el cuerpo hasta que {@code bodyWritten} termine.
+	 */
+	private static GatewayFilterChain upstream(HttpStatus status, Sinks.Empty<Void> bodyWritten) {
+		return exchange -> new UpstreamCallFilter()
+				.filter(exchange, ex -> Mono.fromRunnable(() -> ex.getResponse().setStatusCode(status)))
+				.then(bodyWritten.asMono());
+	}
+
+	@Test
+	void cierraElCircuitoYElBulkheadAlLlegarLosHeadersNoAlTerminarDeEscribir() {
+		RouteResilience route = registry.forRoute("grupos-service");
+		int maxConcurrent = route.bulkhead().getBulkheadConfig().getMaxConcurrentCalls();
+		Sinks.Empty<Void> bodyWritten = Sinks.empty();
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/grupos-service/grupos/listar"));
+
+		CompletableFuture<Void> done = filter.filter(exchange, upstream(HttpStatus.OK, bodyWritten)).toFuture();
+
+		// Cliente todavía descargando: la llamada al servicio ya está registrada y el permiso devuelto
+		assertFalse(done.isDone());
+		assertEquals(1, route.circuitBreaker().getMetrics().getNumberOfSuccessfulCalls());
+		assertEquals(maxConcurrent, route.bulkhead().getMetrics().getAvailableConcurrentCalls());
+
+		bodyWritten.tryEmitEmpty();
+		assertTrue(done.isDone());
+		assertEquals(1, route.circuitBreaker().getMetrics().getNumberOfBufferedCalls());
+		assertEquals(maxConcurrent, route.bulkhead().getMetrics().getAvailableConcurrentCalls());
+	}
+
+	@Test
+	void un5xxDelServicioCuentaComoErrorUnaSolaVez() {
+		RouteResilience route = registry.forRoute("grupos-service");
+		Sinks.Empty<Void> bodyWritten = Sinks.empty();
+		bodyWritten.tryEmitEmpty();
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/grupos-service/grupos/crear"));
+
+		filter.filter(exchange, upstream(HttpStatus.BAD_GATEWAY, bodyWritten)).block();
+
+		assertEquals(1, route.circuitBreaker().getMetrics().getNumberOfFailedCalls());
+		assertEquals(1, route.circuitBreaker().getMetrics().getNumberOfBufferedCalls());
+	}
+}
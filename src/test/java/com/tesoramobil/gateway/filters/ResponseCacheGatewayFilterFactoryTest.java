@@ -0,0 +1,132 @@
+package com.tesoramobil.gateway.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.tesoramobil.gateway.cache.ResponseCacheProperties;
+import com.tesoramobil.gateway.cache.ResponseCacheStore;
+import com.tesoramobil.gateway.security.VerifiedIdentity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+	private final ResponseCacheProperties properties = new ResponseCacheProperties();
+
+	private final ResponseCacheGatewayFilterFactory factory = new ResponseCacheGatewayFilterFactory(
+			new ResponseCacheStore(properties, new SimpleMeterRegistry()), properties);
+
+	private final GatewayFilter filter = factory.apply(config -> {
+		config.setTtl(Duration.ofMinutes(1));
+		config.setPaths(List.of("/grupos-service/grupos/listar"));
+		config.setInvalidatePrefix("/grupos-service/grupos");
+	});
+
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+	private final HttpHeaders upstreamHeaders = new HttpHeaders();
+
+	private final List<String> upstreamAcceptEncoding = new ArrayList<>();
+
+	private final GatewayFilterChain upstream = exchange -> {
+		upstreamCalls.incrementAndGet();
+		upstreamAcceptEncoding.add(exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+		var response = exchange.getResponse();
+		response.setStatusCode(HttpStatus.OK);
+		response.getHeaders().addAll(upstreamHeaders);
+		byte[] body = "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+		return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+	};
+
+	private MockServerWebExchange call(MockServerHttpRequest.BaseBuilder<?> request, long userId) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		new VerifiedIdentity(userId, "USER", null).attach(exchange);
+		filter.filter(exchange, upstream).block();
+		return exchange;
+	}
+
+	@Test
+	void segundoGetSaleDeCacheSoloParaElMismoUsuario() {
+		call(MockServerHttpRequest.get("/grupos-service/grupos/listar"), 7);
+		MockServerWebExchange hit = call(MockServerHttpRequest.get("/grupos-service/grupos/listar"), 7);
+
+		assertEquals(1, upstreamCalls.get());
+		assertEquals("HIT", hit.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+		assertEquals("[{\"id\":1}]", hit.getResponse().getBodyAsString().block());
+
+		call(MockServerHttpRequest.get("/grupos-service/grupos/listar"), 8);
+		assertEquals(2, upstreamCalls.get());
+	}
+
+	@Test
+	void ifNoneMatchDevuelve304() {
+		call(MockServerHttpRequest.get("/grupos-service/grupos/listar"), 7);
+		String etag = call(MockServerHttpRequest.get("/grupos-service/grupos/listar"), 7).getResponse().getHeaders().getETag();
+
+		MockServerWebExchange revalidated = call(MockServerHttpRequest.get("/grupos-service/grupos/listar")
+				.header(HttpHeaders.IF_NONE_MATCH, etag), 7);
+
+		assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getResponse().getStatusCode());
+	}
+
+	@Test
+	void mutacionInvalida() {
+		call(MockServerHttpRequest.get("/grupos-service/grupos/listar"), 7);
+		call(MockServerHttpRequest.post("/grupos-service/grupos/crear"), 7);
+		MockServerWebExchange afterMutation = call(MockServerHttpRequest.get("/grupos-service/grupos/listar"), 7);
+
+		assertEquals(3, upstreamCalls.get());
+		assertEquals("MISS", afterMutation.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+	}
+
+	@Test
+	void pathNoConfiguradoNoSeCachea() {
+		MockServerWebExchange exchange = call(MockServerHttpRequest.get("/grupos-service/grupos/grupo/1"), 7);
+
+		assertNull(exchange.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+	}
+
+	@Test
+	void guardaLaRepresentacionSinCodificarParaTodosLosClientes() {
+		MockServerWebExchange miss = call(MockServerHttpRequest.get("/grupos-service/grupos/listar")
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip"), 7);
+		MockServerWebExchange hit = call(MockServerHttpRequest.get("/grupos-service/grupos/listar"), 7);
+
+		assertEquals("MISS", miss.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+		assertEquals(Arrays.asList((String) null), upstreamAcceptEncoding);
+		assertEquals("HIT", hit.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+		assertNull(hit.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals("[{\"id\":1}]", hit.getResponse().getBodyAsString().block());
+	}
+
+	@Test
+	void noGuardaRespuestasCodificadasNiConVaryNoCubierto() {
+		upstreamHeaders.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+		call(MockServerHttpRequest.get("/grupos-service/grupos/listar"), 7);
+		call(MockServerHttpRequest.get("/grupos-service/grupos/listar"), 7);
+		assertEquals(2, upstreamCalls.get());
+
+		upstreamHeaders.clear();
+		upstreamHeaders.setVary(List.of(HttpHeaders.ACCEPT_LANGUAGE));
+		call(MockServerHttpRequest.get("/grupos-service/grupos/listar"), 7);
+		MockServerWebExchange again = call(MockServerHttpRequest.get("/grupos-service/grupos/listar"), 7);
+		assertEquals(4, upstreamCalls.get());
+		assertNull(again.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+	}
+}
@@ -0,0 +1,84 @@
+package com.tesoramobil.gateway.handlers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ConnectException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.tesoramobil.gateway.observability.RequestTraceId;
+import com.tesoramobil.gateway.utils.CachedClock;
+
+import io.jsonwebtoken.ExpiredJwtException;
+
+class GlobalErrorHandlerTest {
+
+	private static final String TRACEPARENT = "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01";
+
+	private final GlobalErrorHandler handler = new GlobalErrorHandler(
+			new CachedClock(Clock.fixed(Instant.parse("2026-10-17T12:00:00.250Z"), ZoneOffset.UTC)));
+
+	private MockServerWebExchange handle(Throwable error) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+				.get("/gateway/grupos-service/grupos/listar")
+				.header("traceparent", TRACEPARENT));
+		handler.handle(exchange, error).block();
+		return exchange;
+	}
+
+	@Test
+	void escribeJsonConTraceId() {
+		MockServerWebExchange exchange = handle(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Circuit breaker open for \"grupos\""));
+
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode());
+		assertEquals("0af7651916cd43dd8448eb211c80319c", exchange.getResponse().getHeaders().getFirst(RequestTraceId.HEADER));
+		assertEquals("{\"timestamp\":\"2026-10-17T12:00:00.250Z\",\"status\":503,\"error\":\"Service Unavailable\","
+				+ "\"message\":\"Circuit breaker open for \\\"grupos\\\"\",\"path\":\"/gateway/grupos-service/grupos/listar\","
+				+ "\"traceId\":\"0af7651916cd43dd8448eb211c80319c\"}",
+				exchange.getResponse().getBodyAsString().block());
+	}
+
+	@Test
+	void traceparentInvalidoUsaElIdDeLaPeticion() {
+		// parent-id en ceros: Traceparent.parse lo rechaza y no se toma el trace-id del cliente
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+				.get("/gateway/grupos-service/grupos/listar")
+				.header("traceparent", "00-0af7651916cd43dd8448eb211c80319c-0000000000000000-01"));
+		handler.handle(exchange, new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE)).block();
+
+		assertEquals(exchange.getRequest().getId(), exchange.getResponse().getHeaders().getFirst(RequestTraceId.HEADER));
+	}
+
+	@Test
+	void statusPorTipoDeExcepcion() {
+		assertEquals(HttpStatus.UNAUTHORIZED, GlobalErrorHandler.statusOf(new ExpiredJwtException(null, null, "expirado")));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, GlobalErrorHandler.statusOf(new ConnectException("Connection refused")));
+		assertEquals(HttpStatus.GATEWAY_TIMEOUT, GlobalErrorHandler.statusOf(new TimeoutException()));
+		// Ya no se adivina por el texto del mensaje
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, GlobalErrorHandler.statusOf(new IllegalStateException("Unauthorized")));
+	}
+
+	@Test
+	void errorNoControladoNoExponeDetalle() {
+		MockServerWebExchange exchange = handle(new IllegalStateException("pool agotado en 10.0.0.7"));
+
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exchange.getResponse().getStatusCode());
+		assertTrue(exchange.getResponse().getBodyAsString().block().contains("\"message\":\"Unexpected error\""));
+	}
+
+	@Test
+	void escapaControlesYConservaUtf8() {
+		MockServerWebExchange exchange = handle(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Acción\tinválida\\"));
+
+		assertTrue(exchange.getResponse().getBodyAsString().block().contains("\"message\":\"Acción\\u0009inválida\\\\\""));
+	}
+}
@@ -0,0 +1,133 @@
+package com.tesoramobil.gateway.loadbalancing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LatencyAwareLoadBalancerTest {
+
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final LoadBalancingProperties properties = new LoadBalancingProperties();
+
+	private final InstanceStatsRegistry stats = new InstanceStatsRegistry(properties, new SimpleMeterRegistry());
+
+	private final LatencyAwareLoadBalancer balancer = new LatencyAwareLoadBalancer(
+			new DefaultListableBeanFactory().getBeanProvider(ServiceInstanceListSupplier.class), "grupos-service", stats);
+
+	private final List<ServiceInstance> instances = List.of(instance("a", 8081), instance("b", 8082), instance("c", 8083));
+
+	private final long t0 = System.nanoTime();
+
+	private static ServiceInstance instance(String id, int port) {
+		return new DefaultServiceInstance(id, "grupos-service", "10.0.0." + port % 10, port, false);
+	}
+
+	private Map<String, Long> choose(List<ServiceInstance> instances, long now, int times) {
+		return IntStream.range(0, times)
+				.mapToObj(i -> balancer.choose(instances, now).getServer().getInstanceId())
+				.collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+	}
+
+	private void record(ServiceInstance instance, long now, long latencyNanos, boolean failed) {
+		InstanceStats instanceStats = stats.find(instance);
+		instanceStats.start();
+		stats.end(instanceStats, now, latencyNanos, failed);
+	}
+
+	@Test
+	void instanciaLentaRecibeMenosTrafico() {
+		properties.setSlowStart(Duration.ZERO);
+		List<ServiceInstance> pair = instances.subList(0, 2);
+		balancer.choose(pair, t0);
+		for (int i = 0; i < 20; i++) {
+			record(pair.get(0), t0, 5 * MS, false);
+			record(pair.get(1), t0, 200 * MS, false);
+		}
+
+		Map<String, Long> chosen = choose(pair, t0, 1000);
+
+		assertEquals(1000L, chosen.get("a"));
+	}
+
+	@Test
+	void erroresSeguidosExpulsanHastaQueVenceLaExpulsion() {
+		properties.setSlowStart(Duration.ZERO);
+		balancer.choose(instances, t0);
+		for (int i = 0; i < 5; i++) {
+			record(instances.get(0), t0, MS, true);
+			record(instances.get(1), t0, 5 * MS, false);
+			record(instances.get(2), t0, 5 * MS, false);
+		}
+
+		assertNull(choose(instances, t0 + MS, 300).get("a"));
+		// Vencida la expulsión vuelve a rotación: con las otras ocupadas, su costo compite
+		stats.find(instances.get(1)).start();
+		stats.find(instances.get(2)).start();
+		assertTrue(choose(instances, t0 + TimeUnit.SECONDS.toNanos(31), 300).getOrDefault("a", 0L) > 0);
+	}
+
+	@Test
+	void noSeExpulsaMasDelPorcentajeMaximo() {
+		balancer.choose(instances, t0);
+		for (ServiceInstance instance : instances) {
+			for (int i = 0; i < 5; i++) {
+				record(instance, t0, MS, true);
+			}
+		}
+
+		long ejected = instances.stream().filter(instance -> stats.find(instance).isEjected(t0 + MS)).count();
+		assertEquals(1, ejected); // 50% de 3 instancias
+	}
+
+	@Test
+	void instanciaNuevaArrancaConPocoTrafico() {
+		List<ServiceInstance> pair = instances.subList(0, 2);
+		balancer.choose(pair.subList(0, 1), t0);
+		record(pair.get(0), t0, 10 * MS, false);
+		long later = t0 + TimeUnit.SECONDS.toNanos(30);
+
+		Map<String, Long> chosen = choose(pair, later, 1000);
+
+		long toNew = chosen.getOrDefault("b", 0L);
+		assertTrue(toNew > 0 && toNew < 250, "instancia nueva recibió " + toNew);
+	}
+
+	@Test
+	void instanciaSinMuestrasNoCuestaCeroAunqueTengaPeticionesEnCurso() {
+		properties.setSlowStart(Duration.ZERO);
+		List<ServiceInstance> pair = instances.subList(0, 2);
+		balancer.choose(pair.subList(0, 1), t0);
+		record(pair.get(0), t0, 40 * MS, false);
+		balancer.choose(pair, t0);
+		InstanceStats fresh = stats.find(pair.get(1));
+		for (int i = 0; i < 10; i++) {
+			fresh.start();
+		}
+
+		// Arranca con la mediana del servicio: con 10 en curso pierde contra la que está libre
+		assertEquals(40.0 * MS, fresh.latency(t0), MS);
+		assertEquals(1000L, choose(pair, t0, 1000).get("a"));
+
+		// Ociosa por mucho tiempo vuelve a la penalización, no a 0
+		long muchLater = t0 + TimeUnit.MINUTES.toNanos(10);
+		assertEquals(40.0 * MS, fresh.latency(muchLater), MS);
+		assertEquals(1000L, choose(pair, muchLater, 1000).get("a"));
+	}
+}
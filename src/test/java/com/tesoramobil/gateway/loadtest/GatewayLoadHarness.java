@@ -0,0 +1,246 @@
+package com.tesoramobil.gateway.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import com.tesoramobil.gateway.DemoApplication;
+import com.tesoramobil.gateway.TestSecrets;
+import com.tesoramobil.gateway.benchmarks.GatewayFixtures;
+
+import io.netty.handler.codec.http.HttpMethod;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Prueba de carga de punta a punta: levanta el Gateway real (perfil eureka-off u oauth2) contra
+ * servicios falsos locales y reporta peticiones/s y latencias p50/p99/p999 por perfil.
+ *
+ * Es un generador de lazo cerrado ("concurrency" peticiones en vuelo); la latencia no incluye
+ * la espera de peticiones que no se enviaron, así que sirve para comparar versiones, no para SLOs.
+ *
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--profiles=eureka-off,oauth2 --duration=20s --concurrency=64"
+ *
+ * Para usarlo como gate: --max-p99=25ms --min-rps=5000 (sale con código 1 si algún perfil no cumple).
+ */
+public final class GatewayLoadHarness {
+
+    private GatewayLoadHarness() {
+    }
+
+    public static void main(String[] args) {
+        // devtools reiniciaría el main (y los servicios falsos) en otro classloader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Options options = Options.parse(args);
+        List<Result> results = new ArrayList<>();
+        for (String profile : options.profiles) {
+            results.add(run(profile, options));
+        }
+
+        System.out.println();
+        System.out.printf("%-12s %10s %10s %10s %10s %10s %8s%n", "profile", "requests", "rps", "p50(ms)", "p99(ms)", "p999(ms)", "errors");
+        boolean failed = false;
+        for (Result result : results) {
+            System.out.println(result.format());
+            failed |= !result.passes(options);
+        }
+        if (failed) {
+            System.out.println("REGRESIÓN: algún perfil no cumple --max-p99 / --min-rps");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static Result run(String profile, Options options) {
+        // eureka-off tiene los puertos fijos en application.yml (gateway.routes.definitions del perfil)
+        try (StubBackend auth = StubBackend.start("auth-service", profile.equals("eureka-off") ? 8082 : 0, options.backendDelay);
+             StubBackend grupos = StubBackend.start("grupos-service", profile.equals("eureka-off") ? 8081 : 0, options.backendDelay);
+             StubBackend authServer = StubBackend.start("auth-server", 0, options.backendDelay);
+             ConfigurableApplicationContext gateway = startGateway(profile, auth, grupos, authServer)) {
+
+            int port = Integer.parseInt(gateway.getEnvironment().getRequiredProperty("local.server.port"));
+            List<Request> requests = requestsFor(profile);
+            ConnectionProvider provider = ConnectionProvider.builder("loadtest")
+                    .maxConnections(options.concurrency)
+                    .pendingAcquireMaxCount(-1)
+                    .build();
+            HttpClient client = HttpClient.create(provider).baseUrl("http://localhost:" + port);
+            try {
+                System.out.printf("[%s] calentando %s...%n", profile, options.warmup);
+                drive(client, requests, options.concurrency, options.warmup, new ConcurrentHistogram(3), new AtomicLong());
+
+                System.out.printf("[%s] midiendo %s con %d peticiones concurrentes...%n", profile, options.duration, options.concurrency);
+                ConcurrentHistogram histogram = new ConcurrentHistogram(TimeUnit.SECONDS.toNanos(60), 3);
+                AtomicLong errors = new AtomicLong();
+                long start = System.nanoTime();
+                drive(client, requests, options.concurrency, options.duration, histogram, errors);
+                return new Result(profile, histogram, errors.get(), System.nanoTime() - start);
+            } finally {
+                provider.disposeLater().block();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startGateway(String profile, StubBackend auth, StubBackend grupos, StubBackend authServer) {
+        return new SpringApplicationBuilder(DemoApplication.class).run(gatewayArguments(profile, 0, 0, auth, grupos, authServer));
+    }
+
+    /**
+     * Configuración del Gateway contra los servicios falsos, como argumentos de línea de comandos
+     * (tienen prioridad sobre application.yml). También la usa {@link TimeToFirstRequest} para el jar empaquetado.
+     */
+    static String[] gatewayArguments(String profile, int port, int managementPort, StubBackend auth, StubBackend grupos,
+                                     StubBackend authServer) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.profiles.active", profile);
+        properties.put("server.port", port);
+        properties.put("management.server.port", managementPort);
+        properties.put("JWT_SECRET", TestSecrets.JWT_SECRET);
+        properties.put("GATEWAY_IDENTITY_SECRET", TestSecrets.IDENTITY_SECRET);
+        properties.put("eureka.client.enabled", false);
+        properties.put("eureka.client.service-url.defaultZone", "http://localhost:8761/eureka/");
+        // lb://<servicio> se resuelve con el SimpleDiscoveryClient
+        properties.put("spring.cloud.discovery.client.simple.instances.auth-service[0].uri", auth.uri());
+        properties.put("spring.cloud.discovery.client.simple.instances.grupos-service[0].uri", grupos.uri());
+        properties.put("spring.cloud.discovery.client.simple.instances.auth-server[0].uri", authServer.uri());
+        // Se mide el camino completo hasta el servicio: sin límites por usuario ni respuestas cacheadas
+        properties.put("gateway.rate-limit.enabled", false);
+        properties.put("gateway.response-cache.enabled", false);
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.tesoramobil.gateway", "WARN");
+        // El access log iría a la consola del propio generador: se mediría la terminal, no el Gateway
+        properties.put("logging.level.gateway.access", "OFF");
+        properties.put("spring.main.banner-mode", "off");
+
+        return properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Mezcla de peticiones representativa de cada perfil.
+     */
+    static List<Request> requestsFor(String profile) {
+        if (profile.equals("oauth2")) {
+            String admin = "Bearer " + GatewayFixtures.token(1, "ADMIN");
+            String user = "Bearer " + GatewayFixtures.token(7, "USER");
+            return List.of(
+                    new Request(HttpMethod.GET, "/gateway/grupos-service/grupos/listar", admin),
+                    new Request(HttpMethod.GET, "/gateway/grupos-service/grupos/grupo/3", user),
+                    new Request(HttpMethod.GET, "/gateway/grupos-service/grupos/grupos-por-rol/7", user),
+                    new Request(HttpMethod.GET, "/gateway/auth-service/user/all", admin),
+                    new Request(HttpMethod.POST, "/gateway/auth-service/authentication/sign-in", null));
+        }
+        return List.of(
+                new Request(HttpMethod.GET, "/gateway/grupos-service/api/grupos/listar", null),
+                new Request(HttpMethod.GET, "/gateway/grupos-service/api/grupos/3", null),
+                new Request(HttpMethod.POST, "/gateway/auth-service/authentication/sign-in", null));
+    }
+
+    private static void drive(HttpClient client, List<Request> requests, int concurrency, Duration duration,
+                              Histogram histogram, AtomicLong errors) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong sequence = new AtomicLong();
+        Flux.range(0, concurrency)
+                .flatMap(worker -> Mono.defer(() -> send(client, requests.get((int) (sequence.getAndIncrement() % requests.size())), histogram, errors))
+                        .repeat(() -> System.nanoTime() < deadline), concurrency)
+                .blockLast();
+    }
+
+    private static Mono<Void> send(HttpClient client, Request request, Histogram histogram, AtomicLong errors) {
+        long start = System.nanoTime();
+        HttpClient.RequestSender sender = client
+                .headers(headers -> {
+                    if (request.authorization() != null) {
+                        headers.set(HttpHeaders.AUTHORIZATION, request.authorization());
+                    }
+                })
+                .request(request.method())
+                .uri(request.path());
+        return sender.responseSingle((response, body) -> body.then(Mono.fromRunnable(() -> {
+                    histogram.recordValue(System.nanoTime() - start);
+                    if (response.status().code() >= 400) {
+                        errors.incrementAndGet();
+                    }
+                })))
+                .onErrorResume(e -> {
+                    errors.incrementAndGet();
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    record Request(HttpMethod method, String path, String authorization) {
+    }
+
+    private record Result(String profile, Histogram histogram, long errors, long elapsedNanos) {
+
+        double rps() {
+            return histogram.getTotalCount() / (elapsedNanos / 1e9);
+        }
+
+        double percentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        boolean passes(Options options) {
+            boolean p99 = options.maxP99 == null || percentileMillis(99) <= options.maxP99.toNanos() / 1e6;
+            boolean rps = options.minRps <= 0 || rps() >= options.minRps;
+            return p99 && rps && errors == 0;
+        }
+
+        String format() {
+            return String.format("%-12s %10d %10.0f %10.2f %10.2f %10.2f %8d", profile, histogram.getTotalCount(), rps(),
+                    percentileMillis(50), percentileMillis(99), percentileMillis(99.9), errors);
+        }
+    }
+
+    /**
+     * Argumentos --clave=valor; las duraciones usan el formato de Spring ("20s", "500ms").
+     */
+    private static final class Options {
+
+        private List<String> profiles = List.of("eureka-off", "oauth2");
+        private Duration duration = Duration.ofSeconds(20);
+        private Duration warmup = Duration.ofSeconds(10);
+        private int concurrency = 64;
+        private Duration backendDelay = Duration.ZERO;
+        private Duration maxP99;
+        private double minRps;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+                String value = pair.length > 1 ? pair[1] : "";
+                switch (pair[0]) {
+                    case "profiles" -> options.profiles = List.of(value.split(","));
+                    case "duration" -> options.duration = duration(value);
+                    case "warmup" -> options.warmup = duration(value);
+                    case "concurrency" -> options.concurrency = Integer.parseInt(value);
+                    case "backend-delay" -> options.backendDelay = duration(value);
+                    case "max-p99" -> options.maxP99 = duration(value);
+                    case "min-rps" -> options.minRps = Double.parseDouble(value);
+                    default -> throw new IllegalArgumentException("Argumento desconocido: " + arg);
+                }
+            }
+            return options;
+        }
+
+        private static Duration duration(String value) {
+            return org.springframework.boot.convert.DurationStyle.detectAndParse(value);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.tesoramobil.gateway.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import io.netty.buffer.Unpooled;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Servicio falso (Netty embebido) que responde 200 con un JSON fijo a cualquier ruta,
+ * opcionalmente con una demora para simular el tiempo de respuesta del servicio real.
+ */
+final class StubBackend implements AutoCloseable {
+
+    private final String name;
+    private final DisposableServer server;
+
+    private StubBackend(String name, DisposableServer server) {
+        this.name = name;
+        this.server = server;
+    }
+
+    /**
+     * @param port Puerto fijo (las rutas de eureka-off apuntan a localhost:8081/8082); 0 para uno libre.
+     */
+    static StubBackend start(String name, int port, Duration delay) {
+        byte[] body = ("{\"service\":\"" + name + "\",\"grupos\":[{\"id\":1,\"nombre\":\"Grupo A\"},"
+                + "{\"id\":2,\"nombre\":\"Grupo B\"},{\"id\":3,\"nombre\":\"Grupo C\"}]}").getBytes(StandardCharsets.UTF_8);
+        DisposableServer server = HttpServer.create()
+                .port(port)
+                .route(routes -> routes.route(request -> true, (request, response) -> {
+                    Mono<Void> reply = response
+                            .header("Content-Type", "application/json")
+                            .header("Content-Length", String.valueOf(body.length))
+                            .send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(body)))
+                            .then();
+                    // Consumir el cuerpo de la petición antes de responder (POST/PUT)
+                    Mono<Void> received = request.receive().then();
+                    return delay.isZero() ? received.then(reply) : received.then(Mono.delay(delay)).then(reply);
+                }))
+                .bindNow();
+        return new StubBackend(name, server);
+    }
+
+    String name() {
+        return name;
+    }
+
+    String uri() {
+        return "http://localhost:" + server.port();
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
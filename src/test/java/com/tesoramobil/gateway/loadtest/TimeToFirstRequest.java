@@ -0,0 +1,174 @@
+package com.tesoramobil.gateway.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.http.HttpHeaders;
+
+import com.tesoramobil.gateway.loadtest.GatewayLoadHarness.Request;
+
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Tiempo hasta la primera petición del jar empaquetado: lanza {@code java -jar} contra servicios falsos y mide
+ * - ready: desde el lanzamiento hasta que /actuator/health/readiness responde 200 (en el puerto de management),
+ * - first: latencia de la primera petición autenticada (JWT + política + servicio),
+ * - p50/p99/max de las siguientes {@code --requests} peticiones en serie (efecto del JIT todavía frío).
+ *
+ * Para comparar builds, empaquetar (mvn package / mvn -Pstartup package) y luego:
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.main=com.tesoramobil.gateway.loadtest.TimeToFirstRequest -Dloadtest.args="..."
+ *
+ * Argumentos: --jar=target/gateway.jar --jvm-args="-Dspring.aot.enabled=true -XX:SharedArchiveFile=..."
+ *             --app-args="--gateway.warmup.enabled=true" --rounds=3 --requests=200 --ready-path=/actuator/health/readiness
+ */
+public final class TimeToFirstRequest {
+
+    private TimeToFirstRequest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        List<long[]> rounds = new ArrayList<>();
+        System.out.printf("%-6s %10s %10s %10s %10s %10s%n", "round", "ready(ms)", "first(ms)", "p50(ms)", "p99(ms)", "max(ms)");
+        for (int round = 1; round <= options.rounds; round++) {
+            long[] result = run(options);
+            rounds.add(result);
+            System.out.printf("%-6d %10.0f %10.1f %10.2f %10.2f %10.2f%n", round, result[0] / 1e6, result[1] / 1e6,
+                    result[2] / 1e6, result[3] / 1e6, result[4] / 1e6);
+        }
+        long[] median = new long[5];
+        for (int i = 0; i < median.length; i++) {
+            int column = i;
+            median[i] = rounds.stream().mapToLong(r -> r[column]).sorted().toArray()[rounds.size() / 2];
+        }
+        System.out.printf("%-6s %10.0f %10.1f %10.2f %10.2f %10.2f%n", "median", median[0] / 1e6, median[1] / 1e6,
+                median[2] / 1e6, median[3] / 1e6, median[4] / 1e6);
+        System.exit(0);
+    }
+
+    /**
+     * @return {ready, first, p50, p99, max} en nanosegundos.
+     */
+    private static long[] run(Options options) throws IOException, InterruptedException {
+        try (StubBackend auth = StubBackend.start("auth-service", 0, Duration.ZERO);
+             StubBackend grupos = StubBackend.start("grupos-service", 0, Duration.ZERO);
+             StubBackend authServer = StubBackend.start("auth-server", 0, Duration.ZERO)) {
+            int port = freePort();
+            int managementPort = freePort();
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(options.jvmArgs);
+            command.add("-jar");
+            command.add(options.jar);
+            command.addAll(Arrays.asList(GatewayLoadHarness.gatewayArguments("oauth2", port, managementPort, auth, grupos,
+                    authServer)));
+            command.addAll(options.appArgs);
+
+            ConnectionProvider provider = ConnectionProvider.create("ttfr", 1);
+            HttpClient client = HttpClient.create(provider).baseUrl("http://localhost:" + port);
+            HttpClient management = HttpClient.create().baseUrl("http://localhost:" + managementPort);
+            long start = System.nanoTime();
+            Process gateway = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File("target/ttfr-gateway.log"))
+                    .start();
+            try {
+                long ready = awaitReady(management, options.readyPath, start, gateway) - start;
+                List<Request> requests = GatewayLoadHarness.requestsFor("oauth2");
+                long first = send(client, requests.get(0));
+                Histogram histogram = new Histogram(TimeUnit.SECONDS.toNanos(60), 3);
+                for (int i = 1; i <= options.requests; i++) {
+                    histogram.recordValue(send(client, requests.get(i % requests.size())));
+                }
+                return new long[] { ready, first, histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                        histogram.getMaxValue() };
+            } finally {
+                gateway.destroy();
+                gateway.waitFor(30, TimeUnit.SECONDS);
+                provider.disposeLater().block();
+            }
+        }
+    }
+
+    private static long awaitReady(HttpClient client, String readyPath, long start, Process gateway) throws InterruptedException {
+        while (System.nanoTime() - start < TimeUnit.MINUTES.toNanos(3)) {
+            if (!gateway.isAlive()) {
+                throw new IllegalStateException("El Gateway terminó al arrancar (ver target/ttfr-gateway.log)");
+            }
+            Integer status = client.get().uri(readyPath)
+                    .responseSingle((response, body) -> body.then().thenReturn(response.status().code()))
+                    .onErrorReturn(0)
+                    .block(Duration.ofSeconds(5));
+            if (status != null && status == 200) {
+                return System.nanoTime();
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("El Gateway no reportó readiness en 3 minutos");
+    }
+
+    private static long send(HttpClient client, Request request) {
+        long start = System.nanoTime();
+        Integer status = client
+                .headers(headers -> {
+                    if (request.authorization() != null) {
+                        headers.set(HttpHeaders.AUTHORIZATION, request.authorization());
+                    }
+                })
+                .request(request.method())
+                .uri(request.path())
+                .responseSingle((response, body) -> body.then().thenReturn(response.status().code()))
+                .block(Duration.ofSeconds(30));
+        if (status == null || status >= 400) {
+            throw new IllegalStateException(request.path() + " respondió " + status);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static final class Options {
+
+        private String jar = "target/gateway.jar";
+        private List<String> jvmArgs = List.of();
+        private List<String> appArgs = List.of();
+        private int rounds = 3;
+        private int requests = 200;
+        private String readyPath = "/actuator/health/readiness";
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+                String value = pair.length > 1 ? pair[1] : "";
+                switch (pair[0]) {
+                    case "jar" -> options.jar = value;
+                    case "jvm-args" -> options.jvmArgs = split(value);
+                    case "app-args" -> options.appArgs = split(value);
+                    case "rounds" -> options.rounds = Integer.parseInt(value);
+                    case "requests" -> options.requests = Integer.parseInt(value);
+                    case "ready-path" -> options.readyPath = value;
+                    default -> throw new IllegalArgumentException("Argumento desconocido: " + arg);
+                }
+            }
+            return options;
+        }
+
+        private static List<String> split(String value) {
+            return value.isBlank() ? List.of() : List.of(value.trim().split("\\s+"));
+        }
+    }
+}
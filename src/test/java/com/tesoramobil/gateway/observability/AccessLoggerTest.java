@@ -0,0 +1,28 @@
+package com.tesoramobil.gateway.observability;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class AccessLoggerTest {
+
+	@Test
+	void sustituyeIdentificadoresPorId() {
+		assertEquals("/grupos-service/grupos/grupo/{id}", AccessLogger.pathTemplate("/grupos-service/grupos/grupo/15"));
+		assertEquals("/auth-service/user/{id}",
+				AccessLogger.pathTemplate("/auth-service/user/3f2b8c1e-9a4d-4e6b-8f0a-1c2d3e4f5a6b"));
+		assertEquals("/auth-service/user/{id}", AccessLogger.pathTemplate("/auth-service/user/65a1f3c9e2b4"));
+		assertEquals("/auth-service/user/{id}", AccessLogger.pathTemplate("/auth-service/user/aB3xYz9QkLm2"));
+		assertEquals("/auth-service/user/{id}", AccessLogger.pathTemplate("/auth-service/user/juan123"));
+		assertEquals("/auth-service/user/{id}", AccessLogger.pathTemplate("/auth-service/user/ana@tesoramobil.com"));
+		assertEquals("/auth-service/user/{id}", AccessLogger.pathTemplate("/auth-service/user/juan.perez"));
+		assertEquals("/auth-service/user/{id}/grupos", AccessLogger.pathTemplate("/auth-service/user/maria_lopez/grupos"));
+	}
+
+	@Test
+	void conservaLosSegmentosDeLaApi() {
+		assertEquals("/grupos-service/grupos/grupos-por-rol", AccessLogger.pathTemplate("/grupos-service/grupos/grupos-por-rol"));
+		assertEquals("/auth-server/oauth2/v1/token", AccessLogger.pathTemplate("/auth-server/oauth2/v1/token"));
+		assertEquals("/auth-service/user/change/ADMIN", AccessLogger.pathTemplate("/auth-service/user/change/ADMIN"));
+	}
+}
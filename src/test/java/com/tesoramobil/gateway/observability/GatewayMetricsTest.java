@@ -0,0 +1,47 @@
+package com.tesoramobil.gateway.observability;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GatewayMetricsTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final GatewayMetrics metrics = new GatewayMetrics(registry, 2);
+
+	private long count(String route, String path) {
+		return registry.find(GatewayMetrics.EXCHANGE_TIMER).tag("route", route).tag("path", path).timers().stream()
+				.mapToLong(timer -> timer.count())
+				.sum();
+	}
+
+	@Test
+	void pathsRechazadosNoOcupanPlantillas() {
+		for (int i = 0; i < 50; i++) {
+			metrics.recordExchange("grupos-service", "/basura-" + i, AuthDecision.UNAUTHORIZED, 401, 1_000);
+			metrics.recordExchange("grupos-service", "/grupos-service/no-existe-" + i, AuthDecision.ALLOWED, 404, 1_000);
+		}
+		metrics.recordExchange("grupos-service", "/grupos-service/grupos/listar", AuthDecision.ALLOWED, 200, 1_000);
+
+		assertEquals(100, count("grupos-service", "other"));
+		assertEquals(1, count("grupos-service", "/grupos-service/grupos/listar"));
+	}
+
+	@Test
+	void elTopeEsPorRuta() {
+		metrics.recordExchange("grupos-service", "/a", AuthDecision.ALLOWED, 200, 1_000);
+		metrics.recordExchange("grupos-service", "/b", AuthDecision.ALLOWED, 200, 1_000);
+		metrics.recordExchange("grupos-service", "/c", AuthDecision.ALLOWED, 200, 1_000);
+		metrics.recordExchange("auth-service", "/user/all", AuthDecision.ALLOWED, 200, 1_000);
+		// una plantilla ya registrada se sigue usando aunque la petición falle
+		metrics.recordExchange("grupos-service", "/a", AuthDecision.FORBIDDEN, 403, 1_000);
+
+		assertEquals(1, count("grupos-service", "other"));
+		assertEquals(2, count("grupos-service", "/a"));
+		assertNotNull(registry.find(GatewayMetrics.EXCHANGE_TIMER).tag("route", "auth-service").tag("path", "/user/all").timer());
+	}
+}
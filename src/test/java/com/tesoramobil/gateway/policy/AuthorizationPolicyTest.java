@@ -0,0 +1,76 @@
+package com.tesoramobil.gateway.policy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mock.env.MockEnvironment;
+
+class AuthorizationPolicyTest {
+
+	private final MockEnvironment environment = new MockEnvironment()
+			.withProperty("gateway.policy.rules.grupos-service.USER.GET[0]", "/grupos-service/grupos/grupo")
+			.withProperty("gateway.policy.rules.auth-service.ADMIN.GET[0]", "/auth-service/user/all");
+
+	@Test
+	void compilaDesdeConfiguracion() {
+		AuthorizationPolicy policy = new AuthorizationPolicy(environment);
+
+		assertEquals(1, policy.current().version());
+		assertTrue(policy.matcher("grupos-service").allows("USER", "GET", "/grupos-service/grupos/grupo/3"));
+		assertTrue(policy.matcher("otra").match("GET", "/grupos-service/grupos/grupo").isEmpty());
+		assertFalse(policy.current().contains("otra"));
+	}
+
+	@Test
+	void recargaIntercambiaSnapshot() {
+		AuthorizationPolicy policy = new AuthorizationPolicy(environment);
+		AuthorizationPolicy.Snapshot before = policy.current();
+
+		environment.setProperty("gateway.policy.rules.grupos-service.USER.GET[0]", "/grupos-service/grupos/listar");
+		AuthorizationPolicy.Snapshot after = policy.reload();
+
+		assertEquals(2, after.version());
+		assertSame(after, policy.current());
+		assertTrue(before.matcher("grupos-service").allows("USER", "GET", "/grupos-service/grupos/grupo/3"));
+		assertFalse(after.matcher("grupos-service").allows("USER", "GET", "/grupos-service/grupos/grupo/3"));
+	}
+
+	@Test
+	void politicaInvalidaConservaSnapshot() {
+		AuthorizationPolicy policy = new AuthorizationPolicy(environment);
+
+		environment.setProperty("gateway.policy.rules.grupos-service.USER.GET[0]", "sin-barra");
+
+		assertEquals(1, policy.reload().version());
+	}
+
+	private static MapPropertySource rules(String authServiceKey) {
+		return new MapPropertySource("policy", Map.of(
+				"gateway.policy.rules.grupos-service.USER.GET[0]", "/grupos-service/grupos/grupo",
+				"gateway.policy.rules." + authServiceKey + ".ADMIN.GET[0]", "/auth-service/user/all"));
+	}
+
+	@Test
+	void sinPoliticaDeUnFiltroNoArrancaNiRecarga() {
+		StandardEnvironment typo = new StandardEnvironment();
+		typo.getPropertySources().addFirst(rules("auth-servce"));
+		assertThrows(IllegalArgumentException.class, () -> new AuthorizationPolicy(typo));
+
+		StandardEnvironment reloaded = new StandardEnvironment();
+		reloaded.getPropertySources().addFirst(rules("auth-service"));
+		AuthorizationPolicy policy = new AuthorizationPolicy(reloaded);
+		reloaded.getPropertySources().replace("policy", rules("auth-servce"));
+		AuthorizationPolicy.Snapshot kept = policy.reload();
+
+		assertEquals(1, kept.version());
+		assertTrue(kept.contains(AuthorizationPolicy.AUTH_SERVICE));
+	}
+}
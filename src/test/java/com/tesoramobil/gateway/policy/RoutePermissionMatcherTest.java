@@ -0,0 +1,39 @@
+package com.tesoramobil.gateway.policy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class RoutePermissionMatcherTest {
+
+	private final RoutePermissionMatcher matcher = RoutePermissionMatcher.fromTable(Map.of(
+			"ADMIN", Map.of("GET", List.of("/grupos-service/grupos")),
+			"USER", Map.of("GET", List.of("/grupos-service/grupos/grupo"))));
+
+	@Test
+	void prefijoPorSegmentos() {
+		assertEquals(Set.of("ADMIN"), matcher.match("GET", "/grupos-service/grupos/listar"));
+		assertEquals(Set.of("ADMIN", "USER"), matcher.match("GET", "/grupos-service/grupos/grupo/15"));
+		assertEquals(Set.of("ADMIN"), matcher.match("GET", "/grupos-service/grupos/"));
+		assertTrue(matcher.match("GET", "/grupos-service/grupos-x/listar").isEmpty());
+		assertTrue(matcher.match("GET", "/grupos-service").isEmpty());
+	}
+
+	@Test
+	void metodoSinReglas() {
+		assertTrue(matcher.match("POST", "/grupos-service/grupos/listar").isEmpty());
+	}
+
+	@Test
+	void rolNuloNuncaPermitido() {
+		assertFalse(matcher.allows(null, "GET", "/grupos-service/grupos/listar"));
+		assertTrue(matcher.allows("USER", "GET", "/grupos-service/grupos/grupo/1"));
+		assertFalse(matcher.allows("USER", "GET", "/grupos-service/grupos/listar"));
+	}
+}
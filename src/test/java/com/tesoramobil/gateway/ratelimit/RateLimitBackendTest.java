@@ -0,0 +1,47 @@
+package com.tesoramobil.gateway.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimitBackendTest {
+
+	private final RateLimitSpec spec = new RateLimitSpec(1, 3);
+
+	private void assertBurstThenReject(RateLimitBackend backend) {
+		for (int i = 0; i < 3; i++) {
+			assertTrue(backend.tryConsume("grupos-service:u:7", spec, 1).block().allowed());
+		}
+		RateLimitSpec.Decision rejected = backend.tryConsume("grupos-service:u:7", spec, 1).block();
+		assertFalse(rejected.allowed());
+		assertEquals(0, rejected.remaining());
+		assertTrue(rejected.retryAfterNanos() > 0 && rejected.retryAfterNanos() <= Duration.ofSeconds(1).toNanos());
+
+		// Otra llave tiene su propio bucket
+		assertTrue(backend.tryConsume("grupos-service:u:8", spec, 1).block().allowed());
+	}
+
+	@Test
+	void backendLocal() {
+		assertBurstThenReject(new LocalRateLimitBackend(1000, Duration.ofMinutes(1)));
+	}
+
+	@Test
+	void backendCompartidoConStoreEnProceso() {
+		InProcessSharedStateStore store = new InProcessSharedStateStore();
+
+		// Dos nodos comparten el mismo store: el bucket es común
+		SharedStoreRateLimitBackend nodeA = new SharedStoreRateLimitBackend(store);
+		SharedStoreRateLimitBackend nodeB = new SharedStoreRateLimitBackend(store);
+		assertTrue(nodeA.tryConsume("auth-server:ip:10.0.0.1", spec, 1).block().allowed());
+		assertTrue(nodeB.tryConsume("auth-server:ip:10.0.0.1", spec, 1).block().allowed());
+		assertTrue(nodeA.tryConsume("auth-server:ip:10.0.0.1", spec, 1).block().allowed());
+		assertFalse(nodeB.tryConsume("auth-server:ip:10.0.0.1", spec, 1).block().allowed());
+
+		assertBurstThenReject(nodeA);
+	}
+}
@@ -0,0 +1,41 @@
+package com.tesoramobil.gateway.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.InetSocketAddress;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+class RateLimitKeyTest {
+
+	/** Petición que llega por el ingress (10.0.0.5) con la IP del cliente en X-Forwarded-For. */
+	private static MockServerWebExchange detrasDelIngress(String forwardedFor) {
+		return MockServerWebExchange.from(MockServerHttpRequest.post("/auth-server/auth/login")
+				.remoteAddress(new InetSocketAddress("10.0.0.5", 443))
+				.header("X-Forwarded-For", forwardedFor));
+	}
+
+	@Test
+	void conUnProxyConfiableUsaLaIpQueAgregoElIngress() {
+		RemoteAddressResolver resolver = XForwardedRemoteAddressResolver.maxTrustedIndex(1);
+
+		// El cliente puede inventar entradas a la izquierda; la última la agrega el ingress
+		assertEquals("auth-server:ip:203.0.113.7",
+				RateLimitKey.IP.resolve("auth-server", detrasDelIngress("1.2.3.4, 203.0.113.7"), resolver));
+		assertEquals("auth-server:ip:198.51.100.9",
+				RateLimitKey.IP.resolve("auth-server", detrasDelIngress("198.51.100.9"), resolver));
+	}
+
+	@Test
+	void sinProxiesUsaLaDireccionDeLaConexion() {
+		RemoteAddressResolver resolver = new RemoteAddressResolver() {
+		};
+
+		assertEquals("auth-server:ip:10.0.0.5",
+				RateLimitKey.IP.resolve("auth-server", detrasDelIngress("203.0.113.7"), resolver));
+	}
+}
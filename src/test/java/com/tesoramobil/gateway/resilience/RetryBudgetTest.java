@@ -0,0 +1,34 @@
+package com.tesoramobil.gateway.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class RetryBudgetTest {
+
+	@Test
+	void losReintentosNoSuperanLaFraccionDelTrafico() {
+		RetryBudget budget = new RetryBudget(0.2, 0);
+		assertFalse(budget.tryWithdraw());
+
+		for (int i = 0; i < 100; i++) {
+			budget.deposit();
+		}
+		int retries = 0;
+		while (budget.tryWithdraw()) {
+			retries++;
+		}
+		// 100 peticiones * 0.2 = 20, pero el saldo se topa en 10 tokens
+		assertEquals(10, retries);
+	}
+
+	@Test
+	void elMinimoPorSegundoPermiteReintentarConPocoTrafico() {
+		RetryBudget budget = new RetryBudget(0.1, 2);
+		assertTrue(budget.tryWithdraw());
+		assertTrue(budget.tryWithdraw());
+		assertFalse(budget.tryWithdraw());
+	}
+}
@@ -0,0 +1,129 @@
+package com.tesoramobil.gateway.revocation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.tesoramobil.gateway.security.JwtClaimsCache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RevocationIndexTest {
+
+	private static final String SECRET = "abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnop";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final RevocationProperties properties = new RevocationProperties();
+
+	private final RevocationIndex index = new RevocationIndex(properties, registry);
+
+	private static long now() {
+		return System.currentTimeMillis() / 1000;
+	}
+
+	private static Claims claims(long userId, long issuedAt) {
+		Claims claims = Jwts.claims();
+		claims.put("id", userId);
+		claims.put(Claims.ISSUED_AT, issuedAt);
+		return claims;
+	}
+
+	@Test
+	void tokenRevocadoSeDetectaYElRestoNo() {
+		index.revokeToken(42L, 43L, now() + 60);
+
+		assertTrue(index.isRevoked(42L, 43L, claims(1, now())));
+		assertFalse(index.isRevoked(42L, 44L, claims(1, now())));
+		assertFalse(index.isRevoked(7L, 43L, claims(1, now())));
+	}
+
+	@Test
+	void usuarioRevocadoPierdeSoloLosTokensAnteriores() {
+		long cutoff = now();
+		index.revokeUser(9L, cutoff);
+
+		assertTrue(index.isRevoked(1L, 1L, claims(9, cutoff - 10)));
+		assertFalse(index.isRevoked(1L, 1L, claims(9, cutoff + 10)));
+		assertFalse(index.isRevoked(1L, 1L, claims(8, cutoff - 10)));
+	}
+
+	@Test
+	void crecePorEncimaDeLaCapacidadInicialSinPerderEntradas() {
+		for (long i = 1; i <= 10_000; i++) {
+			index.revokeToken(i * 31, i, now() + 60);
+		}
+
+		for (long i = 1; i <= 10_000; i++) {
+			assertTrue(index.isRevoked(i * 31, i, claims(1, now())));
+		}
+		assertEquals(10_000, index.stats().get("tokens"));
+	}
+
+	@Test
+	void podaDescartaRevocacionesVencidas() {
+		index.revokeToken(1L, 1L, now() - 1);
+		index.revokeToken(2L, 2L, now() + 60);
+
+		index.prune(now());
+
+		assertFalse(index.isRevoked(1L, 1L, claims(1, now())));
+		assertTrue(index.isRevoked(2L, 2L, claims(1, now())));
+		assertEquals(1, index.stats().get("tokens"));
+	}
+
+	@Test
+	void respetaElMaximoDeEntradas() {
+		properties.setMaxEntries(2);
+
+		assertTrue(index.revokeToken(1L, 1L, now() + 60));
+		assertTrue(index.revokeToken(2L, 2L, now() + 60));
+		assertFalse(index.revokeToken(3L, 3L, now() + 60));
+	}
+
+	@Test
+	void feedAplicaSoloLineasNuevasYCompletas(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("revocations.log");
+		RevocationFeed feed = new RevocationFeed(properties, index);
+		String digest = HexFormat.of().formatHex(new byte[32]).replaceFirst("^00", "ab");
+		Files.writeString(file, "# revocaciones\ntoken " + digest + " " + (now() + 60) + "\nuser 5 " + now() + "\nuser 6");
+
+		assertEquals(2, feed.poll(file));
+		assertEquals(0, feed.poll(file));
+
+		Files.writeString(file, Files.readString(file) + " " + now() + "\n");
+		assertEquals(1, feed.poll(file));
+		assertEquals(2, index.stats().get("users"));
+	}
+
+	@Test
+	void cacheDeClaimsRechazaTokenRevocadoAunqueEsteEnCache() throws Exception {
+		JwtClaimsCache cache = new JwtClaimsCache(SECRET, 100, Duration.ofMinutes(5), true, null, index, registry);
+		String token = Jwts.builder()
+				.claim("id", 3L)
+				.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+				.compact();
+		cache.verify(token);
+
+		byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+		new RevocationFeed(properties, index).apply("token " + HexFormat.of().formatHex(digest) + " " + (now() + 60));
+
+		assertThrows(RevocationIndex.RevokedTokenException.class, () -> cache.verify(token));
+	}
+}
@@ -0,0 +1,158 @@
+package com.tesoramobil.gateway.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.tesoramobil.gateway.benchmarks.GatewayFixtures;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class DynamicRouteLocatorTest {
+
+	private static final GatewayFilter NOOP = (exchange, chain) -> chain.filter(exchange);
+
+	private final MockEnvironment environment = new MockEnvironment()
+			.withProperty("gateway.routes.definitions[0].id", "grupos-service")
+			.withProperty("gateway.routes.definitions[0].uri", "lb://grupos-service")
+			.withProperty("gateway.routes.definitions[0].paths[0]", "/gateway/grupos-service/**")
+			.withProperty("gateway.routes.definitions[0].strip-prefix", "1")
+			.withProperty("gateway.routes.definitions[0].filters[0]", "auth")
+			.withProperty("gateway.routes.definitions[0].filters[1]", "resilience");
+
+	private final List<List<String>> limitArgs = new ArrayList<>();
+
+	private final RouteFilters filters = RouteFilters.builder()
+			.register("auth", NOOP)
+			.register("resilience", routeId -> NOOP)
+			.registerWithArgs("limit", (routeId, args) -> {
+				limitArgs.add(args);
+				return NOOP;
+			})
+			.build();
+
+	private final List<Object> events = new ArrayList<>();
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final List<ServiceInstance> instances = new ArrayList<>();
+
+	private DynamicRouteLocator locator() {
+		DiscoveryClient discovery = new DiscoveryClient() {
+			@Override
+			public String description() {
+				return "test";
+			}
+
+			@Override
+			public List<ServiceInstance> getInstances(String serviceId) {
+				return instances.stream().filter(instance -> instance.getServiceId().equals(serviceId)).toList();
+			}
+
+			@Override
+			public List<String> getServices() {
+				return instances.stream().map(ServiceInstance::getServiceId).distinct().toList();
+			}
+		};
+		StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("discoveryClient", discovery));
+		return new DynamicRouteLocator(environment, filters, beans.getBeanProvider(DiscoveryClient.class),
+				events::add, registry);
+	}
+
+	private static boolean matches(Route route, String method, String path) {
+		return Boolean.TRUE.equals(Mono.from(route.getPredicate().apply(GatewayFixtures.exchange(method, path, null))).block());
+	}
+
+	@Test
+	void compilaRutasDesdeConfiguracion() {
+		DynamicRouteLocator locator = locator();
+
+		List<Route> routes = locator.getRoutes().collectList().block();
+
+		assertEquals(1, routes.size());
+		Route route = routes.get(0);
+		assertEquals(URI.create("lb://grupos-service"), route.getUri());
+		assertTrue(matches(route, "GET", "/gateway/grupos-service/grupos/listar"));
+		assertFalse(matches(route, "GET", "/gateway/auth-service/user/all"));
+		// strip-prefix + los dos filtros declarados, en orden y antes de NettyWriteResponseFilter (-1)
+		assertEquals(List.of(-4, -3, -2), route.getFilters().stream().map(f -> ((OrderedGatewayFilter) f).getOrder()).toList());
+		assertEquals(1.0, registry.get("gateway.routes.count").gauge().value());
+	}
+
+	@Test
+	void recargaIntercambiaTablaYAvisaAlGateway() {
+		DynamicRouteLocator locator = locator();
+		DynamicRouteLocator.RouteTable before = locator.current();
+
+		assertSame(before, locator.reload("test")); // sin cambios: misma tabla, sin evento
+		assertTrue(events.isEmpty());
+
+		environment.setProperty("gateway.routes.definitions[0].methods[0]", "GET");
+		DynamicRouteLocator.RouteTable after = locator.reload("test");
+
+		assertEquals(2, after.version());
+		assertEquals(1, events.size());
+		assertFalse(matches(after.routes().get(0), "POST", "/gateway/grupos-service/grupos/crear"));
+		assertTrue(matches(before.routes().get(0), "POST", "/gateway/grupos-service/grupos/crear"));
+	}
+
+	@Test
+	void definicionInvalidaConservaTabla() {
+		DynamicRouteLocator locator = locator();
+
+		environment.setProperty("gateway.routes.definitions[0].filters[1]", "no-existe");
+
+		assertEquals(1, locator.reload("test").version());
+		assertEquals(1, registry.get("gateway.routes.compile").tag("result", "failure").timer().count());
+	}
+
+	@Test
+	void pasaLosArgumentosDeclaradosAlFiltro() {
+		environment.setProperty("gateway.routes.definitions[0].filters[1]", "limit=5, 10,IP");
+
+		locator();
+
+		assertEquals(List.of(List.of("5", "10", "IP")), limitArgs);
+	}
+
+	@Test
+	void argumentosEnUnFiltroQueNoLosAdmiteInvalidanLaDefinicion() {
+		DynamicRouteLocator locator = locator();
+
+		environment.setProperty("gateway.routes.definitions[0].filters[1]", "resilience=1");
+
+		assertEquals(1, locator.reload("test").version());
+	}
+
+	@Test
+	void discoveryAgregaRutasPublicadasEnMetadata() {
+		environment.setProperty("gateway.routes.discovery.enabled", "true");
+		DynamicRouteLocator locator = locator();
+
+		instances.add(new DefaultServiceInstance("a1", "AUTH-SERVICE", "localhost", 8082, false,
+				Map.of("gateway.paths", "/gateway/auth-service/**", "gateway.filters", "auth,resilience", "gateway.strip-prefix", "1")));
+		instances.add(new DefaultServiceInstance("g1", "grupos-service", "localhost", 8081, false,
+				Map.of("gateway.paths", "/otro/**")));
+		DynamicRouteLocator.RouteTable table = locator.reload("discovery");
+
+		assertEquals(List.of("grupos-service=lb://grupos-service", "auth-service=lb://auth-service"), table.describe());
+		assertTrue(matches(table.routes().get(0), "GET", "/gateway/grupos-service/grupos/listar")); // gana la configuración
+	}
+}
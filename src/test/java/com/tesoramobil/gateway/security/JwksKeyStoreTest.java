@@ -0,0 +1,140 @@
+package com.tesoramobil.gateway.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class JwksKeyStoreTest {
+
+	private static final String SECRET = "abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnop";
+
+	private final KeyPair rsa = Keys.keyPairFor(SignatureAlgorithm.RS256);
+	private final KeyPair ec = Keys.keyPairFor(SignatureAlgorithm.ES256);
+	private final AtomicReference<String> document = new AtomicReference<>();
+	private final AtomicInteger fetches = new AtomicInteger();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private JwksKeyStore store() {
+		JwksProperties properties = new JwksProperties();
+		properties.setEnabled(true);
+		properties.setUri("file:jwks.json");
+		properties.setUnknownKidCooldown(Duration.ofMinutes(1));
+		return new JwksKeyStore(properties, () -> Mono.delay(Duration.ofMillis(50))
+				.then(Mono.fromSupplier(() -> {
+					fetches.incrementAndGet();
+					return document.get();
+				})), registry);
+	}
+
+	private static String b64(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		int offset = bytes[0] == 0 && bytes.length > 1 ? 1 : 0;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(java.util.Arrays.copyOfRange(bytes, offset, bytes.length));
+	}
+
+	private String jwks(String rsaKid, String ecKid) {
+		RSAPublicKey rsaKey = (RSAPublicKey) rsa.getPublic();
+		ECPublicKey ecKey = (ECPublicKey) ec.getPublic();
+		return "{\"keys\":["
+				+ "{\"kty\":\"RSA\",\"use\":\"sig\",\"kid\":\"" + rsaKid + "\",\"n\":\"" + b64(rsaKey.getModulus()) + "\",\"e\":\"" + b64(rsaKey.getPublicExponent()) + "\"},"
+				+ "{\"kty\":\"EC\",\"crv\":\"P-256\",\"kid\":\"" + ecKid + "\",\"x\":\"" + b64(ecKey.getW().getAffineX()) + "\",\"y\":\"" + b64(ecKey.getW().getAffineY()) + "\"},"
+				+ "{\"kty\":\"RSA\",\"use\":\"enc\",\"kid\":\"cifrado\",\"n\":\"AQAB\",\"e\":\"AQAB\"}"
+				+ "]}";
+	}
+
+	private static String token(KeyPair pair, String kid, long userId) {
+		return Jwts.builder()
+				.setHeaderParam("kid", kid)
+				.claim("roles", "USER")
+				.claim("id", userId)
+				.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(pair.getPrivate())
+				.compact();
+	}
+
+	@Test
+	void verificaRs256YEs256PorKid() {
+		document.set(jwks("rsa-1", "ec-1"));
+		JwksKeyStore store = store();
+		store.refresh("test").block();
+		JwtClaimsCache cache = new JwtClaimsCache(SECRET, 100, Duration.ofMinutes(5), true, store, null, registry);
+
+		assertEquals(2, store.refresh("test").block().keys().size()); // la clave de cifrado se omite
+		assertEquals(7, cache.verifyAsync(token(rsa, "rsa-1", 7)).block().get("id", Integer.class));
+		assertEquals(8, cache.verify(token(ec, "ec-1", 8)).get("id", Integer.class));
+		// Un token firmado con otra clave bajo un kid conocido no pasa
+		assertThrows(io.jsonwebtoken.JwtException.class,
+				() -> cache.verify(token(Keys.keyPairFor(SignatureAlgorithm.RS256), "rsa-1", 9)));
+	}
+
+	@Test
+	void rotacionConKidNuevoHaceUnSoloFetch() {
+		document.set(jwks("rsa-1", "ec-1"));
+		JwksKeyStore store = store();
+		store.refresh("test").block();
+		JwtClaimsCache cache = new JwtClaimsCache(SECRET, 100, Duration.ofMinutes(5), true, store, null, registry);
+		fetches.set(0);
+
+		// auth-server rota: el mismo par ahora se publica como rsa-2
+		document.set(jwks("rsa-2", "ec-1"));
+		List<Claims> verified = Flux.range(0, 50)
+				.flatMap(i -> cache.verifyAsync(token(rsa, "rsa-2", i)))
+				.collectList()
+				.block();
+
+		assertEquals(50, verified.size());
+		assertEquals(1, fetches.get());
+	}
+
+	@Test
+	void kidDesconocidoRespetaCooldown() {
+		document.set(jwks("rsa-1", "ec-1"));
+		JwksKeyStore store = store();
+		JwtClaimsCache cache = new JwtClaimsCache(SECRET, 100, Duration.ofMinutes(5), true, store, null, registry);
+
+		assertThrows(JwksKeyStore.UnknownKeyException.class, () -> cache.verifyAsync(token(rsa, "basura-1", 1)).block());
+		assertThrows(JwksKeyStore.UnknownKeyException.class, () -> cache.verifyAsync(token(rsa, "basura-2", 1)).block());
+		assertEquals(1, fetches.get());
+	}
+
+	@Test
+	void tokenAsimetricoSinKidEsClaveDesconocida() {
+		document.set(jwks("rsa-1", "ec-1"));
+		JwksKeyStore store = store();
+		store.refresh("test").block();
+		JwtClaimsCache cache = new JwtClaimsCache(SECRET, 100, Duration.ofMinutes(5), true, store, null, registry);
+		fetches.set(0);
+
+		assertThrows(JwksKeyStore.UnknownKeyException.class, () -> cache.verify(token(rsa, null, 1)));
+		assertThrows(JwksKeyStore.UnknownKeyException.class, () -> cache.verifyAsync(token(ec, null, 1)).block());
+		assertEquals(0, fetches.get());
+	}
+
+	@Test
+	void hmacDeshabilitado() {
+		JwtClaimsCache cache = new JwtClaimsCache(SECRET, 100, Duration.ofMinutes(5), false, store(), null, registry);
+		String hmac = Jwts.builder().claim("id", 1).signWith(Keys.hmacShaKeyFor(SECRET.getBytes())).compact();
+
+		assertThrows(io.jsonwebtoken.UnsupportedJwtException.class, () -> cache.verify(hmac));
+	}
+}
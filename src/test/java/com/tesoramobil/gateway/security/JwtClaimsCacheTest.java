@@ -0,0 +1,106 @@
+package com.tesoramobil.gateway.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JwtClaimsCacheTest {
+
+	private static final String SECRET = "abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnop";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final JwtClaimsCache cache = new JwtClaimsCache(SECRET, 100, Duration.ofMinutes(5), registry);
+
+	/** Reloj de Caffeine controlado por el test (el "exp" de los tokens sigue siendo el reloj real). */
+	private final AtomicLong nanos = new AtomicLong();
+
+	private final Ticker ticker = nanos::get;
+
+	private static String token(long expiresInMillis) {
+		return token(7L, expiresInMillis);
+	}
+
+	private static String token(long userId, long expiresInMillis) {
+		return Jwts.builder()
+				.claim("roles", "ADMIN")
+				.claim("id", userId)
+				.setExpiration(new Date(System.currentTimeMillis() + expiresInMillis))
+				.signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+				.compact();
+	}
+
+	@Test
+	void segundaVerificacionSaleDeCache() {
+		String token = token(60_000);
+
+		Claims first = cache.verify(token);
+		Claims second = cache.verify(token);
+
+		assertSame(first, second);
+		assertEquals("ADMIN", second.get("roles", String.class));
+		assertEquals(1.0, registry.get("cache.gets").tag("cache", "jwt-claims").tag("result", "hit").functionCounter().count());
+	}
+
+	@Test
+	void ttlTopadoPorElExpDelToken() {
+		JwtClaimsCache cache = new JwtClaimsCache(SECRET, 100, Duration.ofMinutes(5), ticker, Runnable::run, registry);
+		String token = token(Duration.ofMinutes(2).toMillis());
+		Claims first = cache.verify(token);
+
+		nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+		assertSame(first, cache.verify(token));
+
+		// Vence con el exp (2 min), antes que max-ttl (5 min)
+		nanos.addAndGet(Duration.ofSeconds(61).toNanos());
+		assertNotSame(first, cache.verify(token));
+	}
+
+	@Test
+	void ttlTopadoPorMaxTtl() {
+		JwtClaimsCache cache = new JwtClaimsCache(SECRET, 100, Duration.ofMinutes(5), ticker, Runnable::run, registry);
+		String token = token(Duration.ofHours(1).toMillis());
+		Claims first = cache.verify(token);
+
+		nanos.addAndGet(Duration.ofMinutes(5).plusSeconds(1).toNanos());
+		assertNotSame(first, cache.verify(token));
+	}
+
+	@Test
+	void expulsaPorTamano() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry(); // el del campo ya tiene registrado el cache de 100
+		JwtClaimsCache cache = new JwtClaimsCache(SECRET, 2, Duration.ofMinutes(5), ticker, Runnable::run, registry);
+		for (int i = 0; i < 5; i++) {
+			cache.verify(token(i, 60_000));
+		}
+
+		assertEquals(3.0, registry.get("cache.evictions").tag("cache", "jwt-claims").functionCounter().count());
+		assertEquals(2.0, registry.get("cache.size").tag("cache", "jwt-claims").gauge().value());
+	}
+
+	@Test
+	void tokenExpiradoNoSeCachea() {
+		assertThrows(ExpiredJwtException.class, () -> cache.verify(token(-60_000)));
+	}
+
+	@Test
+	void unParserPorClave() {
+		assertSame(cache.parserFor(SECRET), cache.parserFor(SECRET));
+	}
+}
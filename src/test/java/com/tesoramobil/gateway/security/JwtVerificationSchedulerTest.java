@@ -0,0 +1,106 @@
+package com.tesoramobil.gateway.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.tesoramobil.gateway.security.JwtVerificationProperties.Mode;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+class JwtVerificationSchedulerTest {
+
+	private static final String SECRET = "abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnop";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final JwtVerificationProperties properties = new JwtVerificationProperties();
+
+	private JwtVerificationScheduler scheduler;
+
+	@AfterEach
+	void cerrar() {
+		if (scheduler != null) {
+			scheduler.destroy();
+		}
+	}
+
+	private JwtVerificationScheduler scheduler(Mode mode) {
+		properties.setMode(mode);
+		scheduler = new JwtVerificationScheduler(properties, registry);
+		return scheduler;
+	}
+
+	private static String hmacToken() {
+		return Jwts.builder()
+				.claim("id", 7L)
+				.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+				.compact();
+	}
+
+	@Test
+	void autoDejaHmacChicoInlineYDescargaAsimetricosYTokensGrandes() {
+		JwtVerificationScheduler auto = scheduler(Mode.AUTO);
+
+		assertFalse(auto.offloads(true, 300));
+		assertTrue(auto.offloads(true, 8192));
+		assertTrue(auto.offloads(false, 300));
+	}
+
+	@Test
+	void offloadVerificaEnElSchedulerDedicado() {
+		JwtVerificationScheduler offload = scheduler(Mode.OFFLOAD);
+
+		String thread = offload.execute(() -> Thread.currentThread().getName()).block(Duration.ofSeconds(5));
+
+		assertTrue(thread.startsWith("jwt-verify"), thread);
+	}
+
+	@Test
+	void laCadenaSigueFueraDelSchedulerYSinContarComoPendiente() {
+		JwtClaimsCache cache = new JwtClaimsCache(SECRET, 100, Duration.ofMinutes(5), true, null, null,
+				scheduler(Mode.OFFLOAD), registry);
+
+		String thread = cache.verifyAsync(hmacToken())
+				.map(claims -> {
+					assertEquals(0, scheduler.pending());
+					return Thread.currentThread().getName();
+				})
+				.block(Duration.ofSeconds(5));
+
+		assertFalse(thread.startsWith("jwt-verify"), thread);
+		assertEquals(0, scheduler.pending());
+	}
+
+	@Test
+	void saturadoRechazaSinEncolar() throws InterruptedException {
+		properties.setThreads(1);
+		properties.setMaxPending(1);
+		JwtVerificationScheduler saturated = scheduler(Mode.OFFLOAD);
+		CountDownLatch release = new CountDownLatch(1);
+		Mono<Boolean> blocked = saturated.execute(() -> release.await(5, TimeUnit.SECONDS));
+		blocked.subscribe();
+
+		assertThrows(JwtVerificationScheduler.SaturatedException.class,
+				() -> saturated.execute(() -> true).block(Duration.ofSeconds(5)));
+		assertEquals(1.0, registry.get("gateway.jwt.verification.rejected").counter().count());
+
+		release.countDown();
+		assertTrue(saturated.execute(() -> true).retryWhen(Retry.fixedDelay(50, Duration.ofMillis(10))).block(Duration.ofSeconds(5)));
+	}
+}
@@ -0,0 +1,162 @@
+package com.tesoramobil.gateway.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.tesoramobil.gateway.observability.RequestTraceId;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+class TracerTest {
+
+	private static final String PARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final TracingProperties properties = new TracingProperties();
+
+	private final InMemorySpanExporter exporter = new InMemorySpanExporter(100);
+
+	private final Tracer tracer = new Tracer(properties, exporter, registry);
+
+	private static MockServerWebExchange exchange(String traceparent) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/grupos-service/api/grupos/7");
+		if (traceparent != null) {
+			request.header(Traceparent.HEADER, traceparent);
+		}
+		return MockServerWebExchange.from(request);
+	}
+
+	private Map<String, SpanData> exported() {
+		return exporter.spans().stream().collect(Collectors.toMap(SpanData::name, Function.identity()));
+	}
+
+	@Test
+	void traceparentSeValidaYSeFormatea() {
+		Traceparent parsed = Traceparent.parse(PARENT);
+
+		assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", parsed.traceId());
+		assertTrue(parsed.sampled());
+		assertEquals(PARENT, Traceparent.format(parsed.traceId(), parsed.spanId(), true));
+		assertNull(Traceparent.parse("00-00000000000000000000000000000000-00f067aa0ba902b7-01"));
+		assertNull(Traceparent.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01"));
+		assertNull(Traceparent.parse("ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+		assertNull(Traceparent.parse("00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01"));
+		assertEquals("4bf92f3577b34da6a3ce929d0e0e4736",
+				Traceparent.parse("01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00-extra").traceId());
+	}
+
+	@Test
+	void continuaLaTrazaDelClienteYExportaLosSpansHijos() {
+		properties.setRespectParentSampling(true);
+		MockServerWebExchange exchange = exchange(PARENT);
+		long t0 = System.nanoTime();
+		RequestTrace trace = tracer.begin(exchange, t0);
+		RequestTrace.start(exchange, SpanName.AUTH, t0 + 1_000);
+		RequestTrace.record(exchange, SpanName.JWT_VERIFICATION, t0 + 2_000, t0 + 50_000);
+		RequestTrace.end(exchange, SpanName.AUTH, t0 + 60_000);
+		exchange.getResponse().setStatusCode(HttpStatus.OK);
+		tracer.finish(trace, exchange, false, t0 + 100_000);
+
+		assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", RequestTraceId.of(exchange));
+		assertTrue(trace.traceparent().startsWith("00-4bf92f3577b34da6a3ce929d0e0e4736-"));
+		assertNotEquals(PARENT, trace.traceparent());
+		Map<String, SpanData> spans = exported();
+		assertEquals("00f067aa0ba902b7", spans.get("gateway").parentSpanId());
+		assertEquals(spans.get("gateway").spanId(), spans.get("auth.filter").parentSpanId());
+		assertEquals(spans.get("auth.filter").spanId(), spans.get("auth.jwt-verification").parentSpanId());
+		assertEquals(48, spans.get("auth.jwt-verification").durationMicros());
+		assertEquals("200", spans.get("gateway").attributes().get("http.status_code"));
+	}
+
+	@Test
+	void porDefectoNoSeRespetaElFlagSampledDelCliente() {
+		properties.setSampleRate(0);
+		MockServerWebExchange exchange = exchange(PARENT);
+		long t0 = System.nanoTime();
+		RequestTrace trace = tracer.begin(exchange, t0);
+		exchange.getResponse().setStatusCode(HttpStatus.OK);
+		tracer.finish(trace, exchange, false, t0 + 100_000);
+
+		assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", RequestTraceId.of(exchange));
+		assertTrue(trace.traceparent().endsWith("-00"));
+		assertTrue(exporter.spans().isEmpty());
+	}
+
+	@Test
+	void sinMuestreoHeadSoloSeExportanErroresYLentas() {
+		properties.setSampleRate(0);
+		long t0 = System.nanoTime();
+
+		MockServerWebExchange ok = exchange(null);
+		ok.getResponse().setStatusCode(HttpStatus.OK);
+		RequestTrace fast = tracer.begin(ok, t0);
+		assertTrue(fast.traceparent().endsWith("-00"));
+		tracer.finish(fast, ok, false, t0 + TimeUnit.MILLISECONDS.toNanos(5));
+		assertTrue(exporter.spans().isEmpty());
+
+		MockServerWebExchange failed = exchange(null);
+		failed.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+		tracer.finish(tracer.begin(failed, t0), failed, false, t0 + TimeUnit.MILLISECONDS.toNanos(5));
+		assertTrue(exported().get("gateway").error());
+
+		exporter.clear();
+		MockServerWebExchange slow = exchange(null);
+		slow.getResponse().setStatusCode(HttpStatus.OK);
+		tracer.finish(tracer.begin(slow, t0), slow, false, t0 + TimeUnit.SECONDS.toNanos(2));
+		assertFalse(exported().get("gateway").error());
+		assertEquals(1.0, registry.get("gateway.tracing.traces").tag("decision", "dropped").counter().count());
+	}
+
+	@Test
+	void elServicioRecibeComoPadreElSpanUpstreamResponse() {
+		properties.setRespectParentSampling(true);
+		DisposableServer server = HttpServer.create()
+				.host("127.0.0.1")
+				.port(0)
+				.handle((request, response) -> response.sendString(Mono.just(request.requestHeaders().get(Traceparent.HEADER))))
+				.bindNow();
+		try {
+			MockServerWebExchange exchange = exchange(PARENT);
+			RequestTrace trace = tracer.begin(exchange, System.nanoTime());
+			trace.start(SpanName.UPSTREAM_ACQUIRE, System.nanoTime());
+			HttpClient client = new TracingHttpClientCustomizer().customize(HttpClient.create())
+					.headers(headers -> headers.set(Traceparent.HEADER, trace.traceparent()));
+
+			String received = client.get()
+					.uri("http://127.0.0.1:" + server.port() + "/grupos")
+					.responseContent()
+					.aggregate()
+					.asString()
+					.contextWrite(trace::into)
+					.block();
+			tracer.finish(trace, exchange, false, System.nanoTime());
+
+			List<SpanData> spans = exporter.spans();
+			SpanData upstream = exported().get("upstream.response");
+			assertEquals(Traceparent.format(trace.traceId(), Long.parseUnsignedLong(upstream.spanId(), 16), true), received);
+			assertTrue(upstream.attributes().get("net.peer").contains("127.0.0.1"));
+			assertEquals(List.of("gateway", "upstream.acquire", "upstream.response"), spans.stream().map(SpanData::name).toList());
+		} finally {
+			server.disposeNow();
+		}
+	}
+}
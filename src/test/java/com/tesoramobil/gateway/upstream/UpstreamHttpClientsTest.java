@@ -0,0 +1,117 @@
+package com.tesoramobil.gateway.upstream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+class UpstreamHttpClientsTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final DisposableServer server = HttpServer.create()
+			.host("127.0.0.1")
+			.port(0)
+			.protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+			.handle((request, response) -> response.sendString(Mono.just(request.protocol())))
+			.bindNow();
+
+	private UpstreamHttpClients clients;
+
+	@AfterEach
+	void cerrar() {
+		if (clients != null) {
+			clients.destroy();
+		}
+		server.disposeNow();
+	}
+
+	private UpstreamHttpClients clients(Map<String, UpstreamPoolProperties.Pool> pools) {
+		return clients(pools, new DefaultListableBeanFactory());
+	}
+
+	private UpstreamHttpClients clients(Map<String, UpstreamPoolProperties.Pool> pools, DefaultListableBeanFactory beans) {
+		UpstreamPoolProperties properties = new UpstreamPoolProperties();
+		properties.getRoutes().putAll(pools);
+		HttpClientProperties httpClientProperties = new HttpClientProperties();
+		ServerProperties serverProperties = new ServerProperties();
+		clients = new UpstreamHttpClients(properties, httpClientProperties, serverProperties,
+				new HttpClientSslConfigurer(httpClientProperties.getSsl(), serverProperties),
+				beans.getBeanProvider(HttpClientCustomizer.class), registry);
+		return clients;
+	}
+
+	private String get(HttpClient client) {
+		return client.get()
+				.uri("http://127.0.0.1:" + server.port() + "/grupos")
+				.responseContent()
+				.aggregate()
+				.asString()
+				.contextWrite(UpstreamHttpClients::markAcquireStart)
+				.block();
+	}
+
+	@Test
+	void h2cMultiplexaHaciaElServicio() {
+		UpstreamPoolProperties.Pool pool = new UpstreamPoolProperties.Pool();
+		pool.setProtocol(UpstreamPoolProperties.Protocol.H2C);
+		HttpClient client = clients(Map.of("grupos-service", pool)).forRoute("grupos-service");
+
+		assertEquals("HTTP/2.0", get(client));
+		assertEquals("HTTP/2.0", get(client));
+	}
+
+	@Test
+	void cadaRutaTieneSuPoolConGaugesYTimerDeAdquisicion() {
+		UpstreamPoolProperties.Pool pool = new UpstreamPoolProperties.Pool();
+		pool.setMaxConnections(7);
+		HttpClient client = clients(Map.of("auth-service", pool)).forRoute("auth-service");
+
+		assertEquals("HTTP/1.1", get(client));
+		assertEquals(7, client.configuration().connectionProvider().maxConnections());
+		assertEquals(1, registry.get("gateway.upstream.acquire").tag("route", "auth-service").timer().count());
+		assertNotNull(registry.find("gateway.upstream.pool.active").tag("route", "auth-service").gauge());
+		assertEquals(1.0, registry.get("gateway.upstream.pool.allocated").tag("route", "auth-service").gauge().value());
+	}
+
+	@Test
+	void rutaSinPoolUsaElClienteGlobal() {
+		UpstreamHttpClients clients = clients(Map.of());
+
+		assertNull(clients.forRoute("auth-server"));
+		assertNull(registry.find("gateway.upstream.acquire").timer());
+	}
+
+	@Test
+	void aplicaLosHttpClientCustomizerDelContexto() {
+		// HttpClientFactory ordena la lista de customizers: no puede recibir una lista inmutable
+		AtomicInteger customized = new AtomicInteger();
+		DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+		beans.registerSingleton("uno", (HttpClientCustomizer) client -> {
+			customized.incrementAndGet();
+			return client;
+		});
+		beans.registerSingleton("dos", (HttpClientCustomizer) client -> client);
+		HttpClient client = clients(Map.of("grupos-service", new UpstreamPoolProperties.Pool()), beans).forRoute("grupos-service");
+
+		assertEquals("HTTP/1.1", get(client));
+		assertEquals(1, customized.get());
+	}
+}
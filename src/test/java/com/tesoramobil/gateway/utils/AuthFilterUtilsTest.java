@@ -0,0 +1,52 @@
+package com.tesoramobil.gateway.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.tesoramobil.gateway.observability.AuthDecision;
+import com.tesoramobil.gateway.observability.RequestTraceId;
+
+class AuthFilterUtilsTest {
+
+	@Test
+	void extraeTokenBearer() {
+		assertEquals("abc.def.ghi", AuthFilterUtils.bearerToken("Bearer abc.def.ghi"));
+		assertEquals("abc.def.ghi", AuthFilterUtils.bearerToken("bearer abc.def.ghi"));
+		assertEquals("abc.def.ghi", AuthFilterUtils.bearerToken("  BEARER \t abc.def.ghi  "));
+	}
+
+	@Test
+	void rechazaFormatosInvalidos() {
+		assertNull(AuthFilterUtils.bearerToken(null));
+		assertNull(AuthFilterUtils.bearerToken(""));
+		assertNull(AuthFilterUtils.bearerToken("Bearer"));
+		assertNull(AuthFilterUtils.bearerToken("Bearer   "));
+		assertNull(AuthFilterUtils.bearerToken("Bearerabc.def.ghi"));
+		assertNull(AuthFilterUtils.bearerToken("Basic dXN1YXJpbzpjbGF2ZQ=="));
+		assertNull(AuthFilterUtils.bearerToken("Bearer abc def"));
+	}
+
+	@Test
+	void errorJsonPrecodificadoYCompartido() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/grupos-service/grupos/listar")
+				.header("traceparent", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01"));
+
+		AuthFilterUtils.onError(exchange, HttpStatus.UNAUTHORIZED, "Invalid or expired token.").block();
+
+		assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+		assertEquals(MediaType.APPLICATION_JSON, exchange.getResponse().getHeaders().getContentType());
+		assertEquals("{\"status\":401,\"error\":\"Unauthorized\",\"message\":\"Invalid or expired token.\"}",
+				exchange.getResponse().getBodyAsString().block());
+		assertEquals(AuthDecision.UNAUTHORIZED, AuthDecision.of(exchange));
+		assertEquals("0af7651916cd43dd8448eb211c80319c", exchange.getResponse().getHeaders().getFirst(RequestTraceId.HEADER));
+		assertSame(PreEncodedError.of(HttpStatus.UNAUTHORIZED, "Invalid or expired token."),
+				PreEncodedError.of(HttpStatus.UNAUTHORIZED, "Invalid or expired token."));
+	}
+}
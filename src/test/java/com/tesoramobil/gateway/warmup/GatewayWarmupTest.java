@@ -0,0 +1,92 @@
+package com.tesoramobil.gateway.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+class GatewayWarmupTest {
+
+	private static final String SECRET = "clave-de-prueba-de-al-menos-32-bytes-para-hs256";
+
+	private final Queue<Map<String, String>> received = new ConcurrentLinkedQueue<>();
+
+	private final DisposableServer gateway = HttpServer.create()
+			.host("127.0.0.1")
+			.port(0)
+			.handle((request, response) -> {
+				received.add(Map.of(
+						"path", request.uri(),
+						"nonce", String.valueOf(request.requestHeaders().get(GatewayWarmup.HEADER)),
+						"authorization", String.valueOf(request.requestHeaders().get(HttpHeaders.AUTHORIZATION))));
+				return response.status(HttpResponseStatus.FORBIDDEN).send();
+			})
+			.bindNow();
+
+	private final WarmupProperties properties = new WarmupProperties();
+
+	@AfterEach
+	void cerrar() {
+		gateway.disposeNow();
+	}
+
+	private void calentar() {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("local.server.port", String.valueOf(gateway.port()));
+		new GatewayWarmup(properties, environment, SECRET).run(new DefaultApplicationArguments());
+	}
+
+	@Test
+	void deshabilitadoNoEnviaPeticiones() {
+		calentar();
+
+		assertTrue(received.isEmpty());
+	}
+
+	@Test
+	void recorrePathsYVariantesDeToken() {
+		properties.setEnabled(true);
+		properties.setRequests(40);
+		properties.setPaths(List.of("/gateway/a", "/gateway/b"));
+
+		calentar();
+
+		assertEquals(40, received.size());
+		assertEquals(20, received.stream().filter(r -> r.get("path").equals("/gateway/a")).count());
+		assertEquals(10, received.stream().filter(r -> r.get("authorization").equals("null")).count());
+		// un token nuevo por vuelta más el falsificado; el repetido puede coincidir con el primero
+		assertTrue(received.stream().map(r -> r.get("authorization"))
+				.filter(a -> !a.equals("null")).distinct().count() >= 10 + 1);
+	}
+
+	@Test
+	void reconocePeticionesPropiasPorElNonce() {
+		properties.setEnabled(true);
+		properties.setRequests(4);
+
+		calentar();
+
+		String nonce = received.peek().get("nonce");
+		assertTrue(GatewayWarmup.isWarmup(MockServerWebExchange.from(
+				MockServerHttpRequest.get("/gateway/a").header(GatewayWarmup.HEADER, nonce))));
+		assertFalse(GatewayWarmup.isWarmup(MockServerWebExchange.from(
+				MockServerHttpRequest.get("/gateway/a").header(GatewayWarmup.HEADER, "otro"))));
+		assertFalse(GatewayWarmup.isWarmup(MockServerWebExchange.from(MockServerHttpRequest.get("/gateway/a"))));
+	}
+}